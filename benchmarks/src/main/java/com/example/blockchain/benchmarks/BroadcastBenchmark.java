@@ -0,0 +1,63 @@
+package com.example.blockchain.benchmarks;
+
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.network.Node;
+import com.example.blockchain.network.P2PNetwork;
+import com.example.blockchain.transactions.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of gossiping a transaction to every node of an in-process network, against the network size.
+ * Nodes are connected in a bounded-degree random topology and announce transactions without batching delay,
+ * so the measurement is the relay work itself.
+ * The network is rebuilt for every iteration, so pending pools and seen caches do not grow across iterations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BroadcastBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int networkSize;
+
+    private P2PNetwork network;
+    private long amount;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        network = new P2PNetwork();
+        for (int i = 0; i < networkSize; i++) {
+            Node node = new Node(String.format("Node%04d", i), new Blockchain(1));
+            node.setTransactionAnnounceWindow(0);
+            network.addNodeToNetwork(node);
+        }
+        network.buildRandomTopology(4, 8, 1L);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        network.stopAll();
+    }
+
+    @Benchmark
+    public void broadcastTransaction() {
+        network.broadcastTransactionToNetwork(new Transaction("Alice", "Bob", ++amount));
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.blockchain.benchmarks;
+
+import com.example.blockchain.transactions.AccountState;
+import com.example.blockchain.transactions.ParallelTransactionExecutor;
+import com.example.blockchain.transactions.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to apply a block of transfers to the account state, one at a time in block order or in conflict groups
+ * on a pool of the given number of threads. Fewer accounts mean more transactions in conflict and larger groups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ExecutionBenchmark {
+
+    @Param({"100000"})
+    public int blockSize;
+
+    @Param({"1000", "1000000"})
+    public int accounts;
+
+    @Param({"4"})
+    public int threads;
+
+    private List<Transaction> transactions;
+    private AccountState state;
+    private ForkJoinPool pool;
+    private ParallelTransactionExecutor executor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        transactions = new ArrayList<>();
+        for (int i = 0; i < blockSize; i++) {
+            transactions.add(new Transaction("Account" + random.nextInt(accounts), "Account" + random.nextInt(accounts),
+                    1 + random.nextInt(100)));
+        }
+        state = new AccountState();
+        for (int i = 0; i < accounts; i++) {
+            state.credit("Account" + i, 1e12);  // Enough for every iteration
+        }
+        pool = new ForkJoinPool(threads);
+        executor = new ParallelTransactionExecutor(pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public boolean[] sequential() {
+        return state.applyAll(transactions);
+    }
+
+    @Benchmark
+    public boolean[] parallel() {
+        return executor.execute(state, transactions);
+    }
+}
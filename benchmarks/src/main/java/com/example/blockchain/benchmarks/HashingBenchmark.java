@@ -0,0 +1,67 @@
+package com.example.blockchain.benchmarks;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.cryptography.Hash256;
+import com.example.blockchain.cryptography.StringUtil;
+import com.example.blockchain.transactions.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of SHA-256 hashing: raw strings of several sizes, block header hashes and Merkle roots.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashingBenchmark {
+
+    // Length of the hashed string in characters
+    @Param({"64", "1024"})
+    public int inputLength;
+
+    private String input;
+    private Block block;
+    private List<Transaction> transactions;
+
+    @Setup
+    public void setUp() {
+        input = "a".repeat(inputLength);
+        transactions = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            transactions.add(new Transaction("Alice", "Bob", i));
+        }
+        block = new Block(transactions, Hash256.sha256("parent".getBytes(StandardCharsets.UTF_8)), 0L);
+    }
+
+    @Benchmark
+    public String sha256() {
+        return StringUtil.applySha256(input);
+    }
+
+    @Benchmark
+    public Hash256 blockHash() {
+        return block.calculateHash();
+    }
+
+    @Benchmark
+    public Hash256 merkleRoot() {
+        return Block.calculateMerkleRoot(transactions);
+    }
+}
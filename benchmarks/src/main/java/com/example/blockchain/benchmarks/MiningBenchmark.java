@@ -0,0 +1,74 @@
+package com.example.blockchain.benchmarks;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.cryptography.Hash256;
+import com.example.blockchain.transactions.Transaction;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Proof of Work mining at several difficulties. Besides blocks per second, the {@code hashes} counter
+ * reports the hashrate (hashes per second), which does not depend on how lucky the nonce search was.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class MiningBenchmark {
+
+    /**
+     * Counts the hashes computed while mining, reported by JMH as a rate.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class HashCounter {
+        public long hashes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hashes = 0;
+        }
+    }
+
+    // Number of leading zeros required in the block hash
+    @Param({"1", "2", "3", "4"})
+    public int difficulty;
+
+    private List<Transaction> transactions;
+    private Hash256 previousHash;
+    private long timeStamp;
+
+    @Setup
+    public void setUp() {
+        transactions = new ArrayList<>();
+        transactions.add(new Transaction("Alice", "Bob", 10));
+        previousHash = Hash256.sha256("parent".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public Block mineBlock(HashCounter counter) {
+        // A new timestamp per block gives every invocation a fresh nonce search
+        Block block = new Block(transactions, previousHash, timeStamp++);
+        block.mineBlock(difficulty);
+        counter.hashes += block.getNonce() + 1L;
+        return block;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.blockchain.benchmarks;
+
+import com.example.blockchain.blockchain.BlockHeader;
+import com.example.blockchain.cryptography.Hash256;
+import com.example.blockchain.mining.HeaderMidstate;
+import com.example.blockchain.mining.MiningKernel;
+import com.example.blockchain.mining.MiningKernels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-thread hashrate of the mining kernels (hashes per second). The target can never be met, so every nonce
+ * of the range is hashed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class MiningKernelBenchmark {
+
+    // Nonces hashed per invocation
+    private static final int NONCES = 4096;
+
+    @Param({"scalar", "vector4", "vector8", "vector16"})
+    public String kernelName;
+
+    private MiningKernel kernel;
+    private HeaderMidstate midstate;
+
+    @Setup
+    public void setUp() {
+        kernel = MiningKernels.select(kernelName);
+        Hash256 parent = Hash256.sha256("parent".getBytes(StandardCharsets.UTF_8));
+        midstate = HeaderMidstate.of(BlockHeader.serialize(parent, parent, 0L, 0, null, 0L));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NONCES)
+    public long kernel() {
+        return kernel.search(midstate, 0, NONCES, 256);
+    }
+}
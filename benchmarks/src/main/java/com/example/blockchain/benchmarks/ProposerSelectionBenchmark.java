@@ -0,0 +1,75 @@
+package com.example.blockchain.benchmarks;
+
+import com.example.blockchain.consensus.PoSConsensus;
+import com.example.blockchain.consensus.ProposerSchedule;
+import com.example.blockchain.consensus.StakeLedger;
+import com.example.blockchain.consensus.StakeSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Proof of Stake proposer selection against the number of validators: computing a whole epoch's schedule,
+ * and looking up the proposer of a slot (with the epoch's schedule already cached).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProposerSelectionBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int validatorCount;
+
+    private StakeSnapshot snapshot;
+    private StakeLedger stakeLedger;
+    private long epoch;
+    private long slot;
+
+    @Setup
+    public void setUp() {
+        Map<String, Double> stakes = new HashMap<>();
+        for (int i = 0; i < validatorCount; i++) {
+            stakes.put("Validator" + i, 1.0 + i % 100);
+        }
+        stakeLedger = new StakeLedger(stakes);
+        snapshot = stakeLedger.snapshot();
+    }
+
+    @Benchmark
+    public ProposerSchedule computeSchedule() {
+        return ProposerSchedule.compute(epoch++, PoSConsensus.SLOTS_PER_EPOCH, snapshot);
+    }
+
+    @Benchmark
+    public String proposerLookup(PoSState state) {
+        return state.consensus.getProposerForSlot(slot++ % PoSConsensus.SLOTS_PER_EPOCH);
+    }
+
+    /**
+     * A PoS consensus instance over the benchmark's validators; creating it is kept out of the measurement.
+     */
+    @State(Scope.Thread)
+    public static class PoSState {
+        PoSConsensus consensus;
+
+        @Setup
+        public void setUp(ProposerSelectionBenchmark benchmark) {
+            consensus = new PoSConsensus(benchmark.stakeLedger, new HashMap<>());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.blockchain.benchmarks;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.consensus.PoWConsensus;
+import com.example.blockchain.transactions.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation cost: checking a whole chain against its length, and checking a single block under Proof of Work.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private static final int DIFFICULTY = 2;
+
+    // Number of blocks after the genesis block
+    @Param({"10", "100", "1000"})
+    public int chainLength;
+
+    private Blockchain blockchain;
+    private Block latestBlock;
+    private final PoWConsensus consensus = new PoWConsensus();
+
+    @Setup
+    public void setUp() {
+        blockchain = new Blockchain(DIFFICULTY);
+        for (int i = 0; i < chainLength; i++) {
+            List<Transaction> transactions = new ArrayList<>();
+            for (int t = 1; t <= 10; t++) {
+                transactions.add(new Transaction("Alice", "Bob", i * 10 + t));
+            }
+            blockchain.addBlock(new Block(transactions, blockchain.getLatestBlock().getHash(), i + 1L));
+        }
+        latestBlock = blockchain.getLatestBlock();
+    }
+
+    @Benchmark
+    public boolean isChainValid() {
+        return blockchain.isChainValid();
+    }
+
+    @Benchmark
+    public boolean validateBlock() {
+        return consensus.validateBlock(latestBlock, DIFFICULTY);
+    }
+}
@@ -1,9 +1,21 @@
 package com.example.blockchain.blockchain;
 
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import com.example.blockchain.cryptography.StringUtil;
+import com.example.blockchain.cryptography.CryptoUtil;
+import com.example.blockchain.cryptography.Hash256;
+import com.example.blockchain.metrics.Counter;
+import com.example.blockchain.metrics.Histogram;
+import com.example.blockchain.metrics.MetricsRegistry;
+import com.example.blockchain.mining.HeaderMidstate;
+import com.example.blockchain.mining.MiningKernel;
+import com.example.blockchain.mining.MiningKernels;
 import com.example.blockchain.transactions.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * The Block class represents a single block in the blockchain.
@@ -12,21 +24,50 @@ import com.example.blockchain.transactions.Transaction;
  */
 public class Block {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(Block.class);
+
+    // Hashes computed while mining, and time spent mining each block (process-wide, see MetricsRegistry)
+    private static final Counter MINING_HASHES = MetricsRegistry.getDefault().counter("mining.hashes");
+    private static final Histogram MINING_DURATION = MetricsRegistry.getDefault().histogram("mining.duration");
+
+    // Number of nonces handed to the mining kernel at once
+    private static final int MINING_BATCH = 1 << 16;
+
+    static {
+        // Hashes per second of mining time
+        MetricsRegistry.getDefault().gauge("mining.hashrate", () -> {
+            long nanos = MINING_DURATION.snapshot().getSum();
+            return nanos == 0 ? 0.0 : MINING_HASHES.getCount() * 1e9 / nanos;
+        });
+    }
+
     // Hash of the current block
-    private String hash;
+    private Hash256 hash;
 
     // Hash of the previous block (linking to the blockchain)
-    private final String previousHash;
+    private final Hash256 previousHash;
 
     // List of transactions included in the block
     private final List<Transaction> transactions;
 
+    // Merkle root of the transactions' hashes, committed to by the block hash
+    private final Hash256 merkleRoot;
+
     // Timestamp when the block was created
     private final long timeStamp;
 
     // A nonce used for mining purposes (incremented to find a valid hash)
     private int nonce;
 
+    // Address of the validator that proposed this block (null for unsigned blocks, e.g. PoW)
+    private String proposer;
+
+    // Consensus slot the block was proposed for (only meaningful when a proposer is set)
+    private long slot;
+
+    // Proposer's signature over the block hash (Base64)
+    private String signature;
+
     /**
      * Constructor for the Block class.
      * Initializes the block with a list of transactions and the previous block's hash.
@@ -34,40 +75,179 @@ public class Block {
      * @param transactions  List of transactions to be included in this block
      * @param previousHash  The hash of the previous block in the chain
      */
-    public Block(List<Transaction> transactions, String previousHash) {
+    public Block(List<Transaction> transactions, Hash256 previousHash) {
+        this(transactions, previousHash, new Date().getTime());
+    }
+
+    /**
+     * Constructor for a block with a fixed timestamp (e.g. the genesis block, which must be identical on every node).
+     *
+     * @param transactions  List of transactions to be included in this block
+     * @param previousHash  The hash of the previous block in the chain
+     * @param timeStamp     The creation timestamp in milliseconds since the epoch
+     */
+    public Block(List<Transaction> transactions, Hash256 previousHash, long timeStamp) {
         this.transactions = transactions;
         this.previousHash = previousHash;
-        this.timeStamp = new Date().getTime();
+        this.timeStamp = timeStamp;
+        this.merkleRoot = calculateMerkleRoot(transactions);
         this.hash = calculateHash();  // Calculate the initial hash
     }
 
     /**
-     * Calculates the hash of the block by concatenating the previousHash, timeStamp, nonce, and transactions.
+     * Constructor that rebuilds a block received from another node.
+     * The hash is recomputed from the given fields rather than trusted; the Merkle root is taken as received,
+     * so a body that does not match its header can be detected with {@link #hasValidMerkleRoot()}.
+     *
+     * @param transactions  List of transactions included in the block
+     * @param previousHash  The hash of the previous block in the chain
+     * @param merkleRoot    The Merkle root recorded in the block header
+     * @param timeStamp     The creation timestamp in milliseconds since the epoch
+     * @param nonce         The nonce found while mining
+     * @param proposer      The address of the proposing validator, or null for unsigned blocks
+     * @param slot          The consensus slot the block was proposed for
+     * @param signature     The proposer's signature, or null for unsigned blocks
+     */
+    public Block(List<Transaction> transactions, Hash256 previousHash, Hash256 merkleRoot, long timeStamp, int nonce,
+                 String proposer, long slot, String signature) {
+        this.transactions = transactions;
+        this.previousHash = previousHash;
+        this.merkleRoot = merkleRoot;
+        this.timeStamp = timeStamp;
+        this.nonce = nonce;
+        this.proposer = proposer;
+        this.slot = slot;
+        this.signature = signature;
+        this.hash = calculateHash();
+    }
+
+    /**
+     * Calculates the hash of the block from its header: previousHash, Merkle root, timeStamp, nonce, and for
+     * signed blocks their slot and proposer, so neither can be swapped after signing (see {@link BlockHeader}).
      * Uses the SHA-256 algorithm for secure hashing.
      *
-     * @return The calculated hash as a String.
+     * @return The calculated hash.
+     */
+    public Hash256 calculateHash() {
+        return BlockHeader.calculateHash(previousHash, merkleRoot, timeStamp, nonce, proposer, slot);
+    }
+
+    /**
+     * Retrieves the header of the block (everything the hash commits to, without the transactions).
+     *
+     * @return The block header.
+     */
+    public BlockHeader getHeader() {
+        return new BlockHeader(previousHash, merkleRoot, timeStamp, nonce, proposer, slot, signature);
+    }
+
+    /**
+     * Computes the Merkle root of a list of transactions.
+     * Transaction hashes are paired and hashed level by level (SHA-256 of the two 32-byte hashes);
+     * an odd hash out is carried up to the next level unchanged. Pairing it with itself instead would give a list
+     * and the same list with its last transactions repeated the same root.
+     *
+     * @param transactions  The transactions to compute the root for
+     * @return The Merkle root (the hash of no bytes for an empty list).
      */
-    public String calculateHash() {
-        String dataToHash = previousHash + Long.toString(timeStamp) + Integer.toString(nonce) + transactions.toString();
-        return StringUtil.applySha256(dataToHash);
+    public static Hash256 calculateMerkleRoot(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return Hash256.sha256(new byte[0]);
+        }
+        List<Hash256> level = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            level.add(transaction.getHash256());
+        }
+        while (level.size() > 1) {
+            List<Hash256> nextLevel = new ArrayList<>((level.size() + 1) / 2);
+            for (int i = 0; i + 1 < level.size(); i += 2) {
+                nextLevel.add(Hash256.sha256(level.get(i), level.get(i + 1)));
+            }
+            if (level.size() % 2 == 1) {
+                nextLevel.add(level.get(level.size() - 1));
+            }
+            level = nextLevel;
+        }
+        return level.get(0);
+    }
+
+    /**
+     * Checks that the block's transactions still match the Merkle root recorded in its header.
+     *
+     * @return True if the transactions match the Merkle root, false otherwise.
+     */
+    public boolean hasValidMerkleRoot() {
+        return merkleRoot.equals(calculateMerkleRoot(transactions));
+    }
+
+    /**
+     * Records the proposer of this block and signs the resulting hash with the proposer's private key.
+     * Any later change to the block (including re-mining) invalidates the signature.
+     *
+     * @param proposer    The address of the proposing validator
+     * @param slot        The consensus slot the block is proposed for
+     * @param privateKey  The proposer's private key
+     */
+    public void signBlock(String proposer, long slot, PrivateKey privateKey) {
+        this.proposer = proposer;
+        this.slot = slot;
+        this.hash = calculateHash();
+        try {
+            this.signature = CryptoUtil.signData(privateKey, hash.toHex());
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Checks that the block carries a signature over its current hash made by the given key.
+     *
+     * @param publicKey  The public key of the expected proposer
+     * @return True if the signature is present and valid, false otherwise.
+     */
+    public boolean hasValidSignature(PublicKey publicKey) {
+        if (signature == null || publicKey == null) {
+            return false;
+        }
+        try {
+            return CryptoUtil.verifySignature(publicKey, hash.toHex(), signature);
+        } catch (Exception e) {
+            return false;  // Malformed signatures are simply invalid
+        }
     }
 
     /**
      * Performs proof-of-work mining to find a hash that meets the required difficulty level.
      * Increments the nonce until a valid hash is found.
+     * The header is hashed up to the nonce once; the default {@link MiningKernel} then tries nonces in batches,
+     * several at a time when the Vector API is available (see {@link MiningKernels}).
      *
-     * @param difficulty  The difficulty level (number of leading zeros in the hash)
+     * @param difficulty  The difficulty level (number of leading zero hex digits in the hash)
      */
     public void mineBlock(int difficulty) {
-        // Create a string with 'difficulty' number of zeros (target)
-        String target = new String(new char[difficulty]).replace('\0', '0');
-    
-        // Increment nonce until the hash meets the difficulty target
-        while (!hash.substring(0, difficulty).equals(target)) {
-            nonce++;
-            hash = calculateHash();  // Recalculate hash with the incremented nonce
+        long start = System.nanoTime();
+        int startNonce = nonce;
+
+        if (!hash.meetsDifficulty(difficulty)) {
+            HeaderMidstate header = HeaderMidstate.of(
+                    BlockHeader.serialize(previousHash, merkleRoot, timeStamp, nonce, proposer, slot));
+            MiningKernel kernel = MiningKernels.getDefault();
+            int requiredZeroBits = 4 * difficulty;
+            // Search the nonces after the current one until the hash meets the difficulty target
+            long found;
+            int firstNonce = nonce + 1;
+            do {
+                found = kernel.search(header, firstNonce, MINING_BATCH, requiredZeroBits);
+                firstNonce += MINING_BATCH;
+            } while (found == MiningKernel.NOT_FOUND);
+            nonce = (int) found;
+            hash = calculateHash();
+        }
+        MINING_DURATION.recordSince(start);
+        MINING_HASHES.add(nonce - startNonce + 1L);  // Every nonce tried, including the initial one
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Block mined! Hash: {}", hash);
         }
-        System.out.println("Block mined! Hash: " + hash);
     }    
 
     /**
@@ -75,7 +255,7 @@ public class Block {
      *
      * @return The current hash of the block.
      */
-    public String getHash() {
+    public Hash256 getHash() {
         return hash;
     }
 
@@ -84,7 +264,7 @@ public class Block {
      *
      * @return The previous block's hash.
      */
-    public String getPreviousHash() {
+    public Hash256 getPreviousHash() {
         return previousHash;
     }
 
@@ -97,6 +277,60 @@ public class Block {
         return transactions;
     }
 
+    /**
+     * Retrieves the Merkle root of the block's transactions, as recorded in the header.
+     *
+     * @return The Merkle root.
+     */
+    public Hash256 getMerkleRoot() {
+        return merkleRoot;
+    }
+
+    /**
+     * Retrieves the nonce found while mining the block.
+     *
+     * @return The nonce.
+     */
+    public int getNonce() {
+        return nonce;
+    }
+
+    /**
+     * Retrieves the creation timestamp of the block.
+     *
+     * @return The timestamp in milliseconds since the epoch.
+     */
+    public long getTimeStamp() {
+        return timeStamp;
+    }
+
+    /**
+     * Retrieves the address of the validator that proposed the block.
+     *
+     * @return The proposer's address, or null if the block is unsigned.
+     */
+    public String getProposer() {
+        return proposer;
+    }
+
+    /**
+     * Retrieves the consensus slot the block was proposed for.
+     *
+     * @return The slot number.
+     */
+    public long getSlot() {
+        return slot;
+    }
+
+    /**
+     * Retrieves the proposer's signature over the block hash.
+     *
+     * @return The Base64 signature, or null if the block is unsigned.
+     */
+    public String getSignature() {
+        return signature;
+    }
+
     @Override
     public String toString() {
         return "Block{" +
@@ -105,6 +339,8 @@ public class Block {
                 ", transactions=" + transactions +
                 ", timeStamp=" + timeStamp +
                 ", nonce=" + nonce +
+                ", proposer='" + proposer + '\'' +
+                ", slot=" + slot +
                 '}';
     }
 }
@@ -0,0 +1,189 @@
+package com.example.blockchain.blockchain;
+
+import com.example.blockchain.cryptography.CryptoUtil;
+import com.example.blockchain.cryptography.Hash256;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.PublicKey;
+
+/**
+ * The BlockHeader class holds everything a block's hash commits to, without the transactions.
+ * The transactions are represented by their Merkle root, so a chain of headers can be downloaded and
+ * verified (linkage, hashes, consensus rules) before any block body is fetched.
+ * <p>
+ * The block hash is the SHA-256 of the header serialized in a fixed binary layout of {@link #SERIALIZED_SIZE} bytes:
+ * previous hash (32), Merkle root (32), timestamp (8), slot (8), SHA-256 of the proposer address (32, zero for
+ * unsigned blocks) and nonce (4), numbers big-endian. The nonce comes last, so everything before it is the same
+ * for every nonce tried while mining.
+ */
+public final class BlockHeader {
+
+    // Size of the serialized header the block hash is computed over
+    public static final int SERIALIZED_SIZE = 116;
+
+    // Position of the nonce in the serialized header
+    public static final int NONCE_OFFSET = 112;
+
+    private final Hash256 hash;
+    private final Hash256 previousHash;
+    private final Hash256 merkleRoot;
+    private final long timeStamp;
+    private final int nonce;
+    private final String proposer;
+    private final long slot;
+    private final String signature;
+
+    /**
+     * Constructor for the BlockHeader class. The hash is computed from the other fields.
+     *
+     * @param previousHash  The hash of the previous block in the chain
+     * @param merkleRoot    The Merkle root of the block's transactions
+     * @param timeStamp     The creation timestamp in milliseconds since the epoch
+     * @param nonce         The nonce found while mining
+     * @param proposer      The address of the proposing validator, or null for unsigned blocks
+     * @param slot          The consensus slot the block was proposed for
+     * @param signature     The proposer's signature, or null for unsigned blocks
+     */
+    public BlockHeader(Hash256 previousHash, Hash256 merkleRoot, long timeStamp, int nonce,
+                       String proposer, long slot, String signature) {
+        this.previousHash = previousHash;
+        this.merkleRoot = merkleRoot;
+        this.timeStamp = timeStamp;
+        this.nonce = nonce;
+        this.proposer = proposer;
+        this.slot = slot;
+        this.signature = signature;
+        this.hash = calculateHash(previousHash, merkleRoot, timeStamp, nonce, proposer, slot);
+    }
+
+    /**
+     * Calculates a block hash over the serialized header (previous hash, Merkle root, timestamp, slot, proposer
+     * and nonce), so signed blocks commit to their slot and proposer and neither can be swapped after signing.
+     * Uses the SHA-256 algorithm for secure hashing.
+     *
+     * @return The calculated hash.
+     */
+    static Hash256 calculateHash(Hash256 previousHash, Hash256 merkleRoot, long timeStamp, int nonce,
+                                 String proposer, long slot) {
+        byte[] header = serialize(previousHash, merkleRoot, timeStamp, nonce, proposer, slot);
+        return Hash256.sha256(header);
+    }
+
+    /**
+     * Serializes header fields in the layout the block hash is computed over.
+     *
+     * @param previousHash  The hash of the previous block in the chain
+     * @param merkleRoot    The Merkle root of the block's transactions
+     * @param timeStamp     The creation timestamp in milliseconds since the epoch
+     * @param nonce         The nonce
+     * @param proposer      The address of the proposing validator, or null for unsigned blocks
+     * @param slot          The consensus slot the block was proposed for
+     * @return A new array of {@link #SERIALIZED_SIZE} bytes.
+     */
+    public static byte[] serialize(Hash256 previousHash, Hash256 merkleRoot, long timeStamp, int nonce,
+                                   String proposer, long slot) {
+        byte[] header = new byte[SERIALIZED_SIZE];
+        previousHash.writeTo(header, 0);
+        merkleRoot.writeTo(header, Hash256.BYTES);
+        ByteBuffer buffer = ByteBuffer.wrap(header, 2 * Hash256.BYTES, SERIALIZED_SIZE - 2 * Hash256.BYTES);
+        buffer.putLong(timeStamp);
+        buffer.putLong(slot);
+        Hash256 proposerHash = proposer == null
+                ? Hash256.ZERO
+                : Hash256.sha256(proposer.getBytes(StandardCharsets.UTF_8));
+        proposerHash.writeTo(header, buffer.position());
+        buffer.position(buffer.position() + Hash256.BYTES);
+        buffer.putInt(nonce);
+        return header;
+    }
+
+    /**
+     * Checks that the header carries a signature over its hash made by the given key.
+     *
+     * @param publicKey  The public key of the expected proposer
+     * @return True if the signature is present and valid, false otherwise.
+     */
+    public boolean hasValidSignature(PublicKey publicKey) {
+        if (signature == null || publicKey == null) {
+            return false;
+        }
+        try {
+            return CryptoUtil.verifySignature(publicKey, hash.toHex(), signature);
+        } catch (Exception e) {
+            return false;  // Malformed signatures are simply invalid
+        }
+    }
+
+    /**
+     * Retrieves the hash of the block, computed from the header fields.
+     *
+     * @return The hash of the block.
+     */
+    public Hash256 getHash() {
+        return hash;
+    }
+
+    /**
+     * Retrieves the hash of the previous block.
+     *
+     * @return The previous block's hash.
+     */
+    public Hash256 getPreviousHash() {
+        return previousHash;
+    }
+
+    /**
+     * Retrieves the Merkle root of the block's transactions.
+     *
+     * @return The Merkle root.
+     */
+    public Hash256 getMerkleRoot() {
+        return merkleRoot;
+    }
+
+    /**
+     * Retrieves the creation timestamp of the block.
+     *
+     * @return The timestamp in milliseconds since the epoch.
+     */
+    public long getTimeStamp() {
+        return timeStamp;
+    }
+
+    /**
+     * Retrieves the nonce found while mining the block.
+     *
+     * @return The nonce.
+     */
+    public int getNonce() {
+        return nonce;
+    }
+
+    /**
+     * Retrieves the address of the validator that proposed the block.
+     *
+     * @return The proposer's address, or null if the block is unsigned.
+     */
+    public String getProposer() {
+        return proposer;
+    }
+
+    /**
+     * Retrieves the consensus slot the block was proposed for.
+     *
+     * @return The slot number.
+     */
+    public long getSlot() {
+        return slot;
+    }
+
+    /**
+     * Retrieves the proposer's signature over the block hash.
+     *
+     * @return The Base64 signature, or null if the block is unsigned.
+     */
+    public String getSignature() {
+        return signature;
+    }
+}
@@ -1,21 +1,110 @@
 package com.example.blockchain.blockchain;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import com.example.blockchain.cryptography.Hash256;
 import com.example.blockchain.transactions.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * The Blockchain class manages the entire blockchain.
  * It includes functionality for adding blocks, validating the chain, and ensuring the integrity of the blockchain.
+ * <p>
+ * The chain is safe to read while blocks are being appended. Appends go through a single writer lock and then
+ * publish an immutable {@link ChainState}; readers get the tip, the height or a stable snapshot of the chain
+ * with one volatile read and never take a lock, so queries do not contend with block import.
  */
 public class Blockchain {
 
-    // The blockchain is represented as a list of blocks
-    private final List<Block> blockchain = new ArrayList<>();
+    /**
+     * Receives the blocks a reorganization removed from the chain.
+     */
+    @FunctionalInterface
+    public interface RevertListener {
+
+        /**
+         * Called once a reorganization is published, before the append listeners receive the new branch.
+         *
+         * @param forkHeight The height of the last block kept
+         * @param removed    The removed blocks, oldest first
+         */
+        void blocksReverted(int forkHeight, List<Block> removed);
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Blockchain.class);
+
+    /**
+     * An immutable view of the chain at one moment: its first {@code size} blocks.
+     * Blocks are stored in an array shared with later states; only slots past {@code size} are ever written
+     * after a state is published, so a state's prefix never changes.
+     */
+    private static final class ChainState {
+        final Block[] blocks;
+        final int size;
+
+        ChainState(Block[] blocks, int size) {
+            this.blocks = blocks;
+            this.size = size;
+        }
+
+        Block tip() {
+            return blocks[size - 1];
+        }
+    }
+
+    /**
+     * A read-only list over the prefix of a chain state.
+     */
+    private static final class ChainSnapshot extends AbstractList<Block> implements RandomAccess {
+        private final ChainState state;
+
+        ChainSnapshot(ChainState state) {
+            this.state = state;
+        }
+
+        @Override
+        public Block get(int index) {
+            if (index < 0 || index >= state.size) {
+                throw new IndexOutOfBoundsException("Height " + index + " is outside the snapshot of size " + state.size);
+            }
+            return state.blocks[index];
+        }
+
+        @Override
+        public int size() {
+            return state.size;
+        }
+    }
+
+    // The latest published state of the chain
+    private volatile ChainState state = new ChainState(new Block[16], 0);
+
+    // Serializes appends; readers never take it
+    private final Object writeLock = new Object();
+
+    // Height of each block in the chain (key: block hash), for constant-time lookups by hash
+    private final Map<Hash256, Integer> heightsByHash = new ConcurrentHashMap<>();
+
+    // Called with every block appended after construction, in chain order
+    private final List<Consumer<Block>> appendListeners = new CopyOnWriteArrayList<>();
+
+    // Called with the blocks every reorganization removes
+    private final List<RevertListener> revertListeners = new CopyOnWriteArrayList<>();
 
     // Difficulty level for mining (the number of leading zeros in the hash)
     private final int difficulty;
 
+    // Fixed timestamp of the genesis block, so every node with the same difficulty shares the same genesis block
+    public static final long GENESIS_TIMESTAMP = 0L;
+
     /**
      * Constructor for the Blockchain class.
      * Initializes the blockchain with a set difficulty level and adds the genesis block.
@@ -27,9 +116,9 @@ public class Blockchain {
 
         // Create the genesis block (the first block in the blockchain)
         List<Transaction> genesisTransactions = new ArrayList<>();
-        Block genesisBlock = new Block(genesisTransactions, "0");  // Previous hash is "0" for the genesis block
+        Block genesisBlock = new Block(genesisTransactions, Hash256.ZERO, GENESIS_TIMESTAMP);  // The genesis block has no previous block
         genesisBlock.mineBlock(difficulty);  // Mine the genesis block with the specified difficulty
-        blockchain.add(genesisBlock);  // Add the genesis block to the blockchain
+        append(genesisBlock);  // Add the genesis block to the blockchain
     }
 
     /**
@@ -42,7 +131,218 @@ public class Blockchain {
         // Mine the block with the specified difficulty
         newBlock.mineBlock(difficulty);
         // Add the block to the blockchain
-        blockchain.add(newBlock);
+        append(newBlock);
+    }
+
+    /**
+     * Appends a block that has already been mined (or signed) elsewhere, e.g. one received from a peer.
+     * Unlike {@link #addBlock(Block)} the block is not re-mined; it is only appended if its hash matches its
+     * header and it links to the current tip of the chain. Consensus and Merkle checks are left to the caller.
+     *
+     * @param block  The block to be appended
+     * @return True if the block was appended, false if it does not extend the current tip.
+     */
+    public boolean importBlock(Block block) {
+        if (!block.getHash().equals(block.calculateHash())) {
+            return false;
+        }
+        synchronized (writeLock) {
+            if (!state.tip().getHash().equals(block.getPreviousHash())) {
+                return false;
+            }
+            append(block);
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the blocks following a fork point with a longer branch, e.g. one downloaded during synchronization.
+     * Every block has the same difficulty, so the longer chain is the one with more work; a branch that would not
+     * make the chain longer is refused. Like {@link #importBlock(Block)}, only hashes and linkage are checked.
+     * The new chain is published at once, in a state that does not share the old blocks past the fork point,
+     * then revert listeners are called with the removed blocks and append listeners with each block of the branch.
+     *
+     * @param forkHash The hash of the last block shared with the branch
+     * @param branch   The blocks following the fork point, in height order
+     * @return The blocks removed from the chain, oldest first, or null if the branch was refused.
+     */
+    public List<Block> reorganize(Hash256 forkHash, List<Block> branch) {
+        Hash256 expectedParent = forkHash;
+        for (Block block : branch) {
+            if (!block.getPreviousHash().equals(expectedParent) || !block.getHash().equals(block.calculateHash())) {
+                return null;
+            }
+            expectedParent = block.getHash();
+        }
+        synchronized (writeLock) {
+            ChainState current = state;
+            int forkHeight = getHeightOf(forkHash);
+            if (forkHeight < 0 || forkHeight + 1 + branch.size() <= current.size) {
+                return null;
+            }
+            List<Block> removed = new ArrayList<>(Arrays.asList(current.blocks).subList(forkHeight + 1, current.size));
+            int size = forkHeight + 1 + branch.size();
+            Block[] blocks = Arrays.copyOf(current.blocks, Math.max(current.blocks.length, size));
+            Arrays.fill(blocks, forkHeight + 1, blocks.length, null);
+            for (int i = 0; i < branch.size(); i++) {
+                blocks[forkHeight + 1 + i] = branch.get(i);
+            }
+            // The branch is indexed before publishing, so a block seen in the published state is always found
+            // by hash; removed blocks are unindexed after it, and getHeightOf() ignores their entries meanwhile
+            for (int i = 0; i < branch.size(); i++) {
+                heightsByHash.put(branch.get(i).getHash(), forkHeight + 1 + i);
+            }
+            state = new ChainState(blocks, size);
+            for (Block block : removed) {
+                heightsByHash.remove(block.getHash());
+            }
+            LOGGER.info("Chain reorganized at height {}: {} blocks replaced by {}.",
+                    forkHeight, removed.size(), branch.size());
+            for (RevertListener listener : revertListeners) {
+                listener.blocksReverted(forkHeight, List.copyOf(removed));
+            }
+            for (Block block : branch) {
+                for (Consumer<Block> listener : appendListeners) {
+                    listener.accept(block);
+                }
+            }
+            return removed;
+        }
+    }
+
+    /**
+     * Appends a block and publishes the new state. Only one writer at a time may call this.
+     */
+    private void append(Block block) {
+        synchronized (writeLock) {
+            ChainState current = state;
+            Block[] blocks = current.blocks;
+            if (current.size == blocks.length) {
+                blocks = Arrays.copyOf(blocks, blocks.length * 2);
+            }
+            blocks[current.size] = block;
+            // Indexed before publishing, so a reader that sees the new tip also finds it by hash;
+            // getHeightOf() ignores the entry until the state is published
+            heightsByHash.put(block.getHash(), current.size);
+            state = new ChainState(blocks, current.size + 1);
+            for (Consumer<Block> listener : appendListeners) {
+                listener.accept(block);
+            }
+        }
+    }
+
+    /**
+     * Registers a listener called with every block appended to the chain, once the block is the new tip.
+     * Listeners run on the appending thread while it holds the writer lock, so they must return quickly and
+     * must not append to this chain; hand longer work to another thread.
+     *
+     * @param listener The listener
+     */
+    public void addAppendListener(Consumer<Block> listener) {
+        appendListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener registered with {@link #addAppendListener(Consumer)}.
+     *
+     * @param listener The listener
+     */
+    public void removeAppendListener(Consumer<Block> listener) {
+        appendListeners.remove(listener);
+    }
+
+    /**
+     * Registers a listener called with the blocks a reorganization removes (see {@link #reorganize}).
+     * Like append listeners, it runs on the reorganizing thread while it holds the writer lock.
+     *
+     * @param listener The listener
+     */
+    public void addRevertListener(RevertListener listener) {
+        revertListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener registered with {@link #addRevertListener(RevertListener)}.
+     *
+     * @param listener The listener
+     */
+    public void removeRevertListener(RevertListener listener) {
+        revertListeners.remove(listener);
+    }
+
+    /**
+     * Retrieves the height of the chain (the genesis block has height 0).
+     *
+     * @return The height of the latest block.
+     */
+    public int getHeight() {
+        return state.size - 1;
+    }
+
+    /**
+     * Retrieves the block at a given height.
+     *
+     * @param height The height of the block (0 for the genesis block)
+     * @return The block.
+     * @throws IndexOutOfBoundsException if the chain is not that high
+     */
+    public Block getBlock(int height) {
+        return new ChainSnapshot(state).get(height);
+    }
+
+    /**
+     * Looks up the height of a block in the chain by its hash.
+     *
+     * @param blockHash  The hash of the block
+     * @return The block's height, or -1 if the block is not part of the chain.
+     */
+    public int getHeightOf(Hash256 blockHash) {
+        Integer height = heightsByHash.get(blockHash);
+        if (height == null) {
+            return -1;
+        }
+        // The index runs ahead of the published state while a block is appended or a branch replaces blocks
+        ChainState current = state;
+        return height < current.size && current.blocks[height].getHash().equals(blockHash) ? height : -1;
+    }
+
+    /**
+     * Builds a block locator: hashes of the chain's blocks from the tip backwards, densely for the most
+     * recent blocks and then at exponentially growing distances, always ending with the genesis block.
+     * A peer finds the most recent locator hash it knows to work out where the two chains diverge.
+     *
+     * @return The locator hashes, most recent first.
+     */
+    public List<Hash256> getBlockLocator() {
+        List<Block> blocks = getBlockchain();
+        List<Hash256> locator = new ArrayList<>();
+        int step = 1;
+        for (int height = blocks.size() - 1; height > 0; height -= step) {
+            locator.add(blocks.get(height).getHash());
+            if (locator.size() >= 10) {
+                step *= 2;
+            }
+        }
+        locator.add(blocks.get(0).getHash());
+        return locator;
+    }
+
+    /**
+     * Retrieves the most recent block of the chain.
+     *
+     * @return The block at the tip of the chain.
+     */
+    public Block getLatestBlock() {
+        return state.tip();
+    }
+
+    /**
+     * Retrieves the mining difficulty of the chain.
+     *
+     * @return The difficulty level (number of leading zeros in the hash).
+     */
+    public int getDifficulty() {
+        return difficulty;
     }
 
     /**
@@ -52,6 +352,7 @@ public class Blockchain {
      * @return True if the blockchain is valid, False otherwise.
      */
     public boolean isChainValid() {
+        List<Block> blockchain = getBlockchain();
         Block currentBlock;
         Block previousBlock;
     
@@ -61,13 +362,19 @@ public class Blockchain {
     
             // Recalculate and compare hashes
             if (!currentBlock.getHash().equals(currentBlock.calculateHash())) {
-                System.out.println("Current block hash is invalid.");
+                LOGGER.debug("Block {} has an invalid hash.", i);
+                return false;
+            }
+
+            // Check that the transactions have not been modified since the block was created
+            if (!currentBlock.hasValidMerkleRoot()) {
+                LOGGER.debug("Block {} transactions do not match the Merkle root.", i);
                 return false;
             }
     
             // Check if the current block's previousHash matches the previous block's hash
             if (!previousBlock.getHash().equals(currentBlock.getPreviousHash())) {
-                System.out.println("Previous block hash is invalid.");
+                LOGGER.debug("Block {} does not link to the previous block.", i);
                 return false;
             }
         }
@@ -75,19 +382,20 @@ public class Blockchain {
     }             
 
     /**
-     * Retrieves the blockchain.
+     * Retrieves the blockchain as a read-only snapshot.
+     * The snapshot does not change when blocks are appended later, so it can be iterated while the chain grows.
      *
-     * @return The list of blocks in the blockchain.
+     * @return The list of blocks in the blockchain, from genesis to the tip at the time of the call.
      */
     public List<Block> getBlockchain() {
-        return blockchain;
+        return new ChainSnapshot(state);
     }
 
     /**
      * Displays the details of the entire blockchain.
      */
     public void displayBlockchain() {
-        for (Block block : blockchain) {
+        for (Block block : getBlockchain()) {
             System.out.println(block.toString());
         }
     }
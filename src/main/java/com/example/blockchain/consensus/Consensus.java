@@ -1,6 +1,7 @@
 package com.example.blockchain.consensus;
 
 import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.BlockHeader;
 
 /**
  * The Consensus interface defines the structure for consensus algorithms used in the blockchain.
@@ -18,6 +19,27 @@ public interface Consensus {
      */
     boolean validateBlock(Block block, int difficulty);
 
+    /**
+     * Validates whether a block header satisfies the consensus rules, without the block's transactions.
+     * This allows a chain of headers to be checked cheaply before the block bodies are downloaded.
+     *
+     * @param header The block header to be validated
+     * @param difficulty The difficulty level (typically for PoW)
+     * @return True if the header satisfies the consensus rules, false otherwise
+     */
+    boolean validateHeader(BlockHeader header, int difficulty);
+
+    /**
+     * Checks whether a block failed validation only because its proposer signed another block for the same slot.
+     * Such a block is otherwise well-formed, so a peer that saw it before the other block relayed it in good faith.
+     *
+     * @param block The block that failed validation
+     * @return True if the block was rejected for double-signing, false otherwise (always false without slots)
+     */
+    default boolean isDoubleSigned(Block block) {
+        return false;
+    }
+
     /**
      * Mines a new block according to the rules of the consensus mechanism.
      * This could involve finding a valid nonce (Proof of Work) or staking a certain amount (Proof of Stake).
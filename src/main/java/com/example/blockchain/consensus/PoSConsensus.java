@@ -1,21 +1,72 @@
 package com.example.blockchain.consensus;
 
 import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.BlockHeader;
+import com.example.blockchain.cryptography.CryptoUtil;
+import com.example.blockchain.cryptography.Hash256;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.security.KeyPair;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * PoSConsensus implements the Proof of Stake (PoS) consensus mechanism.
  * In PoS, the validator is selected based on the amount of stake they hold (usually cryptocurrency).
- * Validators who act maliciously will be penalized by slashing their stake.
+ * Time is divided into slots grouped into epochs; each epoch has a precomputed, deterministic proposer schedule.
+ * Blocks record their proposer and the proposer's signature, so validating a block is a schedule lookup plus a signature check.
+ * Validators who act maliciously (signing two different blocks for the same slot) will be penalized by slashing their stake.
+ * <p>
+ * The schedule of epoch E is computed from the stakes frozen at the end of epoch E-2: the stakes this instance was
+ * created with, less the slashings for double-signed slots up to the end of that epoch. It therefore does not depend
+ * on when a node first looks the epoch up. Double-signing is only tracked for the last {@link #FINALITY_WINDOW_SLOTS}
+ * slots before the latest block seen, so evidence has one epoch to reach every node before it can no longer change
+ * a schedule.
  */
 public class PoSConsensus implements Consensus {
 
-    // Map to represent each validator's stake (key: validator's address, value: amount of stake)
-    private final Map<String, Double> stakes;
+    private static final Logger LOGGER = LoggerFactory.getLogger(PoSConsensus.class);
 
-    // Map to track slashed validators (key: validator's address, value: number of offenses)
+    // Number of slots in each epoch
+    public static final int SLOTS_PER_EPOCH = 32;
+
+    // Duration of a single slot in milliseconds
+    public static final long SLOT_DURATION_MS = 1000;
+
+    // Slots behind the latest block seen after which a slot is final and no longer checked for double-signing
+    public static final int FINALITY_WINDOW_SLOTS = SLOTS_PER_EPOCH;
+
+    // Slots a block may be ahead of the local clock, to tolerate clock drift between nodes
+    public static final int MAX_FUTURE_SLOTS = 1;
+
+    // Thread-safe record of each validator's stake and number of offenses
+    private final StakeLedger stakeLedger;
+
+    // Key pairs of the validators (private keys are only present for validators run by this node)
+    private final Map<String, KeyPair> validatorKeys;
+
+    // Stakes when this instance was created, the base of every epoch's frozen stakes
+    private final StakeSnapshot initialStakes;
+
+    // Proposer schedules computed so far (key: epoch)
+    private final Map<Long, ProposerSchedule> schedules = new ConcurrentHashMap<>();
+
+    // Hash of the first valid block seen for each slot not yet final, used to detect double-signing (key: slot)
+    private final NavigableMap<Long, Hash256> proposalsBySlot = new ConcurrentSkipListMap<>();
+
+    // Validator that double-signed each slot, in slot order (key: slot)
+    private final NavigableMap<Long, String> offenses = new ConcurrentSkipListMap<>();
+
+    // Highest slot of a valid block seen so far
+    private final AtomicLong latestSlot = new AtomicLong(Long.MIN_VALUE);
+
+    // Caller's map of offenses per validator, kept up to date for the deprecated constructor (null otherwise)
     private final Map<String, Integer> slashedValidators;
 
     // Percentage of stake to be slashed in case of malicious behavior
@@ -23,37 +74,118 @@ public class PoSConsensus implements Consensus {
 
     /**
      * Constructor for PoSConsensus.
-     * Initializes the Proof of Stake mechanism with a list of validators and their stakes.
+     * Initializes the Proof of Stake mechanism with a list of validators and their stakes,
+     * generating a fresh key pair for every validator (all validators are run locally).
+     * The stakes are copied into a {@link StakeLedger}; the map itself is never modified.
      *
      * @param stakes A map representing each validator's stake (address -> stake amount)
      */
+    public PoSConsensus(Map<String, Double> stakes) {
+        this(new StakeLedger(stakes), generateKeys(stakes));
+    }
+
+    /**
+     * Constructor for PoSConsensus over caller-supplied stake and offense maps.
+     * The stakes are copied into a {@link StakeLedger}, so later changes to the map are not seen; offenses are
+     * still counted in the given map as well as in the ledger.
+     *
+     * @param stakes A map representing each validator's stake (address -> stake amount)
+     * @param slashedValidators A map recording the number of offenses per validator
+     * @deprecated Use {@link #PoSConsensus(Map)}, or {@link #PoSConsensus(StakeLedger, Map)} to share a ledger,
+     *             and read offenses from {@link StakeLedger#getSlashCount(String)}.
+     */
+    @Deprecated
     public PoSConsensus(Map<String, Double> stakes, Map<String, Integer> slashedValidators) {
-        this.stakes = stakes;
+        this(new StakeLedger(stakes), generateKeys(stakes), slashedValidators);
+    }
+
+    /**
+     * Constructor for PoSConsensus with a shared stake ledger and known validator keys.
+     * Nodes that only validate blocks can pass key pairs holding just the public key.
+     *
+     * @param stakeLedger The ledger holding the validators' stakes
+     * @param validatorKeys The validators' key pairs (address -> key pair)
+     */
+    public PoSConsensus(StakeLedger stakeLedger, Map<String, KeyPair> validatorKeys) {
+        this(stakeLedger, validatorKeys, null);
+    }
+
+    private PoSConsensus(StakeLedger stakeLedger, Map<String, KeyPair> validatorKeys,
+                         Map<String, Integer> slashedValidators) {
+        this.stakeLedger = stakeLedger;
+        this.validatorKeys = new HashMap<>(validatorKeys);
+        this.initialStakes = stakeLedger.snapshot();
         this.slashedValidators = slashedValidators;
     }
 
+    private static Map<String, KeyPair> generateKeys(Map<String, Double> stakes) {
+        Map<String, KeyPair> keys = new HashMap<>();
+        try {
+            for (String validator : stakes.keySet()) {
+                keys.put(validator, CryptoUtil.generateKeyPair());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return keys;
+    }
+
     /**
-     * Selects a validator based on their stake.
-     * Validators with higher stakes have a higher probability of being selected.
+     * Retrieves the ledger holding the validators' stakes.
      *
-     * @return The address of the selected validator.
+     * @return The stake ledger.
+     */
+    public StakeLedger getStakeLedger() {
+        return stakeLedger;
+    }
+
+    /**
+     * Retrieves the proposer schedule for an epoch, computed from the stakes frozen at the end of epoch E-2.
+     * Stakes deposited in the ledger after this instance was created are not scheduled, since no node could
+     * tell when they were made.
+     *
+     * @param epoch The epoch number
+     * @return The proposer schedule for the epoch.
+     */
+    public ProposerSchedule getSchedule(long epoch) {
+        return schedules.computeIfAbsent(epoch,
+                e -> ProposerSchedule.compute(e, SLOTS_PER_EPOCH, frozenStakes(e - 2)));
+    }
+
+    /**
+     * Computes the stakes at the end of an epoch: the initial stakes less the slashings for slots up to its end,
+     * applied in slot order.
      */
-    private String selectValidator() {
-        double totalStake = stakes.values().stream().mapToDouble(Double::doubleValue).sum();
-        double randomValue = new Random().nextDouble() * totalStake;
-        double cumulativeStake = 0.0;
-
-        for (Map.Entry<String, Double> entry : stakes.entrySet()) {
-            cumulativeStake += entry.getValue();
-            if (randomValue <= cumulativeStake) {
-                return entry.getKey(); // Return the address of the selected validator
+    private StakeSnapshot frozenStakes(long epoch) {
+        String[] validators = new String[initialStakes.size()];
+        double[] stakes = new double[initialStakes.size()];
+        for (int i = 0; i < validators.length; i++) {
+            validators[i] = initialStakes.getValidator(i);
+            stakes[i] = initialStakes.getStake(i);
+        }
+        long endSlot = (epoch + 1) * SLOTS_PER_EPOCH;
+        for (String offender : offenses.headMap(endSlot, false).values()) {
+            int index = Arrays.binarySearch(validators, offender);
+            if (index >= 0) {
+                stakes[index] -= stakes[index] * SLASHING_PERCENTAGE;
             }
         }
-        return null;  // In case no validator is selected (should not happen if stakes are valid)
+        return new StakeSnapshot(validators, stakes, initialStakes.getVersion());
+    }
+
+    /**
+     * Retrieves the validator scheduled to propose the block for a slot.
+     *
+     * @param slot The slot number
+     * @return The address of the scheduled validator, or null if nobody is scheduled.
+     */
+    public String getProposerForSlot(long slot) {
+        return getSchedule(Math.floorDiv(slot, SLOTS_PER_EPOCH)).getProposer(slot);
     }
 
     /**
-     * Mines a new block by selecting a validator based on their stake.
+     * Mines a new block by having the validator scheduled for the block's slot sign it.
+     * The slot is derived from the block's timestamp.
      * This is different from Proof of Work (PoW) because no computationally expensive work is performed.
      *
      * @param block      The block to be mined
@@ -61,20 +193,38 @@ public class PoSConsensus implements Consensus {
      */
     @Override
     public void mineBlock(Block block, int difficulty) {
-        String selectedValidator = selectValidator();
+        proposeBlock(block, slotOf(block.getTimeStamp()));
+    }
 
-        if (selectedValidator != null) {
-            System.out.println("Block mined by validator: " + selectedValidator);
-            block.mineBlock(0); // No real difficulty involved in PoS, but we use a placeholder
-        } else {
-            System.out.println("No validator selected for this block.");
+    /**
+     * Proposes a block for the given slot, signing it with the scheduled validator's key.
+     *
+     * @param block The block to be proposed
+     * @param slot  The slot to propose the block for (the one the block's timestamp falls in)
+     * @return True if the block was signed, false if the scheduled validator is not run by this node.
+     */
+    public boolean proposeBlock(Block block, long slot) {
+        if (slotOf(block.getTimeStamp()) != slot) {
+            throw new IllegalArgumentException("Block timestamp is not in slot " + slot);
         }
+        String selectedValidator = getProposerForSlot(slot);
+        KeyPair keys = selectedValidator == null ? null : validatorKeys.get(selectedValidator);
+
+        if (keys == null || keys.getPrivate() == null) {
+            LOGGER.debug("No local validator is scheduled for slot {}.", slot);
+            return false;
+        }
+        block.signBlock(selectedValidator, slot, keys.getPrivate());
+        LOGGER.debug("Block mined by validator: {}", selectedValidator);
+        return true;
     }
 
     /**
      * Validates the block according to the Proof of Stake rules.
-     * In PoS, the main validation is to ensure the selected validator has enough stake.
-     * Slashing is applied if the validator behaves maliciously (e.g., double-signing).
+     * The block's timestamp must fall in its slot and the slot must not be ahead of the local clock; the block must be
+     * proposed by the validator scheduled for its slot, its hash and Merkle root must match its contents, and it must
+     * carry a valid signature from that validator.
+     * A validator that signs two different blocks for a slot that is not yet final is slashed.
      *
      * @param block      The block to be validated
      * @param difficulty The difficulty level (not applicable in PoS)
@@ -82,35 +232,94 @@ public class PoSConsensus implements Consensus {
      */
     @Override
     public boolean validateBlock(Block block, int difficulty) {
-        String selectedValidator = selectValidator();
+        long slot = block.getSlot();
+        String proposer = block.getProposer();
+        if (!isTimely(block.getTimeStamp(), slot) || proposer == null || !proposer.equals(getProposerForSlot(slot))) {
+            return false;  // Wrong or future slot, unsigned, or not proposed by the scheduled validator
+        }
 
-        // Simulate malicious behavior (for demonstration)
-        boolean isMalicious = new Random().nextBoolean();  // Random chance for malicious behavior
+        KeyPair keys = validatorKeys.get(proposer);
+        if (!block.getHash().equals(block.calculateHash()) || !block.hasValidMerkleRoot()
+                || keys == null || !block.hasValidSignature(keys.getPublic())) {
+            return false;
+        }
 
-        if (isMalicious) {
-            slashValidator(selectedValidator);
-            System.out.println("Validator " + selectedValidator + " acted maliciously and has been slashed.");
-            return false;  // Block is invalid if validator acted maliciously
+        long latest = latestSlot.accumulateAndGet(slot, Math::max);
+        if (slot < latest - FINALITY_WINDOW_SLOTS) {
+            return true;  // Final slot: the schedule no longer depends on it, so it is not tracked
         }
+        Hash256 firstSeen = proposalsBySlot.putIfAbsent(slot, block.getHash());
+        proposalsBySlot.headMap(latest - FINALITY_WINDOW_SLOTS).clear();
+        if (firstSeen != null && !firstSeen.equals(block.getHash())) {
+            if (offenses.putIfAbsent(slot, proposer) == null) {
+                slashValidator(proposer, slot);
+            }
+            return false;
+        }
+        return true;
+    }
 
-        return selectedValidator != null && stakes.containsKey(selectedValidator);
+    /**
+     * Validates a block header according to the Proof of Stake rules:
+     * its timestamp must fall in its slot, the slot must not be ahead of the local clock, and it must be proposed by
+     * the validator scheduled for its slot and carry that validator's signature.
+     *
+     * @param header     The block header to be validated
+     * @param difficulty The difficulty level (not applicable in PoS)
+     * @return True if the header is valid, false otherwise
+     */
+    @Override
+    public boolean validateHeader(BlockHeader header, int difficulty) {
+        String proposer = header.getProposer();
+        if (!isTimely(header.getTimeStamp(), header.getSlot())
+                || proposer == null || !proposer.equals(getProposerForSlot(header.getSlot()))) {
+            return false;
+        }
+        KeyPair keys = validatorKeys.get(proposer);
+        return keys != null && header.hasValidSignature(keys.getPublic());
     }
 
     /**
-     * Penalizes a validator by reducing their stake by the SLASHING_PERCENTAGE.
+     * Checks whether a block was rejected because its proposer double-signed its slot: another block was seen
+     * first for the slot and the proposer was recorded as the offender.
      *
-     * @param validator The address of the validator to be slashed
+     * @param block The block that failed validation
+     * @return True if the block conflicts with the first block seen for its slot.
+     */
+    @Override
+    public boolean isDoubleSigned(Block block) {
+        Hash256 firstSeen = proposalsBySlot.get(block.getSlot());
+        return firstSeen != null && !firstSeen.equals(block.getHash())
+                && block.getProposer() != null && block.getProposer().equals(offenses.get(block.getSlot()));
+    }
+
+    /**
+     * Checks that a timestamp falls in the given slot and that the slot is not ahead of the local clock, so a
+     * scheduled proposer cannot sign blocks for future slots.
      */
-    private void slashValidator(String validator) {
-        if (stakes.containsKey(validator)) {
-            double stake = stakes.get(validator);
-            double slashedAmount = stake * SLASHING_PERCENTAGE;
-            stakes.put(validator, stake - slashedAmount);
+    private static boolean isTimely(long timeStamp, long slot) {
+        return slotOf(timeStamp) == slot && slot <= slotOf(System.currentTimeMillis()) + MAX_FUTURE_SLOTS;
+    }
 
-            // Record the slashing event
-            slashedValidators.put(validator, slashedValidators.getOrDefault(validator, 0) + 1);
+    private static long slotOf(long timeStamp) {
+        return Math.floorDiv(timeStamp, SLOT_DURATION_MS);
+    }
 
-            System.out.println("Validator " + validator + " had their stake reduced by " + slashedAmount + ".");
+    /**
+     * Penalizes a validator by reducing their stake by the SLASHING_PERCENTAGE.
+     * Schedules computed from stakes frozen after the offense are dropped, so they are recomputed with the slashing.
+     *
+     * @param validator The address of the validator to be slashed
+     * @param slot      The slot the validator double-signed
+     */
+    private void slashValidator(String validator, long slot) {
+        long firstAffectedEpoch = Math.floorDiv(slot, SLOTS_PER_EPOCH) + 2;
+        schedules.keySet().removeIf(epoch -> epoch >= firstAffectedEpoch);
+        double slashedAmount = stakeLedger.slash(validator, SLASHING_PERCENTAGE);
+        if (slashedValidators != null) {
+            slashedValidators.merge(validator, 1, Integer::sum);
         }
+        LOGGER.info("Validator {} signed two blocks for slot {} and has been slashed by {}.",
+                validator, slot, slashedAmount);
     }
 }
@@ -1,6 +1,9 @@
 package com.example.blockchain.consensus;
 
 import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.BlockHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * PoWConsensus implements the Proof of Work (PoW) consensus mechanism.
@@ -8,6 +11,8 @@ import com.example.blockchain.blockchain.Block;
  */
 public class PoWConsensus implements Consensus {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(PoWConsensus.class);
+
     /**
      * Mines a block by performing Proof of Work.
      * This involves finding a valid nonce such that the block's hash has the required number of leading zeros, determined by the difficulty.
@@ -17,9 +22,11 @@ public class PoWConsensus implements Consensus {
      */
     @Override
     public void mineBlock(Block block, int difficulty) {
-        System.out.println("Mining block with Proof of Work...");
+        LOGGER.debug("Mining block with Proof of Work...");
         block.mineBlock(difficulty);  // Call the block's mining method, which performs the actual mining process
-        System.out.println("Block successfully mined with hash: " + block.getHash());
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Block successfully mined with hash: {}", block.getHash());
+        }
     }
 
     /**
@@ -32,13 +39,23 @@ public class PoWConsensus implements Consensus {
      */
     @Override
     public boolean validateBlock(Block block, int difficulty) {
-        String target = new String(new char[difficulty]).replace('\0', '0');  // Create a string of leading zeros (the difficulty target)
-        boolean isValid = block.getHash().substring(0, difficulty).equals(target);  // Check if the block's hash meets the difficulty target
-        if (!isValid) {
-            System.out.println("Block validation failed: Hash does not meet the required difficulty.");
-        } else {
-            System.out.println("Block validation succeeded: Hash meets the required difficulty.");
+        boolean isValid = block.getHash().meetsDifficulty(difficulty);  // Check if the block's hash meets the difficulty target
+        if (!isValid && LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Block validation failed: Hash {} does not meet the required difficulty.", block.getHash());
         }
         return isValid;
     }
+
+    /**
+     * Validates a block header according to Proof of Work rules.
+     * The header's hash (recomputed from its fields) must have the required number of leading zeros.
+     *
+     * @param header     The block header to be validated
+     * @param difficulty The difficulty level to check against
+     * @return True if the header is valid according to the PoW rules, false otherwise
+     */
+    @Override
+    public boolean validateHeader(BlockHeader header, int difficulty) {
+        return header.getHash().meetsDifficulty(difficulty);
+    }
 }
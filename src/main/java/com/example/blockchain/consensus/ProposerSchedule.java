@@ -0,0 +1,98 @@
+package com.example.blockchain.consensus;
+
+import com.example.blockchain.cryptography.StringUtil;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * ProposerSchedule assigns a block proposer to every slot of one epoch.
+ * The schedule is derived only from the epoch number and a snapshot of the validators' stakes,
+ * so every node holding the same snapshot computes exactly the same schedule.
+ * Looking up the proposer of a slot is a constant-time array access.
+ */
+public final class ProposerSchedule {
+
+    // The epoch this schedule covers
+    private final long epoch;
+
+    // Proposer address for each slot of the epoch (index = slot offset inside the epoch)
+    private final String[] proposers;
+
+    private ProposerSchedule(long epoch, String[] proposers) {
+        this.epoch = epoch;
+        this.proposers = proposers;
+    }
+
+    /**
+     * Computes the proposer schedule for an epoch.
+     * Validators are drawn with probability proportional to their stake using a PRNG seeded from the epoch number.
+     * The snapshot is ordered by address, so the result does not depend on how the stakes were recorded.
+     *
+     * @param epoch          The epoch number
+     * @param slotsPerEpoch  The number of slots in each epoch
+     * @param stakeSnapshot  A snapshot of the validators' stakes
+     * @return The schedule for the epoch; every slot is null if no validator has a positive stake.
+     */
+    public static ProposerSchedule compute(long epoch, int slotsPerEpoch, StakeSnapshot stakeSnapshot) {
+        String[] validators = new String[stakeSnapshot.size()];
+        double[] cumulativeStakes = new double[stakeSnapshot.size()];
+        int count = 0;
+        double totalStake = 0.0;
+        for (int i = 0; i < stakeSnapshot.size(); i++) {
+            if (stakeSnapshot.getStake(i) > 0) {
+                totalStake += stakeSnapshot.getStake(i);
+                validators[count] = stakeSnapshot.getValidator(i);
+                cumulativeStakes[count] = totalStake;
+                count++;
+            }
+        }
+
+        String[] proposers = new String[slotsPerEpoch];
+        if (count == 0) {
+            return new ProposerSchedule(epoch, proposers);
+        }
+
+        Random random = new Random(seedFor(epoch));
+        for (int i = 0; i < slotsPerEpoch; i++) {
+            double randomValue = random.nextDouble() * totalStake;
+            int index = Arrays.binarySearch(cumulativeStakes, 0, count, randomValue);
+            if (index < 0) {
+                index = -index - 1;  // Insertion point is the first cumulative stake above the random value
+            }
+            proposers[i] = validators[Math.min(index, count - 1)];
+        }
+        return new ProposerSchedule(epoch, proposers);
+    }
+
+    /**
+     * Derives the PRNG seed for an epoch from a SHA-256 digest of the epoch number.
+     */
+    private static long seedFor(long epoch) {
+        String digest = StringUtil.applySha256("epoch:" + epoch);
+        return Long.parseUnsignedLong(digest.substring(0, 16), 16);
+    }
+
+    /**
+     * Retrieves the proposer scheduled for a slot.
+     *
+     * @param slot The absolute slot number (must belong to this schedule's epoch)
+     * @return The address of the scheduled proposer, or null if nobody is scheduled.
+     */
+    public String getProposer(long slot) {
+        long offset = slot - epoch * proposers.length;
+        if (offset < 0 || offset >= proposers.length) {
+            throw new IllegalArgumentException("Slot " + slot + " is not part of epoch " + epoch);
+        }
+        return proposers[(int) offset];
+    }
+
+    /**
+     * Retrieves the epoch covered by this schedule.
+     *
+     * @return The epoch number.
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+}
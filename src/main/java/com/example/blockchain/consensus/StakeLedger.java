@@ -0,0 +1,145 @@
+package com.example.blockchain.consensus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StakeLedger is a thread-safe record of each validator's stake and slashing history.
+ * Deposits and slashings update a single validator's account with a lock-free compare-and-set,
+ * so writers for different validators never contend and writers never block readers.
+ * Selection and validation read immutable {@link StakeSnapshot}s, which are rebuilt only after the ledger changed.
+ */
+public class StakeLedger {
+
+    /**
+     * Per-validator account. The stake is kept as the raw bits of a double so it can be updated atomically.
+     */
+    private static final class Account {
+        final AtomicLong stakeBits = new AtomicLong(Double.doubleToRawLongBits(0.0));
+        final AtomicLong slashCount = new AtomicLong();
+    }
+
+    // Accounts of all validators (key: validator's address)
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+
+    // Incremented after every change, used to decide whether the cached snapshot is still current
+    private final AtomicLong version = new AtomicLong();
+
+    // Most recently built snapshot (may be stale, checked against the version)
+    private volatile StakeSnapshot cachedSnapshot = new StakeSnapshot(new String[0], new double[0], 0);
+
+    /**
+     * Creates an empty ledger.
+     */
+    public StakeLedger() {
+    }
+
+    /**
+     * Creates a ledger seeded with initial stakes.
+     * The map is copied; later changes to it do not affect the ledger.
+     *
+     * @param initialStakes A map representing each validator's stake (address -> stake amount)
+     */
+    public StakeLedger(Map<String, Double> initialStakes) {
+        for (Map.Entry<String, Double> entry : initialStakes.entrySet()) {
+            deposit(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Adds stake to a validator's account, creating the account if necessary.
+     *
+     * @param validator The validator's address
+     * @param amount    The amount to add
+     */
+    public void deposit(String validator, double amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        AtomicLong stakeBits = accounts.computeIfAbsent(validator, v -> new Account()).stakeBits;
+        long current;
+        long updated;
+        do {
+            current = stakeBits.get();
+            updated = Double.doubleToRawLongBits(Double.longBitsToDouble(current) + amount);
+        } while (!stakeBits.compareAndSet(current, updated));
+        version.incrementAndGet();
+    }
+
+    /**
+     * Slashes a validator by removing a fraction of its stake and recording the offense.
+     *
+     * @param validator The validator's address
+     * @param fraction  The fraction of the stake to remove (between 0 and 1)
+     * @return The amount of stake removed, or 0 if the validator has no account.
+     */
+    public double slash(String validator, double fraction) {
+        Account account = accounts.get(validator);
+        if (account == null) {
+            return 0.0;
+        }
+        long current;
+        double slashedAmount;
+        do {
+            current = account.stakeBits.get();
+            double stake = Double.longBitsToDouble(current);
+            slashedAmount = stake * fraction;
+            if (account.stakeBits.compareAndSet(current, Double.doubleToRawLongBits(stake - slashedAmount))) {
+                break;
+            }
+        } while (true);
+        account.slashCount.incrementAndGet();
+        version.incrementAndGet();
+        return slashedAmount;
+    }
+
+    /**
+     * Retrieves the current stake of a validator.
+     *
+     * @param validator The validator's address
+     * @return The validator's stake, or 0 if the validator has no account.
+     */
+    public double getStake(String validator) {
+        Account account = accounts.get(validator);
+        return account == null ? 0.0 : Double.longBitsToDouble(account.stakeBits.get());
+    }
+
+    /**
+     * Retrieves the number of times a validator has been slashed.
+     *
+     * @param validator The validator's address
+     * @return The number of recorded offenses.
+     */
+    public long getSlashCount(String validator) {
+        Account account = accounts.get(validator);
+        return account == null ? 0 : account.slashCount.get();
+    }
+
+    /**
+     * Returns an immutable snapshot of all stakes.
+     * The previous snapshot is reused as long as the ledger has not changed since it was taken.
+     *
+     * @return A snapshot of the validators' stakes.
+     */
+    public StakeSnapshot snapshot() {
+        StakeSnapshot snapshot = cachedSnapshot;
+        long currentVersion = version.get();
+        if (snapshot.getVersion() == currentVersion) {
+            return snapshot;
+        }
+
+        List<String> validators = new ArrayList<>(accounts.keySet());
+        Collections.sort(validators);
+        double[] stakes = new double[validators.size()];
+        for (int i = 0; i < stakes.length; i++) {
+            stakes[i] = getStake(validators.get(i));
+        }
+        snapshot = new StakeSnapshot(validators.toArray(new String[0]), stakes, currentVersion);
+        cachedSnapshot = snapshot;
+        return snapshot;
+    }
+}
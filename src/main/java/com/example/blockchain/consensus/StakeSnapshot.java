@@ -0,0 +1,92 @@
+package com.example.blockchain.consensus;
+
+import java.util.Arrays;
+
+/**
+ * StakeSnapshot is an immutable, point-in-time view of the validators' stakes.
+ * Validators are stored sorted by address in primitive arrays, so snapshots are cheap to share between threads
+ * and iterate in a deterministic order.
+ */
+public final class StakeSnapshot {
+
+    // Validator addresses, sorted ascending
+    private final String[] validators;
+
+    // Stake of each validator (same index as validators)
+    private final double[] stakes;
+
+    // Sum of all stakes in the snapshot
+    private final double totalStake;
+
+    // Version of the ledger this snapshot was taken from
+    private final long version;
+
+    StakeSnapshot(String[] validators, double[] stakes, long version) {
+        this.validators = validators;
+        this.stakes = stakes;
+        this.version = version;
+        double total = 0.0;
+        for (double stake : stakes) {
+            total += stake;
+        }
+        this.totalStake = total;
+    }
+
+    /**
+     * Retrieves the number of validators in the snapshot.
+     *
+     * @return The number of validators.
+     */
+    public int size() {
+        return validators.length;
+    }
+
+    /**
+     * Retrieves the address of the validator at the given position (ordered by address).
+     *
+     * @param index The position of the validator
+     * @return The validator's address.
+     */
+    public String getValidator(int index) {
+        return validators[index];
+    }
+
+    /**
+     * Retrieves the stake of the validator at the given position (ordered by address).
+     *
+     * @param index The position of the validator
+     * @return The validator's stake.
+     */
+    public double getStake(int index) {
+        return stakes[index];
+    }
+
+    /**
+     * Looks up the stake of a validator by address.
+     *
+     * @param validator The validator's address
+     * @return The validator's stake, or 0 if the validator is not part of the snapshot.
+     */
+    public double getStake(String validator) {
+        int index = Arrays.binarySearch(validators, validator);
+        return index >= 0 ? stakes[index] : 0.0;
+    }
+
+    /**
+     * Retrieves the total stake held by all validators in the snapshot.
+     *
+     * @return The total stake.
+     */
+    public double getTotalStake() {
+        return totalStake;
+    }
+
+    /**
+     * Retrieves the ledger version the snapshot was taken at.
+     *
+     * @return The ledger version.
+     */
+    public long getVersion() {
+        return version;
+    }
+}
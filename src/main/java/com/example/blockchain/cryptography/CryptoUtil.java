@@ -5,11 +5,12 @@ import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.Signature;
 import java.util.Base64;
 
 /**
  * CryptoUtil provides utility methods for cryptographic operations such as RSA encryption,
- * decryption, and key pair generation.
+ * decryption, signing, and key pair generation.
  */
 public class CryptoUtil {
 
@@ -54,4 +55,35 @@ public class CryptoUtil {
         byte[] decryptedBytes = cipher.doFinal(Base64.getDecoder().decode(encryptedData));
         return new String(decryptedBytes);
     }
+
+    /**
+     * Signs data using the provided private key (SHA256withRSA).
+     *
+     * @param privateKey The private key used for signing
+     * @param data       The data to be signed
+     * @return The signature in Base64 format
+     * @throws Exception if an error occurs during signing
+     */
+    public static String signData(PrivateKey privateKey, String data) throws Exception {
+        Signature signer = Signature.getInstance("SHA256withRSA");
+        signer.initSign(privateKey);
+        signer.update(data.getBytes("UTF-8"));
+        return Base64.getEncoder().encodeToString(signer.sign());
+    }
+
+    /**
+     * Verifies a signature produced by {@link #signData(PrivateKey, String)}.
+     *
+     * @param publicKey The public key of the signer
+     * @param data      The data that was signed
+     * @param signature The signature in Base64 format
+     * @return True if the signature is valid for the data, false otherwise
+     * @throws Exception if an error occurs during verification
+     */
+    public static boolean verifySignature(PublicKey publicKey, String data, String signature) throws Exception {
+        Signature verifier = Signature.getInstance("SHA256withRSA");
+        verifier.initVerify(publicKey);
+        verifier.update(data.getBytes("UTF-8"));
+        return verifier.verify(Base64.getDecoder().decode(signature));
+    }
 }
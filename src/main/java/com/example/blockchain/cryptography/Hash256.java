@@ -0,0 +1,280 @@
+package com.example.blockchain.cryptography;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Hash256 is an immutable 256-bit hash, such as a block hash or a Merkle root.
+ * It is held as four longs (big-endian, most significant word first), so it takes 48 bytes on the heap instead
+ * of the ~180 bytes of a 64-character hex string, and equality is four long comparisons.
+ * Hex conversion only happens at the edges: parsing user input, logging and display.
+ */
+public final class Hash256 implements Comparable<Hash256> {
+
+    // Size of a hash in bytes
+    public static final int BYTES = 32;
+
+    // The all-zero hash, used where there is no previous block
+    public static final Hash256 ZERO = new Hash256(0L, 0L, 0L, 0L);
+
+    // Reads and writes big-endian longs in byte arrays
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    // One SHA-256 instance per thread, reset after every use
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final long word0;
+    private final long word1;
+    private final long word2;
+    private final long word3;
+
+    private Hash256(long word0, long word1, long word2, long word3) {
+        this.word0 = word0;
+        this.word1 = word1;
+        this.word2 = word2;
+        this.word3 = word3;
+    }
+
+    /**
+     * Creates a hash from its four 64-bit words.
+     *
+     * @param word0 The most significant word (bytes 0 to 7)
+     * @param word1 Bytes 8 to 15
+     * @param word2 Bytes 16 to 23
+     * @param word3 The least significant word (bytes 24 to 31)
+     * @return The hash.
+     */
+    public static Hash256 fromWords(long word0, long word1, long word2, long word3) {
+        return new Hash256(word0, word1, word2, word3);
+    }
+
+    /**
+     * Creates a hash from 32 bytes of a digest, without copying them.
+     *
+     * @param bytes  The array holding the hash
+     * @param offset The position of the first byte
+     * @return The hash.
+     */
+    public static Hash256 fromBytes(byte[] bytes, int offset) {
+        if (offset < 0 || bytes.length - offset < BYTES) {
+            throw new IllegalArgumentException("A hash needs " + BYTES + " bytes");
+        }
+        return new Hash256((long) LONGS.get(bytes, offset), (long) LONGS.get(bytes, offset + 8),
+                (long) LONGS.get(bytes, offset + 16), (long) LONGS.get(bytes, offset + 24));
+    }
+
+    /**
+     * Creates a hash from a 32-byte digest.
+     *
+     * @param bytes The digest
+     * @return The hash.
+     */
+    public static Hash256 fromBytes(byte[] bytes) {
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("A hash needs " + BYTES + " bytes, got " + bytes.length);
+        }
+        return fromBytes(bytes, 0);
+    }
+
+    /**
+     * Parses a hash from 64 hexadecimal characters.
+     *
+     * @param hex The hexadecimal representation (either case)
+     * @return The hash.
+     * @throws IllegalArgumentException if the string is not 64 hexadecimal characters
+     */
+    public static Hash256 fromHex(String hex) {
+        if (hex.length() != 2 * BYTES) {
+            throw new IllegalArgumentException("A hash needs " + 2 * BYTES + " hex characters, got " + hex.length());
+        }
+        return new Hash256(parseWord(hex, 0), parseWord(hex, 16), parseWord(hex, 32), parseWord(hex, 48));
+    }
+
+    private static long parseWord(String hex, int start) {
+        long word = 0;
+        for (int i = start; i < start + 16; i++) {
+            int digit = Character.digit(hex.charAt(i), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid hex character in hash: " + hex.charAt(i));
+            }
+            word = (word << 4) | digit;
+        }
+        return word;
+    }
+
+    /**
+     * Computes the SHA-256 hash of a range of bytes.
+     *
+     * @param data   The bytes to hash
+     * @param offset The position of the first byte
+     * @param length The number of bytes
+     * @return The hash.
+     */
+    public static Hash256 sha256(byte[] data, int offset, int length) {
+        MessageDigest digest = SHA256.get();
+        digest.update(data, offset, length);
+        return fromBytes(digest.digest(), 0);
+    }
+
+    /**
+     * Computes the SHA-256 hash of a byte array.
+     *
+     * @param data The bytes to hash
+     * @return The hash.
+     */
+    public static Hash256 sha256(byte[] data) {
+        return sha256(data, 0, data.length);
+    }
+
+    /**
+     * Computes the SHA-256 hash of the concatenation of two hashes, as used for Merkle tree nodes.
+     *
+     * @param left  The first hash
+     * @param right The second hash
+     * @return The hash of the 64 concatenated bytes.
+     */
+    public static Hash256 sha256(Hash256 left, Hash256 right) {
+        byte[] pair = new byte[2 * BYTES];
+        left.writeTo(pair, 0);
+        right.writeTo(pair, BYTES);
+        return sha256(pair);
+    }
+
+    /**
+     * Writes the 32 bytes of the hash into an array.
+     *
+     * @param destination The array to write to
+     * @param offset      The position of the first byte
+     */
+    public void writeTo(byte[] destination, int offset) {
+        LONGS.set(destination, offset, word0);
+        LONGS.set(destination, offset + 8, word1);
+        LONGS.set(destination, offset + 16, word2);
+        LONGS.set(destination, offset + 24, word3);
+    }
+
+    /**
+     * Copies the hash into a new 32-byte array.
+     *
+     * @return The bytes of the hash.
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[BYTES];
+        writeTo(bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Retrieves one 64-bit word of the hash.
+     *
+     * @param index The word index, 0 (most significant) to 3
+     * @return The word.
+     */
+    public long getWord(int index) {
+        switch (index) {
+            case 0: return word0;
+            case 1: return word1;
+            case 2: return word2;
+            case 3: return word3;
+            default: throw new IllegalArgumentException("Word index must be between 0 and 3");
+        }
+    }
+
+    /**
+     * Counts the zero bits at the start of the hash.
+     *
+     * @return The number of leading zero bits, 256 for the zero hash.
+     */
+    public int getLeadingZeroBits() {
+        if (word0 != 0) {
+            return Long.numberOfLeadingZeros(word0);
+        }
+        if (word1 != 0) {
+            return 64 + Long.numberOfLeadingZeros(word1);
+        }
+        if (word2 != 0) {
+            return 128 + Long.numberOfLeadingZeros(word2);
+        }
+        return 192 + Long.numberOfLeadingZeros(word3);
+    }
+
+    /**
+     * Checks the Proof of Work target: the hash must start with the given number of zero hex digits.
+     *
+     * @param difficulty The number of leading zero hex digits required
+     * @return True if the hash meets the target.
+     */
+    public boolean meetsDifficulty(int difficulty) {
+        return getLeadingZeroBits() >= 4 * difficulty;
+    }
+
+    /**
+     * Converts the hash to 64 lowercase hexadecimal characters.
+     *
+     * @return The hexadecimal representation.
+     */
+    public String toHex() {
+        char[] hex = new char[2 * BYTES];
+        writeHex(hex, 0, word0);
+        writeHex(hex, 16, word1);
+        writeHex(hex, 32, word2);
+        writeHex(hex, 48, word3);
+        return new String(hex);
+    }
+
+    private static void writeHex(char[] hex, int start, long word) {
+        for (int i = 15; i >= 0; i--) {
+            hex[start + i] = HEX_DIGITS[(int) (word & 0xF)];
+            word >>>= 4;
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Hash256)) {
+            return false;
+        }
+        Hash256 hash = (Hash256) other;
+        return word3 == hash.word3 && word2 == hash.word2 && word1 == hash.word1 && word0 == hash.word0;
+    }
+
+    @Override
+    public int hashCode() {
+        // The last word is uniformly distributed even for Proof of Work hashes, whose first bits are zero
+        return Long.hashCode(word3);
+    }
+
+    @Override
+    public int compareTo(Hash256 other) {
+        int result = Long.compareUnsigned(word0, other.word0);
+        if (result == 0) {
+            result = Long.compareUnsigned(word1, other.word1);
+        }
+        if (result == 0) {
+            result = Long.compareUnsigned(word2, other.word2);
+        }
+        if (result == 0) {
+            result = Long.compareUnsigned(word3, other.word3);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return toHex();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.blockchain.events;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.transactions.Transaction;
+
+/**
+ * ChainEvent is one change pushed to the subscribers of a {@link ChainEventPublisher}: a block appended to the
+ * chain, a block removed from it by a reorganization, or a transaction received into a node's pool of pending
+ * transactions.
+ */
+public final class ChainEvent {
+
+    /**
+     * The kinds of events.
+     */
+    public enum Type {
+
+        // A block became the new tip of the chain
+        BLOCK_APPENDED,
+
+        // A block previously delivered as appended was removed by a reorganization; reverts come tip first,
+        // followed by the blocks of the new branch
+        BLOCK_REVERTED,
+
+        // A new transaction entered the node's pool of pending transactions
+        TRANSACTION_RECEIVED
+    }
+
+    private final Type type;
+
+    // Height of the appended or reverted block, or height of the tip when the transaction was received
+    private final int height;
+
+    private final Block block;
+    private final Transaction transaction;
+
+    private ChainEvent(Type type, int height, Block block, Transaction transaction) {
+        this.type = type;
+        this.height = height;
+        this.block = block;
+        this.transaction = transaction;
+    }
+
+    static ChainEvent blockAppended(int height, Block block) {
+        return new ChainEvent(Type.BLOCK_APPENDED, height, block, null);
+    }
+
+    static ChainEvent blockReverted(int height, Block block) {
+        return new ChainEvent(Type.BLOCK_REVERTED, height, block, null);
+    }
+
+    static ChainEvent transactionReceived(int tipHeight, Transaction transaction) {
+        return new ChainEvent(Type.TRANSACTION_RECEIVED, tipHeight, null, transaction);
+    }
+
+    /**
+     * Retrieves the kind of event.
+     *
+     * @return The event type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Retrieves the height of the appended or reverted block, or for a transaction the height of the tip when it
+     * was received.
+     *
+     * @return The height.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Retrieves the appended or reverted block.
+     *
+     * @return The block, or null for transaction events.
+     */
+    public Block getBlock() {
+        return block;
+    }
+
+    /**
+     * Retrieves the received transaction.
+     *
+     * @return The transaction, or null for block events.
+     */
+    public Transaction getTransaction() {
+        return transaction;
+    }
+
+    @Override
+    public String toString() {
+        return type != Type.TRANSACTION_RECEIVED
+                ? type + " #" + height + " " + block.getHash()
+                : type + " " + transaction.getHash() + " at #" + height;
+    }
+}
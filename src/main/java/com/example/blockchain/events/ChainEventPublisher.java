@@ -0,0 +1,366 @@
+package com.example.blockchain.events;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.cryptography.Hash256;
+import com.example.blockchain.metrics.Counter;
+import com.example.blockchain.metrics.MetricsRegistry;
+import com.example.blockchain.transactions.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * ChainEventPublisher pushes the blocks appended to a chain, and the transactions a node receives, to any number
+ * of {@link Flow.Subscriber}s, so consumers such as indexers and wallets do not have to poll the chain.
+ * <p>
+ * Every subscription is delivered to on the publisher's executor, never on the thread appending blocks, and
+ * only as far as its subscriber requested: a slow subscriber falls behind without slowing block import or other
+ * subscribers. Block events are read back from the chain by height rather than buffered, so a subscriber never
+ * misses one, however far behind it is, and can resume from any height after a restart
+ * (see {@link #subscribe(Flow.Subscriber, int)}). Transaction events wait in a bounded buffer per subscription;
+ * when it is full, further transactions are dropped for that subscriber and counted in the
+ * {@code events.transactions.dropped} metric (they remain visible in the node's pool of pending transactions).
+ * Each transaction event is delivered after the block events up to the tip it was received at.
+ * <p>
+ * When a reorganization removes blocks a subscriber has received, it gets a {@link ChainEvent.Type#BLOCK_REVERTED}
+ * event for each of them, tip first, and then the blocks of the new branch from the fork point on.
+ * The blocks a subscriber receives as appended therefore always form a chain.
+ */
+public class ChainEventPublisher implements Flow.Publisher<ChainEvent>, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChainEventPublisher.class);
+
+    /**
+     * A reorganization of the chain: the height of the last block kept and the blocks removed after it.
+     */
+    private static final class Reorganization {
+        final int forkHeight;
+        final List<Block> removed;
+
+        Reorganization(int forkHeight, List<Block> removed) {
+            this.forkHeight = forkHeight;
+            this.removed = removed;
+        }
+    }
+
+    // Transaction events buffered per subscription, unless set otherwise
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    /**
+     * One subscriber's cursor into the chain, buffered transactions and outstanding demand.
+     * All signals to the subscriber are sent by {@link #drain()}, which never runs twice at once.
+     */
+    private final class ChainSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super ChainEvent> subscriber;
+        private final int bufferSize;
+
+        // Transaction events not yet delivered (guarded by itself)
+        private final ArrayDeque<ChainEvent> transactions = new ArrayDeque<>();
+
+        // Reorganizations the cursor has not been rewound for yet, oldest first (guarded by transactions)
+        private final ArrayDeque<Reorganization> reorganizations = new ArrayDeque<>();
+
+        // Events requested and not yet delivered
+        private final AtomicLong demand = new AtomicLong();
+
+        // Drain requests not yet handled; only the request taking it from 0 schedules a drain
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+
+        // Height of the next block event (drain only)
+        private int nextHeight;
+
+        // Hash of the last block delivered as appended, or null before the first one (drain only)
+        private Hash256 lastBlockHash;
+        private boolean subscribed;
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException invalidRequest;
+
+        ChainSubscription(Flow.Subscriber<? super ChainEvent> subscriber, int fromHeight, int bufferSize) {
+            this.subscriber = subscriber;
+            this.nextHeight = fromHeight;
+            this.bufferSize = bufferSize;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested " + n + " events; requests must be positive");
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            synchronized (transactions) {
+                transactions.clear();
+                reorganizations.clear();
+            }
+        }
+
+        void reorganized(Reorganization reorganization) {
+            synchronized (transactions) {
+                reorganizations.add(reorganization);
+            }
+            signal();
+        }
+
+        void offer(ChainEvent transaction) {
+            synchronized (transactions) {
+                if (transactions.size() >= bufferSize) {
+                    droppedTransactions.increment();
+                    return;
+                }
+                transactions.add(transaction);
+            }
+            signal();
+        }
+
+        void signal() {
+            if (pendingDrains.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            while (true) {
+                try {
+                    if (!subscribed) {
+                        subscribed = true;
+                        subscriber.onSubscribe(this);
+                    }
+                    deliver();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Cancelling the subscription of {}, which threw while handling an event.",
+                            subscriber, e);
+                    cancel();
+                }
+                missed = pendingDrains.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void deliver() {
+            while (!cancelled) {
+                if (invalidRequest != null) {
+                    cancel();
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+                int lastHeight = closed ? closedHeight : blockchain.getHeight();
+                ChainEvent event = demand.get() > 0 ? next(lastHeight) : null;
+                if (event == null) {
+                    if (closed && nextHeight > lastHeight && isBufferEmpty()) {
+                        cancel();
+                        subscriber.onComplete();
+                    }
+                    return;
+                }
+                demand.decrementAndGet();
+                subscriber.onNext(event);
+            }
+        }
+
+        /**
+         * Takes the next event: a revert of a delivered block removed by a reorganization, otherwise the next block,
+         * unless a buffered transaction was received before it.
+         */
+        private ChainEvent next(int lastHeight) {
+            synchronized (transactions) {
+                ChainEvent revert = nextRevert();
+                if (revert != null) {
+                    return revert;
+                }
+                ChainEvent transaction = transactions.peek();
+                if (nextHeight <= lastHeight && (transaction == null || nextHeight <= transaction.getHeight())) {
+                    Block block = blockchain.getBlock(nextHeight);
+                    if (lastBlockHash != null && !block.getPreviousHash().equals(lastBlockHash)) {
+                        return null;  // A reorganization replaced the last block delivered; wait to be told which
+                    }
+                    lastBlockHash = block.getHash();
+                    int height = nextHeight++;
+                    return ChainEvent.blockAppended(height, block);
+                }
+                return transactions.poll();
+            }
+        }
+
+        /**
+         * Takes the revert of the last block delivered if the oldest pending reorganization removed it,
+         * rewinding the cursor by one. Reorganizations that removed nothing this subscriber received are skipped.
+         */
+        private ChainEvent nextRevert() {
+            Reorganization reorganization;
+            while ((reorganization = reorganizations.peek()) != null) {
+                int index = nextHeight - 2 - reorganization.forkHeight;  // Last block delivered, among the removed
+                if (index >= 0 && index < reorganization.removed.size()
+                        && reorganization.removed.get(index).getHash().equals(lastBlockHash)) {
+                    Block block = reorganization.removed.get(index);
+                    lastBlockHash = block.getPreviousHash();
+                    nextHeight--;
+                    return ChainEvent.blockReverted(nextHeight, block);
+                }
+                reorganizations.poll();
+            }
+            return null;
+        }
+
+        private boolean isBufferEmpty() {
+            synchronized (transactions) {
+                return transactions.isEmpty() && reorganizations.isEmpty();
+            }
+        }
+    }
+
+    // The chain block events are read from
+    private final Blockchain blockchain;
+
+    // Executor the subscribers are called on
+    private final Executor executor;
+
+    // Active subscriptions
+    private final Set<ChainSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    // Transaction events dropped because a subscriber's buffer was full
+    private final Counter droppedTransactions;
+
+    // Called by the chain with every block appended
+    private final Consumer<Block> appendListener = block -> signalAll();
+
+    // Called by the chain with the blocks every reorganization removes
+    private final Blockchain.RevertListener revertListener = (forkHeight, removed) -> {
+        Reorganization reorganization = new Reorganization(forkHeight, removed);
+        for (ChainSubscription subscription : subscriptions) {
+            subscription.reorganized(reorganization);
+        }
+    };
+
+    // Transaction events buffered per subscription, for new subscriptions
+    private volatile int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    // Height of the tip when the publisher was closed; subscribers complete once they reach it
+    private volatile int closedHeight;
+    private volatile boolean closed;
+
+    /**
+     * Constructor for the ChainEventPublisher class. The publisher listens to the chain until it is closed.
+     *
+     * @param blockchain The chain whose appended blocks are published
+     * @param metrics    The registry the publisher's metrics are recorded in
+     * @param executor   The executor subscribers are called on
+     */
+    public ChainEventPublisher(Blockchain blockchain, MetricsRegistry metrics, Executor executor) {
+        this.blockchain = blockchain;
+        this.executor = executor;
+        this.droppedTransactions = metrics.counter("events.transactions.dropped");
+        metrics.gauge("events.subscribers", subscriptions::size);
+        blockchain.addAppendListener(appendListener);
+        blockchain.addRevertListener(revertListener);
+    }
+
+    /**
+     * Sets the number of transaction events buffered for each subscriber that subscribes from now on.
+     *
+     * @param bufferSize The buffer size (at least 1)
+     */
+    public void setBufferSize(int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be at least 1");
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Subscribes to the events from now on: blocks appended after the current tip and transactions received
+     * from now on.
+     *
+     * @param subscriber The subscriber
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super ChainEvent> subscriber) {
+        subscribe(subscriber, blockchain.getHeight() + 1);
+    }
+
+    /**
+     * Subscribes to the events starting with the block at a given height: the blocks already in the chain from
+     * that height on are delivered first, then new ones, with no gap or duplicate. A subscriber that processed
+     * blocks up to height h resumes with {@code h + 1}. Transactions are not replayed: those received before
+     * subscribing are in the node's pool of pending transactions.
+     *
+     * @param subscriber The subscriber
+     * @param fromHeight The height of the first block event (0 for the genesis block)
+     * @throws IllegalArgumentException if the height is negative
+     */
+    public void subscribe(Flow.Subscriber<? super ChainEvent> subscriber, int fromHeight) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        if (fromHeight < 0) {
+            throw new IllegalArgumentException("Heights start at 0");
+        }
+        ChainSubscription subscription = new ChainSubscription(subscriber, fromHeight, bufferSize);
+        subscriptions.add(subscription);
+        subscription.signal();
+    }
+
+    /**
+     * Publishes a transaction received into the node's pool of pending transactions.
+     *
+     * @param transaction The new transaction
+     */
+    public void transactionReceived(Transaction transaction) {
+        if (closed || subscriptions.isEmpty()) {
+            return;
+        }
+        ChainEvent event = ChainEvent.transactionReceived(blockchain.getHeight(), transaction);
+        for (ChainSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    /**
+     * Retrieves the number of active subscriptions.
+     *
+     * @return The subscriber count.
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Stops publishing. Subscribers still receive the blocks up to the current tip and their buffered
+     * transactions as they request them, then complete.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        blockchain.removeAppendListener(appendListener);
+        blockchain.removeRevertListener(revertListener);
+        closedHeight = blockchain.getHeight();
+        closed = true;
+        signalAll();
+    }
+
+    private void signalAll() {
+        for (ChainSubscription subscription : subscriptions) {
+            subscription.signal();
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.example.blockchain.loadtest;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.metrics.Histogram;
+import com.example.blockchain.metrics.MetricsRegistry;
+import com.example.blockchain.network.Node;
+import com.example.blockchain.network.P2PNetwork;
+import com.example.blockchain.simulation.Topology;
+import com.example.blockchain.transactions.Transaction;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * LoadGenerator measures how many transactions per second a network of nodes accepts, includes in blocks
+ * and propagates. Transactions between generated accounts are fired at entry nodes, open-loop: arrivals follow
+ * their schedule whatever the network's response, and latencies are measured from the scheduled arrival time,
+ * so a saturated network shows up as growing latency instead of a silently lower offered rate.
+ * A block producer mines a block with its pending transactions at a fixed interval; a transaction is included
+ * once it is in a mined block. After each block, every node's lag behind the producer is sampled.
+ * <p>
+ * The generator drives the network as it is configured: nodes may be connected in-process or over loopback TCP
+ * (see {@link #createInProcessNetwork} and {@link #createLoopbackNetwork}), with their runtimes started or not.
+ */
+public class LoadGenerator {
+
+    // The nodes transactions are fired at, in turn
+    private final List<Node> entryNodes;
+
+    // Every node whose lag is reported
+    private final List<Node> nodes;
+
+    // The node mining blocks
+    private Node blockProducer;
+
+    // Account addresses transactions are drawn between
+    private final String[] accounts;
+
+    // Source of randomness for accounts and arrival times
+    private final Random random;
+
+    // Transactions per second offered to the network (0: as fast as the entry nodes accept them)
+    private double targetRate = 1000.0;
+
+    // Whether inter-arrival times are exponential (Poisson arrivals) instead of evenly spaced
+    private boolean poissonArrivals;
+
+    // Time between two blocks mined by the block producer
+    private long blockIntervalMillis = 1000;
+
+    // Time blocks keep being produced after firing stops, waiting for the last transactions to be included
+    private long drainTimeoutMillis = 10_000;
+
+    /**
+     * Constructor for the LoadGenerator class. Every node of the network is an entry node and the first one
+     * (in order of node IDs) produces the blocks.
+     *
+     * @param network      The network under load
+     * @param accountCount The number of accounts transactions are drawn between (at least 2)
+     * @param seed         The seed of the account and arrival time choices
+     */
+    public LoadGenerator(P2PNetwork network, int accountCount, long seed) {
+        if (accountCount < 2) {
+            throw new IllegalArgumentException("At least two accounts are needed");
+        }
+        List<Node> sorted = new ArrayList<>();
+        for (String nodeId : Topology.nodeIds(network)) {
+            sorted.add(network.getNodesInNetwork().get(nodeId));
+        }
+        if (sorted.isEmpty()) {
+            throw new IllegalArgumentException("The network has no nodes");
+        }
+        this.nodes = sorted;
+        this.entryNodes = new ArrayList<>(sorted);
+        this.blockProducer = sorted.get(0);
+        this.accounts = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accounts[i] = String.format("Account%06d", i);
+        }
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Fires transactions for the given time, then keeps producing blocks until every transaction is included
+     * or the drain timeout elapses.
+     *
+     * @param durationMillis The time transactions are fired for
+     * @return The measured throughput, inclusion latency and node lag.
+     */
+    public LoadReport run(long durationMillis) {
+        Map<String, Long> submittedAt = new ConcurrentHashMap<>();
+        Histogram inclusionLatency = new MetricsRegistry().histogram("inclusion.latency");
+        AtomicLong included = new AtomicLong();
+        AtomicLong lastInclusionNanos = new AtomicLong();
+        AtomicInteger blocksProduced = new AtomicInteger();
+        int[] maxLag = new int[nodes.size()];
+
+        ScheduledExecutorService producer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-block-producer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        producer.scheduleWithFixedDelay(() -> {
+            Block block;
+            try {
+                block = blockProducer.mineBlock().join();
+            } catch (RuntimeException e) {
+                return;  // The producer's chain moved on while mining; try again at the next interval
+            }
+            long now = System.nanoTime();
+            blocksProduced.incrementAndGet();
+            for (Transaction transaction : block.getTransactions()) {
+                Long submitted = submittedAt.remove(transaction.getHash());
+                if (submitted != null) {
+                    inclusionLatency.record(now - submitted);
+                    included.incrementAndGet();
+                    lastInclusionNanos.set(now);
+                }
+            }
+            sampleLag(maxLag);
+        }, blockIntervalMillis, blockIntervalMillis, TimeUnit.MILLISECONDS);
+
+        long submitted;
+        long firingNanos;
+        try {
+            submitted = fire(durationMillis, start, submittedAt);
+            firingNanos = System.nanoTime() - start;
+            long drainDeadline = System.currentTimeMillis() + drainTimeoutMillis;
+            while (!submittedAt.isEmpty() && System.currentTimeMillis() < drainDeadline) {
+                sleep(10);
+            }
+        } finally {
+            producer.shutdown();
+        }
+        try {
+            producer.awaitTermination(drainTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int[] finalLag = awaitFinalLag();
+        List<String> nodeIds = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            nodeIds.add(node.getNodeId());
+        }
+        long inclusionNanos = included.get() == 0 ? 0 : lastInclusionNanos.get() - start;
+        return new LoadReport(submitted, included.get(), blocksProduced.get(), firingNanos, inclusionNanos,
+                inclusionLatency.snapshot(), nodeIds, maxLag, finalLag);
+    }
+
+    /**
+     * Fires transactions at the entry nodes until the duration elapses.
+     *
+     * @return The number of transactions fired.
+     */
+    private long fire(long durationMillis, long start, Map<String, Long> submittedAt) {
+        long end = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        double meanIntervalNanos = targetRate > 0 ? 1e9 / targetRate : 0.0;
+        double offsetNanos = 0.0;  // Scheduled arrival of the next transaction, relative to the start
+        long sequence = 0;
+        while (true) {
+            long arrival = start + (long) offsetNanos;
+            long now = System.nanoTime();
+            if (targetRate > 0) {
+                if (arrival >= end) {
+                    return sequence;
+                }
+                if (arrival > now) {
+                    LockSupport.parkNanos(arrival - now);
+                }
+            } else {
+                if (now >= end) {
+                    return sequence;
+                }
+                arrival = now;
+            }
+
+            Transaction transaction = nextTransaction(sequence);
+            submittedAt.put(transaction.getHash(), arrival);
+            entryNodes.get((int) (sequence % entryNodes.size())).receiveTransaction(transaction);
+            sequence++;
+            offsetNanos += poissonArrivals
+                    ? -Math.log(1.0 - random.nextDouble()) * meanIntervalNanos
+                    : meanIntervalNanos;
+        }
+    }
+
+    /**
+     * Creates a transaction between two random accounts. The amount is derived from the sequence number,
+     * so every transaction of a run has a distinct hash.
+     */
+    private Transaction nextTransaction(long sequence) {
+        int sender = random.nextInt(accounts.length);
+        int recipient = random.nextInt(accounts.length - 1);
+        if (recipient >= sender) {
+            recipient++;
+        }
+        return new Transaction(accounts[sender], accounts[recipient], sequence + 1);
+    }
+
+    /**
+     * Records how many blocks each node is behind the block producer, keeping the maximum per node.
+     */
+    private void sampleLag(int[] maxLag) {
+        int producerHeight = blockProducer.getBlockchain().getHeight();
+        for (int i = 0; i < nodes.size(); i++) {
+            int lag = producerHeight - nodes.get(i).getBlockchain().getHeight();
+            maxLag[i] = Math.max(maxLag[i], lag);
+        }
+    }
+
+    /**
+     * Gives the nodes up to the drain timeout to catch up with the block producer.
+     *
+     * @return The number of blocks each node is still behind.
+     */
+    private int[] awaitFinalLag() {
+        long deadline = System.currentTimeMillis() + drainTimeoutMillis;
+        int producerHeight = blockProducer.getBlockchain().getHeight();
+        int[] lag = new int[nodes.size()];
+        while (true) {
+            boolean caughtUp = true;
+            for (int i = 0; i < nodes.size(); i++) {
+                lag[i] = Math.max(0, producerHeight - nodes.get(i).getBlockchain().getHeight());
+                caughtUp &= lag[i] == 0;
+            }
+            if (caughtUp || System.currentTimeMillis() >= deadline) {
+                return lag;
+            }
+            sleep(10);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sets the rate transactions are offered at.
+     *
+     * @param transactionsPerSecond The target rate, or 0 to fire as fast as the entry nodes accept transactions
+     */
+    public void setTargetRate(double transactionsPerSecond) {
+        if (transactionsPerSecond < 0) {
+            throw new IllegalArgumentException("Target rate cannot be negative");
+        }
+        this.targetRate = transactionsPerSecond;
+    }
+
+    /**
+     * Chooses between evenly spaced arrivals and Poisson arrivals (exponential inter-arrival times)
+     * at the target rate.
+     *
+     * @param poissonArrivals True for Poisson arrivals
+     */
+    public void setPoissonArrivals(boolean poissonArrivals) {
+        this.poissonArrivals = poissonArrivals;
+    }
+
+    /**
+     * Sets the time between two blocks mined by the block producer.
+     *
+     * @param millis The block interval in milliseconds
+     */
+    public void setBlockInterval(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Block interval must be positive");
+        }
+        this.blockIntervalMillis = millis;
+    }
+
+    /**
+     * Sets how long blocks keep being produced after firing stops, and how long nodes are given to catch up.
+     *
+     * @param millis The drain timeout in milliseconds
+     */
+    public void setDrainTimeout(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Drain timeout cannot be negative");
+        }
+        this.drainTimeoutMillis = millis;
+    }
+
+    /**
+     * Sets the nodes transactions are fired at, in turn.
+     *
+     * @param entryNodes The entry nodes (at least one)
+     */
+    public void setEntryNodes(List<Node> entryNodes) {
+        if (entryNodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one entry node is needed");
+        }
+        this.entryNodes.clear();
+        this.entryNodes.addAll(entryNodes);
+    }
+
+    /**
+     * Sets the node mining the blocks.
+     *
+     * @param blockProducer The block producer
+     */
+    public void setBlockProducer(Node blockProducer) {
+        this.blockProducer = blockProducer;
+    }
+
+    /**
+     * Creates a network of nodes connected in-process in a random topology, with their runtimes started.
+     *
+     * @param nodeCount  The number of nodes
+     * @param degree     The number of outbound connections of each node
+     * @param difficulty The Proof of Work difficulty of the nodes' chains
+     * @param seed       The seed of the topology
+     * @return The started network.
+     */
+    public static P2PNetwork createInProcessNetwork(int nodeCount, int degree, int difficulty, long seed) {
+        P2PNetwork network = new P2PNetwork();
+        for (int i = 0; i < nodeCount; i++) {
+            network.addNodeToNetwork(new Node(String.format("Node%04d", i), new Blockchain(difficulty)));
+        }
+        network.buildRandomTopology(degree, degree * 2, seed);
+        network.startAll();
+        return network;
+    }
+
+    /**
+     * Creates a network of nodes connected over loopback TCP in a connected random regular topology,
+     * with their runtimes started. Stop the network with {@link P2PNetwork#stopAll()} to close the connections.
+     *
+     * @param nodeCount  The number of nodes
+     * @param degree     The number of connections of each node
+     * @param difficulty The Proof of Work difficulty of the nodes' chains
+     * @param seed       The seed of the topology
+     * @return The started network.
+     * @throws IOException if a node cannot listen or connect on the loopback interface
+     */
+    public static P2PNetwork createLoopbackNetwork(int nodeCount, int degree, int difficulty, long seed)
+            throws IOException {
+        P2PNetwork network = new P2PNetwork();
+        List<Node> nodes = new ArrayList<>();
+        int[] ports = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = new Node(String.format("Node%04d", i), new Blockchain(difficulty));
+            ports[i] = node.startTransport(new InetSocketAddress("127.0.0.1", 0)).getLocalPort();
+            network.addNodeToNetwork(node);
+            nodes.add(node);
+        }
+        Topology topology = Topology.randomRegular(nodeCount, Math.min(degree, nodeCount - 1), seed);
+        for (long retry = 1; topology.getEccentricity(0) < 0; retry++) {
+            // Small random graphs can split into components; draw again until every node is reachable
+            topology = Topology.randomRegular(nodeCount, Math.min(degree, nodeCount - 1), seed + retry);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            for (int j : topology.getNeighbors(i)) {
+                if (j > i) {
+                    nodes.get(i).connectToRemotePeer(new InetSocketAddress("127.0.0.1", ports[j]));
+                }
+            }
+        }
+        network.startAll();
+        return network;
+    }
+
+    /**
+     * Runs a load test from the command line and prints the report.
+     * Arguments: node count, degree, target rate (transactions per second, 0 for unthrottled), duration in seconds
+     * and transport ("inprocess" or "loopback") (defaults: 16 4 1000 10 inprocess).
+     *
+     * @param args The command line arguments
+     * @throws IOException if the loopback network cannot be created
+     */
+    public static void main(String[] args) throws IOException {
+        int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        double rate = args.length > 2 ? Double.parseDouble(args[2]) : 1000.0;
+        long seconds = args.length > 3 ? Long.parseLong(args[3]) : 10;
+        boolean loopback = args.length > 4 && args[4].equals("loopback");
+
+        P2PNetwork network = loopback
+                ? createLoopbackNetwork(nodeCount, degree, 2, 1L)
+                : createInProcessNetwork(nodeCount, degree, 2, 1L);
+        try {
+            LoadGenerator generator = new LoadGenerator(network, 10_000, 1L);
+            generator.setTargetRate(rate);
+            System.out.println(generator.run(TimeUnit.SECONDS.toMillis(seconds)));
+        } finally {
+            network.stopAll();
+        }
+    }
+}
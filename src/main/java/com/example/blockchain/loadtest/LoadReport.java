@@ -0,0 +1,159 @@
+package com.example.blockchain.loadtest;
+
+import com.example.blockchain.metrics.Histogram;
+
+import java.util.List;
+
+/**
+ * LoadReport holds the outcome of a {@link LoadGenerator} run: the offered and sustained transaction rates,
+ * how long transactions took to be included in a block and how far each node fell behind the block producer.
+ */
+public final class LoadReport {
+
+    private final long submittedTransactions;
+    private final long includedTransactions;
+    private final int blocksProduced;
+
+    // Time transactions were fired for, and time from the start until the last inclusion
+    private final long firingNanos;
+    private final long inclusionNanos;
+
+    // Time from each transaction's scheduled arrival until a block including it was mined, in nanoseconds
+    private final Histogram.Snapshot inclusionLatency;
+
+    // Per node (same order as nodeIds), the largest lag sampled after a block and the lag at the end of the run
+    private final List<String> nodeIds;
+    private final int[] maxLag;
+    private final int[] finalLag;
+
+    LoadReport(long submittedTransactions, long includedTransactions, int blocksProduced, long firingNanos,
+               long inclusionNanos, Histogram.Snapshot inclusionLatency, List<String> nodeIds, int[] maxLag,
+               int[] finalLag) {
+        this.submittedTransactions = submittedTransactions;
+        this.includedTransactions = includedTransactions;
+        this.blocksProduced = blocksProduced;
+        this.firingNanos = firingNanos;
+        this.inclusionNanos = inclusionNanos;
+        this.inclusionLatency = inclusionLatency;
+        this.nodeIds = List.copyOf(nodeIds);
+        this.maxLag = maxLag;
+        this.finalLag = finalLag;
+    }
+
+    /**
+     * Retrieves the number of transactions fired at the network.
+     *
+     * @return The number of submitted transactions.
+     */
+    public long getSubmittedTransactions() {
+        return submittedTransactions;
+    }
+
+    /**
+     * Retrieves the number of submitted transactions that were included in a mined block.
+     *
+     * @return The number of included transactions.
+     */
+    public long getIncludedTransactions() {
+        return includedTransactions;
+    }
+
+    /**
+     * Retrieves the number of blocks mined during the run.
+     *
+     * @return The number of blocks.
+     */
+    public int getBlocksProduced() {
+        return blocksProduced;
+    }
+
+    /**
+     * Computes the rate transactions were offered at.
+     *
+     * @return Submitted transactions per second of firing.
+     */
+    public double getOfferedTps() {
+        return firingNanos == 0 ? 0.0 : submittedTransactions * 1e9 / firingNanos;
+    }
+
+    /**
+     * Computes the rate transactions were included in blocks, from the start of the run to the last inclusion.
+     *
+     * @return Included transactions per second.
+     */
+    public double getSustainedTps() {
+        return inclusionNanos == 0 ? 0.0 : includedTransactions * 1e9 / inclusionNanos;
+    }
+
+    /**
+     * Retrieves a percentile of the time from a transaction's arrival until it was included in a block.
+     *
+     * @param percentile The percentile, between 0 and 100
+     * @return The inclusion latency in milliseconds.
+     */
+    public double getInclusionLatencyMillis(double percentile) {
+        return inclusionLatency.getPercentile(percentile) / 1e6;
+    }
+
+    /**
+     * Retrieves the IDs of the nodes whose lag was measured.
+     *
+     * @return The node IDs.
+     */
+    public List<String> getNodeIds() {
+        return nodeIds;
+    }
+
+    /**
+     * Retrieves the largest number of blocks a node was behind the block producer right after a block was mined.
+     *
+     * @param nodeId The ID of the node
+     * @return The maximum lag in blocks.
+     */
+    public int getMaxLag(String nodeId) {
+        return maxLag[indexOf(nodeId)];
+    }
+
+    /**
+     * Retrieves the number of blocks a node was still behind the block producer at the end of the run.
+     *
+     * @param nodeId The ID of the node
+     * @return The final lag in blocks.
+     */
+    public int getFinalLag(String nodeId) {
+        return finalLag[indexOf(nodeId)];
+    }
+
+    private int indexOf(String nodeId) {
+        int index = nodeIds.indexOf(nodeId);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown node: " + nodeId);
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Transactions: %d submitted, %d included in %d blocks%n",
+                submittedTransactions, includedTransactions, blocksProduced));
+        report.append(String.format("Throughput: %.1f tx/s offered, %.1f tx/s sustained%n",
+                getOfferedTps(), getSustainedTps()));
+        report.append(String.format("Inclusion latency (ms): p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n",
+                getInclusionLatencyMillis(50), getInclusionLatencyMillis(90), getInclusionLatencyMillis(99),
+                inclusionLatency.getMax() / 1e6));
+        int worstMaxLag = 0;
+        int worstFinalLag = 0;
+        int laggingNodes = 0;
+        for (int i = 0; i < nodeIds.size(); i++) {
+            worstMaxLag = Math.max(worstMaxLag, maxLag[i]);
+            worstFinalLag = Math.max(worstFinalLag, finalLag[i]);
+            if (finalLag[i] > 0) {
+                laggingNodes++;
+            }
+        }
+        report.append(String.format("Node lag (blocks): max %d during the run, %d nodes behind at the end (up to %d)",
+                worstMaxLag, laggingNodes, worstFinalLag));
+        return report.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.blockchain.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counter is a monotonically increasing count, such as the number of blocks imported.
+ * Increments from many threads do not contend with each other.
+ */
+public final class Counter {
+
+    private final LongAdder count = new LongAdder();
+
+    Counter() {
+    }
+
+    /**
+     * Increments the counter by one.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Increments the counter.
+     *
+     * @param amount The amount to add (must not be negative)
+     */
+    public void add(long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Counters cannot decrease");
+        }
+        count.add(amount);
+    }
+
+    /**
+     * Retrieves the current count.
+     *
+     * @return The sum of all increments so far.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.blockchain.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram records the distribution of non-negative values, typically latencies in nanoseconds.
+ * Values are counted in log-linear buckets (eight per power of two), so recording is a few atomic
+ * increments without allocation, and percentiles are accurate to within 12.5%.
+ */
+public final class Histogram {
+
+    // Values below this are counted exactly, one bucket per value
+    private static final int EXACT_VALUES = 16;
+
+    // Buckets per power of two above the exact range, as a power of two
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Number of buckets needed to cover every non-negative long
+    private static final int BUCKET_COUNT = EXACT_VALUES + (63 - 4) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    Histogram() {
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value The value to record (negative values are recorded as 0)
+     */
+    public void record(long value) {
+        long recorded = Math.max(value, 0L);
+        buckets.incrementAndGet(bucketOf(recorded));
+        sum.add(recorded);
+        max.accumulate(recorded);
+    }
+
+    /**
+     * Records the time elapsed since a start time taken with {@link System#nanoTime()}.
+     *
+     * @param startNanos The start time
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < EXACT_VALUES) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);  // At least 4 here
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT_VALUES + (exponent - 4) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the largest value counted in a bucket.
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < EXACT_VALUES) {
+            return bucket;
+        }
+        int exponent = (bucket - EXACT_VALUES) / SUB_BUCKETS + 4;
+        int subBucket = (bucket - EXACT_VALUES) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (SUB_BUCKETS + subBucket) * width + width - 1;
+    }
+
+    /**
+     * Takes a consistent copy of the recorded distribution.
+     *
+     * @return The snapshot.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        return new Snapshot(counts, count, sum.sum(), max.get());
+    }
+
+    /**
+     * An immutable copy of a histogram's distribution at one point in time.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Estimates a percentile of the recorded values.
+         *
+         * @param percentile The percentile, between 0 and 100
+         * @return An upper bound of the percentile (within 12.5%), or 0 if nothing was recorded.
+         */
+        public long getPercentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100");
+            }
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Retrieves the number of recorded values.
+         *
+         * @return The count.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Retrieves the sum of the recorded values.
+         *
+         * @return The sum.
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * Retrieves the mean of the recorded values.
+         *
+         * @return The mean, or 0 if nothing was recorded.
+         */
+        public double getMean() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        /**
+         * Retrieves the largest recorded value.
+         *
+         * @return The maximum, or 0 if nothing was recorded.
+         */
+        public long getMax() {
+            return max;
+        }
+    }
+}
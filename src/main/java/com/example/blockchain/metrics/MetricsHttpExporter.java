@@ -0,0 +1,69 @@
+package com.example.blockchain.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MetricsHttpExporter serves a registry's metrics over HTTP in the Prometheus text format at {@code /metrics}.
+ * It is optional: metrics are recorded whether or not an exporter is running, and the snapshot is only
+ * taken when the endpoint is scraped.
+ */
+public class MetricsHttpExporter implements AutoCloseable {
+
+    // Path the metrics are served at
+    public static final String PATH = "/metrics";
+
+    private final MetricsRegistry registry;
+    private final HttpServer server;
+
+    /**
+     * Starts an exporter for a registry.
+     *
+     * @param registry The registry to export
+     * @param address  The address to listen on (port 0 picks a free port)
+     * @throws IOException if the address cannot be bound
+     */
+    public MetricsHttpExporter(MetricsRegistry registry, InetSocketAddress address) throws IOException {
+        this.registry = registry;
+        this.server = HttpServer.create(address, 0);
+        server.createContext(PATH, this::handle);
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = registry.snapshot().toText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the address the exporter listens on.
+     *
+     * @return The bound address, with the actual port.
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stops the exporter.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.blockchain.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * MetricsRegistry holds named counters, gauges and histograms.
+ * Components record into their metrics as they work; readers pull a {@link MetricsSnapshot} whenever they need
+ * numbers, so nothing is computed or formatted on the hot path.
+ * Each node has its own registry; process-wide metrics such as the mining hashrate live in {@link #getDefault()}.
+ */
+public class MetricsRegistry {
+
+    // Registry for metrics that do not belong to a particular node
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    // Registered metrics by name: a Counter, a Histogram or a DoubleSupplier (gauge)
+    private final Map<String, Object> metrics = new ConcurrentHashMap<>();
+
+    /**
+     * Retrieves the process-wide registry.
+     *
+     * @return The default registry.
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Retrieves a counter, registering it on first use.
+     *
+     * @param name The metric name
+     * @return The counter registered under the name.
+     * @throws IllegalArgumentException if the name is registered as another kind of metric
+     */
+    public Counter counter(String name) {
+        return lookUp(name, metrics.computeIfAbsent(name, n -> new Counter()), Counter.class);
+    }
+
+    /**
+     * Retrieves a histogram, registering it on first use.
+     *
+     * @param name The metric name
+     * @return The histogram registered under the name.
+     * @throws IllegalArgumentException if the name is registered as another kind of metric
+     */
+    public Histogram histogram(String name) {
+        return lookUp(name, metrics.computeIfAbsent(name, n -> new Histogram()), Histogram.class);
+    }
+
+    /**
+     * Registers a gauge, a value read on demand whenever a snapshot is taken.
+     * Registering a gauge under the name of an existing gauge replaces it.
+     *
+     * @param name  The metric name
+     * @param value Function reading the current value; must be cheap and thread-safe
+     * @throws IllegalArgumentException if the name is registered as another kind of metric
+     */
+    public void gauge(String name, DoubleSupplier value) {
+        Object registered = metrics.merge(name, value,
+                (existing, added) -> existing instanceof DoubleSupplier ? added : existing);
+        lookUp(name, registered, DoubleSupplier.class);
+    }
+
+    private static <T> T lookUp(String name, Object metric, Class<T> type) {
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a "
+                    + metric.getClass().getSimpleName());
+        }
+        return type.cast(metric);
+    }
+
+    /**
+     * Reads every metric of the registry.
+     *
+     * @return A snapshot of the current values, ordered by name.
+     */
+    public MetricsSnapshot snapshot() {
+        Map<String, Long> counters = new TreeMap<>();
+        Map<String, Double> gauges = new TreeMap<>();
+        Map<String, Histogram.Snapshot> histograms = new TreeMap<>();
+        for (Map.Entry<String, Object> entry : metrics.entrySet()) {
+            Object metric = entry.getValue();
+            if (metric instanceof Counter) {
+                counters.put(entry.getKey(), ((Counter) metric).getCount());
+            } else if (metric instanceof Histogram) {
+                histograms.put(entry.getKey(), ((Histogram) metric).snapshot());
+            } else {
+                gauges.put(entry.getKey(), ((DoubleSupplier) metric).getAsDouble());
+            }
+        }
+        return new MetricsSnapshot(System.currentTimeMillis(), counters, gauges, histograms);
+    }
+}
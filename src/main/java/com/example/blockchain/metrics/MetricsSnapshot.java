@@ -0,0 +1,149 @@
+package com.example.blockchain.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * MetricsSnapshot holds the values of a registry's metrics at one point in time.
+ * It can be inspected programmatically or rendered in the Prometheus text format with {@link #toText()}.
+ */
+public final class MetricsSnapshot {
+
+    // Percentiles included for every histogram in the text format
+    private static final double[] EXPORTED_PERCENTILES = {50.0, 90.0, 99.0};
+
+    // Time the snapshot was taken, in milliseconds since the epoch
+    private final long timestampMillis;
+
+    private final Map<String, Long> counters;
+    private final Map<String, Double> gauges;
+    private final Map<String, Histogram.Snapshot> histograms;
+
+    MetricsSnapshot(long timestampMillis, Map<String, Long> counters, Map<String, Double> gauges,
+                    Map<String, Histogram.Snapshot> histograms) {
+        this.timestampMillis = timestampMillis;
+        this.counters = Collections.unmodifiableMap(counters);
+        this.gauges = Collections.unmodifiableMap(gauges);
+        this.histograms = Collections.unmodifiableMap(histograms);
+    }
+
+    /**
+     * Retrieves the value of a counter.
+     *
+     * @param name The metric name
+     * @return The counter's value.
+     * @throws IllegalArgumentException if no counter has this name
+     */
+    public long getCounter(String name) {
+        return require(counters, name);
+    }
+
+    /**
+     * Retrieves the value of a gauge.
+     *
+     * @param name The metric name
+     * @return The gauge's value.
+     * @throws IllegalArgumentException if no gauge has this name
+     */
+    public double getGauge(String name) {
+        return require(gauges, name);
+    }
+
+    /**
+     * Retrieves the distribution of a histogram.
+     *
+     * @param name The metric name
+     * @return The histogram's snapshot.
+     * @throws IllegalArgumentException if no histogram has this name
+     */
+    public Histogram.Snapshot getHistogram(String name) {
+        return require(histograms, name);
+    }
+
+    private static <T> T require(Map<String, T> metrics, String name) {
+        T value = metrics.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown metric: " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Retrieves every counter by name.
+     *
+     * @return The counters, ordered by name.
+     */
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    /**
+     * Retrieves every gauge by name.
+     *
+     * @return The gauges, ordered by name.
+     */
+    public Map<String, Double> getGauges() {
+        return gauges;
+    }
+
+    /**
+     * Retrieves every histogram by name.
+     *
+     * @return The histograms, ordered by name.
+     */
+    public Map<String, Histogram.Snapshot> getHistograms() {
+        return histograms;
+    }
+
+    /**
+     * Retrieves the time the snapshot was taken.
+     *
+     * @return The time in milliseconds since the epoch.
+     */
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * Renders the snapshot in the Prometheus text exposition format.
+     * Dots in metric names become underscores; histograms are exported as summaries with their
+     * 50th, 90th and 99th percentiles, sum, count and maximum.
+     *
+     * @return The text, one sample per line.
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            String name = exportName(entry.getKey());
+            text.append("# TYPE ").append(name).append(" counter\n");
+            text.append(name).append(' ').append(entry.getValue()).append('\n');
+        }
+        for (Map.Entry<String, Double> entry : gauges.entrySet()) {
+            String name = exportName(entry.getKey());
+            text.append("# TYPE ").append(name).append(" gauge\n");
+            text.append(name).append(' ').append(entry.getValue()).append('\n');
+        }
+        for (Map.Entry<String, Histogram.Snapshot> entry : histograms.entrySet()) {
+            String name = exportName(entry.getKey());
+            Histogram.Snapshot histogram = entry.getValue();
+            text.append("# TYPE ").append(name).append(" summary\n");
+            for (double percentile : EXPORTED_PERCENTILES) {
+                text.append(name).append("{quantile=\"").append(percentile / 100.0).append("\"} ")
+                        .append(histogram.getPercentile(percentile)).append('\n');
+            }
+            text.append(name).append("_sum ").append(histogram.getSum()).append('\n');
+            text.append(name).append("_count ").append(histogram.getCount()).append('\n');
+            text.append(name).append("_max ").append(histogram.getMax()).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static String exportName(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_:]", "_");
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.blockchain.mining;
+
+import com.example.blockchain.blockchain.BlockHeader;
+
+import java.nio.ByteBuffer;
+
+/**
+ * HeaderMidstate is the part of the SHA-256 computation of a serialized block header that does not depend on the nonce.
+ * <p>
+ * The {@link BlockHeader#SERIALIZED_SIZE}-byte header pads to two 64-byte SHA-256 blocks, and the nonce is the
+ * thirteenth word of the second one. The first block is compressed once (the midstate); in the second block the
+ * first twelve rounds and schedule words 16 to 18 do not read the nonce either, so each nonce tried costs only
+ * the remaining 52 rounds.
+ */
+public final class HeaderMidstate {
+
+    // Index of the nonce in the second block's message schedule
+    static final int NONCE_WORD = (BlockHeader.NONCE_OFFSET - 64) / 4;
+
+    // Number of schedule words of the second block that do not depend on the nonce, apart from the nonce itself
+    static final int CONSTANT_WORDS = 19;
+
+    // Hash state after the first block
+    final int[] midstate = new int[8];
+
+    // Second block's message schedule; words 0 to 18, with the nonce word left as zero
+    final int[] schedule = new int[Sha256.ROUNDS];
+
+    // Working variables a to h after the first twelve rounds of the second block
+    final int[] roundState = new int[8];
+
+    private final byte[] header;
+
+    private HeaderMidstate(byte[] header) {
+        this.header = header.clone();
+        ByteBuffer buffer = ByteBuffer.wrap(this.header);
+
+        int[] first = new int[Sha256.ROUNDS];
+        for (int t = 0; t < Sha256.BLOCK_WORDS; t++) {
+            first[t] = buffer.getInt();
+        }
+        for (int t = Sha256.BLOCK_WORDS; t < Sha256.ROUNDS; t++) {
+            first[t] = Sha256.expand(first, t);
+        }
+        System.arraycopy(Sha256.INITIAL_STATE, 0, midstate, 0, 8);
+        int[] state = midstate.clone();
+        Sha256.rounds(state, first, 0, Sha256.ROUNDS);
+        for (int i = 0; i < 8; i++) {
+            midstate[i] += state[i];
+        }
+
+        for (int t = 0; t < NONCE_WORD; t++) {
+            schedule[t] = buffer.getInt();
+        }
+        schedule[NONCE_WORD + 1] = 0x80000000;  // Padding: a single one bit after the message
+        schedule[Sha256.BLOCK_WORDS - 1] = BlockHeader.SERIALIZED_SIZE * 8;  // Message length in bits
+        for (int t = Sha256.BLOCK_WORDS; t < CONSTANT_WORDS; t++) {
+            schedule[t] = Sha256.expand(schedule, t);
+        }
+        System.arraycopy(midstate, 0, roundState, 0, 8);
+        Sha256.rounds(roundState, schedule, 0, NONCE_WORD);
+    }
+
+    /**
+     * Precomputes the nonce-independent part of hashing a serialized header.
+     *
+     * @param header A header serialized by {@link BlockHeader#serialize}; its nonce bytes are ignored
+     * @return The midstate.
+     */
+    public static HeaderMidstate of(byte[] header) {
+        if (header.length != BlockHeader.SERIALIZED_SIZE) {
+            throw new IllegalArgumentException("A serialized header has " + BlockHeader.SERIALIZED_SIZE
+                    + " bytes, got " + header.length);
+        }
+        return new HeaderMidstate(header);
+    }
+
+    /**
+     * Retrieves a copy of the serialized header the midstate was computed from.
+     *
+     * @return The serialized header.
+     */
+    public byte[] getHeader() {
+        return header.clone();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.blockchain.mining;
+
+/**
+ * A MiningKernel computes block header hashes for runs of consecutive nonces.
+ * Every kernel produces exactly the digests of SHA-256 over the serialized header; they differ only in how many
+ * nonces they hash at once ({@link #getLanes()}). Kernels are stateless and can be shared between threads.
+ */
+public interface MiningKernel {
+
+    // Returned by search when no nonce in the range meets the target
+    long NOT_FOUND = -1L;
+
+    /**
+     * Retrieves the name of the kernel, as accepted by {@link MiningKernels#select(String)}.
+     *
+     * @return The kernel name.
+     */
+    String getName();
+
+    /**
+     * Retrieves the number of nonces hashed at once.
+     *
+     * @return The number of lanes.
+     */
+    int getLanes();
+
+    /**
+     * Hashes the header with {@link #getLanes()} consecutive nonces.
+     *
+     * @param header     The midstate of the header
+     * @param firstNonce The nonce of the first lane; lane {@code i} uses {@code firstNonce + i}
+     * @param digests    Receives the eight big-endian words of each digest, word-major:
+     *                   word {@code w} of lane {@code i} is at {@code w * getLanes() + i}
+     */
+    void hash(HeaderMidstate header, int firstNonce, int[] digests);
+
+    /**
+     * Searches a range of nonces for the first one whose hash starts with the required number of zero bits.
+     *
+     * @param header           The midstate of the header
+     * @param firstNonce       The first nonce to try
+     * @param count            The number of nonces to try (wrapping around after the largest int)
+     * @param requiredZeroBits The number of leading zero bits the hash needs, 0 to 256
+     * @return The first nonce that meets the target as an unsigned value, or {@link #NOT_FOUND}.
+     */
+    long search(HeaderMidstate header, int firstNonce, long count, int requiredZeroBits);
+}
@@ -0,0 +1,134 @@
+package com.example.blockchain.mining;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MiningKernels creates mining kernels and chooses the one blocks are mined with.
+ * <p>
+ * The vector kernels need the incubating Vector API, which the JVM only loads when started with
+ * {@code --add-modules jdk.incubator.vector}. Without it, or on CPUs without SIMD registers of at least 128 bits,
+ * mining falls back to the scalar kernel. The choice can be forced with the {@value #KERNEL_PROPERTY} system
+ * property: {@code auto} (the default), {@code scalar}, {@code vector4}, {@code vector8} or {@code vector16};
+ * a vector kernel wider than the CPU's registers is never emulated, the scalar kernel is used instead.
+ */
+public final class MiningKernels {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MiningKernels.class);
+
+    // System property naming the kernel blocks are mined with
+    public static final String KERNEL_PROPERTY = "blockchain.mining.kernel";
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final MiningKernel SCALAR = new ScalarMiningKernel();
+
+    // Kernel used by Block.mineBlock, chosen on first use
+    private static volatile MiningKernel defaultKernel;
+
+    private MiningKernels() {
+    }
+
+    /**
+     * Retrieves the kernel blocks are mined with, chosen from the {@value #KERNEL_PROPERTY} system property.
+     *
+     * @return The default kernel.
+     */
+    public static MiningKernel getDefault() {
+        MiningKernel kernel = defaultKernel;
+        if (kernel == null) {
+            kernel = select(System.getProperty(KERNEL_PROPERTY, "auto"));
+            LOGGER.info("Mining with the {} kernel.", kernel.getName());
+            defaultKernel = kernel;
+        }
+        return kernel;
+    }
+
+    /**
+     * Chooses a kernel by name, falling back to the scalar kernel when vector kernels are unavailable.
+     *
+     * @param name {@code auto} for the widest natively supported vector kernel, {@code scalar},
+     *             or {@code vector4}, {@code vector8} or {@code vector16} (scalar if the CPU has fewer lanes)
+     * @return The kernel.
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static MiningKernel select(String name) {
+        switch (name) {
+            case "auto":
+                int lanes = Math.min(getNativeLanes(), 16);
+                return lanes >= 4 ? new VectorMiningKernel(lanes) : SCALAR;
+            case "scalar":
+                return SCALAR;
+            case "vector4":
+                return vector(4);
+            case "vector8":
+                return vector(8);
+            case "vector16":
+                return vector(16);
+            default:
+                throw new IllegalArgumentException("Unknown mining kernel: " + name);
+        }
+    }
+
+    /**
+     * Retrieves the scalar kernel, which runs on every JVM.
+     *
+     * @return The scalar kernel.
+     */
+    public static MiningKernel scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * Creates a vector kernel with the given number of lanes, or the scalar kernel if the Vector API is unavailable
+     * or the CPU cannot hold that many lanes in one register: emulated lanes are much slower than the scalar kernel.
+     *
+     * @param lanes 4, 8 or 16
+     * @return The kernel.
+     * @throws IllegalArgumentException if the lane count is not supported
+     */
+    public static MiningKernel vector(int lanes) {
+        if (lanes != 4 && lanes != 8 && lanes != 16) {
+            throw new IllegalArgumentException("Vector kernels have 4, 8 or 16 lanes, not " + lanes);
+        }
+        return lanes <= getNativeLanes() ? new VectorMiningKernel(lanes) : SCALAR;
+    }
+
+    /**
+     * Retrieves the number of 32-bit lanes the CPU's widest SIMD registers hold.
+     *
+     * @return The native lane count, or 1 if the Vector API is unavailable.
+     */
+    public static int getNativeLanes() {
+        return isVectorApiAvailable() ? VectorMiningKernel.preferredLanes() : 1;
+    }
+
+    /**
+     * Checks whether the JVM was started with the Vector API module.
+     *
+     * @return True if vector kernels can be used.
+     */
+    public static boolean isVectorApiAvailable() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+
+    static void checkZeroBits(int requiredZeroBits) {
+        if (requiredZeroBits < 0 || requiredZeroBits > 256) {
+            throw new IllegalArgumentException("Required zero bits must be between 0 and 256");
+        }
+    }
+
+    /**
+     * Checks that a digest laid out word-major starts with the given number of zero bits.
+     */
+    static boolean hasLeadingZeroBits(int[] digests, int lane, int lanes, int bits) {
+        int fullWords = bits / Integer.SIZE;
+        for (int word = 0; word < fullWords; word++) {
+            if (digests[word * lanes + lane] != 0) {
+                return false;
+            }
+        }
+        int remainingBits = bits % Integer.SIZE;
+        return remainingBits == 0 || digests[fullWords * lanes + lane] >>> (Integer.SIZE - remainingBits) == 0;
+    }
+}
@@ -0,0 +1,381 @@
+package com.example.blockchain.mining;
+
+import com.example.blockchain.blockchain.BlockHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MiningWorker mines for a {@link WorkCoordinator} over one connection: it searches the nonce ranges it is given
+ * with a {@link MiningKernel}, submits every share it finds, and asks for the next range once a range is done.
+ * When the coordinator reports a new tip the worker drops its range within one search chunk.
+ * <p>
+ * Each worker runs one mining thread; a process with several cores runs several workers (see {@link #main}).
+ */
+public class MiningWorker implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MiningWorker.class);
+
+    // Nonces searched between two checks for abandoned or replaced work
+    private static final long SEARCH_CHUNK = 1 << 16;
+
+    /**
+     * A nonce range of a job.
+     */
+    private static final class Work {
+        final long jobId;
+        final int firstNonce;
+        final long count;
+        final int shareZeroBits;
+        final HeaderMidstate header;
+
+        Work(long jobId, int firstNonce, long count, int shareZeroBits, HeaderMidstate header) {
+            this.jobId = jobId;
+            this.firstNonce = firstNonce;
+            this.count = count;
+            this.shareZeroBits = shareZeroBits;
+            this.header = header;
+        }
+    }
+
+    // ID announced to the coordinator
+    private final String workerId;
+
+    // Kernel the ranges are searched with
+    private final MiningKernel kernel;
+
+    private Socket socket;
+    private DataInputStream in;
+    // Written by the mining thread only, once connected
+    private DataOutputStream out;
+    private Thread readerThread;
+    private Thread miningThread;
+
+    // Work received and not started yet (waited on with this monitor)
+    private volatile Work nextWork;
+
+    // Newest job the coordinator told the worker to abandon
+    private volatile long abandonedJobId;
+
+    // Hashes not yet reported to the coordinator (mining thread only)
+    private long unreportedHashes;
+
+    private volatile boolean closed;
+    private volatile long hashes;
+    private volatile long sharesSubmitted;
+    private volatile long acceptedShares;
+    private volatile long staleShares;
+    private volatile long rejectedShares;
+    private volatile long blocksFound;
+
+    /**
+     * Constructor for the MiningWorker class.
+     *
+     * @param workerId The ID announced to the coordinator
+     * @param kernel   The kernel the ranges are searched with
+     */
+    public MiningWorker(String workerId, MiningKernel kernel) {
+        this.workerId = workerId;
+        this.kernel = kernel;
+    }
+
+    /**
+     * Connects to a coordinator and starts mining once it hands out work.
+     *
+     * @param coordinator The address the coordinator listens on
+     * @throws IOException if the connection fails
+     */
+    public void connect(InetSocketAddress coordinator) throws IOException {
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(coordinator);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        byte[] id = workerId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer hello = ByteBuffer.allocate(6 + id.length);
+        hello.putInt(WorkProtocol.PROTOCOL_MAGIC).putShort(WorkProtocol.PROTOCOL_VERSION).put(id);
+        WorkProtocol.writeFrame(out, WorkProtocol.HELLO, hello.array());
+        readerThread = new Thread(this::readFrames, "mining-worker-reader-" + workerId);
+        miningThread = new Thread(this::mine, "mining-worker-" + workerId);
+        readerThread.setDaemon(true);
+        miningThread.setDaemon(true);
+        readerThread.start();
+        miningThread.start();
+    }
+
+    /**
+     * Disconnects from the coordinator and stops mining.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            notifyAll();
+        }
+        try {
+            if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    /**
+     * Checks whether the worker is still connected.
+     *
+     * @return False once the worker or the coordinator closed the connection.
+     */
+    public boolean isConnected() {
+        return socket != null && !closed;
+    }
+
+    /**
+     * Retrieves the ID announced to the coordinator.
+     *
+     * @return The worker ID.
+     */
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * Retrieves the number of hashes computed.
+     *
+     * @return The hashes computed.
+     */
+    public long getHashes() {
+        return hashes;
+    }
+
+    /**
+     * Retrieves the number of shares submitted.
+     *
+     * @return The shares submitted.
+     */
+    public long getSharesSubmitted() {
+        return sharesSubmitted;
+    }
+
+    /**
+     * Retrieves the number of shares the coordinator accepted, including those that made a block.
+     *
+     * @return The accepted shares.
+     */
+    public long getAcceptedShares() {
+        return acceptedShares;
+    }
+
+    /**
+     * Retrieves the number of shares the coordinator rejected because the tip had changed.
+     *
+     * @return The stale shares.
+     */
+    public long getStaleShares() {
+        return staleShares;
+    }
+
+    /**
+     * Retrieves the number of shares the coordinator rejected as invalid.
+     *
+     * @return The rejected shares.
+     */
+    public long getRejectedShares() {
+        return rejectedShares;
+    }
+
+    /**
+     * Retrieves the number of shares the coordinator appended to the chain as blocks.
+     *
+     * @return The blocks found.
+     */
+    public long getBlocksFound() {
+        return blocksFound;
+    }
+
+    private void readFrames() {
+        try {
+            while (true) {
+                byte[] frame = WorkProtocol.readFrame(in);
+                ByteBuffer payload = ByteBuffer.wrap(frame, 1, frame.length - 1);
+                switch (frame[0]) {
+                    case WorkProtocol.WORK:
+                        receiveWork(payload, frame);
+                        break;
+                    case WorkProtocol.ABANDON:
+                        abandonedJobId = Math.max(abandonedJobId, payload.getLong());
+                        break;
+                    case WorkProtocol.RESULT:
+                        receiveResult(payload.getLong(), payload.getInt(), payload.get());
+                        break;
+                    default:
+                        throw new IOException("Unexpected frame of type " + frame[0]);
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            // Disconnected
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Worker {} dropped the coordinator connection: {}", workerId, e.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    private void receiveWork(ByteBuffer payload, byte[] frame) throws IOException {
+        long jobId = payload.getLong();
+        int firstNonce = payload.getInt();
+        long count = payload.getLong();
+        int shareZeroBits = payload.getInt();
+        if (payload.remaining() != BlockHeader.SERIALIZED_SIZE) {
+            throw new IOException("Invalid header of " + payload.remaining() + " bytes");
+        }
+        if (jobId <= abandonedJobId) {
+            return;  // Overtaken by a tip change
+        }
+        byte[] header = Arrays.copyOfRange(frame, payload.position(), frame.length);
+        Work work = new Work(jobId, firstNonce, count, shareZeroBits, HeaderMidstate.of(header));
+        synchronized (this) {
+            nextWork = work;
+            notifyAll();
+        }
+    }
+
+    private void receiveResult(long jobId, int nonce, byte result) {
+        switch (result) {
+            case WorkProtocol.RESULT_BLOCK:
+                blocksFound++;
+                acceptedShares++;
+                LOGGER.info("Worker {} found a block with nonce {} of job {}.", workerId,
+                        Integer.toUnsignedString(nonce), jobId);
+                break;
+            case WorkProtocol.RESULT_ACCEPTED:
+                acceptedShares++;
+                break;
+            case WorkProtocol.RESULT_STALE:
+                staleShares++;
+                break;
+            default:
+                rejectedShares++;
+                LOGGER.warn("Worker {} had a share of job {} rejected.", workerId, jobId);
+        }
+    }
+
+    private void mine() {
+        try {
+            while (true) {
+                Work work;
+                synchronized (this) {
+                    while (nextWork == null && !closed) {
+                        wait();
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    work = nextWork;
+                    nextWork = null;
+                }
+                if (search(work)) {
+                    WorkProtocol.writeFrame(out, WorkProtocol.GET_WORK,
+                            ByteBuffer.allocate(8).putLong(takeUnreportedHashes()).array());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            if (!closed) {
+                LOGGER.warn("Worker {} could not reach the coordinator: {}", workerId, e.getMessage());
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Searches a range chunk by chunk, submitting every share found.
+     *
+     * @return True if the whole range was searched, false if it was abandoned or replaced.
+     */
+    private boolean search(Work work) throws IOException {
+        long done = 0;
+        while (done < work.count) {
+            if (closed || work.jobId <= abandonedJobId || nextWork != null) {
+                return false;
+            }
+            int firstNonce = work.firstNonce + (int) done;
+            long chunk = Math.min(SEARCH_CHUNK, work.count - done);
+            long found = kernel.search(work.header, firstNonce, chunk, work.shareZeroBits);
+            long tried = found == MiningKernel.NOT_FOUND ? chunk : Integer.toUnsignedLong((int) found - firstNonce) + 1;
+            done += tried;
+            unreportedHashes += tried;
+            hashes += tried;
+            if (found != MiningKernel.NOT_FOUND) {
+                sharesSubmitted++;
+                ByteBuffer submit = ByteBuffer.allocate(20);
+                submit.putLong(work.jobId).putInt((int) found).putLong(takeUnreportedHashes());
+                WorkProtocol.writeFrame(out, WorkProtocol.SUBMIT, submit.array());
+            }
+        }
+        return true;
+    }
+
+    private long takeUnreportedHashes() {
+        long reported = unreportedHashes;
+        unreportedHashes = 0;
+        return reported;
+    }
+
+    /**
+     * Runs workers from the command line until the coordinator closes the connections, logging their progress.
+     * Arguments: coordinator host, coordinator port, number of workers (one per core by default) and worker ID
+     * prefix (default "worker"). Kernels are chosen with the {@value MiningKernels#KERNEL_PROPERTY} property.
+     *
+     * @param args The command line arguments
+     * @throws IOException if a worker cannot connect
+     * @throws InterruptedException if interrupted while mining
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: MiningWorker <host> <port> [workers] [workerId]");
+            return;
+        }
+        InetSocketAddress coordinator = new InetSocketAddress(args[0], Integer.parseInt(args[1]));
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        String prefix = args.length > 3 ? args[3] : "worker";
+
+        List<MiningWorker> workers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            MiningWorker worker = new MiningWorker(prefix + "-" + i, MiningKernels.getDefault());
+            worker.connect(coordinator);
+            workers.add(worker);
+        }
+        long start = System.nanoTime();
+        while (workers.stream().anyMatch(MiningWorker::isConnected)) {
+            Thread.sleep(10_000);
+            long hashes = 0;
+            long accepted = 0;
+            long blocks = 0;
+            for (MiningWorker worker : workers) {
+                hashes += worker.getHashes();
+                accepted += worker.getAcceptedShares();
+                blocks += worker.getBlocksFound();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            LOGGER.info("{} workers: {} H/s, {} shares accepted, {} blocks found.", count,
+                    String.format("%.0f", hashes / seconds), accepted, blocks);
+        }
+    }
+}
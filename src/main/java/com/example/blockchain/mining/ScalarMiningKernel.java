@@ -0,0 +1,78 @@
+package com.example.blockchain.mining;
+
+import com.example.blockchain.blockchain.BlockHeader;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * ScalarMiningKernel hashes one nonce at a time with {@link MessageDigest}, rewriting only the nonce bytes of the
+ * serialized header between tries. The JDK compiles SHA-256 to intrinsics (SHA extensions where the CPU has them),
+ * which beats hand-written scalar rounds even though the full header is hashed each time.
+ * It runs on every JVM and is the reference the vector kernels are checked against.
+ */
+final class ScalarMiningKernel implements MiningKernel {
+
+    // Reads big-endian digest words
+    private static final VarHandle INTS = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public int getLanes() {
+        return 1;
+    }
+
+    @Override
+    public void hash(HeaderMidstate header, int firstNonce, int[] digests) {
+        hash(header.getHeader(), firstNonce, newSha256(), new byte[32], digests);
+    }
+
+    @Override
+    public long search(HeaderMidstate header, int firstNonce, long count, int requiredZeroBits) {
+        MiningKernels.checkZeroBits(requiredZeroBits);
+        byte[] serialized = header.getHeader();
+        MessageDigest sha256 = newSha256();
+        byte[] digest = new byte[32];
+        int[] words = new int[8];
+        for (long i = 0; i < count; i++) {
+            int nonce = firstNonce + (int) i;
+            hash(serialized, nonce, sha256, digest, words);
+            if (MiningKernels.hasLeadingZeroBits(words, 0, 1, requiredZeroBits)) {
+                return Integer.toUnsignedLong(nonce);
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private static void hash(byte[] header, int nonce, MessageDigest sha256, byte[] digest, int[] words) {
+        header[BlockHeader.NONCE_OFFSET] = (byte) (nonce >>> 24);
+        header[BlockHeader.NONCE_OFFSET + 1] = (byte) (nonce >>> 16);
+        header[BlockHeader.NONCE_OFFSET + 2] = (byte) (nonce >>> 8);
+        header[BlockHeader.NONCE_OFFSET + 3] = (byte) nonce;
+        sha256.update(header, 0, header.length);
+        try {
+            sha256.digest(digest, 0, digest.length);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+        for (int i = 0; i < 8; i++) {
+            words[i] = (int) INTS.get(digest, 4 * i);
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.blockchain.mining;
+
+/**
+ * Sha256 holds the SHA-256 constants and the scalar round functions shared by the mining kernels
+ * (FIPS 180-4, section 6.2). Words are big-endian, as in the digest.
+ */
+final class Sha256 {
+
+    // Round constants
+    static final int[] K = {
+            0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+            0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+            0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+            0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+            0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+            0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+            0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+            0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2
+    };
+
+    // Hash value before the first block is processed
+    static final int[] INITIAL_STATE = {
+            0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
+    };
+
+    // Number of words in a 64-byte message block, and of rounds and schedule words per block
+    static final int BLOCK_WORDS = 16;
+    static final int ROUNDS = 64;
+
+    private Sha256() {
+    }
+
+    static int sigma0(int x) {
+        return Integer.rotateRight(x, 7) ^ Integer.rotateRight(x, 18) ^ (x >>> 3);
+    }
+
+    static int sigma1(int x) {
+        return Integer.rotateRight(x, 17) ^ Integer.rotateRight(x, 19) ^ (x >>> 10);
+    }
+
+    static int bigSigma0(int x) {
+        return Integer.rotateRight(x, 2) ^ Integer.rotateRight(x, 13) ^ Integer.rotateRight(x, 22);
+    }
+
+    static int bigSigma1(int x) {
+        return Integer.rotateRight(x, 6) ^ Integer.rotateRight(x, 11) ^ Integer.rotateRight(x, 25);
+    }
+
+    static int choose(int e, int f, int g) {
+        return g ^ (e & (f ^ g));
+    }
+
+    static int majority(int a, int b, int c) {
+        return (a & b) | (c & (a | b));
+    }
+
+    /**
+     * Computes schedule word {@code t} (16 or above) from the words before it.
+     */
+    static int expand(int[] schedule, int t) {
+        return sigma1(schedule[t - 2]) + schedule[t - 7] + sigma0(schedule[t - 15]) + schedule[t - 16];
+    }
+
+    /**
+     * Runs rounds {@code from} (inclusive) to {@code to} (exclusive) on the working variables a to h.
+     *
+     * @param state    The working variables, updated in place
+     * @param schedule The message schedule, filled at least up to word {@code to - 1}
+     */
+    static void rounds(int[] state, int[] schedule, int from, int to) {
+        int a = state[0];
+        int b = state[1];
+        int c = state[2];
+        int d = state[3];
+        int e = state[4];
+        int f = state[5];
+        int g = state[6];
+        int h = state[7];
+        for (int t = from; t < to; t++) {
+            int t1 = h + bigSigma1(e) + choose(e, f, g) + K[t] + schedule[t];
+            int t2 = bigSigma0(a) + majority(a, b, c);
+            h = g;
+            g = f;
+            f = e;
+            e = d + t1;
+            d = c;
+            c = b;
+            b = a;
+            a = t1 + t2;
+        }
+        state[0] = a;
+        state[1] = b;
+        state[2] = c;
+        state[3] = d;
+        state[4] = e;
+        state[5] = f;
+        state[6] = g;
+        state[7] = h;
+    }
+}
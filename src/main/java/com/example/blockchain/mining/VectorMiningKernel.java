@@ -0,0 +1,197 @@
+package com.example.blockchain.mining;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+import static jdk.incubator.vector.VectorOperators.LSHR;
+import static jdk.incubator.vector.VectorOperators.ROR;
+import static jdk.incubator.vector.VectorOperators.XOR;
+
+/**
+ * VectorMiningKernel hashes 4, 8 or 16 nonces at once, one per lane of an int vector (128, 256 or 512 bits wide),
+ * using the incubating Vector API. Every lane runs the same SHA-256 rounds as {@link ScalarMiningKernel}, so the
+ * digests are identical; on CPUs with AVX2 or AVX-512 each round step compiles to single SIMD instructions.
+ * The JIT specializes the kernel for the first lane count it sees, so a process should mine with one lane count.
+ * <p>
+ * This class must only be loaded when the {@code jdk.incubator.vector} module is present;
+ * {@link MiningKernels} checks that first.
+ */
+final class VectorMiningKernel implements MiningKernel {
+
+    private static final int[] LANE_INDEXES = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15};
+
+    // Number of vectors in each working variable sequence: the four values before the nonce-dependent rounds,
+    // then one per round
+    private static final int SEQUENCE_LENGTH = 4 + Sha256.ROUNDS - HeaderMidstate.NONCE_WORD;
+
+    private final VectorSpecies<Integer> species;
+    private final int lanes;
+
+    // Adds the lane index to the first nonce
+    private final IntVector laneOffsets;
+
+    /**
+     * Constructor for the VectorMiningKernel class.
+     *
+     * @param lanes The number of nonces hashed at once: 4, 8 or 16
+     */
+    VectorMiningKernel(int lanes) {
+        if (lanes != 4 && lanes != 8 && lanes != 16) {
+            throw new IllegalArgumentException("Vector kernels have 4, 8 or 16 lanes, not " + lanes);
+        }
+        // Shapes wider than the CPU supports still work, but are emulated and slow
+        this.species = VectorSpecies.of(int.class, VectorShape.forBitSize(lanes * Integer.SIZE));
+        this.lanes = lanes;
+        this.laneOffsets = IntVector.fromArray(species, LANE_INDEXES, 0);
+    }
+
+    /**
+     * Retrieves the lane count of the widest int vector the CPU supports natively.
+     *
+     * @return The preferred number of lanes.
+     */
+    static int preferredLanes() {
+        return IntVector.SPECIES_PREFERRED.length();
+    }
+
+    @Override
+    public String getName() {
+        return "vector" + lanes;
+    }
+
+    @Override
+    public int getLanes() {
+        return lanes;
+    }
+
+    @Override
+    public void hash(HeaderMidstate header, int firstNonce, int[] digests) {
+        hash(firstNonce, newSchedule(header), newConstants(header), newWorkingVariables(header), digests);
+    }
+
+    @Override
+    public long search(HeaderMidstate header, int firstNonce, long count, int requiredZeroBits) {
+        MiningKernels.checkZeroBits(requiredZeroBits);
+        int[] schedule = newSchedule(header);
+        int[] constants = newConstants(header);
+        int[] variables = newWorkingVariables(header);
+        int[] digests = new int[8 * lanes];
+        for (long done = 0; done < count; done += lanes) {
+            int nonce = firstNonce + (int) done;
+            hash(nonce, schedule, constants, variables, digests);
+            int checked = (int) Math.min(lanes, count - done);
+            for (int lane = 0; lane < checked; lane++) {
+                if (MiningKernels.hasLeadingZeroBits(digests, lane, lanes, requiredZeroBits)) {
+                    return Integer.toUnsignedLong(nonce + lane);
+                }
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Lays out the nonce-independent schedule words as vectors: word {@code t} fills {@code lanes} ints at
+     * {@code t * lanes}.
+     */
+    private int[] newSchedule(HeaderMidstate header) {
+        int[] schedule = new int[Sha256.ROUNDS * lanes];
+        broadcast(header.schedule, HeaderMidstate.CONSTANT_WORDS, schedule, 0);
+        return schedule;
+    }
+
+    /**
+     * Lays out the round constants and the midstate as vectors, so the rounds load vectors instead of
+     * broadcasting scalars.
+     */
+    private int[] newConstants(HeaderMidstate header) {
+        int[] constants = new int[(Sha256.ROUNDS + 8) * lanes];
+        broadcast(Sha256.K, Sha256.ROUNDS, constants, 0);
+        broadcast(header.midstate, 8, constants, Sha256.ROUNDS * lanes);
+        return constants;
+    }
+
+    /**
+     * Lays out the sequences of values taken by the working variables a and e, one vector per round, starting
+     * with the four values before the first nonce-dependent round. The variables b to d and f to h are the
+     * previous values of a and e, so each round only writes two vectors and no vector lives across iterations
+     * (vectors held in loop variables would be boxed on every iteration).
+     */
+    private int[] newWorkingVariables(HeaderMidstate header) {
+        int[] variables = new int[2 * SEQUENCE_LENGTH * lanes];
+        for (int i = 0; i < 4; i++) {
+            // Slot 3 holds a (or e), slot 0 holds d (or h)
+            Arrays.fill(variables, (3 - i) * lanes, (4 - i) * lanes, header.roundState[i]);
+            Arrays.fill(variables, (SEQUENCE_LENGTH + 3 - i) * lanes, (SEQUENCE_LENGTH + 4 - i) * lanes,
+                    header.roundState[4 + i]);
+        }
+        return variables;
+    }
+
+    private void broadcast(int[] words, int count, int[] vectors, int offset) {
+        for (int i = 0; i < count; i++) {
+            Arrays.fill(vectors, offset + i * lanes, offset + (i + 1) * lanes, words[i]);
+        }
+    }
+
+    /**
+     * Hashes one batch of nonces. The sigma functions are written out instead of being helper methods: a helper
+     * taking and returning vectors that the JIT declines to inline (this method is close to its size limits)
+     * would box every vector it touches.
+     */
+    private void hash(int firstNonce, int[] schedule, int[] constants, int[] variables, int[] digests) {
+        IntVector.broadcast(species, firstNonce).add(laneOffsets)
+                .intoArray(schedule, HeaderMidstate.NONCE_WORD * lanes);
+        for (int t = HeaderMidstate.CONSTANT_WORDS; t < Sha256.ROUNDS; t++) {
+            IntVector w2 = IntVector.fromArray(species, schedule, (t - 2) * lanes);
+            IntVector w7 = IntVector.fromArray(species, schedule, (t - 7) * lanes);
+            IntVector w15 = IntVector.fromArray(species, schedule, (t - 15) * lanes);
+            IntVector w16 = IntVector.fromArray(species, schedule, (t - 16) * lanes);
+            IntVector sigma0 = w15.lanewise(ROR, 7).lanewise(XOR, w15.lanewise(ROR, 18))
+                    .lanewise(XOR, w15.lanewise(LSHR, 3));
+            IntVector sigma1 = w2.lanewise(ROR, 17).lanewise(XOR, w2.lanewise(ROR, 19))
+                    .lanewise(XOR, w2.lanewise(LSHR, 10));
+            sigma1.add(w7).add(sigma0).add(w16).intoArray(schedule, t * lanes);
+        }
+
+        int eOffset = SEQUENCE_LENGTH * lanes;
+        for (int t = HeaderMidstate.NONCE_WORD; t < Sha256.ROUNDS; t++) {
+            int slot = (t - HeaderMidstate.NONCE_WORD + 4) * lanes;
+            IntVector a = IntVector.fromArray(species, variables, slot - lanes);
+            IntVector b = IntVector.fromArray(species, variables, slot - 2 * lanes);
+            IntVector c = IntVector.fromArray(species, variables, slot - 3 * lanes);
+            IntVector d = IntVector.fromArray(species, variables, slot - 4 * lanes);
+            IntVector e = IntVector.fromArray(species, variables, eOffset + slot - lanes);
+            IntVector f = IntVector.fromArray(species, variables, eOffset + slot - 2 * lanes);
+            IntVector g = IntVector.fromArray(species, variables, eOffset + slot - 3 * lanes);
+            IntVector h = IntVector.fromArray(species, variables, eOffset + slot - 4 * lanes);
+            IntVector k = IntVector.fromArray(species, constants, t * lanes);
+            IntVector w = IntVector.fromArray(species, schedule, t * lanes);
+
+            IntVector bigSigma1 = e.lanewise(ROR, 6).lanewise(XOR, e.lanewise(ROR, 11))
+                    .lanewise(XOR, e.lanewise(ROR, 25));
+            IntVector choose = g.lanewise(XOR, e.and(f.lanewise(XOR, g)));
+            IntVector t1 = h.add(bigSigma1).add(choose).add(k).add(w);
+            IntVector bigSigma0 = a.lanewise(ROR, 2).lanewise(XOR, a.lanewise(ROR, 13))
+                    .lanewise(XOR, a.lanewise(ROR, 22));
+            IntVector majority = a.and(b).or(c.and(a.or(b)));
+            IntVector t2 = bigSigma0.add(majority);
+            t1.add(t2).intoArray(variables, slot);
+            d.add(t1).intoArray(variables, eOffset + slot);
+        }
+
+        // The final a to d are the last four values of a (most recent first), e to h likewise
+        int last = (SEQUENCE_LENGTH - 1) * lanes;
+        int midstate = Sha256.ROUNDS * lanes;
+        for (int i = 0; i < 4; i++) {
+            IntVector.fromArray(species, variables, last - i * lanes)
+                    .add(IntVector.fromArray(species, constants, midstate + i * lanes))
+                    .intoArray(digests, i * lanes);
+            IntVector.fromArray(species, variables, eOffset + last - i * lanes)
+                    .add(IntVector.fromArray(species, constants, midstate + (4 + i) * lanes))
+                    .intoArray(digests, (4 + i) * lanes);
+        }
+    }
+}
@@ -0,0 +1,722 @@
+package com.example.blockchain.mining;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.BlockHeader;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.consensus.PoWConsensus;
+import com.example.blockchain.metrics.Counter;
+import com.example.blockchain.metrics.MetricsRegistry;
+import com.example.blockchain.network.Node;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * WorkCoordinator lets miner processes (see {@link MiningWorker}) mine blocks for a Proof of Work node.
+ * It hands out jobs, each a block template with the node's pending transactions on top of the current tip, in
+ * disjoint nonce ranges, so no two workers hash the same header. Workers submit every nonce whose hash meets the
+ * share target, which is easier than the block target; shares prove how much work a worker does, and a share that
+ * also meets the block target is turned into a block and appended to the node's chain like one it mined itself.
+ * <p>
+ * As soon as the node's chain gets a new tip, from a worker or a peer, every worker is told to abandon its job
+ * and given a range of a job on the new tip; shares for earlier tips are rejected as stale.
+ * The coordinator tracks each worker's hashrate and share rate (see {@link #getWorkers()}) and reports totals in
+ * the node's metrics. Workers are expected to be local processes: each gets a reader and a writer thread with
+ * blocking I/O. Frames to a worker are queued for its writer, so a worker that stops reading cannot hold up the
+ * others; it is dropped once its queue is full or a frame has been waiting to be written for too long.
+ */
+public class WorkCoordinator implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkCoordinator.class);
+
+    // Nonces in each range handed out, unless set otherwise (about a second of work for one vector kernel)
+    public static final long DEFAULT_RANGE_SIZE = 1L << 24;
+
+    // Number of distinct nonces in a header
+    private static final long NONCE_SPACE = 1L << 32;
+
+    // Time a new connection has to send its handshake
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 10_000;
+
+    // Frames queued for a worker's writer; a worker with this many frames not written yet is dropped
+    private static final int WORKER_QUEUE_CAPACITY = 64;
+
+    // Time a frame may take to be written before the worker is considered not to read and dropped
+    private static final long WORKER_WRITE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * A snapshot of one worker's statistics. Rates are averages since the worker connected.
+     */
+    public static final class WorkerStats {
+        private final String workerId;
+        private final String address;
+        private final double connectedSeconds;
+        private final long hashes;
+        private final long acceptedShares;
+        private final long staleShares;
+        private final long rejectedShares;
+        private final long blocksFound;
+        private final double shareWork;
+
+        private WorkerStats(Worker worker) {
+            this.workerId = worker.workerId;
+            this.address = String.valueOf(worker.socket.getRemoteSocketAddress());
+            this.connectedSeconds = Math.max((System.nanoTime() - worker.connectedNanos) / 1e9, 1e-3);
+            this.hashes = worker.hashes;
+            this.acceptedShares = worker.acceptedShares;
+            this.staleShares = worker.staleShares;
+            this.rejectedShares = worker.rejectedShares;
+            this.blocksFound = worker.blocksFound;
+            this.shareWork = worker.shareWork;
+        }
+
+        /**
+         * Retrieves the ID the worker announced in its handshake.
+         *
+         * @return The worker ID.
+         */
+        public String getWorkerId() {
+            return workerId;
+        }
+
+        /**
+         * Retrieves the address the worker connected from.
+         *
+         * @return The remote address.
+         */
+        public String getAddress() {
+            return address;
+        }
+
+        /**
+         * Retrieves the number of hashes the worker reported computing.
+         *
+         * @return The reported hashes.
+         */
+        public long getHashes() {
+            return hashes;
+        }
+
+        /**
+         * Retrieves the number of shares accepted, including those that made a block.
+         *
+         * @return The accepted shares.
+         */
+        public long getAcceptedShares() {
+            return acceptedShares;
+        }
+
+        /**
+         * Retrieves the number of shares submitted for a job on an earlier tip.
+         *
+         * @return The stale shares.
+         */
+        public long getStaleShares() {
+            return staleShares;
+        }
+
+        /**
+         * Retrieves the number of invalid shares: above the share target, outside the assigned range or resubmitted.
+         *
+         * @return The rejected shares.
+         */
+        public long getRejectedShares() {
+            return rejectedShares;
+        }
+
+        /**
+         * Retrieves the number of the worker's shares that were appended to the chain as blocks.
+         *
+         * @return The blocks found.
+         */
+        public long getBlocksFound() {
+            return blocksFound;
+        }
+
+        /**
+         * Retrieves the hashrate the worker reported.
+         *
+         * @return Reported hashes per second.
+         */
+        public double getHashrate() {
+            return hashes / connectedSeconds;
+        }
+
+        /**
+         * Estimates the worker's hashrate from its accepted shares: a share with n zero bits takes 2^n hashes on
+         * average. Unlike {@link #getHashrate()} it cannot be inflated by the worker, but it is noisy until
+         * many shares were found.
+         *
+         * @return Estimated hashes per second.
+         */
+        public double getEstimatedHashrate() {
+            return shareWork / connectedSeconds;
+        }
+
+        /**
+         * Retrieves the rate of accepted shares.
+         *
+         * @return Accepted shares per second.
+         */
+        public double getShareRate() {
+            return acceptedShares / connectedSeconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%s): %.0f H/s reported, %.0f H/s from shares, %.2f shares/s, "
+                            + "%d accepted, %d stale, %d rejected, %d blocks", workerId, address, getHashrate(),
+                    getEstimatedHashrate(), getShareRate(), acceptedShares, staleShares, rejectedShares, blocksFound);
+        }
+    }
+
+    /**
+     * A block template handed out in nonce ranges.
+     */
+    private static final class Job {
+        final long id;
+        final Block template;
+        final byte[] header;
+        final int shareZeroBits;
+        // First nonce not handed out yet (guarded by the coordinator)
+        long nextNonce;
+
+        Job(long id, Block template, int shareZeroBits) {
+            this.id = id;
+            this.template = template;
+            this.header = BlockHeader.serialize(template.getPreviousHash(), template.getMerkleRoot(),
+                    template.getTimeStamp(), 0, null, 0L);
+            this.shareZeroBits = shareZeroBits;
+        }
+    }
+
+    /**
+     * A frame waiting to be written to a worker.
+     */
+    private static final class Frame {
+        final byte type;
+        final byte[] payload;
+
+        Frame(byte type, byte[] payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * One connected worker. Frames to it are queued, and its range assigned, under its monitor, and written by its
+     * writer thread; its statistics are only written by its reader thread.
+     */
+    private final class Worker {
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+        final long connectedNanos = System.nanoTime();
+        volatile String workerId;
+
+        // Frames not written yet, and when the writer started writing the current one (0: not writing)
+        final BlockingQueue<Frame> queue = new ArrayBlockingQueue<>(WORKER_QUEUE_CAPACITY);
+        volatile long writingSinceNanos;
+        volatile Thread writer;
+
+        // Job and nonce range assigned to the worker; shares must come in nonce order
+        Job job;
+        long rangeEnd;
+        long nextShareNonce;
+
+        volatile long hashes;
+        volatile long acceptedShares;
+        volatile long staleShares;
+        volatile long rejectedShares;
+        volatile long blocksFound;
+        volatile double shareWork;
+
+        Worker(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        /**
+         * Hands the worker the next range of the current job.
+         */
+        synchronized void assignWork() {
+            long firstNonce;
+            long count;
+            synchronized (WorkCoordinator.this) {
+                if (currentJob.nextNonce == NONCE_SPACE) {
+                    newJob();  // Every nonce of the template is taken; a new timestamp gives new headers
+                }
+                job = currentJob;
+                firstNonce = job.nextNonce;
+                count = Math.min(rangeSize, NONCE_SPACE - firstNonce);
+                job.nextNonce += count;
+            }
+            rangeEnd = firstNonce + count;
+            nextShareNonce = firstNonce;
+            ByteBuffer work = ByteBuffer.allocate(24 + job.header.length);
+            work.putLong(job.id).putInt((int) firstNonce).putLong(count).putInt(job.shareZeroBits).put(job.header);
+            send(WorkProtocol.WORK, work.array());
+        }
+
+        /**
+         * Tells the worker to stop working on its job and hands it a range of the current one.
+         */
+        synchronized void abandonWork() {
+            if (job == null || job == currentJob()) {
+                return;  // Still in the handshake, or already working on the current job
+            }
+            send(WorkProtocol.ABANDON, ByteBuffer.allocate(8).putLong(job.id).array());
+            assignWork();
+        }
+
+        /**
+         * Claims a nonce of the worker's range for a share.
+         *
+         * @return The job the share is for, or null if the nonce is not the worker's to submit.
+         */
+        synchronized Job claimShare(long jobId, long nonce) {
+            if (job == null || job.id != jobId || nonce < nextShareNonce || nonce >= rangeEnd) {
+                return null;
+            }
+            nextShareNonce = nonce + 1;
+            return job;
+        }
+
+        synchronized void sendResult(long jobId, int nonce, byte result) {
+            ByteBuffer payload = ByteBuffer.allocate(13).putLong(jobId).putInt(nonce).put(result);
+            send(WorkProtocol.RESULT, payload.array());
+        }
+
+        /**
+         * Queues a frame for the writer thread, dropping the worker if it does not keep up with its frames.
+         */
+        private void send(byte type, byte[] payload) {
+            long writingSince = writingSinceNanos;
+            boolean stuck = writingSince != 0 && System.nanoTime() - writingSince > WORKER_WRITE_TIMEOUT_NANOS;
+            if (stuck || !queue.offer(new Frame(type, payload))) {
+                if (!socket.isClosed()) {
+                    LOGGER.warn("Dropping worker {}: it does not read the frames sent to it.", workerId);
+                }
+                close();  // The reader thread sees the closed socket and removes the worker
+            }
+        }
+
+        /**
+         * Starts the thread writing the queued frames.
+         */
+        void startWriter() {
+            Thread thread = new Thread(this::writeFrames, "work-coordinator-writer-" + socket.getRemoteSocketAddress());
+            thread.setDaemon(true);
+            writer = thread;
+            thread.start();
+        }
+
+        private void writeFrames() {
+            try {
+                while (true) {
+                    Frame frame = queue.take();
+                    writingSinceNanos = System.nanoTime();
+                    WorkProtocol.writeFrame(out, frame.type, frame.payload);
+                    writingSinceNanos = 0;
+                }
+            } catch (IOException | InterruptedException e) {
+                close();
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+            Thread thread = writer;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    // The node blocks are mined for
+    private final Node node;
+
+    // Connected workers that completed their handshake
+    private final Set<Worker> workers = ConcurrentHashMap.newKeySet();
+
+    // Jobs on the current tip, by job ID; shares for other jobs are stale (guarded by this)
+    private final Map<Long, Job> jobs = new HashMap<>();
+
+    // The job new ranges are taken from (guarded by this)
+    private Job currentJob;
+
+    // ID of the next job (guarded by this)
+    private long nextJobId = 1;
+
+    // Nonces in each range handed out
+    private volatile long rangeSize = DEFAULT_RANGE_SIZE;
+
+    // Leading zero bits a share needs, or -1 for one hex digit less than the block target
+    private volatile int shareZeroBits = -1;
+
+    // Moves workers to the new tip off the thread that appended it
+    private final ExecutorService tipNotifier;
+
+    // Called by the chain with every block appended
+    private final Consumer<Block> appendListener = block -> onBlockAppended();
+
+    private final Counter sharesAccepted;
+    private final Counter sharesStale;
+    private final Counter sharesRejected;
+    private final Counter blocksFound;
+
+    private ServerSocket serverSocket;
+    private Thread acceptThread;
+    private volatile boolean closed;
+
+    /**
+     * Constructor for the WorkCoordinator class.
+     *
+     * @param node The node blocks are mined for
+     * @throws IllegalArgumentException if the node does not use Proof of Work
+     */
+    public WorkCoordinator(Node node) {
+        if (!(node.getConsensus() instanceof PoWConsensus)) {
+            throw new IllegalArgumentException("Node " + node.getNodeId() + " does not use Proof of Work");
+        }
+        this.node = node;
+        this.tipNotifier = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "work-coordinator-tip-" + node.getNodeId());
+            thread.setDaemon(true);
+            return thread;
+        });
+        MetricsRegistry metrics = node.getMetrics();
+        this.sharesAccepted = metrics.counter("mining.shares.accepted");
+        this.sharesStale = metrics.counter("mining.shares.stale");
+        this.sharesRejected = metrics.counter("mining.shares.rejected");
+        this.blocksFound = metrics.counter("mining.blocks.found");
+        metrics.gauge("mining.workers", workers::size);
+        metrics.gauge("mining.hashrate", () -> {
+            double hashrate = 0;
+            for (WorkerStats stats : getWorkers()) {
+                hashrate += stats.getHashrate();
+            }
+            return hashrate;
+        });
+    }
+
+    /**
+     * Sets the number of nonces in each range handed to a worker. Smaller ranges balance work between workers
+     * of different speeds at the cost of more requests.
+     *
+     * @param rangeSize The range size, between 1 and 2^32
+     */
+    public void setRangeSize(long rangeSize) {
+        if (rangeSize < 1 || rangeSize > NONCE_SPACE) {
+            throw new IllegalArgumentException("Range size must be between 1 and 2^32");
+        }
+        this.rangeSize = rangeSize;
+    }
+
+    /**
+     * Sets the share target, applied from the next job on.
+     *
+     * @param shareZeroBits The leading zero bits of a share, at most the block target's
+     *                      ({@code 4 * difficulty}); by default one hex digit less than the block target
+     */
+    public void setShareZeroBits(int shareZeroBits) {
+        if (shareZeroBits < 0 || shareZeroBits > blockZeroBits()) {
+            throw new IllegalArgumentException("The share target must be between 0 and the block target");
+        }
+        this.shareZeroBits = shareZeroBits;
+    }
+
+    /**
+     * Starts accepting workers.
+     *
+     * @param address The address to listen on, normally a loopback address (port 0 picks a free port)
+     * @return The address the coordinator listens on.
+     * @throws IOException if the address cannot be bound
+     */
+    public InetSocketAddress start(InetSocketAddress address) throws IOException {
+        synchronized (this) {
+            newJob();
+        }
+        node.getBlockchain().addAppendListener(appendListener);
+        serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+        acceptThread = new Thread(this::acceptWorkers, "work-coordinator-" + node.getNodeId());
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        LOGGER.info("Node {} coordinates mining work on {}.", node.getNodeId(), serverSocket.getLocalSocketAddress());
+        return (InetSocketAddress) serverSocket.getLocalSocketAddress();
+    }
+
+    /**
+     * Retrieves the statistics of the connected workers.
+     *
+     * @return One snapshot per connected worker.
+     */
+    public List<WorkerStats> getWorkers() {
+        List<WorkerStats> stats = new ArrayList<>();
+        for (Worker worker : workers) {
+            stats.add(new WorkerStats(worker));
+        }
+        return stats;
+    }
+
+    /**
+     * Stops accepting workers and disconnects the connected ones.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        node.getBlockchain().removeAppendListener(appendListener);
+        tipNotifier.shutdownNow();
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            // Closing anyway
+        }
+        for (Worker worker : workers) {
+            worker.close();
+        }
+        if (acceptThread != null) {
+            try {
+                acceptThread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private int blockZeroBits() {
+        return 4 * node.getBlockchain().getDifficulty();
+    }
+
+    private synchronized Job currentJob() {
+        return currentJob;
+    }
+
+    /**
+     * Creates a job on the current tip and makes it the one ranges are taken from. Callers hold this monitor.
+     */
+    private void newJob() {
+        Block template = node.createBlockTemplate();
+        if (currentJob != null && template.getTimeStamp() <= currentJob.template.getTimeStamp()
+                && template.getPreviousHash().equals(currentJob.template.getPreviousHash())) {
+            // Same tip within the same millisecond: move the timestamp so the headers differ
+            template = new Block(template.getTransactions(), template.getPreviousHash(),
+                    currentJob.template.getTimeStamp() + 1);
+        }
+        int bits = shareZeroBits >= 0 ? shareZeroBits : Math.max(blockZeroBits() - 4, 0);
+        currentJob = new Job(nextJobId++, template, bits);
+        jobs.put(currentJob.id, currentJob);
+    }
+
+    /**
+     * Moves every worker to a job on the new tip. Runs on the chain's appending thread, so only hands off.
+     */
+    private void onBlockAppended() {
+        try {
+            tipNotifier.execute(this::moveToNewTip);
+        } catch (RejectedExecutionException e) {
+            // Closed
+        }
+    }
+
+    private void moveToNewTip() {
+        synchronized (this) {
+            if (currentJob.template.getPreviousHash().equals(node.getBlockchain().getLatestBlock().getHash())) {
+                return;  // Several blocks were appended in a row and an earlier notification already moved on
+            }
+            jobs.clear();  // Shares for the previous tip can no longer make a block
+            newJob();
+        }
+        for (Worker worker : workers) {
+            worker.abandonWork();
+        }
+    }
+
+    private void acceptWorkers() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!closed) {
+                    LOGGER.warn("Work coordinator of node {} stopped accepting workers.", node.getNodeId(), e);
+                }
+                return;
+            }
+            Thread thread = new Thread(() -> serve(socket),
+                    "work-coordinator-worker-" + socket.getRemoteSocketAddress());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Handles one worker connection until it closes.
+     */
+    private void serve(Socket socket) {
+        Worker worker = null;
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+            worker = new Worker(socket);
+            byte[] frame = WorkProtocol.readFrame(worker.in);
+            ByteBuffer hello = ByteBuffer.wrap(frame, 1, frame.length - 1);
+            if (frame[0] != WorkProtocol.HELLO || frame.length < 7 || hello.getInt() != WorkProtocol.PROTOCOL_MAGIC
+                    || hello.getShort() != WorkProtocol.PROTOCOL_VERSION) {
+                throw new IOException("Incompatible handshake");
+            }
+            worker.workerId = new String(frame, 7, frame.length - 7, StandardCharsets.UTF_8);
+            socket.setSoTimeout(0);
+            worker.startWriter();
+            workers.add(worker);
+            if (closed) {
+                return;
+            }
+            LOGGER.info("Worker {} connected from {}.", worker.workerId, socket.getRemoteSocketAddress());
+            worker.assignWork();
+            while (true) {
+                frame = WorkProtocol.readFrame(worker.in);
+                ByteBuffer payload = ByteBuffer.wrap(frame, 1, frame.length - 1);
+                if (frame[0] == WorkProtocol.GET_WORK && frame.length == 9) {
+                    worker.hashes += payload.getLong();
+                    worker.assignWork();
+                } else if (frame[0] == WorkProtocol.SUBMIT && frame.length == 21) {
+                    long jobId = payload.getLong();
+                    int nonce = payload.getInt();
+                    worker.hashes += payload.getLong();
+                    worker.sendResult(jobId, nonce, checkShare(worker, jobId, nonce));
+                } else {
+                    throw new IOException("Unexpected frame of type " + frame[0]);
+                }
+            }
+        } catch (EOFException | SocketException e) {
+            // Disconnected
+        } catch (IOException e) {
+            LOGGER.warn("Dropping worker at {}: {}", socket.getRemoteSocketAddress(), e.getMessage());
+        } finally {
+            if (worker != null && workers.remove(worker)) {
+                LOGGER.info("Worker {} disconnected: {}", worker.workerId, new WorkerStats(worker));
+            }
+            if (worker != null) {
+                worker.close();
+            } else {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Already closed
+                }
+            }
+        }
+    }
+
+    /**
+     * Verifies a share and appends the block it makes, if any.
+     *
+     * @return The RESULT code to send back.
+     */
+    private byte checkShare(Worker worker, long jobId, int nonce) {
+        Job job = worker.claimShare(jobId, Integer.toUnsignedLong(nonce));
+        boolean current;
+        synchronized (this) {
+            current = jobs.containsKey(jobId);
+        }
+        if (job == null || !current) {
+            boolean stale = !current;
+            if (stale) {
+                worker.staleShares++;
+                sharesStale.increment();
+            } else {
+                worker.rejectedShares++;
+                sharesRejected.increment();
+            }
+            return stale ? WorkProtocol.RESULT_STALE : WorkProtocol.RESULT_REJECTED;
+        }
+        Block template = job.template;
+        Block block = new Block(template.getTransactions(), template.getPreviousHash(), template.getMerkleRoot(),
+                template.getTimeStamp(), nonce, null, 0L, null);
+        if (block.getHash().getLeadingZeroBits() < job.shareZeroBits) {
+            worker.rejectedShares++;
+            sharesRejected.increment();
+            return WorkProtocol.RESULT_REJECTED;
+        }
+        worker.acceptedShares++;
+        worker.shareWork += Math.pow(2, job.shareZeroBits);
+        sharesAccepted.increment();
+        if (!block.getHash().meetsDifficulty(node.getBlockchain().getDifficulty())) {
+            return WorkProtocol.RESULT_ACCEPTED;
+        }
+        boolean appended;
+        try {
+            appended = node.submitMinedBlock(block).join();
+        } catch (CompletionException e) {
+            appended = false;  // The node stopped
+        }
+        if (!appended) {
+            return WorkProtocol.RESULT_ACCEPTED;  // Another block extended the tip first
+        }
+        worker.blocksFound++;
+        blocksFound.increment();
+        LOGGER.info("Worker {} found block {}.", worker.workerId, block.getHash());
+        return WorkProtocol.RESULT_BLOCK;
+    }
+
+    /**
+     * Runs a Proof of Work node whose blocks are mined by workers, logging the chain height and the workers'
+     * statistics. Arguments: loopback port (default 8555) and difficulty (default 6).
+     *
+     * @param args The command line arguments
+     * @throws IOException if the port cannot be bound
+     * @throws InterruptedException if interrupted while running
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8555;
+        int difficulty = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+
+        Node node = new Node("Coordinator", new Blockchain(difficulty));
+        node.start();
+        WorkCoordinator coordinator = new WorkCoordinator(node);
+        coordinator.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        while (true) {
+            Thread.sleep(10_000);
+            LOGGER.info("Chain height {}, {} workers.", node.getBlockchain().getHeight(), coordinator.workers.size());
+            for (WorkerStats stats : coordinator.getWorkers()) {
+                LOGGER.info("{}", stats);
+            }
+        }
+    }
+}
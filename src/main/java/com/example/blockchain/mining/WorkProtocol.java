@@ -0,0 +1,82 @@
+package com.example.blockchain.mining;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * WorkProtocol lists the frames exchanged between a {@link WorkCoordinator} and its {@link MiningWorker}s.
+ * Frames are laid out as between nodes (see {@link com.example.blockchain.network.MessageType}): a 4-byte
+ * big-endian length, one type byte and the payload. All numbers are big-endian.
+ */
+public final class WorkProtocol {
+
+    // Magic number sent in the worker's handshake ("MINE")
+    public static final int PROTOCOL_MAGIC = 0x4D494E45;
+
+    // Version of the work protocol
+    public static final short PROTOCOL_VERSION = 1;
+
+    // Largest frame (type byte plus payload) either side accepts
+    public static final int MAX_FRAME_SIZE = 4096;
+
+    // Worker handshake: protocol magic, protocol version and the worker ID; answered with WORK
+    public static final byte HELLO = 1;
+
+    // Request for the next nonce range once the current one is exhausted: hashes computed since the last report
+    public static final byte GET_WORK = 2;
+
+    // A share: job ID, nonce and hashes computed since the last report; answered with RESULT
+    public static final byte SUBMIT = 3;
+
+    // A nonce range of a job: job ID, first nonce, nonce count, share target in leading zero bits and the
+    // serialized block header (BlockHeader.SERIALIZED_SIZE bytes, nonce 0)
+    public static final byte WORK = 4;
+
+    // The tip changed: stop working on this job ID and every earlier one (a WORK frame for the new tip follows)
+    public static final byte ABANDON = 5;
+
+    // Verdict on a share: job ID, nonce and one of the RESULT_ codes below
+    public static final byte RESULT = 6;
+
+    // Share rejected: nonce outside the assigned range or resubmitted, or hash above the share target
+    public static final byte RESULT_REJECTED = 0;
+
+    // Share accepted
+    public static final byte RESULT_ACCEPTED = 1;
+
+    // Share accepted and its hash met the block target: the block was appended to the node's chain
+    public static final byte RESULT_BLOCK = 2;
+
+    // Share rejected because its job is for an earlier tip
+    public static final byte RESULT_STALE = 3;
+
+    private WorkProtocol() {
+    }
+
+    /**
+     * Writes one frame. Callers serialize writes to the same stream.
+     */
+    static void writeFrame(DataOutputStream out, byte type, byte[] payload) throws IOException {
+        out.writeInt(1 + payload.length);
+        out.writeByte(type);
+        out.write(payload);
+        out.flush();
+    }
+
+    /**
+     * Reads one frame into its type byte followed by the payload.
+     *
+     * @throws EOFException if the connection was closed between frames
+     */
+    static byte[] readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 1 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return frame;
+    }
+}
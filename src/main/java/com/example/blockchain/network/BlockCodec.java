@@ -0,0 +1,446 @@
+package com.example.blockchain.network;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.BlockHeader;
+import com.example.blockchain.cryptography.Hash256;
+import com.example.blockchain.transactions.Transaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BlockCodec converts blocks and transactions to and from the compact binary form exchanged between nodes.
+ * Block hashes are never transmitted: the receiver recomputes them from the decoded header.
+ */
+public final class BlockCodec {
+
+    private BlockCodec() {
+    }
+
+    /**
+     * Encodes a block into bytes.
+     *
+     * @param block The block to encode
+     * @return The encoded block.
+     */
+    public static byte[] encode(Block block) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeBlock(out, block);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a block produced by {@link #encode(Block)}.
+     *
+     * @param data The encoded block
+     * @return The decoded block.
+     * @throws IllegalArgumentException if the data is not a well-formed block
+     */
+    public static Block decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            return readBlock(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed block", e);
+        }
+    }
+
+    /**
+     * Encodes a transaction into bytes.
+     *
+     * @param transaction The transaction to encode
+     * @return The encoded transaction.
+     */
+    public static byte[] encodeTransaction(Transaction transaction) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeTransaction(out, transaction);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a transaction produced by {@link #encodeTransaction(Transaction)}.
+     *
+     * @param data The encoded transaction
+     * @return The decoded transaction.
+     * @throws IllegalArgumentException if the data is not a well-formed transaction
+     */
+    public static Transaction decodeTransaction(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            return readTransaction(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed transaction", e);
+        }
+    }
+
+    /**
+     * Encodes a list of block or transaction hashes.
+     *
+     * @param hashes The hashes to encode
+     * @return The encoded hashes.
+     */
+    public static byte[] encodeHashes(List<String> hashes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + hashes.size() * 66);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(hashes.size());
+            for (String hash : hashes) {
+                out.writeUTF(hash);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes hashes produced by {@link #encodeHashes(List)}.
+     *
+     * @param data The encoded hashes
+     * @return The decoded hashes.
+     * @throws IllegalArgumentException if the data is not a well-formed hash list
+     */
+    public static List<String> decodeHashes(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int count = in.readInt();
+            if (count < 0 || count > data.length / 2) {
+                throw new IOException("Invalid hash count");
+            }
+            List<String> hashes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                hashes.add(in.readUTF());
+            }
+            return hashes;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed hash list", e);
+        }
+    }
+
+    /**
+     * Encodes a batch of transactions.
+     *
+     * @param transactions The transactions to encode
+     * @return The encoded transactions.
+     */
+    public static byte[] encodeTransactionList(List<Transaction> transactions) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + transactions.size() * 128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeTransactions(out, transactions);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a batch produced by {@link #encodeTransactionList(List)}.
+     *
+     * @param data The encoded transactions
+     * @return The decoded transactions.
+     * @throws IllegalArgumentException if the data is not a well-formed transaction batch
+     */
+    public static List<Transaction> decodeTransactionList(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            return readTransactions(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed transaction batch", e);
+        }
+    }
+
+    /**
+     * Encodes a compact block into bytes. Each short ID takes 6 bytes.
+     *
+     * @param compactBlock The compact block to encode
+     * @return The encoded compact block.
+     */
+    public static byte[] encodeCompactBlock(CompactBlock compactBlock) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + compactBlock.getShortIds().length * 6);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeHeader(out, compactBlock.getHeader());
+            out.writeInt(compactBlock.getShortIds().length);
+            for (long shortId : compactBlock.getShortIds()) {
+                out.writeShort((int) (shortId >>> 32));
+                out.writeInt((int) shortId);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a compact block produced by {@link #encodeCompactBlock(CompactBlock)}.
+     *
+     * @param data The encoded compact block
+     * @return The decoded compact block.
+     * @throws IllegalArgumentException if the data is not a well-formed compact block
+     */
+    public static CompactBlock decodeCompactBlock(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            BlockHeader header = readHeader(in);
+            int count = in.readInt();
+            if (count < 0 || count > data.length / 6) {
+                throw new IOException("Invalid short ID count");
+            }
+            long[] shortIds = new long[count];
+            for (int i = 0; i < count; i++) {
+                shortIds[i] = ((long) in.readUnsignedShort() << 32) | (in.readInt() & 0xffffffffL);
+            }
+            return new CompactBlock(header, shortIds);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed compact block", e);
+        }
+    }
+
+    /**
+     * Encodes a request for the missing transactions of a compact block.
+     *
+     * @param request The request to encode
+     * @return The encoded request.
+     */
+    public static byte[] encodeTransactionRequest(CompactBlock.TransactionRequest request) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96 + request.getIndexes().length * 4);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeHash(out, request.getBlockHash());
+            out.writeInt(request.getIndexes().length);
+            for (int index : request.getIndexes()) {
+                out.writeInt(index);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a request produced by {@link #encodeTransactionRequest(CompactBlock.TransactionRequest)}.
+     *
+     * @param data The encoded request
+     * @return The decoded request.
+     * @throws IllegalArgumentException if the data is not a well-formed request
+     */
+    public static CompactBlock.TransactionRequest decodeTransactionRequest(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            Hash256 blockHash = readHash(in);
+            int count = in.readInt();
+            if (count < 0 || count > data.length / 4) {
+                throw new IOException("Invalid index count");
+            }
+            int[] indexes = new int[count];
+            for (int i = 0; i < count; i++) {
+                indexes[i] = in.readInt();
+            }
+            return new CompactBlock.TransactionRequest(blockHash, indexes);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed transaction request", e);
+        }
+    }
+
+    /**
+     * Encodes the transactions sent in answer to a compact block request.
+     *
+     * @param response The response to encode
+     * @return The encoded response.
+     */
+    public static byte[] encodeTransactionResponse(CompactBlock.TransactionResponse response) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96 + response.getTransactions().size() * 128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeHash(out, response.getBlockHash());
+            writeTransactions(out, response.getTransactions());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a response produced by {@link #encodeTransactionResponse(CompactBlock.TransactionResponse)}.
+     *
+     * @param data The encoded response
+     * @return The decoded response.
+     * @throws IllegalArgumentException if the data is not a well-formed response
+     */
+    public static CompactBlock.TransactionResponse decodeTransactionResponse(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            Hash256 blockHash = readHash(in);
+            return new CompactBlock.TransactionResponse(blockHash, readTransactions(in));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed transaction response", e);
+        }
+    }
+
+    /**
+     * Writes a block to a data stream.
+     *
+     * @param out   The stream to write to
+     * @param block The block to write
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeBlock(DataOutputStream out, Block block) throws IOException {
+        writeHeader(out, block.getHeader());
+        writeTransactions(out, block.getTransactions());
+    }
+
+    /**
+     * Reads a block written by {@link #writeBlock(DataOutputStream, Block)}.
+     *
+     * @param in The stream to read from
+     * @return The decoded block.
+     * @throws IOException if the stream is truncated or malformed
+     */
+    public static Block readBlock(DataInputStream in) throws IOException {
+        BlockHeader header = readHeader(in);
+        List<Transaction> transactions = readTransactions(in);
+        return new Block(transactions, header.getPreviousHash(), header.getMerkleRoot(), header.getTimeStamp(),
+                header.getNonce(), header.getProposer(), header.getSlot(), header.getSignature());
+    }
+
+    /**
+     * Writes a block header to a data stream.
+     *
+     * @param out    The stream to write to
+     * @param header The header to write
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeHeader(DataOutputStream out, BlockHeader header) throws IOException {
+        writeHash(out, header.getPreviousHash());
+        writeHash(out, header.getMerkleRoot());
+        out.writeLong(header.getTimeStamp());
+        out.writeInt(header.getNonce());
+        writeOptionalString(out, header.getProposer());
+        out.writeLong(header.getSlot());
+        writeOptionalString(out, header.getSignature());
+    }
+
+    /**
+     * Reads a block header written by {@link #writeHeader(DataOutputStream, BlockHeader)}.
+     *
+     * @param in The stream to read from
+     * @return The decoded header.
+     * @throws IOException if the stream is truncated or malformed
+     */
+    public static BlockHeader readHeader(DataInputStream in) throws IOException {
+        Hash256 previousHash = readHash(in);
+        Hash256 merkleRoot = readHash(in);
+        long timeStamp = in.readLong();
+        int nonce = in.readInt();
+        String proposer = readOptionalString(in);
+        long slot = in.readLong();
+        String signature = readOptionalString(in);
+        return new BlockHeader(previousHash, merkleRoot, timeStamp, nonce, proposer, slot, signature);
+    }
+
+    /**
+     * Writes a counted list of transactions to a data stream.
+     *
+     * @param out          The stream to write to
+     * @param transactions The transactions to write
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeTransactions(DataOutputStream out, List<Transaction> transactions) throws IOException {
+        out.writeInt(transactions.size());
+        for (Transaction transaction : transactions) {
+            writeTransaction(out, transaction);
+        }
+    }
+
+    /**
+     * Reads a counted list of transactions written by {@link #writeTransactions(DataOutputStream, List)}.
+     *
+     * @param in The stream to read from
+     * @return The decoded transactions.
+     * @throws IOException if the stream is truncated or malformed
+     */
+    public static List<Transaction> readTransactions(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Negative transaction count");
+        }
+        List<Transaction> transactions = new ArrayList<>(Math.min(count, 1024));
+        for (int i = 0; i < count; i++) {
+            transactions.add(readTransaction(in));
+        }
+        return transactions;
+    }
+
+    /**
+     * Writes a transaction to a data stream.
+     *
+     * @param out         The stream to write to
+     * @param transaction The transaction to write
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeTransaction(DataOutputStream out, Transaction transaction) throws IOException {
+        out.writeUTF(transaction.getSender());
+        out.writeUTF(transaction.getRecipient());
+        out.writeDouble(transaction.getAmount());
+        out.writeLong(transaction.getNonce());
+    }
+
+    /**
+     * Reads a transaction written by {@link #writeTransaction(DataOutputStream, Transaction)}.
+     *
+     * @param in The stream to read from
+     * @return The decoded transaction.
+     * @throws IOException if the stream is truncated or the transaction is invalid
+     */
+    public static Transaction readTransaction(DataInputStream in) throws IOException {
+        String sender = in.readUTF();
+        String recipient = in.readUTF();
+        double amount = in.readDouble();
+        long nonce = in.readLong();
+        try {
+            return new Transaction(sender, recipient, amount, nonce);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid transaction", e);
+        }
+    }
+
+    /**
+     * Writes a hash as its 32 raw bytes.
+     *
+     * @param out  The stream to write to
+     * @param hash The hash to write
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeHash(DataOutputStream out, Hash256 hash) throws IOException {
+        byte[] bytes = new byte[Hash256.BYTES];
+        hash.writeTo(bytes, 0);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a hash written by {@link #writeHash(DataOutputStream, Hash256)}.
+     *
+     * @param in The stream to read from
+     * @return The decoded hash.
+     * @throws IOException if the stream is truncated
+     */
+    public static Hash256 readHash(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[Hash256.BYTES];
+        in.readFully(bytes);
+        return Hash256.fromBytes(bytes, 0);
+    }
+
+    private static void writeOptionalString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readOptionalString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,351 @@
+package com.example.blockchain.network;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.consensus.Consensus;
+import com.example.blockchain.cryptography.Hash256;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * BlockImportPipeline imports encoded blocks received from the network in explicit stages:
+ * <ol>
+ *     <li>decode and stateless checks (hash, Merkle root, consensus rules such as PoW or proposer signature),
+ *     run in parallel on a pool of workers;</li>
+ *     <li>contextual validation against the parent block, in submission order;</li>
+ *     <li>applying the block to the chain and persisting it, in height order.</li>
+ * </ol>
+ * Stages are connected by bounded queues. When they are full, {@link #submit(byte[])} blocks and
+ * {@link #offer(byte[])} fails, which pushes back on the network layer instead of buffering without limit.
+ * A node using the pipeline applies the blocks through its own message handling (see {@link BlockImporter}),
+ * so they are recorded, relayed and counted like any other block it receives.
+ */
+public class BlockImportPipeline implements AutoCloseable {
+
+    /**
+     * A submitted block travelling through the pipeline. The result is null if the block failed its stateless checks.
+     */
+    private static final class ImportTask {
+        final byte[] data;
+        final TcpTransport.Peer source;
+        final CompletableFuture<Block> result = new CompletableFuture<>();
+
+        ImportTask(byte[] data, TcpTransport.Peer source) {
+            this.data = data;
+            this.source = source;
+        }
+    }
+
+    /**
+     * Appends a block that passed the stateless and contextual stages to the chain.
+     */
+    @FunctionalInterface
+    interface BlockImporter {
+        /**
+         * @param block  The block to append
+         * @param source The peer the block was received from, or null if it was submitted locally
+         * @return True if the block extended the chain.
+         */
+        boolean importBlock(Block block, TcpTransport.Peer source);
+    }
+
+    // The chain blocks are imported into
+    private final Blockchain blockchain;
+
+    // Consensus rules used for the stateless checks
+    private final Consensus consensus;
+
+    // Persistence hook, called for every block after it has been appended to the chain
+    private final Consumer<Block> blockStore;
+
+    // Applies blocks in the last stage; appends to the chain directly unless a node takes over (see setImporter)
+    private volatile BlockImporter importer;
+
+    // Workers running the decode and stateless stage in parallel
+    private final ExecutorService statelessWorkers;
+
+    // Blocks awaiting contextual validation, in submission order
+    private final BlockingQueue<ImportTask> validationQueue;
+
+    // Blocks that passed contextual validation, awaiting apply and persist
+    private final BlockingQueue<ImportTask> applyQueue;
+
+    private final Thread contextualStage;
+    private final Thread applyStage;
+
+    // Guards enqueueing so the validation queue preserves submission order
+    private final Object submitLock = new Object();
+
+    // Guards the submitted/completed counters used by awaitIdle
+    private final Object progressLock = new Object();
+    private long submitted;
+    private long completed;
+
+    private final AtomicLong importedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    // Number of blocks accepted by the contextual stage that have not been applied yet
+    private final AtomicInteger awaitingApply = new AtomicInteger();
+
+    // Hash the next block must link to; only accessed by the contextual stage thread
+    private Hash256 expectedParentHash;
+
+    private volatile boolean closed;
+
+    /**
+     * Constructor for the BlockImportPipeline class. Starts the stage threads.
+     *
+     * @param blockchain     The chain blocks are imported into
+     * @param consensus      The consensus rules blocks must satisfy
+     * @param workers        The number of threads running stateless checks in parallel
+     * @param queueCapacity  The capacity of each queue between stages
+     * @param blockStore     Persistence hook called for every imported block, in height order
+     */
+    public BlockImportPipeline(Blockchain blockchain, Consensus consensus, int workers, int queueCapacity,
+                               Consumer<Block> blockStore) {
+        this.blockchain = blockchain;
+        this.consensus = consensus;
+        this.blockStore = blockStore;
+        this.importer = (block, source) -> blockchain.importBlock(block);
+        this.statelessWorkers = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "block-import-stateless");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.validationQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.applyQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.expectedParentHash = blockchain.getLatestBlock().getHash();
+
+        this.contextualStage = new Thread(this::runContextualStage, "block-import-contextual");
+        this.applyStage = new Thread(this::runApplyStage, "block-import-apply");
+        contextualStage.setDaemon(true);
+        applyStage.setDaemon(true);
+        contextualStage.start();
+        applyStage.start();
+    }
+
+    /**
+     * Submits an encoded block, waiting for space if the pipeline is full.
+     *
+     * @param encodedBlock The block encoded with {@link BlockCodec}
+     * @throws InterruptedException if interrupted while waiting for space
+     */
+    public void submit(byte[] encodedBlock) throws InterruptedException {
+        ImportTask task = new ImportTask(encodedBlock, null);
+        synchronized (submitLock) {
+            ensureOpen();
+            validationQueue.put(task);
+            start(task);
+        }
+    }
+
+    /**
+     * Submits an encoded block without waiting.
+     *
+     * @param encodedBlock The block encoded with {@link BlockCodec}
+     * @return True if the block was accepted, false if the pipeline is full and the caller should slow down.
+     */
+    public boolean offer(byte[] encodedBlock) {
+        return offer(encodedBlock, null);
+    }
+
+    /**
+     * Submits an encoded block received from a remote peer without waiting.
+     *
+     * @param encodedBlock The block encoded with {@link BlockCodec}
+     * @param source       The peer the block was received from, passed on to the importer
+     * @return True if the block was accepted, false if the pipeline is full and the caller should slow down.
+     */
+    boolean offer(byte[] encodedBlock, TcpTransport.Peer source) {
+        ImportTask task = new ImportTask(encodedBlock, source);
+        synchronized (submitLock) {
+            ensureOpen();
+            if (!validationQueue.offer(task)) {
+                return false;
+            }
+            start(task);
+        }
+        return true;
+    }
+
+    /**
+     * Makes the apply stage hand blocks to an importer, e.g. the node owning the pipeline,
+     * instead of appending them to the chain directly.
+     *
+     * @param importer The importer applying blocks in height order
+     */
+    void setImporter(BlockImporter importer) {
+        this.importer = importer;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Block import pipeline is closed");
+        }
+    }
+
+    private void start(ImportTask task) {
+        synchronized (progressLock) {
+            submitted++;
+        }
+        statelessWorkers.execute(() -> task.result.complete(decodeAndCheck(task.data)));
+    }
+
+    /**
+     * Stage 1: decodes the block and runs the checks that need no chain state.
+     *
+     * @return The decoded block, or null if it is malformed or invalid.
+     */
+    private Block decodeAndCheck(byte[] data) {
+        try {
+            Block block = BlockCodec.decode(data);
+            if (!block.hasValidMerkleRoot() || !consensus.validateBlock(block, blockchain.getDifficulty())) {
+                return null;
+            }
+            return block;
+        } catch (RuntimeException e) {
+            return null;  // Malformed input is rejected like any other invalid block
+        }
+    }
+
+    /**
+     * Stage 2: checks each block against its parent, in submission order.
+     */
+    private void runContextualStage() {
+        try {
+            while (!closed) {
+                ImportTask task = validationQueue.take();
+                Block block = awaitStatelessResult(task);
+
+                if (block != null && !block.getPreviousHash().equals(expectedParentHash) && awaitingApply.get() == 0) {
+                    // The chain may have been extended outside the pipeline since the last import
+                    expectedParentHash = blockchain.getLatestBlock().getHash();
+                }
+                if (block == null || !block.getPreviousHash().equals(expectedParentHash)) {
+                    rejectedCount.incrementAndGet();
+                    markCompleted();
+                    continue;
+                }
+                expectedParentHash = block.getHash();
+                awaitingApply.incrementAndGet();
+                applyQueue.put(task);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits for a block's stateless checks; unlike join, this returns early if the stage is interrupted on close.
+     */
+    private static Block awaitStatelessResult(ImportTask task) throws InterruptedException {
+        try {
+            return task.result.get();
+        } catch (ExecutionException | CancellationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stage 3: appends blocks to the chain and persists them, in height order.
+     */
+    private void runApplyStage() {
+        try {
+            while (!closed) {
+                ImportTask task = applyQueue.take();
+                Block block = task.result.join();  // Completed before the contextual stage queued it
+                if (importer.importBlock(block, task.source)) {
+                    blockStore.accept(block);
+                    importedCount.incrementAndGet();
+                } else {
+                    rejectedCount.incrementAndGet();
+                }
+                awaitingApply.decrementAndGet();
+                markCompleted();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void markCompleted() {
+        synchronized (progressLock) {
+            completed++;
+            progressLock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until every submitted block has been imported or rejected.
+     *
+     * @param timeout The maximum time to wait
+     * @param unit    The unit of the timeout
+     * @return True if the pipeline became idle, false if the timeout elapsed or the pipeline was closed first.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (progressLock) {
+            while (completed < submitted) {
+                if (closed) {
+                    return false;  // Blocks in flight were discarded and will never complete
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(progressLock, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Retrieves the number of blocks appended to the chain by this pipeline.
+     *
+     * @return The number of imported blocks.
+     */
+    public long getImportedCount() {
+        return importedCount.get();
+    }
+
+    /**
+     * Retrieves the number of blocks rejected by any stage.
+     *
+     * @return The number of rejected blocks.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Stops the pipeline. Blocks still in flight are discarded: their stateless checks are cancelled, the stage
+     * threads exit, and threads waiting in {@link #awaitIdle(long, TimeUnit)} return.
+     */
+    @Override
+    public void close() {
+        synchronized (submitLock) {
+            closed = true;
+        }
+        statelessWorkers.shutdownNow();
+        contextualStage.interrupt();
+        applyStage.interrupt();
+        ImportTask task;
+        while ((task = validationQueue.poll()) != null) {
+            task.result.cancel(false);
+        }
+        synchronized (progressLock) {
+            progressLock.notifyAll();
+        }
+    }
+}
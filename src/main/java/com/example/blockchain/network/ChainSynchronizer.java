@@ -0,0 +1,214 @@
+package com.example.blockchain.network;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.BlockHeader;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.consensus.Consensus;
+import com.example.blockchain.cryptography.Hash256;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChainSynchronizer brings a node that is behind up to date with its peers using headers-first synchronization:
+ * <ol>
+ *     <li>headers are requested from the peer with the longest chain, starting from a locator of the local chain;</li>
+ *     <li>the header chain is validated (linkage, hashes and consensus rules) without any transactions;</li>
+ *     <li>block bodies are downloaded in batches from several peers in parallel, each batch checked against
+ *     its headers and retried on another peer after a timeout or a bad response;</li>
+ *     <li>blocks are committed to the local chain strictly in height order.</li>
+ * </ol>
+ * If the peer's chain forks from the local one below the local tip and is longer, the whole branch is downloaded
+ * first and then replaces the local blocks after the fork point in one step (see {@link Blockchain#reorganize}).
+ */
+public class ChainSynchronizer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChainSynchronizer.class);
+
+    // Maximum number of headers requested at once
+    public static final int MAX_HEADERS_PER_REQUEST = 2000;
+
+    // The node being brought up to date
+    private final Node node;
+
+    // Number of block bodies requested from a peer at once
+    private final int batchSize;
+
+    // Time after which a body request is abandoned and retried elsewhere
+    private final long requestTimeoutMillis;
+
+    // Number of peers a batch is requested from before synchronization gives up
+    private final int maxAttempts;
+
+    /**
+     * Constructor for the ChainSynchronizer class with default settings
+     * (batches of 64 blocks, 5 second timeout, 3 attempts per batch).
+     *
+     * @param node The node being brought up to date
+     */
+    public ChainSynchronizer(Node node) {
+        this(node, 64, 5000, 3);
+    }
+
+    /**
+     * Constructor for the ChainSynchronizer class.
+     *
+     * @param node                  The node being brought up to date
+     * @param batchSize             The number of block bodies requested at once
+     * @param requestTimeoutMillis  The time after which a body request is retried on another peer
+     * @param maxAttempts           The number of peers a batch is requested from before giving up
+     */
+    public ChainSynchronizer(Node node, int batchSize, long requestTimeoutMillis, int maxAttempts) {
+        this.node = node;
+        this.batchSize = batchSize;
+        this.requestTimeoutMillis = requestTimeoutMillis;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Synchronizes the node's chain with the given peers.
+     *
+     * @param peers The peers to download from
+     * @return The number of blocks imported.
+     */
+    public int synchronize(List<Node> peers) {
+        if (peers.isEmpty()) {
+            return 0;
+        }
+        List<BlockHeader> headers = downloadHeaders(peers);
+        if (headers.isEmpty()) {
+            return 0;
+        }
+        Blockchain blockchain = node.getBlockchain();
+        Hash256 forkHash = headers.get(0).getPreviousHash();
+        boolean reorganize = !forkHash.equals(blockchain.getLatestBlock().getHash());
+        if (reorganize && headers.size() <= blockchain.getHeight() - blockchain.getHeightOf(forkHash)) {
+            return 0;  // The peer's branch is not longer than ours
+        }
+        List<Block> branch = new ArrayList<>();
+
+        List<List<BlockHeader>> batches = new ArrayList<>();
+        for (int i = 0; i < headers.size(); i += batchSize) {
+            batches.add(headers.subList(i, Math.min(i + batchSize, headers.size())));
+        }
+
+        // Keep a bounded number of batches in flight so memory stays bounded while every peer is busy
+        int window = peers.size() * 2;
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "chain-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Deque<CompletableFuture<List<Block>>> inFlight = new ArrayDeque<>();
+            int nextBatch = 0;
+            int imported = 0;
+            for (int committed = 0; committed < batches.size(); committed++) {
+                while (inFlight.size() < window && nextBatch < batches.size()) {
+                    inFlight.add(fetchBodies(batches.get(nextBatch), peers, nextBatch, 0, executor));
+                    nextBatch++;
+                }
+                List<Block> blocks = inFlight.poll().join();
+                if (blocks == null) {
+                    LOGGER.warn("Node {} could not download blocks from any peer.", node.getNodeId());
+                    return imported;
+                }
+                if (reorganize) {
+                    branch.addAll(blocks);
+                    continue;
+                }
+                for (Block block : blocks) {
+                    if (!node.importSyncedBlock(block)) {
+                        return imported;  // The local chain moved on meanwhile
+                    }
+                    imported++;
+                }
+            }
+            return reorganize ? node.importSyncedBranch(forkHash, branch) : imported;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Downloads and validates the header chain following the fork point with the local chain from the peer with
+     * the longest chain. The fork point is the local tip unless the peer is on another branch.
+     *
+     * @return The validated headers in height order; stops at the first invalid header.
+     */
+    private List<BlockHeader> downloadHeaders(List<Node> peers) {
+        Blockchain blockchain = node.getBlockchain();
+        Consensus consensus = node.getConsensus();
+        Node bestPeer = peers.stream()
+                .max(Comparator.comparingInt(peer -> peer.getBlockchain().getHeight()))
+                .orElseThrow();
+
+        List<BlockHeader> headers = new ArrayList<>();
+        Hash256 expectedParent = null;
+        List<Hash256> locator = blockchain.getBlockLocator();
+        while (true) {
+            List<BlockHeader> received = bestPeer.getHeaders(locator, MAX_HEADERS_PER_REQUEST);
+            for (BlockHeader header : received) {
+                boolean linked = expectedParent == null
+                        ? blockchain.getHeightOf(header.getPreviousHash()) >= 0
+                        : header.getPreviousHash().equals(expectedParent);
+                if (!linked || !consensus.validateHeader(header, blockchain.getDifficulty())) {
+                    return headers;  // An unlinked or invalid header; keep the valid chain before it
+                }
+                headers.add(header);
+                expectedParent = header.getHash();
+            }
+            if (received.size() < MAX_HEADERS_PER_REQUEST) {
+                return headers;
+            }
+            locator = List.of(expectedParent);
+        }
+    }
+
+    /**
+     * Requests the bodies of a batch of headers, moving on to the next peer after a timeout or a bad response.
+     *
+     * @return A future completed with the blocks, or with null once every attempt failed.
+     */
+    private CompletableFuture<List<Block>> fetchBodies(List<BlockHeader> batch, List<Node> peers, int peerIndex,
+                                                       int attempt, Executor executor) {
+        Node peer = peers.get(peerIndex % peers.size());
+        List<Hash256> hashes = new ArrayList<>(batch.size());
+        for (BlockHeader header : batch) {
+            hashes.add(header.getHash());
+        }
+        return CompletableFuture.supplyAsync(() -> peer.getBlocks(hashes), executor)
+                .orTimeout(requestTimeoutMillis, TimeUnit.MILLISECONDS)
+                .thenApply(blocks -> matchesHeaders(batch, blocks) ? blocks : null)
+                .exceptionally(failure -> null)
+                .thenCompose(blocks -> blocks != null || attempt + 1 >= maxAttempts
+                        ? CompletableFuture.completedFuture(blocks)
+                        : fetchBodies(batch, peers, peerIndex + 1, attempt + 1, executor));
+    }
+
+    /**
+     * Checks that downloaded blocks are exactly the ones described by the headers, transactions included.
+     */
+    private static boolean matchesHeaders(List<BlockHeader> batch, List<Block> blocks) {
+        if (blocks.size() != batch.size()) {
+            return false;
+        }
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            if (!block.calculateHash().equals(batch.get(i).getHash()) || !block.hasValidMerkleRoot()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
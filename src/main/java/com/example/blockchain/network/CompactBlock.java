@@ -0,0 +1,224 @@
+package com.example.blockchain.network;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.BlockHeader;
+import com.example.blockchain.cryptography.Hash256;
+import com.example.blockchain.transactions.Transaction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CompactBlock announces a block as its header plus a 48-bit short ID for each transaction.
+ * Peers usually hold most of a block's transactions already (from transaction gossip), so they can rebuild the
+ * block from their pending transactions and only request the few they are missing.
+ * Short IDs are salted with the block hash, so a collision in one block does not repeat in the next.
+ */
+public final class CompactBlock {
+
+    /**
+     * A request for the transactions of a compact block the receiver could not find locally.
+     */
+    public static final class TransactionRequest {
+        private final Hash256 blockHash;
+        private final int[] indexes;
+
+        /**
+         * Constructor for the TransactionRequest class.
+         *
+         * @param blockHash The hash of the block being reconstructed
+         * @param indexes   The positions of the missing transactions in the block, in ascending order
+         */
+        public TransactionRequest(Hash256 blockHash, int[] indexes) {
+            this.blockHash = blockHash;
+            this.indexes = indexes;
+        }
+
+        /**
+         * Retrieves the hash of the block being reconstructed.
+         *
+         * @return The block hash.
+         */
+        public Hash256 getBlockHash() {
+            return blockHash;
+        }
+
+        /**
+         * Retrieves the positions of the missing transactions.
+         *
+         * @return The transaction indexes, in ascending order.
+         */
+        public int[] getIndexes() {
+            return indexes;
+        }
+    }
+
+    /**
+     * The answer to a {@link TransactionRequest}: the requested transactions in request order.
+     */
+    public static final class TransactionResponse {
+        private final Hash256 blockHash;
+        private final List<Transaction> transactions;
+
+        /**
+         * Constructor for the TransactionResponse class.
+         *
+         * @param blockHash    The hash of the block being reconstructed
+         * @param transactions The requested transactions, or an empty list if the block is unknown
+         */
+        public TransactionResponse(Hash256 blockHash, List<Transaction> transactions) {
+            this.blockHash = blockHash;
+            this.transactions = transactions;
+        }
+
+        /**
+         * Retrieves the hash of the block being reconstructed.
+         *
+         * @return The block hash.
+         */
+        public Hash256 getBlockHash() {
+            return blockHash;
+        }
+
+        /**
+         * Retrieves the requested transactions.
+         *
+         * @return The transactions, in request order.
+         */
+        public List<Transaction> getTransactions() {
+            return transactions;
+        }
+    }
+
+    // Short IDs keep the low 48 bits of the keyed hash
+    private static final long SHORT_ID_MASK = (1L << 48) - 1;
+
+    private final BlockHeader header;
+    private final long[] shortIds;
+
+    /**
+     * Constructor for the CompactBlock class.
+     *
+     * @param header   The header of the announced block
+     * @param shortIds The short IDs of the block's transactions, in block order
+     */
+    public CompactBlock(BlockHeader header, long[] shortIds) {
+        this.header = header;
+        this.shortIds = shortIds;
+    }
+
+    /**
+     * Builds the compact form of a block.
+     *
+     * @param block The block to announce
+     * @return The compact block.
+     */
+    public static CompactBlock fromBlock(Block block) {
+        BlockHeader header = block.getHeader();
+        long salt = saltFor(header.getHash());
+        List<Transaction> transactions = block.getTransactions();
+        long[] shortIds = new long[transactions.size()];
+        for (int i = 0; i < shortIds.length; i++) {
+            shortIds[i] = shortId(salt, transactions.get(i).getHash());
+        }
+        return new CompactBlock(header, shortIds);
+    }
+
+    /**
+     * Derives the short ID salt from a block hash.
+     *
+     * @param blockHash The hash of the block
+     * @return The salt for the block's short IDs.
+     */
+    public static long saltFor(Hash256 blockHash) {
+        return blockHash.getWord(0);
+    }
+
+    /**
+     * Computes the short ID of a transaction within a block.
+     * The first 64 bits of the transaction hash are mixed with the block's salt (MurmurHash3 finalizer)
+     * and truncated to 48 bits.
+     *
+     * @param salt            The block's salt (see {@link #saltFor(Hash256)})
+     * @param transactionHash The hash of the transaction
+     * @return The 48-bit short ID.
+     */
+    public static long shortId(long salt, String transactionHash) {
+        long h = Long.parseUnsignedLong(transactionHash.substring(0, 16), 16) ^ salt;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h & SHORT_ID_MASK;
+    }
+
+    /**
+     * Rebuilds as much of the block as possible from locally known transactions.
+     *
+     * @param knownTransactions Transactions available locally (e.g. the pending pool)
+     * @return The block's transactions in order, with null wherever the transaction is unknown.
+     */
+    public Transaction[] reconstruct(Iterable<Transaction> knownTransactions) {
+        long salt = saltFor(header.getHash());
+        Map<Long, Transaction> byShortId = new HashMap<>();
+        for (Transaction transaction : knownTransactions) {
+            byShortId.put(shortId(salt, transaction.getHash()), transaction);
+        }
+        Transaction[] transactions = new Transaction[shortIds.length];
+        for (int i = 0; i < shortIds.length; i++) {
+            transactions[i] = byShortId.get(shortIds[i]);
+        }
+        return transactions;
+    }
+
+    /**
+     * Selects the requested transactions from a block.
+     *
+     * @param block   The block being served
+     * @param request The request naming the missing transactions
+     * @return The response, empty if an index is out of range.
+     */
+    public static TransactionResponse serve(Block block, TransactionRequest request) {
+        List<Transaction> transactions = block.getTransactions();
+        List<Transaction> requested = new ArrayList<>(request.getIndexes().length);
+        for (int index : request.getIndexes()) {
+            if (index < 0 || index >= transactions.size()) {
+                return new TransactionResponse(request.getBlockHash(), List.of());
+            }
+            requested.add(transactions.get(index));
+        }
+        return new TransactionResponse(request.getBlockHash(), requested);
+    }
+
+    /**
+     * Builds the full block once every transaction is known.
+     *
+     * @param transactions The block's transactions in order, without gaps
+     * @return The block; its hash and Merkle root still have to be checked by the caller.
+     */
+    public Block toBlock(List<Transaction> transactions) {
+        return new Block(transactions, header.getPreviousHash(), header.getMerkleRoot(), header.getTimeStamp(),
+                header.getNonce(), header.getProposer(), header.getSlot(), header.getSignature());
+    }
+
+    /**
+     * Retrieves the header of the announced block.
+     *
+     * @return The block header.
+     */
+    public BlockHeader getHeader() {
+        return header;
+    }
+
+    /**
+     * Retrieves the short IDs of the block's transactions.
+     *
+     * @return The short IDs, in block order.
+     */
+    public long[] getShortIds() {
+        return shortIds;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.blockchain.network;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mailbox runs the messages addressed to one node one at a time, in arrival order.
+ * Mailboxes do not own threads: a mailbox with messages schedules a drain task on a shared executor,
+ * so thousands of nodes run concurrently on as many threads as there are cores,
+ * while each node only ever handles one message at a time.
+ * A mailbox created by {@link #callerRuns} drains on the thread that posts to it until it is moved to an executor,
+ * so messages sent before a node is started are still handled one at a time.
+ */
+class Mailbox {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Mailbox.class);
+
+    /**
+     * A message that must be told when a stopped mailbox discards it instead of running it.
+     */
+    interface DiscardAware extends Runnable {
+        void discarded();
+    }
+
+    // Maximum number of messages handled by one drain task before yielding the executor thread to other nodes
+    private static final int DRAIN_BATCH = 64;
+
+    // Shared executor with one thread per core; FIFO mode suits independent actor tasks
+    static final ForkJoinPool DEFAULT_EXECUTOR = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    // Executor running the drain tasks; null while the posting thread drains the mailbox itself
+    private volatile Executor executor;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean stopped;
+
+    // Thread currently running this mailbox's messages, if any
+    private volatile Thread drainingThread;
+
+    // Node-wide counters: every posted message is eventually counted as completed (handled or discarded)
+    private final AtomicLong postedCount;
+    private final AtomicLong completedCount;
+
+    Mailbox(Executor executor, AtomicLong postedCount, AtomicLong completedCount) {
+        this.executor = executor;
+        this.postedCount = postedCount;
+        this.completedCount = completedCount;
+    }
+
+    /**
+     * Creates a mailbox drained by the threads posting to it: the first poster handles every queued message,
+     * including those posted meanwhile by other threads, while later posters return as soon as their message is queued.
+     *
+     * @param postedCount Node-wide counter of posted messages
+     * @param completedCount Node-wide counter of completed messages
+     * @return The new mailbox.
+     */
+    static Mailbox callerRuns(AtomicLong postedCount, AtomicLong completedCount) {
+        return new Mailbox(null, postedCount, completedCount);
+    }
+
+    /**
+     * Moves the draining of this mailbox to an executor; messages already queued are handled there.
+     *
+     * @param executor The executor to run the drain tasks on
+     */
+    void moveTo(Executor executor) {
+        this.executor = executor;
+        scheduleDrain();
+    }
+
+    /**
+     * Queues a message for the node.
+     *
+     * @param message The action handling the message
+     * @return True if the message was queued, false if the mailbox is stopped.
+     */
+    boolean post(Runnable message) {
+        postedCount.incrementAndGet();
+        if (stopped) {
+            completedCount.incrementAndGet();
+            return false;
+        }
+        queue.add(message);
+        if (stopped && queue.remove(message)) {
+            completedCount.incrementAndGet();  // Raced with stop(); discard like the rest of the queue
+            return false;
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    private void scheduleDrain() {
+        if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+            Executor current = executor;
+            if (current == null) {
+                drain(Integer.MAX_VALUE);  // No other work shares the calling thread, so there is nothing to yield to
+            } else {
+                current.execute(() -> drain(DRAIN_BATCH));
+            }
+        }
+    }
+
+    private void drain(int batch) {
+        drainingThread = Thread.currentThread();
+        try {
+            for (int i = 0; i < batch && !stopped; i++) {
+                Runnable message = queue.poll();
+                if (message == null) {
+                    break;
+                }
+                try {
+                    message.run();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Message handler failed", e);
+                } finally {
+                    completedCount.incrementAndGet();
+                }
+            }
+        } finally {
+            drainingThread = null;
+            draining.set(false);
+            scheduleDrain();  // Pick up messages posted during the batch, or continue after yielding
+        }
+    }
+
+    /**
+     * Checks whether the calling thread is the one handling this mailbox's messages.
+     *
+     * @return True when called from inside a message handler of this mailbox.
+     */
+    boolean isDrainingThread() {
+        return drainingThread == Thread.currentThread();
+    }
+
+    /**
+     * Stops handling messages. Messages still queued are discarded and later posts are refused.
+     */
+    void stop() {
+        stopped = true;
+        int discarded = 0;
+        Runnable message;
+        while ((message = queue.poll()) != null) {
+            discarded++;
+            if (message instanceof DiscardAware) {
+                ((DiscardAware) message).discarded();
+            }
+        }
+        completedCount.addAndGet(discarded);
+    }
+}
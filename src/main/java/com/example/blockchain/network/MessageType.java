@@ -0,0 +1,41 @@
+package com.example.blockchain.network;
+
+/**
+ * MessageType lists the frame types exchanged between nodes over the wire.
+ * Every frame is a 4-byte big-endian length, followed by one type byte and the payload.
+ */
+public final class MessageType {
+
+    // Handshake: protocol magic, protocol version and the sender's node ID
+    public static final byte HELLO = 1;
+
+    // Keepalive request and response (empty payload)
+    public static final byte PING = 2;
+    public static final byte PONG = 3;
+
+    // A full block encoded with BlockCodec
+    public static final byte BLOCK = 4;
+
+    // A single transaction encoded with BlockCodec
+    public static final byte TRANSACTION = 5;
+
+    // A block announced as its header and short transaction IDs (see CompactBlock)
+    public static final byte COMPACT_BLOCK = 6;
+
+    // Request for the transactions of a compact block the receiver is missing, and the answer
+    public static final byte GET_BLOCK_TRANSACTIONS = 7;
+    public static final byte BLOCK_TRANSACTIONS = 8;
+
+    // Request for a full block by hash (32 raw bytes), answered with a BLOCK frame
+    public static final byte GET_BLOCK = 9;
+
+    // Announcement of new transaction hashes, batched over the announce window
+    public static final byte INVENTORY = 10;
+
+    // Request for announced transactions by hash, and the answer with the transactions still pending
+    public static final byte GET_TRANSACTIONS = 11;
+    public static final byte TRANSACTIONS = 12;
+
+    private MessageType() {
+    }
+}
@@ -1,11 +1,46 @@
 package com.example.blockchain.network;
 
 import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.BlockHeader;
 import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.consensus.Consensus;
+import com.example.blockchain.consensus.PoWConsensus;
+import com.example.blockchain.cryptography.Hash256;
+import com.example.blockchain.events.ChainEventPublisher;
+import com.example.blockchain.metrics.Counter;
+import com.example.blockchain.metrics.Histogram;
+import com.example.blockchain.metrics.MetricsRegistry;
 import com.example.blockchain.transactions.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * The Node class represents a single node in the blockchain's peer-to-peer (P2P) network.
@@ -13,6 +48,8 @@ import java.util.List;
  */
 public class Node {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(Node.class);
+
     // A unique identifier for the node (e.g., a public key or node address)
     private final String nodeId;
 
@@ -22,6 +59,283 @@ public class Node {
     // The list of peer nodes that this node is connected to
     private final List<Node> peerNodes;
 
+    // The same peers as a set, for constant-time membership checks
+    private final Set<Node> peerSet = ConcurrentHashMap.newKeySet();
+
+    // Peers this node connected to itself through connectToPeer (the others connected to it or were added manually)
+    private final Set<Node> outboundPeers = ConcurrentHashMap.newKeySet();
+
+    // Peers added with addPeerNode; they count neither as outbound nor as inbound connections
+    private final Set<Node> manualPeers = ConcurrentHashMap.newKeySet();
+
+    // Limits on connections initiated by this node and by other nodes (see connectToPeer)
+    private int maxOutboundPeers = Integer.MAX_VALUE;
+    private int maxInboundPeers = Integer.MAX_VALUE;
+
+    // Peers disconnected for misbehaving; connections with them are refused
+    private final Set<Node> bannedPeers = ConcurrentHashMap.newKeySet();
+
+    // Score of every connected peer, as seen by this node
+    private final Map<Node, PeerScore> peerScores = new ConcurrentHashMap<>();
+
+    // Guards this node's peer table; a connection takes the locks of both nodes, lowest lock order first, so degree
+    // limits hold under concurrent connects without serializing changes between unrelated nodes
+    private static final AtomicLong PEER_LOCK_SEQUENCE = new AtomicLong();
+    private final Object peerTableLock = new Object();
+    private final long peerLockOrder = PEER_LOCK_SEQUENCE.incrementAndGet();
+
+    // Optional staged import pipeline for encoded blocks (null: blocks are imported on the caller's thread)
+    private BlockImportPipeline importPipeline;
+
+    // Optional TCP transport connecting this node to nodes in other processes
+    private TcpTransport transport;
+
+    // Single worker handling messages received over TCP in arrival order, off the transport's selector thread
+    private ThreadPoolExecutor remoteMessageWorker;
+
+    // Number of messages from one remote peer that may wait to be handled before the node stops reading from it
+    private static final int MAX_REMOTE_BACKLOG = 256;
+
+    // Messages received from each remote peer and not handled yet; peers are only present while the count is positive
+    private final Map<TcpTransport.Peer, Integer> remoteBacklog = new ConcurrentHashMap<>();
+
+    // Time to wait before offering a block received over TCP to a full import pipeline again
+    private static final long PIPELINE_RETRY_MILLIS = 10;
+
+    // Number of block and transaction IDs remembered for duplicate suppression
+    private static final int SEEN_CACHE_CAPACITY = 10_000;
+
+    // Recently seen block and transaction hashes; a message is processed and relayed at most once.
+    // A block is only recorded once its fate is settled: imported, invalid, or not extending the chain.
+    private final SeenCache<Hash256> seenBlocks = new SeenCache<>(SEEN_CACHE_CAPACITY);
+    private final SeenCache<String> seenTransactions = new SeenCache<>(SEEN_CACHE_CAPACITY);
+
+    // Transactions received but not yet included in a block (key: transaction hash)
+    private final Map<String, Transaction> pendingTransactions = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    // Bounded queue of outgoing messages for each peer, drained asynchronously
+    private final Map<Node, PeerOutbound> outboundQueues = new ConcurrentHashMap<>();
+
+    // Executor this node creates for its outbound queues, shut down when the node stops
+    private final ExecutorService ownOutboundExecutor;
+
+    // Executor draining the outbound queues (the node's own one unless another was set)
+    private Executor outboundExecutor;
+
+    // Capacity of each peer's outbound queue and what to do when it is full
+    private int outboundCapacity = 1024;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    // Messages queued for peers, and messages delivered or dropped (equal when nothing is in flight)
+    private final AtomicLong outboundEnqueuedCount = new AtomicLong();
+    private final AtomicLong outboundCompletedCount = new AtomicLong();
+
+    // Mailbox serializing all of this node's message handling; drained by the callers until the runtime is started
+    private final Mailbox mailbox;
+
+    // Set once the runtime is started, and once it is stopped; a stopped node refuses every message
+    private volatile boolean started;
+    private volatile boolean stopped;
+
+    // Executor the mailbox is drained on, shared by all nodes by default
+    private Executor runtimeExecutor = Mailbox.DEFAULT_EXECUTOR;
+
+    // Messages posted to the mailbox, and messages handled or discarded (equal when the node is idle)
+    private final AtomicLong mailboxPostedCount = new AtomicLong();
+    private final AtomicLong mailboxCompletedCount = new AtomicLong();
+
+    // Consensus rules received blocks must satisfy
+    private Consensus consensus = new PoWConsensus();
+
+    // Maximum number of peers a newly accepted message is relayed to
+    private int gossipFanout = Integer.MAX_VALUE;
+
+    // Number of hops a message originated by this node may travel
+    private int gossipTtl = 32;
+
+    // Metrics of this node (see getMetrics); the counters and histograms below are registered in it
+    private final MetricsRegistry metrics = new MetricsRegistry();
+
+    // Pushes appended blocks and received transactions to subscribers (see getEvents)
+    private final ChainEventPublisher events;
+
+    // Number of redundant deliveries dropped by the seen caches
+    private final Counter duplicateDeliveries = metrics.counter("gossip.duplicates");
+
+    // Number of peers each accepted block or transaction is relayed to
+    private final Histogram relayFanout = metrics.histogram("gossip.fanout");
+
+    // Time spent validating received blocks and appending valid blocks to the chain, in nanoseconds
+    private final Histogram blockValidationLatency = metrics.histogram("block.validation.latency");
+    private final Histogram blockImportLatency = metrics.histogram("block.import.latency");
+
+    // Blocks appended to the chain, and received blocks rejected as invalid or not extending the chain
+    private final Counter blocksImported = metrics.counter("blocks.imported");
+    private final Counter blocksRejected = metrics.counter("blocks.rejected");
+
+    // Blocks received over TCP that found the import pipeline full, and those never imported because the node stopped
+    private final Counter pipelineFull = metrics.counter("blocks.pipeline.full");
+    private final Counter remoteBlocksDropped = metrics.counter("blocks.remote.dropped");
+
+    // Block relays a remote peer's full send queue refused; the peer is disconnected each time
+    private final Counter remoteRelayFailures = metrics.counter("blocks.relay.failed");
+
+    // Source of randomness for choosing gossip targets
+    private final Random random = new Random();
+
+    // Whether blocks are relayed as compact blocks (header plus short transaction IDs) instead of full blocks
+    private boolean compactBlockRelay = true;
+
+    // Number of recently relayed blocks kept to answer transaction requests from peers
+    private static final int RELAYED_BLOCK_CAPACITY = 64;
+
+    // Recently relayed blocks (key: block hash), served to peers rebuilding them from compact blocks
+    private final Map<Hash256, Block> relayedBlocks = Collections.synchronizedMap(
+            new LinkedHashMap<Hash256, Block>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Hash256, Block> eldest) {
+                    return size() > RELAYED_BLOCK_CAPACITY;
+                }
+            });
+
+    // Number of valid blocks kept while their parent is fetched
+    private static final int ORPHAN_BLOCK_CAPACITY = 64;
+
+    // Valid blocks that arrived before their parent (key: block hash, only used from the mailbox);
+    // the oldest is evicted first
+    private final Map<Hash256, OrphanBlock> orphanBlocks = new LinkedHashMap<Hash256, OrphanBlock>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Hash256, OrphanBlock> eldest) {
+            return size() > ORPHAN_BLOCK_CAPACITY;
+        }
+    };
+
+    // Number of compact blocks kept while their missing transactions are fetched
+    private static final int PENDING_COMPACT_BLOCK_CAPACITY = 64;
+
+    // Compact blocks waiting for missing transactions from their sender (key: block hash, only used from the mailbox);
+    // the oldest is evicted first, and its block is processed afresh when announced again
+    private final Map<Hash256, PendingCompactBlock> pendingCompactBlocks =
+            new LinkedHashMap<Hash256, PendingCompactBlock>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Hash256, PendingCompactBlock> eldest) {
+                    return size() > PENDING_COMPACT_BLOCK_CAPACITY;
+                }
+            };
+
+    // Time after which a compact block still missing transactions is requested in full from another announcer
+    private long compactBlockTimeoutMillis = 2000;
+
+    // Number of transactions requested from peers because they were missing from the pending pool
+    private final AtomicLong missingTransactionRequests = new AtomicLong();
+
+    // Seconds the timer thread is kept while no task is scheduled
+    private static final long TIMER_KEEP_ALIVE_SECONDS = 30;
+
+    // Timer flushing transaction announcements and expiring pending compact blocks, shut down when the node stops
+    private final ScheduledThreadPoolExecutor timer;
+
+    // Seconds the mining thread is kept while no block is being mined
+    private static final long MINING_KEEP_ALIVE_SECONDS = 30;
+
+    // Thread running the proof of work of mineBlock(), off the mailbox, shut down when the node stops
+    private final ThreadPoolExecutor miningExecutor;
+
+    // Shared threads calling event subscribers; a subscriber that blocks only holds up the thread it blocks
+    private static final ExecutorService EVENT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "chain-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Time after which a transaction request that was not answered may be sent to another peer
+    private static final long TRANSACTION_REQUEST_TIMEOUT_MILLIS = 5000;
+
+    // Time new transaction IDs are collected before being announced in one message per peer (0: no batching)
+    private long transactionAnnounceWindowMillis = 20;
+
+    // Transactions accepted since the last announcement (guarded by announceLock)
+    private final Object announceLock = new Object();
+    private List<Announcement> pendingAnnouncements = new ArrayList<>();
+    private boolean announceFlushScheduled;
+
+    // Transactions requested from peers and not received yet (key: transaction hash, only used from the mailbox);
+    // requests older than the timeout are swept at most once per timeout
+    private final Map<String, InventoryRequest> requestedTransactions = new HashMap<>();
+    private long lastRequestSweepMillis;
+
+    /**
+     * A transaction waiting to be announced, with the peer it came from and the hops it may still travel.
+     */
+    private static final class Announcement {
+        final String transactionHash;
+        final Node sender;
+        final TcpTransport.Peer remoteSender;
+        final int ttl;
+
+        Announcement(String transactionHash, Node sender, TcpTransport.Peer remoteSender, int ttl) {
+            this.transactionHash = transactionHash;
+            this.sender = sender;
+            this.remoteSender = remoteSender;
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * A valid block whose parent is not known yet, with the peer it came from so it can be relayed once imported.
+     */
+    private static final class OrphanBlock {
+        final Block block;
+        final Node sender;
+        final TcpTransport.Peer remoteSender;
+        final int ttl;
+
+        OrphanBlock(Block block, Node sender, TcpTransport.Peer remoteSender, int ttl) {
+            this.block = block;
+            this.sender = sender;
+            this.remoteSender = remoteSender;
+            this.ttl = ttl;
+        }
+    }
+
+    /**
+     * A transaction requested from a peer, remembered so it is not requested from every peer announcing it.
+     */
+    private static final class InventoryRequest {
+        final int ttl;
+        final long requestedAtMillis;
+
+        InventoryRequest(int ttl, long requestedAtMillis) {
+            this.ttl = ttl;
+            this.requestedAtMillis = requestedAtMillis;
+        }
+    }
+
+    /**
+     * A compact block being rebuilt, with the sender the missing transactions are requested from
+     * and the other peers that announced it since, which can serve the full block if the sender does not answer.
+     */
+    private static final class PendingCompactBlock {
+        final CompactBlock compactBlock;
+        final Transaction[] transactions;
+        final int[] missing;
+        final Node sender;
+        final TcpTransport.Peer remoteSender;
+        final int ttl;
+        final List<Node> otherAnnouncers = new ArrayList<>();
+        final List<TcpTransport.Peer> otherRemoteAnnouncers = new ArrayList<>();
+
+        PendingCompactBlock(CompactBlock compactBlock, Transaction[] transactions, int[] missing, Node sender,
+                            TcpTransport.Peer remoteSender, int ttl) {
+            this.compactBlock = compactBlock;
+            this.transactions = transactions;
+            this.missing = missing;
+            this.sender = sender;
+            this.remoteSender = remoteSender;
+            this.ttl = ttl;
+        }
+    }
+
     /**
      * Constructor for the Node class.
      * Initializes the node with a unique ID and creates a blockchain for the node to manage.
@@ -32,96 +346,1502 @@ public class Node {
     public Node(String nodeId, Blockchain blockchain) {
         this.nodeId = nodeId;
         this.blockchain = blockchain;
-        this.peerNodes = new ArrayList<>();
+        this.peerNodes = new CopyOnWriteArrayList<>();
+        this.ownOutboundExecutor = PeerOutbound.newExecutor(nodeId);
+        this.outboundExecutor = ownOutboundExecutor;
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "node-timer-" + nodeId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setKeepAliveTime(TIMER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        timer.allowCoreThreadTimeOut(true);
+        timer.setRemoveOnCancelPolicy(true);
+        this.miningExecutor = new ThreadPoolExecutor(0, 1, MINING_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "node-miner-" + nodeId);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.mailbox = Mailbox.callerRuns(mailboxPostedCount, mailboxCompletedCount);
+        this.events = new ChainEventPublisher(blockchain, metrics, EVENT_EXECUTOR);
+        metrics.gauge("chain.height", blockchain::getHeight);
+        metrics.gauge("transactions.pending", pendingTransactions::size);
+        metrics.gauge("peers.connected", peerNodes::size);
     }
 
     /**
      * Adds a peer node to the list of connected peer nodes.
      * This allows the node to communicate and share data with other nodes.
+     * Peers added this way are not subject to the peer limits and do not count towards them.
      *
      * @param peerNode The peer node to connect to
      */
     public void addPeerNode(Node peerNode) {
-        if (!peerNodes.contains(peerNode)) {
-            peerNodes.add(peerNode);
-            System.out.println("Node " + nodeId + " connected to peer node " + peerNode.getNodeId());
+        synchronized (peerTableLock) {
+            if (registerPeer(peerNode, manualPeers)) {
+                LOGGER.debug("Node {} connected to peer node {}", nodeId, peerNode.getNodeId());
+            }
+        }
+    }
+
+    /**
+     * Opens a connection to a peer in both directions, respecting the peer limits of both nodes:
+     * the connection counts as outbound for this node and as inbound for the peer.
+     *
+     * @param peerNode The peer node to connect to
+     * @return True if the nodes are now connected, false if they already were, either node banned the other,
+     *         or a limit was reached.
+     */
+    public boolean connectToPeer(Node peerNode) {
+        if (peerNode == this) {
+            return false;
+        }
+        Node first = peerLockOrder < peerNode.peerLockOrder ? this : peerNode;
+        Node second = first == this ? peerNode : this;
+        synchronized (first.peerTableLock) {
+            synchronized (second.peerTableLock) {
+                if (peerSet.contains(peerNode)
+                        || bannedPeers.contains(peerNode) || peerNode.bannedPeers.contains(this)
+                        || getOutboundPeerCount() >= maxOutboundPeers
+                        || peerNode.getInboundPeerCount() >= peerNode.maxInboundPeers) {
+                    return false;
+                }
+                registerPeer(peerNode, outboundPeers);
+                peerNode.registerPeer(this, null);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Adds a peer to the peer table. Must be called while holding this node's peer table lock.
+     *
+     * @param kind The set recording how the peer was connected (outbound or manual), or null for inbound
+     */
+    private boolean registerPeer(Node peerNode, Set<Node> kind) {
+        if (!peerSet.add(peerNode)) {
+            return false;
+        }
+        peerNodes.add(peerNode);
+        if (kind != null) {
+            kind.add(peerNode);
+        }
+        peerScores.put(peerNode, new PeerScore());
+        return true;
+    }
+
+    /**
+     * Disconnects from a peer node in both directions, discarding any messages still queued for it.
+     *
+     * @param peerNode The peer node to disconnect from
+     */
+    public void disconnectPeerNode(Node peerNode) {
+        dropPeer(peerNode);
+        peerNode.dropPeer(this);
+    }
+
+    private void dropPeer(Node peerNode) {
+        boolean removed;
+        synchronized (peerTableLock) {
+            removed = peerSet.remove(peerNode);
+            if (removed) {
+                peerNodes.remove(peerNode);
+                outboundPeers.remove(peerNode);
+                manualPeers.remove(peerNode);
+                peerScores.remove(peerNode);
+            }
+        }
+        if (removed) {
+            LOGGER.debug("Node {} disconnected from peer node {}", nodeId, peerNode.getNodeId());
+        }
+        PeerOutbound outbound = outboundQueues.remove(peerNode);
+        if (outbound != null) {
+            outbound.close();
+        }
+    }
+
+    /**
+     * Disconnects a misbehaving peer and refuses any further connection with it.
+     *
+     * @param peerNode The peer node to ban
+     */
+    public void banPeer(Node peerNode) {
+        bannedPeers.add(peerNode);
+        disconnectPeerNode(peerNode);
+    }
+
+    /**
+     * Sets the maximum number of connections this node opens and accepts through {@link #connectToPeer(Node)}.
+     *
+     * @param maxOutbound The maximum number of outbound peers
+     * @param maxInbound  The maximum number of inbound peers
+     */
+    public void setPeerLimits(int maxOutbound, int maxInbound) {
+        if (maxOutbound < 0 || maxInbound < 0) {
+            throw new IllegalArgumentException("Peer limits must not be negative");
+        }
+        this.maxOutboundPeers = maxOutbound;
+        this.maxInboundPeers = maxInbound;
+    }
+
+    /**
+     * Retrieves the maximum number of connections this node opens itself.
+     *
+     * @return The outbound peer limit.
+     */
+    public int getMaxOutboundPeers() {
+        return maxOutboundPeers;
+    }
+
+    /**
+     * Retrieves the number of connections this node opened itself.
+     *
+     * @return The number of outbound peers.
+     */
+    public int getOutboundPeerCount() {
+        return outboundPeers.size();
+    }
+
+    /**
+     * Retrieves the number of connections other nodes opened to this node.
+     *
+     * @return The number of inbound peers.
+     */
+    public int getInboundPeerCount() {
+        return peerSet.size() - outboundPeers.size() - manualPeers.size();
+    }
+
+    /**
+     * Checks whether this node is connected to a peer.
+     *
+     * @param peerNode The peer node
+     * @return True if the nodes are connected.
+     */
+    public boolean isConnectedTo(Node peerNode) {
+        return peerSet.contains(peerNode);
+    }
+
+    /**
+     * Retrieves this node's score of a connected peer.
+     *
+     * @param peerNode The peer node
+     * @return The peer's score, or null if the nodes are not connected.
+     */
+    public PeerScore getPeerScore(Node peerNode) {
+        return peerScores.get(peerNode);
+    }
+
+    /**
+     * Applies a scoring action to a peer if it is still connected; in-process senders may be null.
+     */
+    private void scorePeer(Node peerNode, Consumer<PeerScore> action) {
+        if (peerNode != null) {
+            PeerScore score = peerScores.get(peerNode);
+            if (score != null) {
+                action.accept(score);
+            }
+        }
+    }
+
+    /**
+     * Queues a delivery to a peer without waiting for the peer to process it.
+     * The delivery may be dropped if the peer's queue is full.
+     */
+    private void sendTo(Node peerNode, Runnable delivery) {
+        sendTo(peerNode, delivery, true);
+    }
+
+    /**
+     * Queues a block message, or a request for one, to a peer without waiting for the peer to process it.
+     * Unlike other messages it is never dropped: if the peer's queue is full of block messages, the peer is
+     * disconnected instead, since it would otherwise silently miss a block.
+     */
+    private void sendBlockMessage(Node peerNode, Runnable delivery) {
+        sendTo(peerNode, delivery, false);
+    }
+
+    private void sendTo(Node peerNode, Runnable delivery, boolean droppable) {
+        if (stopped) {
+            return;
+        }
+        PeerOutbound outbound = outboundQueues.computeIfAbsent(peerNode, peer -> new PeerOutbound(
+                outboundCapacity, overflowPolicy, outboundExecutor, peer::execute, () -> disconnectPeerNode(peer),
+                outboundEnqueuedCount, outboundCompletedCount));
+        long queuedAt = System.nanoTime();
+        outbound.enqueue(() -> {
+            // Runs in the peer's mailbox, so the latency includes the time the peer took to get to the message
+            scorePeer(peerNode, score -> score.recordLatency(System.nanoTime() - queuedAt));
+            delivery.run();
+        }, droppable);
+    }
+
+    /**
+     * Starts the node's runtime. From now on, messages and validation are handled one at a time
+     * from the node's mailbox on the shared runtime executor, concurrently with other nodes.
+     * Until the runtime is started, messages are still handled one at a time, on the threads sending them.
+     *
+     * @throws IllegalStateException if the node has been stopped
+     */
+    public synchronized void start() {
+        if (stopped) {
+            throw new IllegalStateException("Node " + nodeId + " has been stopped");
+        }
+        if (!started) {
+            started = true;
+            mailbox.moveTo(runtimeExecutor);
+        }
+    }
+
+    /**
+     * Stops the node's runtime for good: queued messages are discarded, later messages are refused,
+     * queued deliveries to peers are dropped, the TCP transport, if any, is closed and event subscribers complete.
+     */
+    public synchronized void stop() {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        mailbox.stop();
+        for (PeerOutbound outbound : outboundQueues.values()) {
+            outbound.close();
+        }
+        outboundQueues.clear();
+        if (transport != null) {
+            transport.close();
+            transport = null;
+        }
+        if (remoteMessageWorker != null) {
+            remoteMessageWorker.shutdownNow();
+        }
+        ownOutboundExecutor.shutdownNow();
+        miningExecutor.shutdownNow();
+        timer.shutdownNow();
+        events.close();
+    }
+
+    /**
+     * Checks whether the node's runtime is started.
+     *
+     * @return True between {@link #start()} and {@link #stop()}.
+     */
+    public boolean isRunning() {
+        return started && !stopped;
+    }
+
+    /**
+     * Sets the executor the node's mailbox is drained on when the runtime is started.
+     *
+     * @param runtimeExecutor The executor (a pool with one thread per core by default)
+     */
+    public void setRuntimeExecutor(Executor runtimeExecutor) {
+        this.runtimeExecutor = runtimeExecutor;
+    }
+
+    /**
+     * Runs an action as a message of this node: queued to the mailbox, or run directly when already called
+     * from the node's own message handler.
+     *
+     * @return False if the node is stopped and the action was discarded.
+     */
+    private boolean execute(Runnable action) {
+        if (mailbox.isDrainingThread()) {
+            action.run();
+            return true;
+        }
+        return mailbox.post(action);
+    }
+
+    /**
+     * Runs a query as a message of this node, so it sees the node's state between two messages.
+     *
+     * @param query The query to run
+     * @param <T>   The type of the result
+     * @return A future completed with the query's result.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> query) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        boolean accepted = execute(() -> {
+            try {
+                result.complete(query.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        if (!accepted) {
+            result.completeExceptionally(new IllegalStateException("Node " + nodeId + " is stopped"));
+        }
+        return result;
+    }
+
+    /**
+     * Mines a block with the node's pending transactions, appends it to the node's chain and broadcasts it.
+     * The template is taken and the mined block appended as messages of the node, while the proof of work runs
+     * on the node's mining thread, so the node keeps handling messages meanwhile. When a block received
+     * during mining moves the tip, mining starts over on top of the new tip.
+     *
+     * @return A future completed with the mined block.
+     */
+    public CompletableFuture<Block> mineBlock() {
+        int difficulty = blockchain.getDifficulty();
+        return submit(this::createBlockTemplate)
+                .thenApplyAsync(block -> {
+                    consensus.mineBlock(block, difficulty);
+                    return block;
+                }, miningExecutor)
+                .thenCompose(block -> submit(() -> {
+                    if (appendMinedBlock(block)) {
+                        return block;
+                    }
+                    if (block.getPreviousHash().equals(blockchain.getLatestBlock().getHash())) {
+                        throw new IllegalStateException("Mined block does not extend the chain of node " + nodeId);
+                    }
+                    return null;  // The tip moved while mining
+                }))
+                .thenCompose(block -> block != null ? CompletableFuture.completedFuture(block) : mineBlock());
+    }
+
+    /**
+     * Creates an unmined block with the node's pending transactions on top of the current tip, for mining
+     * outside the node (see {@link com.example.blockchain.mining.WorkCoordinator}).
+     *
+     * @return The block template, with nonce 0.
+     */
+    public Block createBlockTemplate() {
+        List<Transaction> transactions;
+        synchronized (pendingTransactions) {
+            transactions = new ArrayList<>(pendingTransactions.values());
+        }
+        return new Block(transactions, blockchain.getLatestBlock().getHash());
+    }
+
+    /**
+     * Appends a block mined outside the node and broadcasts it, as {@link #mineBlock()} does with the blocks
+     * it mines itself. The block must satisfy the consensus rules and extend the current tip.
+     *
+     * @param block The mined block
+     * @return A future completed with true if the block was appended, false if it is invalid or stale.
+     */
+    public CompletableFuture<Boolean> submitMinedBlock(Block block) {
+        return submit(() -> block.hasValidMerkleRoot() && consensus.validateBlock(block, blockchain.getDifficulty())
+                && appendMinedBlock(block));
+    }
+
+    private boolean appendMinedBlock(Block block) {
+        if (!importBlock(block)) {
+            return false;
         }
+        removeIncludedTransactions(block);
+        broadcastBlock(block);
+        return true;
     }
 
     /**
      * Broadcasts a new block to all connected peer nodes.
      * This ensures that all nodes in the network are kept up to date with the latest blocks.
+     * Peers relay the block only the first time they accept it, so each node processes it once.
+     * Deliveries are queued per peer and happen asynchronously, so a slow peer does not delay the others.
+     * By default peers are sent a {@link CompactBlock} and rebuild the block from their pending transactions.
      *
      * @param block The new block to broadcast
      */
     public void broadcastBlock(Block block) {
-        for (Node peerNode : peerNodes) {
-            peerNode.receiveBlock(block);
-        }
+        seenBlocks.markSeen(block.getHash());
+        relayBlock(block, null, null, gossipTtl);
     }
 
     /**
      * Receives a block from another node.
-     * The node adds the block to its own blockchain if it is valid.
+     * The node adds the block to its own blockchain if it is valid and has not been seen before,
+     * and relays newly accepted blocks to its peers.
+     * A valid block whose parent is unknown is kept while the parent is requested from the sender.
      *
      * @param block The block received from a peer node
      */
     public void receiveBlock(Block block) {
-        if (blockchain.isChainValid()) {
-            blockchain.addBlock(block);
-            System.out.println("Node " + nodeId + " added block from peer.");
+        execute(() -> receiveBlock(block, null, null, gossipTtl));
+    }
+
+    private void receiveBlock(Block block, Node sender, TcpTransport.Peer remoteSender, int ttl) {
+        Hash256 blockHash = block.getHash();
+        if (seenBlocks.contains(blockHash) || orphanBlocks.containsKey(blockHash)) {
+            duplicateDeliveries.increment();
+            scorePeer(sender, PeerScore::recordDuplicate);
+            return;  // Already processed; never validate or relay the same block twice
+        }
+        long start = System.nanoTime();
+        boolean valid = block.hasValidMerkleRoot() && consensus.validateBlock(block, blockchain.getDifficulty());
+        blockValidationLatency.recordSince(start);
+        if (!valid) {
+            // A double-signed block is only the fault of its proposer: a relayer may have seen it first
+            if (!consensus.isDoubleSigned(block) || (sender != null && sender.nodeId.equals(block.getProposer()))) {
+                scorePeer(sender, PeerScore::recordInvalid);
+            }
+            rejectBlock(block);
+            seenBlocks.markSeen(blockHash);  // Last, so a block reported as seen is fully accounted for
         } else {
-            System.out.println("Node " + nodeId + " rejected invalid block.");
+            acceptValidBlock(block, sender, remoteSender, ttl);
         }
     }
 
     /**
-     * Broadcasts a transaction to all connected peer nodes.
-     * This allows the transaction to be included in blocks across the network.
+     * Imports a block that passed validation, relaying it if it extended the chain
+     * and keeping it as an orphan if its parent is still missing.
      *
-     * @param transaction The transaction to broadcast
+     * @return True if the block extended the chain.
      */
-    public void broadcastTransaction(Transaction transaction) {
-        for (Node peerNode : peerNodes) {
-            peerNode.receiveTransaction(transaction);
+    private boolean acceptValidBlock(Block block, Node sender, TcpTransport.Peer remoteSender, int ttl) {
+        Hash256 blockHash = block.getHash();
+        if (importBlock(block)) {
+            seenBlocks.markSeen(blockHash);
+            scorePeer(sender, PeerScore::recordUseful);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Node {} added block {} from peer.", nodeId, blockHash);
+            }
+            removeIncludedTransactions(block);
+            if (ttl > 1) {
+                relayBlock(block, sender, remoteSender, ttl - 1);
+            }
+            importOrphansOf(blockHash);
+            return true;
+        }
+        if (blockchain.getHeightOf(block.getPreviousHash()) < 0) {
+            // Not invalid, just early: keep it until its parent arrives, and ask the sender for the parent
+            orphanBlocks.put(blockHash, new OrphanBlock(block, sender, remoteSender, ttl));
+            requestBlock(block.getPreviousHash(), sender, remoteSender, ttl);
+        } else {
+            seenBlocks.markSeen(blockHash);  // Its parent is in the chain but is not the tip
+            rejectBlock(block);
         }
+        return false;
     }
 
     /**
-     * Receives a transaction from another node.
-     * The transaction can later be included in a block.
-     *
-     * @param transaction The transaction received from a peer node
+     * Imports the orphan blocks waiting for a block that was just imported.
      */
-    public void receiveTransaction(Transaction transaction) {
-        // In a full implementation, the node would add the transaction to a transaction pool to be included in a block
-        System.out.println("Node " + nodeId + " received transaction: " + transaction.toString());
+    private void importOrphansOf(Hash256 parentHash) {
+        List<OrphanBlock> children = new ArrayList<>();
+        orphanBlocks.values().removeIf(orphan -> orphan.block.getPreviousHash().equals(parentHash)
+                && children.add(orphan));
+        for (OrphanBlock orphan : children) {
+            receiveBlock(orphan.block, orphan.sender, orphan.remoteSender, orphan.ttl);
+        }
     }
 
     /**
-     * Retrieves the unique ID of the node.
-     *
-     * @return The node's unique identifier.
+     * Asks the peer a block came from for another block, e.g. the missing parent of an orphan block.
      */
-    public String getNodeId() {
-        return nodeId;
+    private void requestBlock(Hash256 blockHash, Node sender, TcpTransport.Peer remoteSender, int ttl) {
+        if (sender != null) {
+            sendBlockMessage(sender, () -> sender.serveBlock(blockHash, this, ttl));
+        } else if (remoteSender != null) {
+            remoteSender.send(MessageType.GET_BLOCK, blockHash.toBytes());
+        }
     }
 
     /**
-     * Retrieves the list of peer nodes connected to this node.
+     * Appends a block to the chain, recording the import latency.
      *
-     * @return The list of peer nodes.
+     * @return True if the block extended the chain.
      */
-    public List<Node> getPeerNodes() {
-        return peerNodes;
+    private boolean importBlock(Block block) {
+        long start = System.nanoTime();
+        boolean imported = blockchain.importBlock(block);
+        blockImportLatency.recordSince(start);
+        if (imported) {
+            blocksImported.increment();
+        }
+        return imported;
+    }
+
+    private void rejectBlock(Block block) {
+        blocksRejected.increment();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Node {} rejected invalid block {}.", nodeId, block.getHash());
+        }
     }
 
     /**
-     * Retrieves the blockchain managed by this node.
-     *
-     * @return The blockchain managed by the node.
+     * Relays a block to the gossip targets and to every remote peer, except the peer it came from.
      */
-    public Blockchain getBlockchain() {
-        return blockchain;
+    private void relayBlock(Block block, Node sender, TcpTransport.Peer remoteSender, int ttl) {
+        List<Node> targets = selectGossipTargets(sender);
+        relayFanout.record(targets.size());
+        if (!compactBlockRelay) {
+            for (Node peerNode : targets) {
+                sendBlockMessage(peerNode, () -> peerNode.receiveBlock(block, this, null, ttl));
+            }
+            relayToRemotePeers(MessageType.BLOCK, BlockCodec.encode(block), remoteSender);
+            return;
+        }
+        relayedBlocks.put(block.getHash(), block);
+        CompactBlock compactBlock = CompactBlock.fromBlock(block);
+        for (Node peerNode : targets) {
+            sendBlockMessage(peerNode, () -> peerNode.receiveCompactBlock(compactBlock, this, null, ttl));
+        }
+        relayToRemotePeers(MessageType.COMPACT_BLOCK, BlockCodec.encodeCompactBlock(compactBlock), remoteSender);
+    }
+
+    /**
+     * Sends a block message to every remote peer except the one it came from. A block must not be lost, so a peer
+     * whose send queue is full is disconnected, like an in-process peer whose outbound queue holds only blocks.
+     */
+    private void relayToRemotePeers(byte type, byte[] payload, TcpTransport.Peer remoteSender) {
+        TcpTransport current = transport;
+        if (current == null) {
+            return;
+        }
+        for (TcpTransport.Peer peer : current.getConnectedPeers()) {
+            if (peer != remoteSender && !peer.send(type, payload) && peer.isConnected()) {
+                remoteRelayFailures.increment();
+                LOGGER.warn("Node {} disconnected {}: its send queue is full.", nodeId, peer.getRemoteNodeId());
+                peer.close();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds a compact block from the pending transactions, requesting only the missing ones from the sender.
+     * The rebuilt block then goes through the same checks as a full block.
+     */
+    private void receiveCompactBlock(CompactBlock compactBlock, Node sender,
+                                                  TcpTransport.Peer remoteSender, int ttl) {
+        BlockHeader header = compactBlock.getHeader();
+        Hash256 blockHash = header.getHash();
+        PendingCompactBlock waiting = pendingCompactBlocks.get(blockHash);
+        if (waiting != null) {
+            // Remember who else has the block in case the transactions never come
+            if (sender != null && sender != waiting.sender && !waiting.otherAnnouncers.contains(sender)) {
+                waiting.otherAnnouncers.add(sender);
+            } else if (remoteSender != null && remoteSender != waiting.remoteSender
+                    && !waiting.otherRemoteAnnouncers.contains(remoteSender)) {
+                waiting.otherRemoteAnnouncers.add(remoteSender);
+            }
+        }
+        if (waiting != null || seenBlocks.contains(blockHash) || orphanBlocks.containsKey(blockHash)) {
+            duplicateDeliveries.increment();
+            scorePeer(sender, PeerScore::recordDuplicate);
+            return;
+        }
+        if (!consensus.validateHeader(header, blockchain.getDifficulty())) {
+            seenBlocks.markSeen(blockHash);
+            scorePeer(sender, PeerScore::recordInvalid);
+            blocksRejected.increment();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Node {} rejected invalid block {}.", nodeId, blockHash);
+            }
+            return;  // No point fetching the transactions of a block whose header is invalid
+        }
+
+        List<Transaction> known;
+        synchronized (pendingTransactions) {
+            known = new ArrayList<>(pendingTransactions.values());
+        }
+        Transaction[] transactions = compactBlock.reconstruct(known);
+        int missingCount = 0;
+        for (Transaction transaction : transactions) {
+            if (transaction == null) {
+                missingCount++;
+            }
+        }
+        if (missingCount == 0) {
+            receiveBlock(compactBlock.toBlock(Arrays.asList(transactions)), sender, remoteSender, ttl);
+            return;
+        }
+
+        int[] missing = new int[missingCount];
+        for (int i = 0, j = 0; i < transactions.length; i++) {
+            if (transactions[i] == null) {
+                missing[j++] = i;
+            }
+        }
+        PendingCompactBlock pending =
+                new PendingCompactBlock(compactBlock, transactions, missing, sender, remoteSender, ttl);
+        pendingCompactBlocks.put(blockHash, pending);
+        schedule(() -> execute(() -> expireCompactBlock(blockHash, pending)), compactBlockTimeoutMillis);
+        missingTransactionRequests.addAndGet(missingCount);
+        CompactBlock.TransactionRequest request = new CompactBlock.TransactionRequest(blockHash, missing);
+        if (sender != null) {
+            sendBlockMessage(sender, () -> sender.serveBlockTransactions(request, this));
+        } else if (remoteSender != null) {
+            remoteSender.send(MessageType.GET_BLOCK_TRANSACTIONS, BlockCodec.encodeTransactionRequest(request));
+        }
+    }
+
+    /**
+     * Fills in the transactions a peer sent for a pending compact block.
+     * If they do not complete the block (or the short IDs collided), the full block is requested instead.
+     */
+    private void receiveBlockTransactions(CompactBlock.TransactionResponse response) {
+        PendingCompactBlock pending = pendingCompactBlocks.remove(response.getBlockHash());
+        if (pending == null) {
+            return;  // Not waiting for this block (anymore)
+        }
+        List<Transaction> received = response.getTransactions();
+        if (received.size() == pending.missing.length) {
+            for (int i = 0; i < pending.missing.length; i++) {
+                pending.transactions[pending.missing[i]] = received.get(i);
+            }
+            Block block = pending.compactBlock.toBlock(Arrays.asList(pending.transactions));
+            if (block.hasValidMerkleRoot()) {
+                receiveBlock(block, pending.sender, pending.remoteSender, pending.ttl);
+                return;
+            }
+        }
+        requestBlock(response.getBlockHash(), pending.sender, pending.remoteSender, pending.ttl);
+    }
+
+    /**
+     * Gives up on the missing transactions of a compact block that is still pending at its deadline, e.g. because
+     * the reply was lost, and requests the full block from another peer that announced it (or the sender again).
+     */
+    private void expireCompactBlock(Hash256 blockHash, PendingCompactBlock pending) {
+        if (pendingCompactBlocks.get(blockHash) != pending) {
+            return;  // Completed, evicted or replaced meanwhile
+        }
+        pendingCompactBlocks.remove(blockHash);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Node {} timed out rebuilding block {}; requesting it in full.", nodeId, blockHash);
+        }
+        if (!pending.otherAnnouncers.isEmpty()) {
+            requestBlock(blockHash, pending.otherAnnouncers.get(0), null, pending.ttl);
+        } else if (!pending.otherRemoteAnnouncers.isEmpty()) {
+            requestBlock(blockHash, null, pending.otherRemoteAnnouncers.get(0), pending.ttl);
+        } else {
+            requestBlock(blockHash, pending.sender, pending.remoteSender, pending.ttl);
+        }
+    }
+
+    /**
+     * Answers a peer's request for the transactions of a block this node relayed.
+     */
+    private void serveBlockTransactions(CompactBlock.TransactionRequest request, Node requester) {
+        Block block = findBlock(request.getBlockHash());
+        CompactBlock.TransactionResponse response = block == null
+                ? new CompactBlock.TransactionResponse(request.getBlockHash(), List.of())
+                : CompactBlock.serve(block, request);
+        sendBlockMessage(requester, () -> requester.receiveBlockTransactions(response));
+    }
+
+    /**
+     * Answers a peer's request for a full block this node relayed.
+     */
+    private void serveBlock(Hash256 blockHash, Node requester, int ttl) {
+        Block block = findBlock(blockHash);
+        if (block != null) {
+            sendBlockMessage(requester, () -> requester.receiveBlock(block, this, null, ttl));
+        }
+    }
+
+    /**
+     * Looks up a block among the recently relayed ones and then in the chain.
+     */
+    private Block findBlock(Hash256 blockHash) {
+        Block block = relayedBlocks.get(blockHash);
+        if (block != null) {
+            return block;
+        }
+        int height = blockchain.getHeightOf(blockHash);
+        return height >= 0 ? blockchain.getBlock(height) : null;
+    }
+
+    /**
+     * Drops the transactions of a newly imported block from the pending pool.
+     */
+    private void removeIncludedTransactions(Block block) {
+        for (Transaction transaction : block.getTransactions()) {
+            pendingTransactions.remove(transaction.getHash());
+        }
+    }
+
+    /**
+     * Picks the peers a message is relayed to: every peer except the sender, or a random subset of
+     * them when the gossip fanout is smaller than the number of peers.
+     */
+    private List<Node> selectGossipTargets(Node sender) {
+        List<Node> targets = new ArrayList<>(peerNodes);
+        if (sender != null) {
+            targets.remove(sender);
+        }
+        if (targets.size() > gossipFanout) {
+            Collections.shuffle(targets, random);
+            targets = targets.subList(0, gossipFanout);
+        }
+        return targets;
+    }
+
+    /**
+     * Receives an encoded block from the network.
+     * If an import pipeline is configured the block is handed to it without waiting; otherwise it is decoded
+     * and received on the caller's thread.
+     *
+     * @param encodedBlock The block encoded with {@link BlockCodec}
+     * @return True if the block was accepted for import, false if the pipeline is full and the sender should back off.
+     */
+    public boolean receiveEncodedBlock(byte[] encodedBlock) {
+        if (importPipeline != null) {
+            return importPipeline.offer(encodedBlock);
+        }
+        Block block = BlockCodec.decode(encodedBlock);
+        execute(() -> receiveBlock(block, null, null, gossipTtl));
+        return true;
+    }
+
+    /**
+     * Configures the pipeline used to import encoded blocks received from the network.
+     *
+     * @param importPipeline The import pipeline, or null to import on the caller's thread
+     */
+    public void setImportPipeline(BlockImportPipeline importPipeline) {
+        this.importPipeline = importPipeline;
+        if (importPipeline != null) {
+            importPipeline.setImporter(this::importPipelinedBlock);
+        }
+    }
+
+    /**
+     * Applies a block that passed the import pipeline's checks as a message of this node, so it is recorded as seen,
+     * relayed, and removed from the pending pool like a block received directly. Called by the pipeline's apply stage.
+     *
+     * @return True if the block extended the chain.
+     */
+    private boolean importPipelinedBlock(Block block, TcpTransport.Peer remoteSender) {
+        return submit(() -> {
+            if (seenBlocks.contains(block.getHash()) || orphanBlocks.containsKey(block.getHash())) {
+                duplicateDeliveries.increment();
+                return false;  // Already received through another path
+            }
+            return acceptValidBlock(block, null, remoteSender, gossipTtl);
+        }).exceptionally(failure -> false).join();
+    }
+
+    /**
+     * Broadcasts a transaction to all connected peer nodes.
+     * This allows the transaction to be included in blocks across the network.
+     * The transaction is announced by hash together with other new transactions after the announce window;
+     * peers request the transactions they do not have.
+     *
+     * @param transaction The transaction to broadcast
+     */
+    public void broadcastTransaction(Transaction transaction) {
+        if (seenTransactions.markSeen(transaction.getHash())) {
+            pendingTransactions.put(transaction.getHash(), transaction);
+            events.transactionReceived(transaction);
+        }
+        announceTransaction(transaction.getHash(), null, null, gossipTtl);
+    }
+
+    /**
+     * Receives a transaction from another node.
+     * New transactions are added to the pool of pending transactions, to be included in a block later,
+     * and announced to the node's peers.
+     *
+     * @param transaction The transaction received from a peer node
+     */
+    public void receiveTransaction(Transaction transaction) {
+        execute(() -> receiveTransaction(transaction, null, null, gossipTtl));
+    }
+
+    private void receiveTransaction(Transaction transaction, Node sender,
+                                                 TcpTransport.Peer remoteSender, int ttl) {
+        if (!seenTransactions.markSeen(transaction.getHash())) {
+            duplicateDeliveries.increment();
+            scorePeer(sender, PeerScore::recordDuplicate);
+            return;
+        }
+        scorePeer(sender, PeerScore::recordUseful);
+        pendingTransactions.put(transaction.getHash(), transaction);
+        events.transactionReceived(transaction);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Node {} received transaction: {}", nodeId, transaction);
+        }
+        if (ttl > 1) {
+            announceTransaction(transaction.getHash(), sender, remoteSender, ttl - 1);
+        }
+    }
+
+    /**
+     * Adds a transaction to the next announcement, scheduling a flush if none is pending.
+     * A scheduled flush counts as an outbound message so quiescence checks wait for it.
+     */
+    private void announceTransaction(String transactionHash, Node sender, TcpTransport.Peer remoteSender, int ttl) {
+        boolean flushNow = false;
+        synchronized (announceLock) {
+            pendingAnnouncements.add(new Announcement(transactionHash, sender, remoteSender, ttl));
+            if (!announceFlushScheduled) {
+                announceFlushScheduled = true;
+                outboundEnqueuedCount.incrementAndGet();
+                flushNow = transactionAnnounceWindowMillis == 0
+                        || !schedule(this::flushAnnouncements, transactionAnnounceWindowMillis);
+            }
+        }
+        if (flushNow) {
+            flushAnnouncements();
+        }
+    }
+
+    /**
+     * Sends every collected transaction hash to the peers, one inventory message per peer.
+     */
+    private void flushAnnouncements() {
+        List<Announcement> announcements;
+        synchronized (announceLock) {
+            announcements = pendingAnnouncements;
+            pendingAnnouncements = new ArrayList<>();
+            announceFlushScheduled = false;
+        }
+        Map<Node, Map<String, Integer>> inventories = new HashMap<>();
+        List<TcpTransport.Peer> remotePeers = transport != null ? transport.getConnectedPeers() : List.of();
+        Map<TcpTransport.Peer, List<String>> remoteInventories = new HashMap<>();
+        for (Announcement announcement : announcements) {
+            List<Node> targets = selectGossipTargets(announcement.sender);
+            relayFanout.record(targets.size());
+            for (Node peerNode : targets) {
+                inventories.computeIfAbsent(peerNode, peer -> new LinkedHashMap<>())
+                        .put(announcement.transactionHash, announcement.ttl);
+            }
+            for (TcpTransport.Peer peer : remotePeers) {
+                if (peer != announcement.remoteSender) {
+                    remoteInventories.computeIfAbsent(peer, p -> new ArrayList<>()).add(announcement.transactionHash);
+                }
+            }
+        }
+        for (Map.Entry<Node, Map<String, Integer>> entry : inventories.entrySet()) {
+            Node peerNode = entry.getKey();
+            Map<String, Integer> inventory = entry.getValue();
+            sendTo(peerNode, () -> peerNode.receiveInventory(inventory, this));
+        }
+        for (Map.Entry<TcpTransport.Peer, List<String>> entry : remoteInventories.entrySet()) {
+            entry.getKey().send(MessageType.INVENTORY, BlockCodec.encodeHashes(entry.getValue()));
+        }
+        outboundCompletedCount.incrementAndGet();
+    }
+
+    /**
+     * Handles a peer's announcement of transaction hashes, requesting the unknown ones in one message.
+     */
+    private void receiveInventory(Map<String, Integer> inventory, Node sender) {
+        List<String> wanted = selectWantedTransactions(inventory);
+        if (!wanted.isEmpty()) {
+            sendTo(sender, () -> sender.serveTransactions(wanted, this));
+        }
+    }
+
+    /**
+     * Runs a task on the node's timer after a delay.
+     *
+     * @return False if the node is stopped and the task will not run.
+     */
+    private boolean schedule(Runnable task, long delayMillis) {
+        try {
+            timer.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Picks the announced transactions this node neither has nor has already requested, and records the request.
+     * Must be called from the node's mailbox.
+     */
+    private List<String> selectWantedTransactions(Map<String, Integer> inventory) {
+        long now = System.currentTimeMillis();
+        if (now - lastRequestSweepMillis >= TRANSACTION_REQUEST_TIMEOUT_MILLIS) {
+            // Forget requests that were never answered, so a peer that does not reply cannot grow the map forever
+            requestedTransactions.values().removeIf(
+                    request -> now - request.requestedAtMillis >= TRANSACTION_REQUEST_TIMEOUT_MILLIS);
+            lastRequestSweepMillis = now;
+        }
+        List<String> wanted = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : inventory.entrySet()) {
+            String transactionHash = entry.getKey();
+            InventoryRequest request = requestedTransactions.get(transactionHash);
+            if (seenTransactions.contains(transactionHash)
+                    || (request != null && now - request.requestedAtMillis < TRANSACTION_REQUEST_TIMEOUT_MILLIS)) {
+                duplicateDeliveries.increment();
+                continue;
+            }
+            requestedTransactions.put(transactionHash, new InventoryRequest(entry.getValue(), now));
+            wanted.add(transactionHash);
+        }
+        return wanted;
+    }
+
+    /**
+     * Answers a peer's request with the requested transactions that are still pending here.
+     */
+    private void serveTransactions(List<String> transactionHashes, Node requester) {
+        List<Transaction> transactions = lookUpPendingTransactions(transactionHashes);
+        sendTo(requester, () -> requester.receiveTransactions(transactions, transactionHashes, this, null));
+    }
+
+    private List<Transaction> lookUpPendingTransactions(List<String> transactionHashes) {
+        List<Transaction> transactions = new ArrayList<>(transactionHashes.size());
+        for (String transactionHash : transactionHashes) {
+            Transaction transaction = pendingTransactions.get(transactionHash);
+            if (transaction != null) {
+                transactions.add(transaction);
+            }
+        }
+        return transactions;
+    }
+
+    /**
+     * Handles the transactions a peer sent in answer to a request.
+     */
+    private void receiveTransactions(List<Transaction> transactions, List<String> requestedHashes,
+                                                  Node sender, TcpTransport.Peer remoteSender) {
+        Map<String, Integer> ttls = new HashMap<>();
+        for (String transactionHash : requestedHashes) {
+            InventoryRequest request = requestedTransactions.remove(transactionHash);
+            ttls.put(transactionHash, request != null ? request.ttl : gossipTtl);
+        }
+        for (Transaction transaction : transactions) {
+            receiveTransaction(transaction, sender, remoteSender, ttls.getOrDefault(transaction.getHash(), gossipTtl));
+        }
+    }
+
+    /**
+     * Serves a header request from a syncing peer.
+     * The first locator hash found in this node's chain marks where the peer's chain diverges;
+     * the headers of the blocks following it are returned.
+     *
+     * @param locator    Block hashes from the requester's chain, most recent first (see {@link Blockchain#getBlockLocator()})
+     * @param maxHeaders The maximum number of headers to return
+     * @return The headers following the fork point, in height order (empty if no locator hash is known).
+     */
+    public List<BlockHeader> getHeaders(List<Hash256> locator, int maxHeaders) {
+        int forkHeight = -1;
+        for (Hash256 hash : locator) {
+            forkHeight = blockchain.getHeightOf(hash);
+            if (forkHeight >= 0) {
+                break;
+            }
+        }
+        List<BlockHeader> headers = new ArrayList<>();
+        if (forkHeight < 0) {
+            return headers;
+        }
+        // Taken after the lookup, so the snapshot contains the fork point; no lock needed to read it
+        List<Block> blocks = blockchain.getBlockchain();
+        for (int height = forkHeight + 1; height < blocks.size() && headers.size() < maxHeaders; height++) {
+            headers.add(blocks.get(height).getHeader());
+        }
+        return headers;
+    }
+
+    /**
+     * Serves a block body request from a syncing peer.
+     *
+     * @param blockHashes The hashes of the requested blocks
+     * @return The requested blocks this node has, in request order.
+     */
+    public List<Block> getBlocks(List<Hash256> blockHashes) {
+        List<Block> blocks = new ArrayList<>(blockHashes.size());
+        for (Hash256 hash : blockHashes) {
+            int height = blockchain.getHeightOf(hash);
+            if (height >= 0) {
+                blocks.add(blockchain.getBlock(height));
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Catches up with the chain held by this node's peers using headers-first synchronization.
+     *
+     * @return The number of blocks imported.
+     */
+    public int synchronizeWithPeers() {
+        return new ChainSynchronizer(this).synchronize(new ArrayList<>(peerNodes));
+    }
+
+    /**
+     * Imports a block fetched during synchronization, recording it as seen so later gossip of it is dropped.
+     * The block must satisfy the same consensus rules as a block received by gossip.
+     *
+     * @param block The block, already verified against its header
+     * @return True if the block extended this node's chain.
+     */
+    boolean importSyncedBlock(Block block) {
+        return submit(() -> importSyncedBlockNow(block)).exceptionally(failure -> false).join();
+    }
+
+    private boolean importSyncedBlockNow(Block block) {
+        if (!validateSyncedBlock(block)) {
+            return false;
+        }
+        seenBlocks.markSeen(block.getHash());
+        if (!importBlock(block)) {
+            return false;
+        }
+        removeIncludedTransactions(block);
+        return true;
+    }
+
+    /**
+     * Switches this node's chain to a longer branch fetched during synchronization.
+     * Transactions of the replaced blocks that the branch does not include go back to the pending pool.
+     *
+     * @param forkHash The hash of the last block shared with the branch
+     * @param branch   The blocks following the fork point, already verified against their headers
+     * @return The number of blocks imported (0 if a block is invalid or the branch is not longer than the chain).
+     */
+    int importSyncedBranch(Hash256 forkHash, List<Block> branch) {
+        return submit(() -> importSyncedBranchNow(forkHash, branch)).exceptionally(failure -> 0).join();
+    }
+
+    private int importSyncedBranchNow(Hash256 forkHash, List<Block> branch) {
+        for (Block block : branch) {
+            if (!validateSyncedBlock(block)) {
+                return 0;
+            }
+        }
+        long start = System.nanoTime();
+        List<Block> removed = blockchain.reorganize(forkHash, branch);
+        blockImportLatency.recordSince(start);
+        if (removed == null) {
+            return 0;
+        }
+        blocksImported.add(branch.size());
+        for (Block block : branch) {
+            seenBlocks.markSeen(block.getHash());
+            removeIncludedTransactions(block);
+        }
+        Set<String> included = new HashSet<>();
+        for (Block block : branch) {
+            for (Transaction transaction : block.getTransactions()) {
+                included.add(transaction.getHash());
+            }
+        }
+        for (Block block : removed) {
+            for (Transaction transaction : block.getTransactions()) {
+                if (!included.contains(transaction.getHash())) {
+                    pendingTransactions.putIfAbsent(transaction.getHash(), transaction);
+                }
+            }
+        }
+        return branch.size();
+    }
+
+    private boolean validateSyncedBlock(Block block) {
+        long start = System.nanoTime();
+        boolean valid = block.hasValidMerkleRoot() && consensus.validateBlock(block, blockchain.getDifficulty());
+        blockValidationLatency.recordSince(start);
+        if (!valid) {
+            rejectBlock(block);
+        }
+        return valid;
+    }
+
+    /**
+     * Retrieves the consensus rules received blocks must satisfy.
+     *
+     * @return The consensus mechanism.
+     */
+    public Consensus getConsensus() {
+        return consensus;
+    }
+
+    /**
+     * Checks whether this node has already seen a block.
+     *
+     * @param blockHash The hash of the block
+     * @return True if the block was received or broadcast by this node recently.
+     */
+    public boolean hasSeenBlock(Hash256 blockHash) {
+        return seenBlocks.contains(blockHash);
+    }
+
+    /**
+     * Checks whether this node has already seen a transaction.
+     *
+     * @param transactionHash The hash of the transaction
+     * @return True if the transaction was received or broadcast by this node recently.
+     */
+    public boolean hasSeenTransaction(String transactionHash) {
+        return seenTransactions.contains(transactionHash);
+    }
+
+    /**
+     * Retrieves the number of blocks and transactions delivered to this node more than once.
+     *
+     * @return The number of redundant deliveries that were dropped.
+     */
+    public long getDuplicateDeliveries() {
+        return duplicateDeliveries.getCount();
+    }
+
+    /**
+     * Retrieves the number of transactions this node had to request while rebuilding compact blocks.
+     *
+     * @return The number of requested transactions.
+     */
+    public long getMissingTransactionRequests() {
+        return missingTransactionRequests.get();
+    }
+
+    /**
+     * Sets how long new transactions are collected before being announced to peers.
+     * A longer window sends fewer, larger announcements at the cost of propagation delay.
+     *
+     * @param windowMillis The announce window in milliseconds (0 announces every transaction on its own)
+     */
+    public void setTransactionAnnounceWindow(long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Window must not be negative");
+        }
+        this.transactionAnnounceWindowMillis = windowMillis;
+    }
+
+    /**
+     * Chooses whether blocks are relayed as compact blocks or as full blocks.
+     *
+     * @param compactBlockRelay True to send the header plus short transaction IDs (the default),
+     *                          false to always send full blocks
+     */
+    public void setCompactBlockRelay(boolean compactBlockRelay) {
+        this.compactBlockRelay = compactBlockRelay;
+    }
+
+    /**
+     * Sets how long a compact block may wait for its missing transactions before the full block is requested
+     * from another peer that announced it.
+     *
+     * @param timeoutMillis The timeout in milliseconds
+     */
+    public void setCompactBlockTimeout(long timeoutMillis) {
+        if (timeoutMillis < 1) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        this.compactBlockTimeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Retrieves the number of messages ever queued for this node's peers.
+     *
+     * @return The number of queued messages.
+     */
+    public long getOutboundEnqueuedCount() {
+        return outboundEnqueuedCount.get();
+    }
+
+    /**
+     * Retrieves the number of queued messages that have been delivered or dropped.
+     * When it equals {@link #getOutboundEnqueuedCount()}, nothing sent by this node is still in flight.
+     *
+     * @return The number of completed messages.
+     */
+    public long getOutboundCompletedCount() {
+        return outboundCompletedCount.get();
+    }
+
+    /**
+     * Retrieves the number of messages ever posted to this node's mailbox.
+     *
+     * @return The number of posted messages.
+     */
+    public long getMailboxPostedCount() {
+        return mailboxPostedCount.get();
+    }
+
+    /**
+     * Retrieves the number of mailbox messages that have been handled or discarded.
+     * When it equals {@link #getMailboxPostedCount()}, the node has no message left to handle.
+     *
+     * @return The number of completed messages.
+     */
+    public long getMailboxCompletedCount() {
+        return mailboxCompletedCount.get();
+    }
+
+    /**
+     * Configures the outbound queue used for peers connected from now on.
+     *
+     * @param capacity The maximum number of messages queued for one peer
+     * @param policy   What to do when a peer's queue is full
+     */
+    public void setOutboundPolicy(int capacity, OverflowPolicy policy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.outboundCapacity = capacity;
+        this.overflowPolicy = policy;
+    }
+
+    /**
+     * Sets the executor that delivers queued messages to peers connected from now on.
+     *
+     * @param outboundExecutor The executor draining the outbound queues
+     */
+    public void setOutboundExecutor(Executor outboundExecutor) {
+        this.outboundExecutor = outboundExecutor;
+    }
+
+    /**
+     * Retrieves the transactions received but not yet included in a block.
+     *
+     * @return The pending transactions, keyed by transaction hash.
+     */
+    public Map<String, Transaction> getPendingTransactions() {
+        return pendingTransactions;
+    }
+
+    /**
+     * Sets the maximum number of peers a newly accepted message is relayed to.
+     *
+     * @param gossipFanout The fanout (at least 1); peers beyond it are skipped at random
+     */
+    public void setGossipFanout(int gossipFanout) {
+        if (gossipFanout < 1) {
+            throw new IllegalArgumentException("Fanout must be positive");
+        }
+        this.gossipFanout = gossipFanout;
+    }
+
+    /**
+     * Sets the number of hops a message originated by this node may travel.
+     *
+     * @param gossipTtl The time-to-live in hops (at least 1)
+     */
+    public void setGossipTtl(int gossipTtl) {
+        if (gossipTtl < 1) {
+            throw new IllegalArgumentException("TTL must be positive");
+        }
+        this.gossipTtl = gossipTtl;
+    }
+
+    /**
+     * Sets the consensus rules received blocks must satisfy.
+     *
+     * @param consensus The consensus mechanism (Proof of Work by default)
+     */
+    public void setConsensus(Consensus consensus) {
+        this.consensus = consensus;
+    }
+
+    /**
+     * Starts a TCP transport so nodes in other processes can connect to this node.
+     * Blocks and transactions received over TCP are handled like those from in-process peers,
+     * and broadcasts are also sent to every remote peer.
+     * Received messages are handed to a worker thread in arrival order, since validating a block must not hold up
+     * the transport's selector thread. The node stops reading from a peer whose messages pile up,
+     * and a block that finds the import pipeline full waits for space instead of being dropped.
+     *
+     * @param address The local address to listen on (port 0 picks a free port)
+     * @return The started transport.
+     * @throws IOException if the transport cannot be started
+     */
+    public TcpTransport startTransport(InetSocketAddress address) throws IOException {
+        // The thread exits when idle, so a transport closed without stopping the node leaves nothing behind
+        ThreadPoolExecutor worker = new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "tcp-inbound-" + nodeId);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        TcpTransport tcpTransport = new TcpTransport(nodeId, (peer, type, payload) -> {
+            holdRemoteMessage(peer);
+            try {
+                worker.execute(() -> receiveRemoteMessage(peer, type, payload));
+            } catch (RejectedExecutionException e) {
+                releaseRemoteMessage(peer);  // The node was stopped; like its mailbox, it refuses every message
+            }
+        });
+        this.remoteMessageWorker = worker;
+        tcpTransport.listen(address);
+        this.transport = tcpTransport;
+        return tcpTransport;
+    }
+
+    /**
+     * Counts a message received from a remote peer, and stops reading from the peer once too many are waiting.
+     */
+    private void holdRemoteMessage(TcpTransport.Peer peer) {
+        if (remoteBacklog.merge(peer, 1, Integer::sum) == MAX_REMOTE_BACKLOG) {
+            peer.pauseReading();
+        }
+    }
+
+    /**
+     * Marks a message received from a remote peer as handled, and resumes reading once half the backlog is gone.
+     */
+    private void releaseRemoteMessage(TcpTransport.Peer peer) {
+        Integer waiting = remoteBacklog.computeIfPresent(peer, (key, count) -> count == 1 ? null : count - 1);
+        if (waiting != null && waiting == MAX_REMOTE_BACKLOG / 2) {
+            peer.resumeReading();
+        }
+    }
+
+    /**
+     * Hands a message received over TCP to the node, on the transport's worker thread.
+     * Blocks go straight to the import pipeline, if any, which applies them through the node's mailbox.
+     */
+    private void receiveRemoteMessage(TcpTransport.Peer peer, byte type, byte[] payload) {
+        BlockImportPipeline pipeline = importPipeline;
+        if (type == MessageType.BLOCK && pipeline != null) {
+            try {
+                offerRemoteBlock(pipeline, peer, payload);
+            } finally {
+                releaseRemoteMessage(peer);
+            }
+            return;
+        }
+        boolean posted = execute(() -> {
+            try {
+                handleRemoteMessage(peer, type, payload);
+            } finally {
+                releaseRemoteMessage(peer);
+            }
+        });
+        if (!posted) {
+            releaseRemoteMessage(peer);
+        }
+    }
+
+    /**
+     * Offers a block received over TCP to the import pipeline until it has room. Meanwhile the worker handles
+     * nothing else, so the backlog of every remote peer grows until the node stops reading from it.
+     */
+    private void offerRemoteBlock(BlockImportPipeline pipeline, TcpTransport.Peer peer, byte[] payload) {
+        try {
+            if (pipeline.offer(payload, peer)) {
+                return;
+            }
+            pipelineFull.increment();
+            do {
+                Thread.sleep(PIPELINE_RETRY_MILLIS);
+            } while (!pipeline.offer(payload, peer));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropRemoteBlock(peer, "the node stopped");
+        } catch (IllegalStateException e) {
+            dropRemoteBlock(peer, "the import pipeline is closed");
+        }
+    }
+
+    private void dropRemoteBlock(TcpTransport.Peer peer, String reason) {
+        remoteBlocksDropped.increment();
+        LOGGER.warn("Node {} dropped a block from {} because {}.", nodeId, peer.getRemoteNodeId(), reason);
+    }
+
+    /**
+     * Handles a message received over TCP.
+     */
+    private void handleRemoteMessage(TcpTransport.Peer peer, byte type, byte[] payload) {
+        try {
+            if (type == MessageType.BLOCK) {
+                receiveBlock(BlockCodec.decode(payload), null, peer, gossipTtl);
+            } else if (type == MessageType.TRANSACTION) {
+                receiveTransaction(BlockCodec.decodeTransaction(payload), null, peer, gossipTtl);
+            } else if (type == MessageType.INVENTORY) {
+                Map<String, Integer> inventory = new LinkedHashMap<>();
+                for (String transactionHash : BlockCodec.decodeHashes(payload)) {
+                    inventory.put(transactionHash, gossipTtl);
+                }
+                List<String> wanted = selectWantedTransactions(inventory);
+                if (!wanted.isEmpty()) {
+                    peer.send(MessageType.GET_TRANSACTIONS, BlockCodec.encodeHashes(wanted));
+                }
+            } else if (type == MessageType.GET_TRANSACTIONS) {
+                List<Transaction> transactions = lookUpPendingTransactions(BlockCodec.decodeHashes(payload));
+                peer.send(MessageType.TRANSACTIONS, BlockCodec.encodeTransactionList(transactions));
+            } else if (type == MessageType.TRANSACTIONS) {
+                List<Transaction> transactions = BlockCodec.decodeTransactionList(payload);
+                List<String> hashes = new ArrayList<>(transactions.size());
+                for (Transaction transaction : transactions) {
+                    hashes.add(transaction.getHash());
+                }
+                receiveTransactions(transactions, hashes, null, peer);
+            } else if (type == MessageType.COMPACT_BLOCK) {
+                receiveCompactBlock(BlockCodec.decodeCompactBlock(payload), null, peer, gossipTtl);
+            } else if (type == MessageType.GET_BLOCK_TRANSACTIONS) {
+                CompactBlock.TransactionRequest request = BlockCodec.decodeTransactionRequest(payload);
+                Block block = findBlock(request.getBlockHash());
+                CompactBlock.TransactionResponse response = block == null
+                        ? new CompactBlock.TransactionResponse(request.getBlockHash(), List.of())
+                        : CompactBlock.serve(block, request);
+                peer.send(MessageType.BLOCK_TRANSACTIONS, BlockCodec.encodeTransactionResponse(response));
+            } else if (type == MessageType.BLOCK_TRANSACTIONS) {
+                receiveBlockTransactions(BlockCodec.decodeTransactionResponse(payload));
+            } else if (type == MessageType.GET_BLOCK) {
+                Block block = findBlock(Hash256.fromBytes(payload));
+                if (block != null) {
+                    peer.send(MessageType.BLOCK, BlockCodec.encode(block));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            peer.close();  // Peers sending malformed data are disconnected
+        }
+    }
+
+    /**
+     * Connects this node to a node in another process over TCP.
+     *
+     * @param address The address the remote node's transport listens on
+     * @throws IOException if the transport has not been started or the connection cannot be initiated
+     */
+    public void connectToRemotePeer(InetSocketAddress address) throws IOException {
+        if (transport == null) {
+            throw new IOException("Transport of node " + nodeId + " has not been started");
+        }
+        transport.connect(address);
+    }
+
+    /**
+     * Retrieves the TCP transport of this node.
+     *
+     * @return The transport, or null if it has not been started.
+     */
+    public TcpTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Retrieves the node's metrics: chain height, pending transactions, connected peers, block validation and
+     * import latency, relay fan-out and duplicate deliveries. Take a {@link MetricsRegistry#snapshot()} to read them.
+     *
+     * @return The node's metrics registry.
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Retrieves the unique ID of the node.
+     *
+     * @return The node's unique identifier.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Retrieves the list of peer nodes connected to this node.
+     *
+     * @return The list of peer nodes.
+     */
+    public List<Node> getPeerNodes() {
+        return peerNodes;
+    }
+
+    /**
+     * Retrieves the blockchain managed by this node.
+     *
+     * @return The blockchain managed by the node.
+     */
+    public Blockchain getBlockchain() {
+        return blockchain;
+    }
+
+    /**
+     * Retrieves the publisher of this node's chain events: blocks appended to its chain and transactions
+     * received into its pool of pending transactions. Subscribers are called on threads shared by all nodes.
+     *
+     * @return The event publisher.
+     */
+    public ChainEventPublisher getEvents() {
+        return events;
     }
 }
@@ -0,0 +1,18 @@
+package com.example.blockchain.network;
+
+/**
+ * OverflowPolicy decides what happens when a peer's outbound queue is full because the peer is not keeping up.
+ * Block messages are never dropped: under the drop policies they displace a droppable message instead,
+ * and the peer is disconnected if only block messages are queued.
+ */
+public enum OverflowPolicy {
+
+    // Discard the message being sent
+    DROP_NEWEST,
+
+    // Discard the oldest queued message to make room for the new one
+    DROP_OLDEST,
+
+    // Disconnect the peer and discard everything queued for it
+    DISCONNECT
+}
@@ -1,9 +1,16 @@
 package com.example.blockchain.network;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.simulation.Topology;
 import com.example.blockchain.transactions.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * The P2PNetwork class manages the overall peer-to-peer (P2P) network in the blockchain system.
@@ -12,9 +19,17 @@ import com.example.blockchain.transactions.Transaction;
  */
 public class P2PNetwork {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(P2PNetwork.class);
+
     // A map of all nodes in the network (key: node ID, value: Node object)
     private final Map<String, Node> nodesInNetwork;
 
+    // Maximum time a network-wide broadcast waits for gossip to settle
+    private static final long QUIESCENCE_TIMEOUT_MILLIS = 30_000;
+
+    // Source of randomness for choosing replacement peers
+    private final Random random = new Random();
+
     /**
      * Constructor for the P2PNetwork class.
      * Initializes an empty network of nodes.
@@ -32,9 +47,9 @@ public class P2PNetwork {
     public void addNodeToNetwork(Node node) {
         if (!nodesInNetwork.containsKey(node.getNodeId())) {
             nodesInNetwork.put(node.getNodeId(), node);
-            System.out.println("Node " + node.getNodeId() + " added to the network.");
+            LOGGER.debug("Node {} added to the network.", node.getNodeId());
         } else {
-            System.out.println("Node " + node.getNodeId() + " already exists in the network.");
+            LOGGER.debug("Node {} already exists in the network.", node.getNodeId());
         }
     }
 
@@ -52,33 +67,201 @@ public class P2PNetwork {
         if (node1 != null && node2 != null) {
             node1.addPeerNode(node2);  // Add node2 as a peer of node1
             node2.addPeerNode(node1);  // Add node1 as a peer of node2
-            System.out.println("Nodes " + nodeId1 + " and " + nodeId2 + " are now connected.");
+            LOGGER.debug("Nodes {} and {} are now connected.", nodeId1, nodeId2);
         } else {
-            System.out.println("One or both nodes do not exist in the network.");
+            LOGGER.debug("One or both nodes do not exist in the network.");
+        }
+    }
+
+    /**
+     * Starts the runtime of every node, so nodes handle their messages concurrently (see {@link Node#start()}).
+     */
+    public void startAll() {
+        for (Node node : nodesInNetwork.values()) {
+            node.start();
+        }
+    }
+
+    /**
+     * Stops the runtime of every node.
+     */
+    public void stopAll() {
+        for (Node node : nodesInNetwork.values()) {
+            node.stop();
+        }
+    }
+
+    /**
+     * Connects every node to random peers until it has the given number of outbound connections,
+     * without any node exceeding the inbound limit. Each node's fan-out stays bounded by
+     * {@code outboundPeers + maxInboundPeers} while the random links keep the network diameter small.
+     *
+     * @param outboundPeers   The number of connections each node opens
+     * @param maxInboundPeers The maximum number of connections each node accepts
+     * @param seed            The seed of the random peer choice
+     */
+    public void buildRandomTopology(int outboundPeers, int maxInboundPeers, long seed) {
+        Random random = new Random(seed);
+        List<Node> nodes = sortedNodes();
+        for (Node node : nodes) {
+            node.setPeerLimits(outboundPeers, maxInboundPeers);
+        }
+        for (Node node : nodes) {
+            fillOutboundPeers(node, nodes, random);
+        }
+    }
+
+    /**
+     * Connects the nodes following a generated topology, for example a small-world graph.
+     * Node i of the topology is the i-th node in order of node IDs.
+     *
+     * @param topology The topology to apply (see {@link Topology})
+     */
+    public void applyTopology(Topology topology) {
+        List<Node> nodes = sortedNodes();
+        if (topology.size() != nodes.size()) {
+            throw new IllegalArgumentException("Topology has " + topology.size() + " nodes, network has " + nodes.size());
         }
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int j : topology.getNeighbors(i)) {
+                if (j > i) {
+                    nodes.get(i).connectToPeer(nodes.get(j));
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces badly scored peers: every node bans the peers whose score reached
+     * {@link PeerScore#EVICTION_SCORE} and opens new outbound connections to random nodes up to its limit.
+     *
+     * @return The number of peer connections dropped.
+     */
+    public int maintainPeers() {
+        List<Node> nodes = sortedNodes();
+        int evicted = 0;
+        for (Node node : nodes) {
+            for (Node peer : node.getPeerNodes()) {
+                PeerScore score = node.getPeerScore(peer);
+                if (score != null && score.shouldEvict()) {
+                    node.banPeer(peer);
+                    evicted++;
+                }
+            }
+        }
+        for (Node node : nodes) {
+            fillOutboundPeers(node, nodes, random);
+        }
+        return evicted;
+    }
+
+    /**
+     * Opens outbound connections from a node to random nodes until its limit is reached.
+     * The number of attempts is bounded, so a nearly saturated network cannot make this loop forever.
+     */
+    private static void fillOutboundPeers(Node node, List<Node> nodes, Random random) {
+        int missing = node.getMaxOutboundPeers() == Integer.MAX_VALUE
+                ? 0 : node.getMaxOutboundPeers() - node.getOutboundPeerCount();
+        for (int attempt = 0; missing > 0 && attempt < missing * 20; attempt++) {
+            Node candidate = nodes.get(random.nextInt(nodes.size()));
+            if (node.connectToPeer(candidate)) {
+                missing--;
+            }
+        }
+    }
+
+    private List<Node> sortedNodes() {
+        List<Node> nodes = new ArrayList<>(nodesInNetwork.values());
+        nodes.sort(Comparator.comparing(Node::getNodeId));
+        return nodes;
     }
 
     /**
      * Broadcasts a block to all nodes in the network.
      * This ensures that all nodes receive the new block and add it to their local blockchain.
+     * The block is handed to one node, which gossips it to the rest of its part of the network;
+     * it is only handed to another node if gossip did not reach it.
+     * Returns once gossip has settled.
      *
      * @param block The block to be broadcast to all nodes
      */
     public void broadcastBlockToNetwork(Block block) {
         for (Node node : nodesInNetwork.values()) {
-            node.broadcastBlock(block);  // Each node broadcasts the block to its peers
+            if (!node.hasSeenBlock(block.getHash())) {
+                node.receiveBlock(block);  // The node imports the block and gossips it to its peers
+                awaitQuiescence(QUIESCENCE_TIMEOUT_MILLIS);
+            }
         }
     }
 
     /**
      * Broadcasts a transaction to all nodes in the network.
      * This ensures that the transaction can be processed by any node and included in a block.
+     * Like blocks, transactions are gossiped from node to node and only injected where gossip did not reach.
      *
      * @param transaction The transaction to be broadcast to all nodes
      */
     public void broadcastTransactionToNetwork(Transaction transaction) {
         for (Node node : nodesInNetwork.values()) {
-            node.broadcastTransaction(transaction);  // Each node broadcasts the transaction to its peers
+            if (!node.hasSeenTransaction(transaction.getHash())) {
+                node.receiveTransaction(transaction);  // The node pools the transaction and gossips it to its peers
+                awaitQuiescence(QUIESCENCE_TIMEOUT_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Broadcasts a batch of transactions to all nodes in the network.
+     * All transactions are handed to one node first, so they are announced together instead of one by one.
+     *
+     * @param transactions The transactions to be broadcast to all nodes
+     */
+    public void broadcastTransactionsToNetwork(List<Transaction> transactions) {
+        for (Node node : nodesInNetwork.values()) {
+            boolean injected = false;
+            for (Transaction transaction : transactions) {
+                if (!node.hasSeenTransaction(transaction.getHash())) {
+                    node.receiveTransaction(transaction);
+                    injected = true;
+                }
+            }
+            if (injected) {
+                awaitQuiescence(QUIESCENCE_TIMEOUT_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Waits until no message sent between nodes of this network is still queued or being delivered.
+     *
+     * @param timeoutMillis The maximum time to wait in milliseconds
+     * @return True if the network became quiet, false if the timeout elapsed first.
+     */
+    public boolean awaitQuiescence(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            // Completed counts are read before enqueued counts: a delivery or mailbox message that is still running
+            // when its node's completed count is read has not been counted yet, so the sums cannot match too early
+            long completed = 0;
+            for (Node node : nodesInNetwork.values()) {
+                completed += node.getOutboundCompletedCount() + node.getMailboxCompletedCount();
+            }
+            long enqueued = 0;
+            for (Node node : nodesInNetwork.values()) {
+                enqueued += node.getOutboundEnqueuedCount() + node.getMailboxPostedCount();
+            }
+            if (completed == enqueued) {
+                return true;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
         }
     }
 
@@ -0,0 +1,225 @@
+package com.example.blockchain.network;
+
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * PeerOutbound is the bounded queue of messages waiting to be delivered to one peer.
+ * Messages are posted to the peer's mailbox in order by a drain task running on a shared executor, so a sender only
+ * enqueues and never waits for the peer to process a message. The next message is only posted once the peer has
+ * handled the previous one, so a peer falling behind fills this queue rather than its mailbox.
+ * When the queue is full the configured {@link OverflowPolicy} applies to droppable messages only: a message that
+ * must not be lost, such as a block, displaces the oldest droppable message instead, and the peer is disconnected
+ * if there is none.
+ */
+class PeerOutbound {
+
+    // Number of threads of the executor a node creates for its outbound queues
+    private static final int EXECUTOR_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    // Seconds an idle thread of that executor is kept
+    private static final long EXECUTOR_KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * A queued message and whether the overflow policy may discard it.
+     */
+    private static final class Delivery {
+        final Runnable action;
+        final boolean droppable;
+
+        Delivery(Runnable action, boolean droppable) {
+            this.action = action;
+            this.droppable = droppable;
+        }
+    }
+
+    /**
+     * A delivery posted to the peer's mailbox. The next one is posted once the peer has run it,
+     * or discarded it because the peer stopped.
+     */
+    private final class PostedDelivery implements Mailbox.DiscardAware {
+        private final Runnable action;
+
+        PostedDelivery(Runnable action) {
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            try {
+                action.run();
+            } finally {
+                delivered();
+            }
+        }
+
+        @Override
+        public void discarded() {
+            delivered();
+        }
+    }
+
+    private final BlockingQueue<Delivery> queue;
+    private final OverflowPolicy policy;
+    private final Executor executor;
+
+    // Posts a message to the peer's mailbox; false if the peer is stopped and the message was discarded
+    private final Predicate<Runnable> peerMailbox;
+
+    private final Runnable onDisconnect;
+
+    // Set while a drain task is scheduled or a delivery is posted to the peer and not handled yet
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+
+    // Node-wide counters: every enqueued message is eventually counted as completed (delivered or dropped)
+    private final AtomicLong enqueuedCount;
+    private final AtomicLong completedCount;
+
+    PeerOutbound(int capacity, OverflowPolicy policy, Executor executor, Predicate<Runnable> peerMailbox,
+                 Runnable onDisconnect, AtomicLong enqueuedCount, AtomicLong completedCount) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.policy = policy;
+        this.executor = executor;
+        this.peerMailbox = peerMailbox;
+        this.onDisconnect = onDisconnect;
+        this.enqueuedCount = enqueuedCount;
+        this.completedCount = completedCount;
+    }
+
+    /**
+     * Creates the executor a node uses for its outbound queues when it is not given one.
+     * Its threads are started on demand and exit when idle; the node shuts it down when it stops.
+     *
+     * @param nodeId The ID of the node owning the executor, used to name its threads
+     * @return The executor.
+     */
+    static ThreadPoolExecutor newExecutor(String nodeId) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(EXECUTOR_THREADS, EXECUTOR_THREADS,
+                EXECUTOR_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "peer-outbound-" + nodeId);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Queues a droppable delivery for the peer.
+     *
+     * @param delivery The action delivering the message to the peer
+     * @return True if the message was queued, false if it was dropped.
+     */
+    boolean enqueue(Runnable delivery) {
+        return enqueue(delivery, true);
+    }
+
+    /**
+     * Queues a delivery for the peer.
+     * A message that is not droppable is never discarded by the overflow policy: it takes the place of the oldest
+     * droppable message, and if every queued message is undroppable the peer is disconnected.
+     *
+     * @param delivery  The action delivering the message to the peer
+     * @param droppable Whether the overflow policy may discard the message
+     * @return True if the message was queued, false if it was dropped.
+     */
+    boolean enqueue(Runnable delivery, boolean droppable) {
+        enqueuedCount.incrementAndGet();
+        if (closed) {
+            completedCount.incrementAndGet();
+            return false;
+        }
+        Delivery entry = new Delivery(delivery, droppable);
+        while (!queue.offer(entry)) {
+            if (policy == OverflowPolicy.DISCONNECT || (!droppable && !removeOldestDroppable())) {
+                completedCount.incrementAndGet();
+                close();
+                onDisconnect.run();
+                return false;
+            } else if (droppable && (policy == OverflowPolicy.DROP_NEWEST || !removeOldestDroppable())) {
+                // Under DROP_OLDEST the new message is only dropped if every queued message is undroppable
+                completedCount.incrementAndGet();
+                return false;
+            }
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Discards the oldest droppable message still queued.
+     *
+     * @return True if a message was discarded, false if there is none.
+     */
+    private boolean removeOldestDroppable() {
+        Iterator<Delivery> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            Delivery queued = iterator.next();
+            if (queued.droppable && queue.remove(queued)) {
+                completedCount.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void scheduleDrain() {
+        if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                close();  // The executor was shut down with the node; nothing queued will be delivered
+            }
+        }
+    }
+
+    private void drain() {
+        Delivery delivery = queue.poll();
+        if (delivery == null) {
+            draining.set(false);
+            scheduleDrain();  // Pick up a message queued after the poll
+        } else if (!peerMailbox.test(new PostedDelivery(delivery.action))) {
+            delivered();  // The peer is stopped and discarded the message
+        }
+    }
+
+    /**
+     * Releases the slot of the delivery the peer has just handled and posts the next one.
+     */
+    private void delivered() {
+        completedCount.incrementAndGet();
+        draining.set(false);
+        scheduleDrain();
+    }
+
+    /**
+     * Stops delivering to the peer and discards everything still queued.
+     */
+    void close() {
+        closed = true;
+        int discarded = 0;
+        while (queue.poll() != null) {
+            discarded++;
+        }
+        completedCount.addAndGet(discarded);
+    }
+
+    /**
+     * Retrieves the number of messages waiting to be posted to the peer.
+     *
+     * @return The queue length.
+     */
+    int size() {
+        return queue.size();
+    }
+}
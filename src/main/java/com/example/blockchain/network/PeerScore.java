@@ -0,0 +1,117 @@
+package com.example.blockchain.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PeerScore rates how valuable a peer connection is from one node's point of view.
+ * Peers earn points for delivering blocks and transactions first, and lose points for invalid messages
+ * and for being slow to process what is sent to them. Peers whose score falls to {@link #EVICTION_SCORE}
+ * are replaced (see {@link P2PNetwork#maintainPeers()}).
+ */
+public class PeerScore {
+
+    // Score at or below which a peer is disconnected and replaced
+    public static final double EVICTION_SCORE = -50.0;
+
+    // Points lost for each invalid block or transaction
+    private static final double INVALID_MESSAGE_PENALTY = 25.0;
+
+    // Delivery latency (in milliseconds) that costs one point
+    private static final double LATENCY_MILLIS_PER_POINT = 10.0;
+
+    // Weight of the latest sample in the latency moving average
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    private final AtomicLong usefulDeliveries = new AtomicLong();
+    private final AtomicLong invalidMessages = new AtomicLong();
+    private final AtomicLong duplicateDeliveries = new AtomicLong();
+
+    // Exponential moving average of the time the peer takes to take delivery of a message
+    private volatile double latencyMillis;
+
+    /**
+     * Records a block or transaction the peer was first to deliver.
+     */
+    public void recordUseful() {
+        usefulDeliveries.incrementAndGet();
+    }
+
+    /**
+     * Records an invalid block or transaction received from the peer.
+     */
+    public void recordInvalid() {
+        invalidMessages.incrementAndGet();
+    }
+
+    /**
+     * Records a message the peer delivered after another peer already had.
+     */
+    public void recordDuplicate() {
+        duplicateDeliveries.incrementAndGet();
+    }
+
+    /**
+     * Records the time between queueing a message for the peer and the peer taking delivery of it.
+     *
+     * @param nanos The delivery latency in nanoseconds
+     */
+    public synchronized void recordLatency(long nanos) {
+        double millis = nanos / 1_000_000.0;
+        latencyMillis = latencyMillis == 0.0 ? millis : latencyMillis + LATENCY_SMOOTHING * (millis - latencyMillis);
+    }
+
+    /**
+     * Computes the peer's score: one point per useful delivery, minus penalties for invalid messages and latency.
+     *
+     * @return The score; higher is better.
+     */
+    public double getScore() {
+        return usefulDeliveries.get() - INVALID_MESSAGE_PENALTY * invalidMessages.get()
+                - latencyMillis / LATENCY_MILLIS_PER_POINT;
+    }
+
+    /**
+     * Checks whether the peer should be replaced.
+     *
+     * @return True if the score is at or below the eviction score.
+     */
+    public boolean shouldEvict() {
+        return getScore() <= EVICTION_SCORE;
+    }
+
+    /**
+     * Retrieves the number of blocks and transactions the peer was first to deliver.
+     *
+     * @return The number of useful deliveries.
+     */
+    public long getUsefulDeliveries() {
+        return usefulDeliveries.get();
+    }
+
+    /**
+     * Retrieves the number of invalid messages received from the peer.
+     *
+     * @return The number of invalid messages.
+     */
+    public long getInvalidMessages() {
+        return invalidMessages.get();
+    }
+
+    /**
+     * Retrieves the number of redundant deliveries from the peer.
+     *
+     * @return The number of duplicate deliveries.
+     */
+    public long getDuplicateDeliveries() {
+        return duplicateDeliveries.get();
+    }
+
+    /**
+     * Retrieves the smoothed delivery latency of the peer.
+     *
+     * @return The latency in milliseconds.
+     */
+    public double getLatencyMillis() {
+        return latencyMillis;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.blockchain.network;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SeenCache remembers the IDs (block or transaction hashes) of the most recently seen gossip messages.
+ * It is a bounded LRU set: once full, the least recently seen ID is forgotten.
+ *
+ * @param <K> The type of the IDs
+ */
+public class SeenCache<K> {
+
+    // Maximum number of IDs remembered
+    private final int capacity;
+
+    // IDs in access order, evicting the eldest entry when over capacity
+    private final Map<K, Boolean> seen;
+
+    /**
+     * Constructor for the SeenCache class.
+     *
+     * @param capacity The maximum number of IDs to remember
+     */
+    public SeenCache(int capacity) {
+        this.capacity = capacity;
+        this.seen = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Boolean> eldest) {
+                return size() > SeenCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Records an ID as seen.
+     *
+     * @param id The message ID
+     * @return True if the ID was not seen before, false if it is a duplicate.
+     */
+    public synchronized boolean markSeen(K id) {
+        return seen.put(id, Boolean.TRUE) == null;
+    }
+
+    /**
+     * Checks whether an ID has been seen, without changing its recency.
+     *
+     * @param id The message ID
+     * @return True if the ID is remembered.
+     */
+    public synchronized boolean contains(K id) {
+        return seen.containsKey(id);
+    }
+
+    /**
+     * Retrieves the number of IDs currently remembered.
+     *
+     * @return The number of remembered IDs.
+     */
+    public synchronized int size() {
+        return seen.size();
+    }
+}
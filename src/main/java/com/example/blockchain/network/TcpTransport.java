@@ -0,0 +1,631 @@
+package com.example.blockchain.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TcpTransport connects nodes running in different processes over TCP.
+ * All connections are served by a single NIO selector thread, so one transport can hold thousands of peers.
+ * Messages are sent as length-prefixed binary frames (see {@link MessageType}). Each connection starts with a
+ * HELLO handshake, is kept alive with PING/PONG, and has its own bounded send queue.
+ * Listener callbacks run on the selector thread and must not block.
+ */
+public class TcpTransport implements AutoCloseable {
+
+    // Magic number sent in the handshake to reject connections from unrelated programs ("BLKC")
+    public static final int PROTOCOL_MAGIC = 0x424C4B43;
+
+    // Version of the wire protocol
+    public static final short PROTOCOL_VERSION = 1;
+
+    // Largest frame (type byte plus payload) accepted from a peer
+    public static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    // Largest frame accepted before the handshake completed: a HELLO frame, so unauthenticated connections
+    // cannot make the transport allocate large read buffers
+    public static final int MAX_HELLO_FRAME_SIZE = 1024;
+
+    /**
+     * Receives connection events and messages from the transport.
+     */
+    public interface Listener {
+
+        /**
+         * Called once the handshake with a peer has completed.
+         *
+         * @param peer The connected peer
+         */
+        default void onPeerConnected(Peer peer) {
+        }
+
+        /**
+         * Called for every message received from a connected peer (keepalives are handled by the transport).
+         *
+         * @param peer    The sending peer
+         * @param type    The message type
+         * @param payload The message payload
+         */
+        void onMessage(Peer peer, byte type, byte[] payload);
+
+        /**
+         * Called when a connected peer disconnects or is disconnected.
+         *
+         * @param peer The disconnected peer
+         */
+        default void onPeerDisconnected(Peer peer) {
+        }
+    }
+
+    /**
+     * A single TCP connection to a remote node.
+     */
+    public final class Peer {
+        private final SocketChannel channel;
+        private final boolean outbound;
+        private final Queue<ByteBuffer> sendQueue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queuedBytes = new AtomicInteger();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private ByteBuffer readBuffer = ByteBuffer.allocate(4096);
+        private SelectionKey key;
+        private volatile String remoteNodeId;
+        private volatile boolean connected;
+        private volatile boolean closed;
+        private volatile boolean readingPaused;
+        private volatile long roundTripNanos = -1;
+        private long lastReceivedMillis = System.currentTimeMillis();
+        private long lastSentMillis = System.currentTimeMillis();
+        private long pingSentNanos;
+
+        private Peer(SocketChannel channel, boolean outbound) {
+            this.channel = channel;
+            this.outbound = outbound;
+        }
+
+        /**
+         * Queues a message for this peer.
+         *
+         * @param type    The message type
+         * @param payload The message payload
+         * @return True if the message was queued, false if the handshake has not completed, the peer is closed
+         *         or its send queue is full.
+         */
+        public boolean send(byte type, byte[] payload) {
+            return connected && enqueue(type, payload);
+        }
+
+        private boolean enqueue(byte type, byte[] payload) {
+            if (closed) {
+                return false;
+            }
+            if (payload.length + 1 > MAX_FRAME_SIZE) {
+                throw new IllegalArgumentException("Message too large: " + payload.length + " bytes");
+            }
+            ByteBuffer frame = ByteBuffer.allocate(5 + payload.length);
+            frame.putInt(1 + payload.length).put(type).put(payload).flip();
+            if (queuedBytes.addAndGet(frame.remaining()) > maxQueuedBytesPerPeer) {
+                queuedBytes.addAndGet(-frame.remaining());
+                return false;  // The peer is not keeping up; let the caller decide what to drop
+            }
+            sendQueue.add(frame);
+            if (flushScheduled.compareAndSet(false, true)) {
+                pendingFlushes.add(this);
+                selector.wakeup();
+            }
+            return true;
+        }
+
+        /**
+         * Stops reading messages from this peer, e.g. while the messages it already sent are still being handled.
+         * TCP flow control then slows the peer down. Frames already read are still delivered,
+         * and a paused peer is not disconnected for being silent.
+         */
+        public void pauseReading() {
+            readingPaused = true;
+            runOnSelector(() -> updateReadInterest(this));
+        }
+
+        /**
+         * Resumes reading messages from this peer after {@link #pauseReading()}.
+         */
+        public void resumeReading() {
+            readingPaused = false;
+            runOnSelector(() -> updateReadInterest(this));
+        }
+
+        /**
+         * Closes the connection to this peer.
+         */
+        public void close() {
+            pendingTasks.add(() -> closePeer(this));
+            selector.wakeup();
+        }
+
+        /**
+         * Retrieves the node ID announced by the peer in its handshake.
+         *
+         * @return The remote node ID, or null before the handshake completed.
+         */
+        public String getRemoteNodeId() {
+            return remoteNodeId;
+        }
+
+        /**
+         * Checks whether this connection was opened by the local node.
+         *
+         * @return True for outbound connections, false for accepted ones.
+         */
+        public boolean isOutbound() {
+            return outbound;
+        }
+
+        /**
+         * Checks whether the handshake completed and the connection is still open.
+         *
+         * @return True if messages can be exchanged with the peer.
+         */
+        public boolean isConnected() {
+            return connected && !closed;
+        }
+
+        /**
+         * Retrieves the round-trip time measured by the last keepalive.
+         *
+         * @return The round-trip time in nanoseconds, or -1 if none has been measured yet.
+         */
+        public long getRoundTripNanos() {
+            return roundTripNanos;
+        }
+
+        /**
+         * Retrieves the number of bytes waiting in this peer's send queue.
+         *
+         * @return The number of queued bytes.
+         */
+        public int getQueuedBytes() {
+            return queuedBytes.get();
+        }
+    }
+
+    // The node ID announced in our handshakes
+    private final String nodeId;
+
+    // Receiver of connection events and messages
+    private final Listener listener;
+
+    // Maximum number of bytes that may wait in a single peer's send queue
+    private final int maxQueuedBytesPerPeer;
+
+    // Idle time after which a PING is sent; peers silent for three intervals are disconnected
+    private final long keepAliveIntervalMillis;
+
+    private final Selector selector;
+    private final Thread selectorThread;
+
+    // Work handed to the selector thread by other threads (registrations, closes)
+    private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+
+    // Peers with new messages to write
+    private final Queue<Peer> pendingFlushes = new ConcurrentLinkedQueue<>();
+
+    // All open connections (including those still handshaking)
+    private final Set<Peer> peers = ConcurrentHashMap.newKeySet();
+
+    private volatile ServerSocketChannel serverChannel;
+    private volatile boolean running = true;
+    private long lastKeepAliveCheck = System.currentTimeMillis();
+
+    /**
+     * Constructor for the TcpTransport class with default limits (4 MiB send queue per peer, 5 second keepalive).
+     *
+     * @param nodeId   The node ID announced to peers
+     * @param listener The receiver of connection events and messages
+     * @throws IOException if the selector cannot be opened
+     */
+    public TcpTransport(String nodeId, Listener listener) throws IOException {
+        this(nodeId, listener, 4 * 1024 * 1024, 5000);
+    }
+
+    /**
+     * Constructor for the TcpTransport class. Starts the selector thread.
+     *
+     * @param nodeId                   The node ID announced to peers
+     * @param listener                 The receiver of connection events and messages
+     * @param maxQueuedBytesPerPeer    The maximum number of bytes waiting in one peer's send queue
+     * @param keepAliveIntervalMillis  The idle time after which a keepalive is sent
+     * @throws IOException if the selector cannot be opened
+     */
+    public TcpTransport(String nodeId, Listener listener, int maxQueuedBytesPerPeer, long keepAliveIntervalMillis)
+            throws IOException {
+        if (7 + nodeId.getBytes(StandardCharsets.UTF_8).length > MAX_HELLO_FRAME_SIZE) {
+            throw new IllegalArgumentException("Node ID too long for the handshake: " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.listener = listener;
+        this.maxQueuedBytesPerPeer = maxQueuedBytesPerPeer;
+        this.keepAliveIntervalMillis = keepAliveIntervalMillis;
+        this.selector = Selector.open();
+        this.selectorThread = new Thread(this::runSelector, "tcp-transport-" + nodeId);
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Starts accepting connections.
+     *
+     * @param address The local address to listen on (port 0 picks a free port)
+     * @return The port the transport is listening on.
+     * @throws IOException if the address cannot be bound
+     */
+    public int listen(InetSocketAddress address) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(address, 1024);
+        server.configureBlocking(false);
+        serverChannel = server;
+        runOnSelector(() -> {
+            try {
+                server.register(selector, SelectionKey.OP_ACCEPT);
+            } catch (IOException e) {
+                closeQuietly(server);
+            }
+        });
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Opens a connection to a remote node. The handshake completes asynchronously;
+     * {@link Listener#onPeerConnected(Peer)} is called once it is done.
+     *
+     * @param address The address of the remote node
+     * @return The new peer.
+     * @throws IOException if the connection cannot be initiated
+     */
+    public Peer connect(InetSocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        boolean connectedImmediately = channel.connect(address);
+        Peer peer = new Peer(channel, true);
+        peers.add(peer);
+        runOnSelector(() -> {
+            try {
+                peer.key = channel.register(selector, connectedImmediately ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, peer);
+                if (connectedImmediately) {
+                    sendHello(peer);
+                }
+            } catch (IOException e) {
+                closePeer(peer);
+            }
+        });
+        return peer;
+    }
+
+    /**
+     * Sends a message to every connected peer.
+     *
+     * @param type    The message type
+     * @param payload The message payload
+     * @return The number of peers the message was queued for.
+     */
+    public int broadcast(byte type, byte[] payload) {
+        return broadcast(type, payload, null);
+    }
+
+    /**
+     * Sends a message to every connected peer except one, e.g. the peer the message came from.
+     *
+     * @param type    The message type
+     * @param payload The message payload
+     * @param except  The peer to skip, or null to send to every peer
+     * @return The number of peers the message was queued for.
+     */
+    public int broadcast(byte type, byte[] payload, Peer except) {
+        int sent = 0;
+        for (Peer peer : peers) {
+            if (peer != except && peer.isConnected() && peer.send(type, payload)) {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Retrieves the peers whose handshake has completed.
+     *
+     * @return The connected peers.
+     */
+    public List<Peer> getConnectedPeers() {
+        List<Peer> connected = new ArrayList<>();
+        for (Peer peer : peers) {
+            if (peer.isConnected()) {
+                connected.add(peer);
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * Retrieves the port this transport listens on.
+     *
+     * @return The local port, or -1 if {@link #listen(InetSocketAddress)} has not been called.
+     */
+    public int getLocalPort() {
+        ServerSocketChannel server = serverChannel;
+        return server == null ? -1 : server.socket().getLocalPort();
+    }
+
+    /**
+     * Retrieves the node ID announced by this transport.
+     *
+     * @return The local node ID.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private void runOnSelector(Runnable task) {
+        pendingTasks.add(task);
+        selector.wakeup();
+    }
+
+    private void runSelector() {
+        while (running) {
+            try {
+                selector.select(Math.max(1, keepAliveIntervalMillis / 2));
+                Runnable task;
+                while ((task = pendingTasks.poll()) != null) {
+                    task.run();
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    handleKey(key);
+                }
+                selector.selectedKeys().clear();
+                Peer peer;
+                while ((peer = pendingFlushes.poll()) != null) {
+                    flush(peer);
+                }
+                checkKeepAlives();
+            } catch (IOException e) {
+                running = false;
+            }
+        }
+        for (Peer peer : peers) {
+            closePeer(peer);
+        }
+        closeQuietly(serverChannel);
+        closeQuietly(selector);
+    }
+
+    private void handleKey(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        Peer peer = (Peer) key.attachment();
+        try {
+            if (key.isConnectable()) {
+                peer.channel.finishConnect();
+                key.interestOps(peer.readingPaused ? 0 : SelectionKey.OP_READ);
+                sendHello(peer);
+            }
+            if (key.isValid() && key.isReadable()) {
+                read(peer);
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(peer);
+            }
+        } catch (IOException | RuntimeException e) {
+            closePeer(peer);
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Peer peer = new Peer(channel, false);
+                peers.add(peer);
+                peer.key = channel.register(selector, SelectionKey.OP_READ, peer);
+                sendHello(peer);
+            }
+        } catch (IOException e) {
+            // The listening socket failed; existing connections are unaffected
+        }
+    }
+
+    private void updateReadInterest(Peer peer) {
+        if (peer.key == null || !peer.key.isValid() || (peer.key.interestOps() & SelectionKey.OP_CONNECT) != 0) {
+            return;  // Not connected yet; reading starts once the connection completes
+        }
+        if (peer.readingPaused) {
+            peer.key.interestOps(peer.key.interestOps() & ~SelectionKey.OP_READ);
+        } else {
+            peer.key.interestOps(peer.key.interestOps() | SelectionKey.OP_READ);
+            peer.lastReceivedMillis = System.currentTimeMillis();  // The silence was ours
+        }
+    }
+
+    private void sendHello(Peer peer) {
+        byte[] id = nodeId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer hello = ByteBuffer.allocate(6 + id.length);
+        hello.putInt(PROTOCOL_MAGIC).putShort(PROTOCOL_VERSION).put(id);
+        peer.enqueue(MessageType.HELLO, hello.array());
+    }
+
+    private void read(Peer peer) throws IOException {
+        int read = peer.channel.read(peer.readBuffer);
+        if (read < 0) {
+            closePeer(peer);
+            return;
+        }
+        peer.lastReceivedMillis = System.currentTimeMillis();
+        ByteBuffer buffer = peer.readBuffer;
+        buffer.flip();
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt(buffer.position());
+            if (length < 1 || length > (peer.connected ? MAX_FRAME_SIZE : MAX_HELLO_FRAME_SIZE)) {
+                throw new IOException("Invalid frame length " + length);
+            }
+            if (buffer.remaining() < 4 + length) {
+                if (buffer.capacity() < 4 + length) {
+                    ByteBuffer larger = ByteBuffer.allocate(4 + length);
+                    larger.put(buffer);
+                    peer.readBuffer = larger;
+                    return;  // The larger buffer is already in write mode
+                }
+                break;
+            }
+            buffer.getInt();
+            byte type = buffer.get();
+            byte[] payload = new byte[length - 1];
+            buffer.get(payload);
+            dispatch(peer, type, payload);
+            if (peer.closed) {
+                return;
+            }
+        }
+        buffer.compact();
+    }
+
+    private void dispatch(Peer peer, byte type, byte[] payload) throws IOException {
+        if (!peer.connected) {
+            if (type != MessageType.HELLO) {
+                throw new IOException("Message received before handshake");
+            }
+            ByteBuffer hello = ByteBuffer.wrap(payload);
+            if (payload.length < 6 || hello.getInt() != PROTOCOL_MAGIC || hello.getShort() != PROTOCOL_VERSION) {
+                throw new IOException("Incompatible handshake");
+            }
+            peer.remoteNodeId = new String(payload, 6, payload.length - 6, StandardCharsets.UTF_8);
+            peer.connected = true;
+            listener.onPeerConnected(peer);
+            return;
+        }
+        switch (type) {
+            case MessageType.PING:
+                peer.send(MessageType.PONG, new byte[0]);
+                break;
+            case MessageType.PONG:
+                if (peer.pingSentNanos != 0) {
+                    peer.roundTripNanos = System.nanoTime() - peer.pingSentNanos;
+                    peer.pingSentNanos = 0;
+                }
+                break;
+            case MessageType.HELLO:
+                throw new IOException("Duplicate handshake");
+            default:
+                listener.onMessage(peer, type, payload);
+        }
+    }
+
+    private void flush(Peer peer) {
+        if (peer.closed || peer.key == null || peer.channel.isConnectionPending()) {
+            peer.flushScheduled.set(false);
+            return;  // Not connected yet; the HELLO sent on connect triggers the next flush
+        }
+        try {
+            while (true) {
+                ByteBuffer frame;
+                while ((frame = peer.sendQueue.peek()) != null) {
+                    int size = frame.remaining();
+                    peer.channel.write(frame);
+                    if (frame.hasRemaining()) {
+                        peer.queuedBytes.addAndGet(frame.remaining() - size);
+                        peer.key.interestOps(peer.key.interestOps() | SelectionKey.OP_WRITE);
+                        return;  // Socket buffer is full; continue when the selector reports writability
+                    }
+                    peer.sendQueue.poll();
+                    peer.queuedBytes.addAndGet(-size);
+                    peer.lastSentMillis = System.currentTimeMillis();
+                }
+                peer.key.interestOps(peer.key.interestOps() & ~SelectionKey.OP_WRITE);
+                peer.flushScheduled.set(false);
+                // A sender may have queued a frame after the loop saw an empty queue
+                if (peer.sendQueue.isEmpty() || !peer.flushScheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            closePeer(peer);
+        }
+    }
+
+    private void checkKeepAlives() {
+        long now = System.currentTimeMillis();
+        if (now - lastKeepAliveCheck < keepAliveIntervalMillis / 2) {
+            return;
+        }
+        lastKeepAliveCheck = now;
+        for (Peer peer : peers) {
+            if (peer.channel.isConnectionPending()) {
+                continue;
+            }
+            if (!peer.readingPaused && now - peer.lastReceivedMillis > 3 * keepAliveIntervalMillis) {
+                closePeer(peer);  // The peer went silent
+            } else if (peer.connected && now - peer.lastSentMillis >= keepAliveIntervalMillis) {
+                peer.pingSentNanos = System.nanoTime();
+                peer.send(MessageType.PING, new byte[0]);
+            }
+        }
+    }
+
+    private void closePeer(Peer peer) {
+        if (peer.closed) {
+            return;
+        }
+        peer.closed = true;
+        peers.remove(peer);
+        if (peer.key != null) {
+            peer.key.cancel();
+        }
+        closeQuietly(peer.channel);
+        peer.sendQueue.clear();
+        if (peer.connected) {
+            listener.onPeerDisconnected(peer);
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            // Nothing useful can be done while closing
+        }
+    }
+
+    /**
+     * Closes every connection and stops the selector thread.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.example.blockchain.simulation;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.network.BlockCodec;
+import com.example.blockchain.network.CompactBlock;
+import com.example.blockchain.network.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * NetworkSimulator predicts how blocks propagate through a large peer-to-peer network using discrete events
+ * on a simulated clock, so networks of tens of thousands of nodes can be studied in one JVM in seconds.
+ * <p>
+ * Each node keeps only its chain tip and upload queue; blocks are shared records marked as seen per node.
+ * Blocks are mined at exponentially distributed intervals by a random node on top of its current tip.
+ * A node that receives a new block validates it, adopts it if it is higher than its tip, and pushes it to
+ * every neighbor except the sender. A transfer first goes through the node's upload (transfers from one node
+ * are serialized at its upload bandwidth) and then over the link, which may be slower: each link can have its
+ * own bandwidth, and transfers over the same link are serialized too. The block arrives after the link's latency.
+ * <p>
+ * Nodes are modelled rather than run: the real {@link Node} handles messages on wall-clock threads, which cannot
+ * be driven by a simulated clock at this scale. {@link #calibrate(Node, Block)} instead takes the relayed block
+ * size and the validation time from a real node, so the model's per-hop costs match the implementation.
+ * <p>
+ * The simulation is deterministic: the same topology, settings and seed always produce the same report.
+ */
+public class NetworkSimulator {
+
+    /**
+     * A block known to the simulation. Heights follow the parent, which is -1 for blocks on top of genesis.
+     */
+    private static final class SimulatedBlock {
+        final int parent;
+        final int height;
+        final long minedAtMicros;
+        final BitSet seenBy = new BitSet();
+        int[] arrivalDelays = new int[16];
+        int arrivals;
+
+        SimulatedBlock(int parent, int height, long minedAtMicros) {
+            this.parent = parent;
+            this.height = height;
+            this.minedAtMicros = minedAtMicros;
+        }
+
+        void recordArrival(long delayMicros) {
+            if (arrivals == arrivalDelays.length) {
+                arrivalDelays = Arrays.copyOf(arrivalDelays, arrivals * 2);
+            }
+            arrivalDelays[arrivals++] = (int) Math.min(delayMicros, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * A scheduled event. Events at the same time run in the order they were scheduled.
+     */
+    private static final class Event implements Comparable<Event> {
+        static final int MINE = 0;
+        static final int ARRIVE = 1;
+        static final int VALIDATED = 2;
+
+        final long timeMicros;
+        final long sequence;
+        final int kind;
+        final int node;
+        final int block;
+        final int from;
+
+        Event(long timeMicros, long sequence, int kind, int node, int block, int from) {
+            this.timeMicros = timeMicros;
+            this.sequence = sequence;
+            this.kind = kind;
+            this.node = node;
+            this.block = block;
+            this.from = from;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(timeMicros, other.timeMicros);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    // Number of validations timed by calibrate; the fastest is kept, as the others include warm-up
+    private static final int CALIBRATION_RUNS = 20;
+
+    // The peer graph being simulated
+    private final Topology topology;
+
+    // Seed of every random choice (link latencies, mining times and miners)
+    private final long seed;
+
+    // Range the one-way latency of each link is drawn from
+    private long minLatencyMicros = 20_000;
+    private long maxLatencyMicros = 150_000;
+
+    // Upload bandwidth of every node in bytes per second
+    private long uploadBytesPerSecond = 12_500_000;
+
+    // Range the bandwidth of each link is drawn from in bytes per second (0: links are as fast as the uploads)
+    private long minLinkBytesPerSecond;
+    private long maxLinkBytesPerSecond;
+
+    // Mean time between blocks across the whole network
+    private long blockIntervalMicros = 10_000_000;
+
+    // Bytes sent per hop to relay a block (a compact block is much smaller than the full block)
+    private int relayedBlockBytes = 20_000;
+
+    // Time a node spends validating a block before adopting and relaying it
+    private long validationDelayMicros = 5_000;
+
+
+    /**
+     * Constructor for the NetworkSimulator class.
+     *
+     * @param topology The peer graph to simulate
+     * @param seed     The seed making the simulation reproducible
+     */
+    public NetworkSimulator(Topology topology, long seed) {
+        this.topology = topology;
+        this.seed = seed;
+    }
+
+    /**
+     * Runs the simulation until the given number of blocks has been mined and every relay has completed.
+     *
+     * @param blockCount The number of blocks to mine
+     * @return The propagation and fork statistics of the run.
+     */
+    public SimulationReport run(int blockCount) {
+        int nodeCount = topology.size();
+        Random random = new Random(seed);
+        int[][] latencies = drawLatencies(random);
+        long[][] linkBandwidths = maxLinkBytesPerSecond > 0 ? drawLinkBandwidths(random) : null;
+
+        int[] tips = new int[nodeCount];
+        Arrays.fill(tips, -1);
+        long[] uploadFreeAtMicros = new long[nodeCount];
+        long[][] linkFreeAtMicros = new long[nodeCount][];
+        for (int i = 0; i < nodeCount; i++) {
+            linkFreeAtMicros[i] = new long[topology.getNeighbors(i).length];
+        }
+        List<SimulatedBlock> blocks = new ArrayList<>(blockCount);
+        PriorityQueue<Event> events = new PriorityQueue<>();
+        long sequence = 0;
+        long processedEvents = 0;
+        long duplicateDeliveries = 0;
+        long nowMicros = 0;
+
+        events.add(new Event(nextMiningDelay(random), sequence++, Event.MINE, 0, -1, -1));
+        while (!events.isEmpty()) {
+            Event event = events.poll();
+            nowMicros = event.timeMicros;
+            processedEvents++;
+
+            if (event.kind == Event.MINE) {
+                int miner = random.nextInt(nodeCount);
+                int parent = tips[miner];
+                int height = parent < 0 ? 1 : blocks.get(parent).height + 1;
+                blocks.add(new SimulatedBlock(parent, height, nowMicros));
+                int blockId = blocks.size() - 1;
+                blocks.get(blockId).seenBy.set(miner);
+                events.add(new Event(nowMicros, sequence++, Event.VALIDATED, miner, blockId, -1));
+                if (blocks.size() < blockCount) {
+                    events.add(new Event(nowMicros + nextMiningDelay(random), sequence++, Event.MINE, 0, -1, -1));
+                }
+            } else if (event.kind == Event.ARRIVE) {
+                SimulatedBlock block = blocks.get(event.block);
+                if (block.seenBy.get(event.node)) {
+                    duplicateDeliveries++;
+                    continue;
+                }
+                block.seenBy.set(event.node);
+                events.add(new Event(nowMicros + validationDelayMicros, sequence++, Event.VALIDATED,
+                        event.node, event.block, event.from));
+            } else {
+                SimulatedBlock block = blocks.get(event.block);
+                block.recordArrival(nowMicros - block.minedAtMicros);
+                int tip = tips[event.node];
+                if (tip < 0 || block.height > blocks.get(tip).height) {
+                    tips[event.node] = event.block;  // Longest chain wins; ties keep the block seen first
+                }
+
+                int[] neighbors = topology.getNeighbors(event.node);
+                long transferMicros = relayedBlockBytes * 1_000_000L / uploadBytesPerSecond;
+                for (int n = 0; n < neighbors.length; n++) {
+                    if (neighbors[n] == event.from) {
+                        continue;
+                    }
+                    long uploadStart = Math.max(nowMicros, uploadFreeAtMicros[event.node]);
+                    long sentMicros = uploadStart + transferMicros;
+                    uploadFreeAtMicros[event.node] = sentMicros;
+                    if (linkBandwidths != null) {
+                        // The link carries the block at its own rate, after any earlier transfer over it
+                        long linkStart = Math.max(uploadStart, linkFreeAtMicros[event.node][n]);
+                        long linkMicros = relayedBlockBytes * 1_000_000L / linkBandwidths[event.node][n];
+                        sentMicros = Math.max(sentMicros, linkStart + linkMicros);
+                        linkFreeAtMicros[event.node][n] = sentMicros;
+                    }
+                    events.add(new Event(sentMicros + latencies[event.node][n], sequence++, Event.ARRIVE,
+                            neighbors[n], event.block, event.node));
+                }
+            }
+        }
+        return buildReport(blocks, tips, nodeCount, processedEvents, duplicateDeliveries, nowMicros);
+    }
+
+    /**
+     * Draws a latency for every link; both directions of a link share the same latency.
+     */
+    private int[][] drawLatencies(Random random) {
+        int[][] latencies = new int[topology.size()][];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new int[topology.getNeighbors(i).length];
+        }
+        long range = maxLatencyMicros - minLatencyMicros;
+        for (int i = 0; i < latencies.length; i++) {
+            int[] neighbors = topology.getNeighbors(i);
+            for (int n = 0; n < neighbors.length; n++) {
+                int j = neighbors[n];
+                if (j > i) {
+                    int latency = (int) (minLatencyMicros + (range > 0 ? (long) (random.nextDouble() * range) : 0));
+                    latencies[i][n] = latency;
+                    latencies[j][topology.indexOfNeighbor(j, i)] = latency;
+                }
+            }
+        }
+        return latencies;
+    }
+
+    /**
+     * Draws a bandwidth for every link; both directions of a link share the same bandwidth.
+     */
+    private long[][] drawLinkBandwidths(Random random) {
+        long[][] bandwidths = new long[topology.size()][];
+        for (int i = 0; i < bandwidths.length; i++) {
+            bandwidths[i] = new long[topology.getNeighbors(i).length];
+        }
+        long range = maxLinkBytesPerSecond - minLinkBytesPerSecond;
+        for (int i = 0; i < bandwidths.length; i++) {
+            int[] neighbors = topology.getNeighbors(i);
+            for (int n = 0; n < neighbors.length; n++) {
+                int j = neighbors[n];
+                if (j > i) {
+                    long bandwidth = minLinkBytesPerSecond + (range > 0 ? (long) (random.nextDouble() * range) : 0);
+                    bandwidths[i][n] = bandwidth;
+                    bandwidths[j][topology.indexOfNeighbor(j, i)] = bandwidth;
+                }
+            }
+        }
+        return bandwidths;
+    }
+
+    private long nextMiningDelay(Random random) {
+        return (long) (-Math.log(1.0 - random.nextDouble()) * blockIntervalMicros);
+    }
+
+    private static SimulationReport buildReport(List<SimulatedBlock> blocks, int[] tips, int nodeCount,
+                                                long processedEvents, long duplicateDeliveries, long endMicros) {
+        // The main chain ends at the highest tip any node holds (lowest block ID on ties)
+        int bestTip = -1;
+        for (int tip : tips) {
+            if (tip >= 0 && (bestTip < 0 || blocks.get(tip).height > blocks.get(bestTip).height
+                    || (blocks.get(tip).height == blocks.get(bestTip).height && tip < bestTip))) {
+                bestTip = tip;
+            }
+        }
+        int mainChainLength = bestTip < 0 ? 0 : blocks.get(bestTip).height;
+
+        int[][] arrivalDelays = new int[blocks.size()][];
+        for (int i = 0; i < blocks.size(); i++) {
+            SimulatedBlock block = blocks.get(i);
+            arrivalDelays[i] = Arrays.copyOf(block.arrivalDelays, block.arrivals);
+        }
+        return new SimulationReport(nodeCount, blocks.size(), blocks.size() - mainChainLength, arrivalDelays,
+                processedEvents, duplicateDeliveries, endMicros);
+    }
+
+    /**
+     * Sets the range each link's one-way latency is drawn from.
+     *
+     * @param minMillis The smallest latency in milliseconds
+     * @param maxMillis The largest latency in milliseconds
+     */
+    public void setLinkLatency(double minMillis, double maxMillis) {
+        if (minMillis < 0 || maxMillis < minMillis) {
+            throw new IllegalArgumentException("Invalid latency range");
+        }
+        this.minLatencyMicros = (long) (minMillis * 1000);
+        this.maxLatencyMicros = (long) (maxMillis * 1000);
+    }
+
+    /**
+     * Sets the upload bandwidth of every node.
+     *
+     * @param bytesPerSecond The upload bandwidth in bytes per second
+     */
+    public void setUploadBandwidth(long bytesPerSecond) {
+        if (bytesPerSecond < 1) {
+            throw new IllegalArgumentException("Bandwidth must be positive");
+        }
+        this.uploadBytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Sets the range each link's bandwidth is drawn from. A link slower than the sender's upload bandwidth
+     * limits how fast blocks cross it. By default links are as fast as the uploads.
+     *
+     * @param minBytesPerSecond The smallest link bandwidth in bytes per second
+     * @param maxBytesPerSecond The largest link bandwidth in bytes per second
+     */
+    public void setLinkBandwidth(long minBytesPerSecond, long maxBytesPerSecond) {
+        if (minBytesPerSecond < 1 || maxBytesPerSecond < minBytesPerSecond) {
+            throw new IllegalArgumentException("Invalid bandwidth range");
+        }
+        this.minLinkBytesPerSecond = minBytesPerSecond;
+        this.maxLinkBytesPerSecond = maxBytesPerSecond;
+    }
+
+    /**
+     * Sets the mean time between blocks across the network.
+     *
+     * @param millis The mean block interval in milliseconds
+     */
+    public void setBlockInterval(double millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("Block interval must be positive");
+        }
+        this.blockIntervalMicros = (long) (millis * 1000);
+    }
+
+    /**
+     * Sets the number of bytes sent per hop to relay a block.
+     *
+     * @param bytes The relayed size of a block (full or compact)
+     */
+    public void setRelayedBlockSize(int bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Block size must not be negative");
+        }
+        this.relayedBlockBytes = bytes;
+    }
+
+    /**
+     * Sets the time a node spends validating a block before adopting and relaying it.
+     *
+     * @param millis The validation time in milliseconds
+     */
+    public void setValidationDelay(double millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Validation delay must not be negative");
+        }
+        this.validationDelayMicros = (long) (millis * 1000);
+    }
+
+    /**
+     * Takes the per-hop costs of the simulation from a real node: the relayed block size is the size of the block
+     * encoded as a compact block, and the validation delay is the time the node's consensus takes to validate it.
+     *
+     * @param node  The node whose consensus validates the block
+     * @param block A block representative of the simulated blocks, valid for the node's chain
+     */
+    public void calibrate(Node node, Block block) {
+        int difficulty = node.getBlockchain().getDifficulty();
+        long fastestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_RUNS; i++) {
+            long start = System.nanoTime();
+            block.hasValidMerkleRoot();
+            node.getConsensus().validateBlock(block, difficulty);
+            fastestNanos = Math.min(fastestNanos, System.nanoTime() - start);
+        }
+        this.relayedBlockBytes = BlockCodec.encodeCompactBlock(CompactBlock.fromBlock(block)).length;
+        this.validationDelayMicros = fastestNanos / 1000;
+    }
+
+    /**
+     * Runs a simulation of a random network from the command line and prints the report.
+     * Arguments: node count, degree, block count and seed (defaults: 10000 8 50 1).
+     *
+     * @param args The command line arguments
+     */
+    public static void main(String[] args) {
+        int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int blockCount = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1L;
+
+        NetworkSimulator simulator = new NetworkSimulator(Topology.randomRegular(nodeCount, degree, seed), seed);
+        System.out.println(simulator.run(blockCount));
+    }
+}
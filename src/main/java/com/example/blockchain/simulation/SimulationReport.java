@@ -0,0 +1,126 @@
+package com.example.blockchain.simulation;
+
+import java.util.Arrays;
+
+/**
+ * SimulationReport holds the outcome of a {@link NetworkSimulator} run: how fast blocks reached the nodes
+ * and how many blocks were orphaned by forks.
+ */
+public final class SimulationReport {
+
+    private final int nodeCount;
+    private final int blocksMined;
+    private final int staleBlocks;
+
+    // Per block, the delays (microseconds after mining) at which nodes adopted it, in increasing order
+    private final int[][] arrivalDelays;
+
+    private final long processedEvents;
+    private final long duplicateDeliveries;
+    private final long simulatedMicros;
+
+    SimulationReport(int nodeCount, int blocksMined, int staleBlocks, int[][] arrivalDelays, long processedEvents,
+                     long duplicateDeliveries, long simulatedMicros) {
+        this.nodeCount = nodeCount;
+        this.blocksMined = blocksMined;
+        this.staleBlocks = staleBlocks;
+        this.arrivalDelays = arrivalDelays;
+        this.processedEvents = processedEvents;
+        this.duplicateDeliveries = duplicateDeliveries;
+        this.simulatedMicros = simulatedMicros;
+    }
+
+    /**
+     * Computes how long blocks took to reach a share of the nodes.
+     * For each block the time until the given fraction of nodes adopted it is taken, and the given percentile
+     * over all blocks is returned.
+     *
+     * @param coverage   The fraction of nodes that must have the block (for example 0.9)
+     * @param percentile The percentile over blocks, between 0 and 100 (for example 50 for the median)
+     * @return The time in milliseconds, or infinity if that share of nodes never received the blocks.
+     */
+    public double getPropagationMillis(double coverage, double percentile) {
+        if (arrivalDelays.length == 0) {
+            return 0.0;
+        }
+        int needed = Math.max(1, (int) Math.ceil(coverage * nodeCount));
+        double[] times = new double[arrivalDelays.length];
+        for (int i = 0; i < arrivalDelays.length; i++) {
+            int[] delays = arrivalDelays[i];
+            times[i] = delays.length >= needed ? delays[needed - 1] / 1000.0 : Double.POSITIVE_INFINITY;
+        }
+        Arrays.sort(times);
+        return times[percentileIndex(times.length, percentile)];
+    }
+
+    private static int percentileIndex(int size, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return Math.min(size - 1, Math.max(0, index));
+    }
+
+    /**
+     * Retrieves the number of blocks mined during the run.
+     *
+     * @return The number of mined blocks.
+     */
+    public int getBlocksMined() {
+        return blocksMined;
+    }
+
+    /**
+     * Retrieves the number of mined blocks that did not end up in the longest chain.
+     *
+     * @return The number of stale blocks.
+     */
+    public int getStaleBlocks() {
+        return staleBlocks;
+    }
+
+    /**
+     * Retrieves the share of mined blocks that were orphaned by forks.
+     *
+     * @return The fork rate, between 0 and 1.
+     */
+    public double getForkRate() {
+        return blocksMined == 0 ? 0.0 : (double) staleBlocks / blocksMined;
+    }
+
+    /**
+     * Retrieves the number of block deliveries to nodes that already had the block.
+     *
+     * @return The number of redundant deliveries.
+     */
+    public long getDuplicateDeliveries() {
+        return duplicateDeliveries;
+    }
+
+    /**
+     * Retrieves the number of events processed by the simulator.
+     *
+     * @return The number of events.
+     */
+    public long getProcessedEvents() {
+        return processedEvents;
+    }
+
+    /**
+     * Retrieves the simulated time covered by the run.
+     *
+     * @return The simulated time in milliseconds.
+     */
+    public double getSimulatedMillis() {
+        return simulatedMicros / 1000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("nodes=%d blocks=%d stale=%d forkRate=%.4f "
+                        + "propagation50%%[p50=%.1fms p90=%.1fms] propagation90%%[p50=%.1fms p90=%.1fms] "
+                        + "propagation100%%[p50=%.1fms p99=%.1fms] duplicates=%d events=%d simulated=%.1fs",
+                nodeCount, blocksMined, staleBlocks, getForkRate(),
+                getPropagationMillis(0.5, 50), getPropagationMillis(0.5, 90),
+                getPropagationMillis(0.9, 50), getPropagationMillis(0.9, 90),
+                getPropagationMillis(1.0, 50), getPropagationMillis(1.0, 99),
+                duplicateDeliveries, processedEvents, getSimulatedMillis() / 1000.0);
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.blockchain.simulation;
+
+import com.example.blockchain.network.Node;
+import com.example.blockchain.network.P2PNetwork;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Topology is an undirected peer graph over nodes numbered 0 to n-1, stored as sorted adjacency arrays.
+ * It is compact enough to describe networks of tens of thousands of nodes.
+ */
+public final class Topology {
+
+    // Sorted neighbor indexes of every node
+    private final int[][] neighbors;
+
+    private Topology(List<TreeSet<Integer>> adjacency) {
+        this.neighbors = new int[adjacency.size()][];
+        for (int i = 0; i < neighbors.length; i++) {
+            neighbors[i] = adjacency.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Builds a random graph in which every node has (nearly) the same degree.
+     * Edge endpoints are paired at random; pairs that would form a self-loop or a duplicate edge are dropped,
+     * so a few nodes may end up slightly below the target degree.
+     *
+     * @param nodeCount The number of nodes
+     * @param degree    The target degree of every node
+     * @param seed      The seed of the random generator
+     * @return The topology.
+     */
+    public static Topology randomRegular(int nodeCount, int degree, long seed) {
+        if (degree >= nodeCount) {
+            throw new IllegalArgumentException("Degree must be smaller than the number of nodes");
+        }
+        Random random = new Random(seed);
+        List<TreeSet<Integer>> adjacency = emptyAdjacency(nodeCount);
+        List<Integer> stubs = new ArrayList<>(nodeCount * degree);
+        for (int i = 0; i < nodeCount; i++) {
+            for (int d = 0; d < degree; d++) {
+                stubs.add(i);
+            }
+        }
+        // A few rounds of re-pairing the leftover stubs recover most of the rejected pairs
+        for (int round = 0; round < 10 && stubs.size() > 1; round++) {
+            Collections.shuffle(stubs, random);
+            List<Integer> leftover = new ArrayList<>();
+            for (int i = 0; i + 1 < stubs.size(); i += 2) {
+                int a = stubs.get(i);
+                int b = stubs.get(i + 1);
+                if (a == b || adjacency.get(a).contains(b)) {
+                    leftover.add(a);
+                    leftover.add(b);
+                } else {
+                    connect(adjacency, a, b);
+                }
+            }
+            stubs = leftover;
+        }
+        return new Topology(adjacency);
+    }
+
+    /**
+     * Builds a small-world graph (Watts-Strogatz): a ring where every node is linked to its nearest neighbors,
+     * with each link rewired to a random node with the given probability.
+     * A few random shortcuts keep the diameter small while most links stay local.
+     *
+     * @param nodeCount            The number of nodes
+     * @param degree               The degree of every node in the initial ring (even)
+     * @param rewireProbability    The probability that a ring link is replaced by a random one
+     * @param seed                 The seed of the random generator
+     * @return The topology.
+     */
+    public static Topology smallWorld(int nodeCount, int degree, double rewireProbability, long seed) {
+        if (degree % 2 != 0 || degree >= nodeCount) {
+            throw new IllegalArgumentException("Degree must be even and smaller than the number of nodes");
+        }
+        Random random = new Random(seed);
+        List<TreeSet<Integer>> adjacency = emptyAdjacency(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            for (int k = 1; k <= degree / 2; k++) {
+                connect(adjacency, i, (i + k) % nodeCount);
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            for (int k = 1; k <= degree / 2; k++) {
+                int j = (i + k) % nodeCount;
+                if (random.nextDouble() >= rewireProbability || !adjacency.get(i).contains(j)) {
+                    continue;
+                }
+                int target = random.nextInt(nodeCount);
+                if (target != i && !adjacency.get(i).contains(target)) {
+                    adjacency.get(i).remove(j);
+                    adjacency.get(j).remove(i);
+                    connect(adjacency, i, target);
+                }
+            }
+        }
+        return new Topology(adjacency);
+    }
+
+    /**
+     * Captures the peer graph of an in-process network. Nodes are numbered in order of their IDs.
+     *
+     * @param network The network to capture
+     * @return The topology; node i is the i-th ID returned by {@link #nodeIds(P2PNetwork)}.
+     */
+    public static Topology fromNetwork(P2PNetwork network) {
+        List<String> ids = nodeIds(network);
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            indexes.put(ids.get(i), i);
+        }
+        List<TreeSet<Integer>> adjacency = emptyAdjacency(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            for (Node peer : network.getNodesInNetwork().get(ids.get(i)).getPeerNodes()) {
+                Integer j = indexes.get(peer.getNodeId());
+                if (j != null && j != i) {
+                    connect(adjacency, i, j);
+                }
+            }
+        }
+        return new Topology(adjacency);
+    }
+
+    /**
+     * Lists the node IDs of a network in the order used by {@link #fromNetwork(P2PNetwork)}.
+     *
+     * @param network The network
+     * @return The sorted node IDs.
+     */
+    public static List<String> nodeIds(P2PNetwork network) {
+        List<String> ids = new ArrayList<>(network.getNodesInNetwork().keySet());
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private static List<TreeSet<Integer>> emptyAdjacency(int nodeCount) {
+        List<TreeSet<Integer>> adjacency = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            adjacency.add(new TreeSet<>());
+        }
+        return adjacency;
+    }
+
+    private static void connect(List<TreeSet<Integer>> adjacency, int a, int b) {
+        adjacency.get(a).add(b);
+        adjacency.get(b).add(a);
+    }
+
+    /**
+     * Retrieves the number of nodes.
+     *
+     * @return The number of nodes.
+     */
+    public int size() {
+        return neighbors.length;
+    }
+
+    /**
+     * Retrieves the neighbors of a node.
+     *
+     * @param node The node index
+     * @return The sorted neighbor indexes (must not be modified).
+     */
+    public int[] getNeighbors(int node) {
+        return neighbors[node];
+    }
+
+    /**
+     * Finds the position of a neighbor in a node's adjacency array.
+     *
+     * @param node     The node index
+     * @param neighbor The neighbor index
+     * @return The position, or a negative value if the nodes are not linked.
+     */
+    public int indexOfNeighbor(int node, int neighbor) {
+        return Arrays.binarySearch(neighbors[node], neighbor);
+    }
+
+    /**
+     * Retrieves the number of links in the graph.
+     *
+     * @return The number of undirected links.
+     */
+    public long getEdgeCount() {
+        long degrees = 0;
+        for (int[] adjacent : neighbors) {
+            degrees += adjacent.length;
+        }
+        return degrees / 2;
+    }
+
+    /**
+     * Computes the hop distance from a node to every other node with a breadth-first search.
+     *
+     * @param source The node index to start from
+     * @return The largest distance to a reachable node, or -1 if some node is unreachable.
+     */
+    public int getEccentricity(int source) {
+        int[] distance = new int[neighbors.length];
+        Arrays.fill(distance, -1);
+        distance[source] = 0;
+        Deque<Integer> queue = new ArrayDeque<>();
+        queue.add(source);
+        int reached = 1;
+        int maxDistance = 0;
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int neighbor : neighbors[node]) {
+                if (distance[neighbor] < 0) {
+                    distance[neighbor] = distance[node] + 1;
+                    maxDistance = Math.max(maxDistance, distance[neighbor]);
+                    reached++;
+                    queue.add(neighbor);
+                }
+            }
+        }
+        return reached == neighbors.length ? maxDistance : -1;
+    }
+}
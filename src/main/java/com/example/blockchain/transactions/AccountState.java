@@ -0,0 +1,129 @@
+package com.example.blockchain.transactions;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AccountState holds the balance of every account and applies transactions to it.
+ * A transaction moves its amount from the sender to the recipient if the sender's balance covers it and is
+ * rejected otherwise, so the outcome of a list of transactions depends on their order.
+ * <p>
+ * Balances can be read at any time. Credits and transactions must be applied by one writer at a time, either one
+ * by one or a block at a time with {@link ParallelTransactionExecutor}.
+ */
+public class AccountState {
+
+    /**
+     * The balance of one account.
+     */
+    static final class Account {
+        volatile double balance;
+
+        // Dense number of the account, in creation order, for indexing arrays by account
+        final int index;
+
+        Account(int index) {
+            this.index = index;
+        }
+    }
+
+    // Accounts by address; an account is created the first time a transaction names it
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+
+    // Index of the next account created
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    /**
+     * Adds funds to an account out of nothing, e.g. a genesis allocation or a block reward.
+     *
+     * @param address The account's address
+     * @param amount  The amount to add (positive)
+     */
+    public void credit(String address, double amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        account(address).balance += amount;
+    }
+
+    /**
+     * Applies a transaction.
+     *
+     * @param transaction The transaction
+     * @return True if the transaction was applied, false if the sender's balance does not cover it.
+     */
+    public boolean apply(Transaction transaction) {
+        return transfer(account(transaction.getSender()), account(transaction.getRecipient()), transaction.getAmount());
+    }
+
+    /**
+     * Applies transactions one at a time in list order.
+     *
+     * @param transactions The transactions, e.g. those of a block
+     * @return Whether each transaction was applied, in list order.
+     */
+    public boolean[] applyAll(List<Transaction> transactions) {
+        boolean[] applied = new boolean[transactions.size()];
+        for (int i = 0; i < applied.length; i++) {
+            applied[i] = apply(transactions.get(i));
+        }
+        return applied;
+    }
+
+    /**
+     * Retrieves the balance of an account.
+     *
+     * @param address The account's address
+     * @return The balance, or 0 for an unknown account.
+     */
+    public double getBalance(String address) {
+        Account account = accounts.get(address);
+        return account == null ? 0.0 : account.balance;
+    }
+
+    /**
+     * Retrieves every account's balance.
+     *
+     * @return The balances, ordered by address.
+     */
+    public Map<String, Double> getBalances() {
+        Map<String, Double> balances = new TreeMap<>();
+        accounts.forEach((address, account) -> balances.put(address, account.balance));
+        return balances;
+    }
+
+    /**
+     * Retrieves the number of accounts.
+     *
+     * @return The account count.
+     */
+    public int getAccountCount() {
+        return accounts.size();
+    }
+
+    /**
+     * Retrieves an account, creating it if needed. Safe to call from several threads.
+     */
+    Account account(String address) {
+        return accounts.computeIfAbsent(address, key -> new Account(nextIndex.getAndIncrement()));
+    }
+
+    /**
+     * Retrieves one more than the highest account index handed out so far.
+     */
+    int getIndexLimit() {
+        return nextIndex.get();
+    }
+
+    static boolean transfer(Account sender, Account recipient, double amount) {
+        if (sender.balance < amount) {
+            return false;
+        }
+        sender.balance -= amount;
+        recipient.balance += amount;
+        return true;
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.blockchain.transactions;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * ParallelTransactionExecutor applies a block's transactions to an {@link AccountState} on several threads, with
+ * exactly the result of applying them one at a time in block order.
+ * <p>
+ * Transactions are partitioned into conflict groups: two transactions are in the same group if they touch a
+ * common account, directly or through other transactions of the block (a union-find over the accounts, built by
+ * all threads at once). Each group is hashed to one of a few tasks per thread and the block is laid out task by
+ * task, all in parallel, so partitioning costs little next to applying the transactions.
+ * Groups share no account, so tasks run in parallel; within a task, transactions run in block order. Every
+ * account therefore sees the same operations in the same order as in sequential execution, and ends with the
+ * same balance to the last bit. Blocks where one account is in most transactions form one large group and gain
+ * little; blocks of mostly unrelated transfers spread across all threads.
+ * <p>
+ * Small blocks are applied on the calling thread, where partitioning would cost more than it saves.
+ * Like other writers of the state, one execution runs at a time.
+ */
+public class ParallelTransactionExecutor {
+
+    // Blocks with fewer transactions are applied sequentially, unless set otherwise
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 4096;
+
+    // Transactions one task resolves, joins or lays out at a time
+    private static final int CHUNK = 1024;
+
+    // Tasks per thread of the pool, so threads that finish early can take work from slower ones
+    private static final int TASKS_PER_THREAD = 4;
+
+    /**
+     * Runs an action over a range of indexes, splitting it in halves down to a minimum size.
+     */
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int minSize;
+        private final RangeAction action;
+
+        RangeTask(int from, int to, int minSize, RangeAction action) {
+            this.from = from;
+            this.to = to;
+            this.minSize = minSize;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= minSize) {
+                action.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, minSize, action), new RangeTask(middle, to, minSize, action));
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeAction {
+        void run(int from, int to);
+    }
+
+    @FunctionalInterface
+    private interface ChunkAction {
+        void run(int chunk, int from, int to);
+    }
+
+    // Pool the groups run on
+    private final ForkJoinPool pool;
+
+    // Blocks with fewer transactions are applied sequentially
+    private volatile int sequentialThreshold = DEFAULT_SEQUENTIAL_THRESHOLD;
+
+    // Union-find forest over account indexes (parent of each account), kept for the next execution so large
+    // states are not reallocated for every block
+    private AtomicIntegerArray parents = new AtomicIntegerArray(0);
+
+    /**
+     * Constructor for the ParallelTransactionExecutor class, running on the common fork-join pool.
+     */
+    public ParallelTransactionExecutor() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for the ParallelTransactionExecutor class.
+     *
+     * @param pool The pool the transactions run on
+     */
+    public ParallelTransactionExecutor(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the number of transactions from which a block is applied in parallel.
+     *
+     * @param sequentialThreshold The threshold (0 to always partition)
+     */
+    public void setSequentialThreshold(int sequentialThreshold) {
+        if (sequentialThreshold < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative");
+        }
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    /**
+     * Applies transactions to a state with the result of {@link AccountState#applyAll(List)}.
+     *
+     * @param state        The state to update
+     * @param transactions The transactions, in block order
+     * @return Whether each transaction was applied, in block order.
+     */
+    public boolean[] execute(AccountState state, List<Transaction> transactions) {
+        int count = transactions.size();
+        if (count < sequentialThreshold || pool.getParallelism() == 1) {
+            return state.applyAll(transactions);
+        }
+
+        Transaction[] block = transactions.toArray(new Transaction[0]);
+        int chunks = (count + CHUNK - 1) / CHUNK;
+
+        // Resolve every account in parallel, noting account indexes so later passes do not load the accounts again
+        AccountState.Account[] senders = new AccountState.Account[count];
+        AccountState.Account[] recipients = new AccountState.Account[count];
+        int[] senderIndexes = new int[count];
+        int[] recipientIndexes = new int[count];
+        forEachChunk(chunks, count, (chunk, from, to) -> {
+            for (int i = from; i < to; i++) {
+                Transaction transaction = block[i];
+                senders[i] = state.account(transaction.getSender());
+                recipients[i] = state.account(transaction.getRecipient());
+                senderIndexes[i] = senders[i].index;
+                recipientIndexes[i] = recipients[i].index;
+            }
+        });
+
+        // Make every account of the block a set of its own (every thread writes the same values; the pool's join
+        // publishes them before the next pass)
+        AtomicIntegerArray parents = parents(state.getIndexLimit());
+        forEachChunk(chunks, count, (chunk, from, to) -> {
+            for (int i = from; i < to; i++) {
+                parents.setPlain(senderIndexes[i], senderIndexes[i]);
+                parents.setPlain(recipientIndexes[i], recipientIndexes[i]);
+            }
+        });
+
+        // Join the two accounts of every transaction, chunks in parallel; each resulting set is a conflict group
+        forEachChunk(chunks, count, (chunk, from, to) -> {
+            for (int i = from; i < to; i++) {
+                union(parents, senderIndexes[i], recipientIndexes[i]);
+            }
+        });
+
+        // Hash every group to a task, counting each chunk's transactions per task
+        int tasks = pool.getParallelism() * TASKS_PER_THREAD;
+        int[] taskOf = new int[count];
+        int[] positions = new int[chunks * tasks];
+        forEachChunk(chunks, count, (chunk, from, to) -> {
+            for (int i = from; i < to; i++) {
+                int task = Integer.remainderUnsigned(find(parents, senderIndexes[i]) * 0x9E3779B9, tasks);
+                taskOf[i] = task;
+                positions[chunk * tasks + task]++;
+            }
+        });
+
+        // Lay out each task's transactions contiguously, chunk after chunk, so they stay in block order
+        int[] taskStarts = new int[tasks + 1];
+        int position = 0;
+        for (int task = 0; task < tasks; task++) {
+            taskStarts[task] = position;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int chunkCount = positions[chunk * tasks + task];
+                positions[chunk * tasks + task] = position;
+                position += chunkCount;
+            }
+        }
+        taskStarts[tasks] = count;
+        int[] order = new int[count];
+        forEachChunk(chunks, count, (chunk, from, to) -> {
+            for (int i = from; i < to; i++) {
+                order[positions[chunk * tasks + taskOf[i]]++] = i;
+            }
+        });
+
+        // Run the tasks in parallel; a group never spans two tasks
+        boolean[] applied = new boolean[count];
+        pool.invoke(new RangeTask(0, tasks, 1, (firstTask, lastTask) -> {
+            for (int task = firstTask; task < lastTask; task++) {
+                for (int p = taskStarts[task]; p < taskStarts[task + 1]; p++) {
+                    int i = order[p];
+                    applied[i] = AccountState.transfer(senders[i], recipients[i], block[i].getAmount());
+                }
+            }
+        }));
+        return applied;
+    }
+
+    /**
+     * Runs an action on every chunk of transactions, in parallel.
+     */
+    private void forEachChunk(int chunks, int count, ChunkAction action) {
+        pool.invoke(new RangeTask(0, chunks, 1, (firstChunk, lastChunk) -> {
+            for (int chunk = firstChunk; chunk < lastChunk; chunk++) {
+                action.run(chunk, chunk * CHUNK, Math.min(count, (chunk + 1) * CHUNK));
+            }
+        }));
+    }
+
+    /**
+     * Retrieves the union-find forest, growing it to hold the given number of accounts.
+     */
+    private AtomicIntegerArray parents(int accounts) {
+        if (parents.length() < accounts) {
+            parents = new AtomicIntegerArray(Math.max(accounts, 2 * parents.length()));
+        }
+        return parents;
+    }
+
+    /**
+     * Joins the sets of two accounts. Safe to call from several threads: a root is only linked, below a root with
+     * a lower index, by a compare-and-set that fails if another thread linked it first, so no cycle can form.
+     */
+    private static void union(AtomicIntegerArray parents, int first, int second) {
+        while (true) {
+            int firstRoot = find(parents, first);
+            int secondRoot = find(parents, second);
+            if (firstRoot == secondRoot) {
+                return;
+            }
+            int high = Math.max(firstRoot, secondRoot);
+            if (parents.compareAndSet(high, high, Math.min(firstRoot, secondRoot))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the root of an account's set, halving the path on the way. Parents only ever move towards the root,
+     * so a halving step that loses a race with another thread leaves a valid forest.
+     */
+    private static int find(AtomicIntegerArray parents, int account) {
+        int parent = parents.getAcquire(account);
+        while (parent != account) {
+            int grandparent = parents.getAcquire(parent);
+            if (grandparent == parent) {
+                return parent;
+            }
+            parents.compareAndSet(account, parent, grandparent);
+            account = grandparent;
+            parent = parents.getAcquire(account);
+        }
+        return account;
+    }
+}
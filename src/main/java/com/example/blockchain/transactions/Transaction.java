@@ -1,5 +1,11 @@
 package com.example.blockchain.transactions;
 
+import com.example.blockchain.cryptography.Hash256;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * The Transaction class represents a transaction between two parties on the blockchain.
  * A transaction includes the sender's address, the recipient's address, and the transaction amount.
@@ -11,21 +17,42 @@ public class Transaction {
     private final String recipient;
     private final double amount;
 
+    // Random number telling apart transfers with the same sender, recipient and amount
+    private final long nonce;
+
+    // SHA-256 hash of the transaction and its hexadecimal form, each computed on first use
+    private Hash256 hash;
+    private String hashHex;
+
     /**
      * Constructor for the Transaction class.
-     * Initializes a transaction with the sender, recipient, and amount.
+     * Initializes a transaction with the sender, recipient, and amount, and a random nonce so that repeating a
+     * transfer creates a distinct transaction.
      *
      * @param sender    The address of the sender
      * @param recipient The address of the recipient
      * @param amount    The amount to be transferred in the transaction
      */
     public Transaction(String sender, String recipient, double amount) {
+        this(sender, recipient, amount, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Constructor for a transaction with a known nonce, e.g. one received from another node.
+     *
+     * @param sender    The address of the sender
+     * @param recipient The address of the recipient
+     * @param amount    The amount to be transferred in the transaction
+     * @param nonce     The nonce distinguishing the transaction from identical transfers
+     */
+    public Transaction(String sender, String recipient, double amount, long nonce) {
         if (amount <= 0) {
             throw new IllegalArgumentException("Amount must be positive");
         }
         this.sender = sender;
         this.recipient = recipient;
         this.amount = amount;
+        this.nonce = nonce;
     }
 
     /**
@@ -55,6 +82,59 @@ public class Transaction {
         return amount;
     }
 
+    /**
+     * Retrieves the nonce distinguishing this transaction from identical transfers.
+     *
+     * @return The nonce.
+     */
+    public long getNonce() {
+        return nonce;
+    }
+
+    /**
+     * Retrieves the hash identifying this transaction.
+     * The hash is the SHA-256 of the transaction's fields, each address prefixed with its length so that no two
+     * transactions share an encoding (see {@link #encode()}), and is computed once.
+     *
+     * @return The transaction hash, e.g. a leaf of a block's Merkle tree.
+     */
+    public Hash256 getHash256() {
+        Hash256 result = hash;
+        if (result == null) {
+            result = Hash256.sha256(encode());
+            hash = result;  // Benign race: every thread computes the same immutable value
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the hash identifying this transaction (see {@link #getHash256()}) as a hexadecimal string.
+     *
+     * @return The transaction hash as a hexadecimal string.
+     */
+    public String getHash() {
+        String result = hashHex;
+        if (result == null) {
+            result = getHash256().toHex();
+            hashHex = result;  // Benign race: every thread computes the same value
+        }
+        return result;
+    }
+
+    /**
+     * Encodes the fields the hash covers: the length and UTF-8 bytes of the sender and of the recipient,
+     * then the amount and the nonce.
+     */
+    private byte[] encode() {
+        byte[] senderBytes = sender.getBytes(StandardCharsets.UTF_8);
+        byte[] recipientBytes = recipient.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(4 + senderBytes.length + 4 + recipientBytes.length + 16)
+                .putInt(senderBytes.length).put(senderBytes)
+                .putInt(recipientBytes.length).put(recipientBytes)
+                .putDouble(amount).putLong(nonce)
+                .array();
+    }
+
     /**
      * Converts the transaction to a string representation.
      * This is useful for hashing the transaction data in the Block class.
@@ -0,0 +1,201 @@
+package com.example.blockchain;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.consensus.PoWConsensus;
+import com.example.blockchain.network.BlockCodec;
+import com.example.blockchain.network.BlockImportPipeline;
+import com.example.blockchain.network.Node;
+import com.example.blockchain.transactions.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the BlockImportPipeline class.
+ * These tests validate in-order import, rejection of invalid blocks, backpressure,
+ * and that a node applies pipelined blocks like any other block it receives.
+ */
+public class BlockImportPipelineTest {
+
+    private static final int DIFFICULTY = 2;
+
+    private Blockchain sourceChain;
+
+    @BeforeEach
+    public void setUp() {
+        // Build a chain on one node whose blocks another node will import
+        sourceChain = new Blockchain(DIFFICULTY);
+        for (int i = 0; i < 30; i++) {
+            List<Transaction> transactions = new ArrayList<>();
+            transactions.add(new Transaction("Alice", "Bob", i + 1));
+            sourceChain.addBlock(new Block(transactions, sourceChain.getLatestBlock().getHash()));
+        }
+    }
+
+    @Test
+    public void testImportsBlocksInHeightOrder() throws Exception {
+        Blockchain targetChain = new Blockchain(DIFFICULTY);
+        List<Block> persisted = new ArrayList<>();
+
+        try (BlockImportPipeline pipeline = new BlockImportPipeline(targetChain, new PoWConsensus(), 4, 8, persisted::add)) {
+            for (Block block : sourceChain.getBlockchain().subList(1, sourceChain.getBlockchain().size())) {
+                pipeline.submit(BlockCodec.encode(block));
+            }
+            assertTrue(pipeline.awaitIdle(30, TimeUnit.SECONDS), "The pipeline should finish importing.");
+            assertEquals(30, pipeline.getImportedCount(), "All blocks should have been imported.");
+        }
+
+        assertEquals(sourceChain.getBlockchain().size(), targetChain.getBlockchain().size(),
+                "The target chain should have caught up with the source chain.");
+        assertEquals(sourceChain.getLatestBlock().getHash(), targetChain.getLatestBlock().getHash(),
+                "Both chains should share the same tip.");
+        assertEquals(30, persisted.size(),
+                "Every imported block should have been persisted.");
+        assertTrue(targetChain.isChainValid(), "The imported chain should be valid.");
+    }
+
+    @Test
+    public void testRejectsInvalidBlockAndItsDescendants() throws Exception {
+        Blockchain targetChain = new Blockchain(DIFFICULTY);
+        Block valid = sourceChain.getBlockchain().get(1);
+        Block tampered = sourceChain.getBlockchain().get(2);
+
+        // Same header, different body: the Merkle root no longer matches
+        List<Transaction> forgedTransactions = new ArrayList<>();
+        forgedTransactions.add(new Transaction("Mallory", "Mallory", 1000));
+        Block forged = new Block(forgedTransactions, tampered.getPreviousHash(), tampered.getMerkleRoot(),
+                tampered.getTimeStamp(), tampered.getNonce(), null, 0, null);
+
+        try (BlockImportPipeline pipeline = new BlockImportPipeline(targetChain, new PoWConsensus(), 2, 4, block -> { })) {
+            pipeline.submit(BlockCodec.encode(valid));
+            pipeline.submit(BlockCodec.encode(forged));
+            pipeline.submit(BlockCodec.encode(sourceChain.getBlockchain().get(3)));
+            pipeline.submit(new byte[] {1, 2, 3});  // Not a block at all
+            assertTrue(pipeline.awaitIdle(30, TimeUnit.SECONDS), "The pipeline should finish importing.");
+
+            assertEquals(1, pipeline.getImportedCount(), "Only the valid block should have been imported.");
+            assertEquals(3, pipeline.getRejectedCount(), "The forged block, its child and the garbage should be rejected.");
+        }
+        assertEquals(valid.getHash(), targetChain.getLatestBlock().getHash(), "The tip should be the last valid block.");
+    }
+
+    @Test
+    public void testBackpressureWhenStagesAreFull() throws Exception {
+        Blockchain targetChain = new Blockchain(DIFFICULTY);
+        CountDownLatch storeReleased = new CountDownLatch(1);
+
+        try (BlockImportPipeline pipeline = new BlockImportPipeline(targetChain, new PoWConsensus(), 2, 2, block -> {
+            try {
+                storeReleased.await();  // Simulate a stalled disk
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        })) {
+            int accepted = 0;
+            boolean pushedBack = false;
+            for (Block block : sourceChain.getBlockchain().subList(1, sourceChain.getBlockchain().size())) {
+                if (pipeline.offer(BlockCodec.encode(block))) {
+                    accepted++;
+                } else {
+                    pushedBack = true;
+                    break;
+                }
+                Thread.sleep(20);  // Give the stages time to fill up
+            }
+            assertTrue(pushedBack, "A stalled pipeline should refuse more blocks.");
+
+            storeReleased.countDown();
+            assertTrue(pipeline.awaitIdle(30, TimeUnit.SECONDS), "The pipeline should drain once the store recovers.");
+            assertEquals(accepted, pipeline.getImportedCount(), "Every accepted block should eventually be imported.");
+        }
+    }
+
+    @Test
+    public void testNodeAppliesPipelinedBlocksAsMessages() throws Exception {
+        Node node = new Node("Importer", new Blockchain(DIFFICULTY));
+        Node peer = new Node("Peer", new Blockchain(DIFFICULTY));
+        node.addPeerNode(peer);
+        List<Block> blocks = sourceChain.getBlockchain().subList(1, 6);
+        for (Block block : blocks) {
+            block.getTransactions().forEach(node::broadcastTransaction);
+        }
+
+        try (BlockImportPipeline pipeline = new BlockImportPipeline(node.getBlockchain(), new PoWConsensus(), 2, 8,
+                block -> { })) {
+            node.setImportPipeline(pipeline);
+            for (Block block : blocks) {
+                assertTrue(node.receiveEncodedBlock(BlockCodec.encode(block)), "The pipeline should accept the block.");
+            }
+            assertTrue(pipeline.awaitIdle(30, TimeUnit.SECONDS), "The pipeline should finish importing.");
+            assertEquals(5, pipeline.getImportedCount(), "All blocks should have been imported.");
+        }
+
+        assertEquals(5, node.getMetrics().snapshot().getCounter("blocks.imported"),
+                "Pipelined blocks should be counted by the node.");
+        assertTrue(node.getPendingTransactions().isEmpty(), "Included transactions should leave the pending pool.");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!peer.getBlockchain().getLatestBlock().getHash().equals(blocks.get(4).getHash())) {
+            assertTrue(System.currentTimeMillis() < deadline, "Pipelined blocks should be relayed to the node's peers.");
+            Thread.sleep(10);
+        }
+
+        node.receiveBlock(blocks.get(4));
+        assertEquals(1, node.getDuplicateDeliveries(), "A pipelined block should be remembered as seen.");
+    }
+
+    @Test
+    public void testCloseReleasesBlocksInFlight() throws Exception {
+        Blockchain targetChain = new Blockchain(DIFFICULTY);
+        CountDownLatch release = new CountDownLatch(1);
+        PoWConsensus slowConsensus = new PoWConsensus() {
+            @Override
+            public boolean validateBlock(Block block, int difficulty) {
+                try {
+                    release.await();  // Keep the only worker busy so later blocks stay queued
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.validateBlock(block, difficulty);
+            }
+        };
+
+        BlockImportPipeline pipeline = new BlockImportPipeline(targetChain, slowConsensus, 1, 8, block -> { });
+        for (Block block : sourceChain.getBlockchain().subList(1, 6)) {
+            pipeline.submit(BlockCodec.encode(block));
+        }
+        CountDownLatch idleReturned = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                pipeline.awaitIdle(60, TimeUnit.SECONDS);
+                idleReturned.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        pipeline.close();
+        assertTrue(idleReturned.await(10, TimeUnit.SECONDS), "Waiting for an idle pipeline should end on close.");
+        assertFalse(pipeline.awaitIdle(1, TimeUnit.SECONDS), "A closed pipeline with discarded blocks is not idle.");
+        assertThrows(IllegalStateException.class, () -> pipeline.offer(new byte[0]), "A closed pipeline takes nothing.");
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (stageThreadsAlive() > 0) {
+            assertTrue(System.currentTimeMillis() < deadline, "The stage threads should exit on close.");
+            Thread.sleep(10);
+        }
+        release.countDown();
+    }
+
+    private static long stageThreadsAlive() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("block-import-contextual"))
+                .count();
+    }
+}
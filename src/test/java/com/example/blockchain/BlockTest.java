@@ -1,6 +1,7 @@
 package com.example.blockchain;
 
 import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.cryptography.Hash256;
 import com.example.blockchain.transactions.Transaction;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,28 +24,28 @@ public class BlockTest {
         // Initialize the transactions and block for testing
         transactions = new ArrayList<>();
         transactions.add(new Transaction("Alice", "Bob", 100));
-        block = new Block(transactions, "0");  // Create a new block with a dummy previous hash "0"
+        block = new Block(transactions, Hash256.ZERO);  // Create a new block with a zero previous hash
     }
 
     @Test
     public void testBlockHashCalculation() {
         // Calculate the hash of the block and ensure it is not null or empty
-        String calculatedHash = block.calculateHash();
+        Hash256 calculatedHash = block.calculateHash();
         assertNotNull(calculatedHash, "Hash should not be null after calculation.");
-        assertFalse(calculatedHash.isEmpty(), "Hash should not be empty after calculation.");
+        assertNotEquals(Hash256.ZERO, calculatedHash, "Hash should not be zero after calculation.");
     }
 
     @Test
     public void testBlockIntegrity() {
         // Ensure the block's initial hash matches the hash after recalculating it
-        String initialHash = block.getHash();
-        String recalculatedHash = block.calculateHash();
+        Hash256 initialHash = block.getHash();
+        Hash256 recalculatedHash = block.calculateHash();
         assertEquals(initialHash, recalculatedHash, "Block's hash should remain consistent.");
     }
 
     @Test
     public void testBlockMining() {
-        Block block = new Block(transactions, "0"); // Create a block with a previous hash "0"
+        Block block = new Block(transactions, Hash256.ZERO); // Create a block with a zero previous hash
         int difficulty = 3;  // Expecting 3 leading zeros
         block.mineBlock(difficulty);
 
@@ -53,7 +54,7 @@ public class BlockTest {
         System.out.println("Mined block hash: " + block.getHash());
 
         // Check if the hash starts with the expected number of leading zeros
-        assertTrue(block.getHash().startsWith(new String(new char[difficulty]).replace('\0', '0')),
+        assertTrue(block.getHash().toHex().startsWith(new String(new char[difficulty]).replace('\0', '0')),
                 "Block's hash should start with " + difficulty + " leading zeros.");
     }
 
@@ -64,16 +65,16 @@ public class BlockTest {
         transactions.add(new Transaction("Eve", "Frank", 25));
         
         Block newBlock = new Block(transactions, block.getHash());
-        String newBlockHash = newBlock.calculateHash();
+        Hash256 newBlockHash = newBlock.calculateHash();
         assertNotNull(newBlockHash, "New block hash should be calculated.");
     }
 
     @Test
     public void testBlockHashChangesAfterMining() {
         // Mine the block with difficulty 3, and ensure the hash changes after mining
-        String initialHash = block.getHash();
+        Hash256 initialHash = block.getHash();
         block.mineBlock(3);
-        String minedHash = block.getHash();
+        Hash256 minedHash = block.getHash();
         assertNotEquals(initialHash, minedHash, "Block's hash should change after mining.");
     }
 
@@ -83,4 +84,16 @@ public class BlockTest {
         Block newBlock = new Block(transactions, block.getHash());
         assertEquals(block.getHash(), newBlock.getPreviousHash(), "New block should reference the previous block's hash.");
     }
+
+    @Test
+    public void testMerkleRootDoesNotMatchRepeatedTransactions() {
+        // [a, b, c] and [a, b, c, c] must not share a root, or a valid block could be replayed with a duplicate
+        List<Transaction> odd = new ArrayList<>(transactions);
+        odd.add(new Transaction("Bob", "Carol", 20));
+        odd.add(new Transaction("Carol", "Dave", 5));
+        List<Transaction> padded = new ArrayList<>(odd);
+        padded.add(odd.get(2));
+        assertNotEquals(Block.calculateMerkleRoot(odd), Block.calculateMerkleRoot(padded),
+                "Repeating the last transaction should change the Merkle root.");
+    }
 }
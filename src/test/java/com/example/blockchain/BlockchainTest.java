@@ -2,6 +2,7 @@ package com.example.blockchain;
 
 import com.example.blockchain.blockchain.Block;
 import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.cryptography.Hash256;
 import com.example.blockchain.transactions.Transaction;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -31,7 +32,7 @@ public class BlockchainTest {
         assertEquals(1, blocks.size(), "Blockchain should have one block (the genesis block).");
 
         Block genesisBlock = blocks.get(0);
-        assertEquals("0", genesisBlock.getPreviousHash(), "Genesis block should have previous hash of '0'.");
+        assertEquals(Hash256.ZERO, genesisBlock.getPreviousHash(), "Genesis block should have the zero previous hash.");
     }
 
     @Test
@@ -73,8 +74,8 @@ public class BlockchainTest {
         List<Transaction> transactions = new ArrayList<>();
         transactions.add(new Transaction("Alice", "Bob", 50.0));
         
-        // Create a block with a previous hash "0"
-        Block block = new Block(transactions, "0"); 
+        // Create a block with a zero previous hash
+        Block block = new Block(transactions, Hash256.ZERO); 
         int difficulty = 3;  // Expecting 3 leading zeros
         block.mineBlock(difficulty);
 
@@ -83,8 +84,66 @@ public class BlockchainTest {
         System.out.println("Mined block hash: " + block.getHash());
 
         // Check if the hash starts with the expected number of leading zeros
-        assertTrue(block.getHash().startsWith(new String(new char[difficulty]).replace('\0', '0')),
+        assertTrue(block.getHash().toHex().startsWith(new String(new char[difficulty]).replace('\0', '0')),
                 "Block's hash should start with " + difficulty + " leading zeros.");
     }
 
+    @Test
+    public void testSnapshotIsStableWhileChainGrows() {
+        Blockchain chain = new Blockchain(1);
+        List<Block> snapshot = chain.getBlockchain();
+        chain.addBlock(new Block(new ArrayList<>(), chain.getLatestBlock().getHash()));
+
+        assertEquals(1, snapshot.size(), "A snapshot should not see blocks appended after it was taken.");
+        assertEquals(2, chain.getBlockchain().size(), "A new snapshot should see the appended block.");
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(snapshot.get(0)),
+                "Snapshots should be read-only.");
+    }
+
+    @Test
+    public void testReadersRaceWithImport() throws Exception {
+        Blockchain source = new Blockchain(1);
+        for (int i = 0; i < 2000; i++) {
+            List<Transaction> transactions = new ArrayList<>();
+            transactions.add(new Transaction("Alice", "Bob", i + 1));
+            source.addBlock(new Block(transactions, source.getLatestBlock().getHash()));
+        }
+        Blockchain target = new Blockchain(1);
+
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    int lastHeight = 0;
+                    while (lastHeight < 2000) {
+                        Block tip = target.getLatestBlock();
+                        List<Block> snapshot = target.getBlockchain();
+                        assertTrue(snapshot.size() - 1 >= lastHeight, "The height should never go backwards.");
+                        for (int i = 1; i < snapshot.size(); i++) {
+                            assertEquals(snapshot.get(i - 1).getHash(), snapshot.get(i).getPreviousHash(),
+                                    "Every snapshot should be a linked prefix of the chain.");
+                        }
+                        assertTrue(target.getHeightOf(tip.getHash()) >= 0, "The tip should be indexed by hash.");
+                        lastHeight = snapshot.size() - 1;
+                    }
+                } catch (Throwable t) {
+                    synchronized (failures) {
+                        failures.add(t);
+                    }
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        for (Block block : source.getBlockchain().subList(1, source.getBlockchain().size())) {
+            assertTrue(target.importBlock(block), "Every block should extend the tip.");
+        }
+        for (Thread reader : readers) {
+            reader.join(30_000);
+        }
+
+        assertTrue(failures.isEmpty(), "Readers should never see an inconsistent chain: " + failures);
+        assertEquals(2000, target.getHeight(), "Every block should be imported.");
+    }
 }
@@ -0,0 +1,235 @@
+package com.example.blockchain;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.events.ChainEvent;
+import com.example.blockchain.events.ChainEventPublisher;
+import com.example.blockchain.metrics.MetricsRegistry;
+import com.example.blockchain.network.Node;
+import com.example.blockchain.transactions.Transaction;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Unit tests for the ChainEventPublisher class.
+ * These tests validate that subscribers receive blocks and transactions in order, can resume from a height,
+ * only get what they request, are told about reorganizations, and never hold up block import.
+ */
+public class ChainEventPublisherTest {
+
+    /**
+     * Records the events it receives, requesting a fixed number up front.
+     */
+    private static class RecordingSubscriber implements Flow.Subscriber<ChainEvent> {
+        final List<ChainEvent> events = new ArrayList<>();
+        final long initialRequest;
+        volatile Flow.Subscription subscription;
+        volatile boolean completed;
+        volatile Throwable error;
+
+        RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(ChainEvent event) {
+            synchronized (events) {
+                events.add(event);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        int count() {
+            synchronized (events) {
+                return events.size();
+            }
+        }
+
+        List<ChainEvent> snapshot() {
+            synchronized (events) {
+                return new ArrayList<>(events);
+            }
+        }
+    }
+
+    private static void appendBlocks(Blockchain blockchain, int count) {
+        for (int i = 0; i < count; i++) {
+            blockchain.addBlock(new Block(new ArrayList<>(), blockchain.getLatestBlock().getHash()));
+        }
+    }
+
+    @Test
+    public void testDeliversBlocksAndTransactionsInOrder() throws Exception {
+        Node node = new Node("A", new Blockchain(1));
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        node.getEvents().subscribe(subscriber);
+
+        appendBlocks(node.getBlockchain(), 1);
+        node.receiveTransaction(new Transaction("Alice", "Bob", 10));
+        appendBlocks(node.getBlockchain(), 1);
+        waitFor(() -> subscriber.count() == 3);
+
+        List<ChainEvent> events = subscriber.snapshot();
+        assertEquals(ChainEvent.Type.BLOCK_APPENDED, events.get(0).getType(), "The first block comes first.");
+        assertEquals(1, events.get(0).getHeight(), "Live subscribers start after the tip.");
+        assertEquals(ChainEvent.Type.TRANSACTION_RECEIVED, events.get(1).getType(), "The transaction comes next.");
+        assertEquals("Alice", events.get(1).getTransaction().getSender(), "The transaction should be delivered.");
+        assertEquals(2, events.get(2).getHeight(), "The second block comes last.");
+        assertEquals(node.getBlockchain().getLatestBlock(), events.get(2).getBlock(), "Events carry the block.");
+    }
+
+    @Test
+    public void testResumesFromHeight() throws Exception {
+        Blockchain blockchain = new Blockchain(1);
+        appendBlocks(blockchain, 5);
+        ChainEventPublisher publisher = new ChainEventPublisher(blockchain, new MetricsRegistry(), Runnable::run);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber, 3);
+        appendBlocks(blockchain, 2);
+
+        List<ChainEvent> events = subscriber.snapshot();
+        assertEquals(5, events.size(), "Blocks 3 to 7 should be delivered.");
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(3 + i, events.get(i).getHeight(), "Replayed and live blocks should be contiguous.");
+            assertSame(blockchain.getBlock(3 + i), events.get(i).getBlock(), "Each event carries its block.");
+        }
+        assertThrows(IllegalArgumentException.class, () -> publisher.subscribe(subscriber, -1),
+                "Negative heights should be rejected.");
+    }
+
+    @Test
+    public void testDeliversOnlyWhatIsRequested() throws Exception {
+        Blockchain blockchain = new Blockchain(1);
+        ChainEventPublisher publisher = new ChainEventPublisher(blockchain, new MetricsRegistry(), Runnable::run);
+        RecordingSubscriber subscriber = new RecordingSubscriber(1);
+        publisher.subscribe(subscriber, 0);
+        appendBlocks(blockchain, 3);
+        assertEquals(1, subscriber.count(), "Only the requested event should be delivered.");
+
+        subscriber.subscription.request(2);
+        assertEquals(3, subscriber.count(), "Further requests should release more events.");
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.error instanceof IllegalArgumentException, "Non-positive requests are an error.");
+        assertEquals(0, publisher.getSubscriberCount(), "The failed subscription should be removed.");
+    }
+
+    @Test
+    public void testSlowSubscriberDoesNotBlockImport() throws Exception {
+        Node node = new Node("A", new Blockchain(1));
+        node.getEvents().setBufferSize(4);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSubscriber slow = new RecordingSubscriber(Long.MAX_VALUE) {
+            @Override
+            public void onNext(ChainEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onNext(event);
+            }
+        };
+        node.getEvents().subscribe(slow);
+
+        long start = System.nanoTime();
+        appendBlocks(node.getBlockchain(), 50);
+        for (int i = 0; i < 20; i++) {
+            node.receiveTransaction(new Transaction("Alice", "Bob", i + 1));
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 10,
+                "Import should not wait for the subscriber.");
+        assertEquals(50, node.getBlockchain().getHeight(), "Every block should be imported.");
+        assertTrue(node.getMetrics().snapshot().getCounter("events.transactions.dropped") >= 15,
+                "Transactions beyond the buffer should be dropped.");
+
+        release.countDown();
+        waitFor(() -> slow.snapshot().stream()
+                .filter(event -> event.getType() == ChainEvent.Type.BLOCK_APPENDED).count() == 50);
+        int expectedHeight = 1;
+        for (ChainEvent event : slow.snapshot()) {
+            if (event.getType() == ChainEvent.Type.BLOCK_APPENDED) {
+                assertEquals(expectedHeight++, event.getHeight(), "No block should be skipped.");
+            }
+        }
+    }
+
+    @Test
+    public void testReorganizationRevertsDeliveredBlocks() throws Exception {
+        Blockchain longerChain = new Blockchain(2);
+        appendBlocks(longerChain, 20);
+        Blockchain forkedChain = new Blockchain(2);
+        for (int height = 1; height <= 10; height++) {
+            assertTrue(forkedChain.importBlock(longerChain.getBlock(height)));
+        }
+        for (int i = 0; i < 5; i++) {
+            List<Transaction> transactions = new ArrayList<>();
+            transactions.add(new Transaction("Erin", "Frank", i + 1));
+            forkedChain.addBlock(new Block(transactions, forkedChain.getLatestBlock().getHash()));
+        }
+        List<Block> replaced = new ArrayList<>(forkedChain.getBlockchain().subList(11, 16));
+        Node node = new Node("Forked", forkedChain);
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        node.getEvents().subscribe(subscriber, 0);
+        waitFor(() -> subscriber.count() == 16);  // Past the fork point, up to the tip of the shorter branch
+
+        node.addPeerNode(new Node("Peer", longerChain));
+        assertEquals(10, node.synchronizeWithPeers(), "Sync should switch to the longer branch.");
+        waitFor(() -> subscriber.count() == 16 + 5 + 10);
+
+        List<ChainEvent> events = subscriber.snapshot().subList(16, 31);
+        for (int i = 0; i < 5; i++) {
+            ChainEvent event = events.get(i);
+            assertEquals(ChainEvent.Type.BLOCK_REVERTED, event.getType(), "Replaced blocks should be reverted first.");
+            assertEquals(15 - i, event.getHeight(), "Reverts should come tip first.");
+            assertSame(replaced.get(4 - i), event.getBlock(), "Each revert carries the replaced block.");
+        }
+        for (int i = 0; i < 10; i++) {
+            ChainEvent event = events.get(5 + i);
+            assertEquals(ChainEvent.Type.BLOCK_APPENDED, event.getType(), "The new branch should follow.");
+            assertEquals(11 + i, event.getHeight(), "The branch should start right after the fork point.");
+            assertEquals(longerChain.getBlock(11 + i).getHash(), event.getBlock().getHash(),
+                    "Each event carries the block of the new branch.");
+        }
+    }
+
+    @Test
+    public void testCompletesWhenTheNodeStops() throws Exception {
+        Node node = new Node("A", new Blockchain(1));
+        RecordingSubscriber subscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        node.getEvents().subscribe(subscriber);
+        appendBlocks(node.getBlockchain(), 2);
+        node.stop();
+        waitFor(() -> subscriber.completed);
+        assertEquals(2, subscriber.count(), "Blocks up to the tip should be delivered before completion.");
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the events.");
+            Thread.sleep(10);
+        }
+    }
+}
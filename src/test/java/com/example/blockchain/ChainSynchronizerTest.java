@@ -0,0 +1,175 @@
+package com.example.blockchain;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.BlockHeader;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.consensus.PoWConsensus;
+import com.example.blockchain.cryptography.Hash256;
+import com.example.blockchain.network.ChainSynchronizer;
+import com.example.blockchain.network.Node;
+import com.example.blockchain.transactions.Transaction;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for headers-first synchronization with the ChainSynchronizer class.
+ */
+public class ChainSynchronizerTest {
+
+    private static final int DIFFICULTY = 2;
+    private static final int CHAIN_LENGTH = 300;
+
+    // A long chain shared by the serving peers (mined once for all tests)
+    private static Blockchain sourceChain;
+
+    @BeforeAll
+    public static void buildSourceChain() {
+        sourceChain = new Blockchain(DIFFICULTY);
+        for (int i = 0; i < CHAIN_LENGTH; i++) {
+            List<Transaction> transactions = new ArrayList<>();
+            transactions.add(new Transaction("Alice", "Bob", i + 1));
+            transactions.add(new Transaction("Bob", "Carol", i + 2));
+            sourceChain.addBlock(new Block(transactions, sourceChain.getLatestBlock().getHash()));
+        }
+    }
+
+    @Test
+    public void testFreshNodeCatchesUpFromSeveralPeers() {
+        AtomicInteger bodyRequests = new AtomicInteger();
+        Node fresh = new Node("Fresh", new Blockchain(DIFFICULTY));
+        for (int i = 0; i < 3; i++) {
+            fresh.addPeerNode(new Node("Peer" + i, sourceChain) {
+                @Override
+                public List<Block> getBlocks(List<Hash256> blockHashes) {
+                    bodyRequests.incrementAndGet();
+                    return super.getBlocks(blockHashes);
+                }
+            });
+        }
+
+        int imported = fresh.synchronizeWithPeers();
+
+        assertEquals(CHAIN_LENGTH, imported, "The fresh node should import the whole chain.");
+        assertEquals(sourceChain.getLatestBlock().getHash(), fresh.getBlockchain().getLatestBlock().getHash(),
+                "The fresh node should end at the peers' tip.");
+        assertTrue(fresh.getBlockchain().isChainValid(), "The synchronized chain should be valid.");
+        assertEquals((CHAIN_LENGTH + 63) / 64, bodyRequests.get(), "Bodies should be requested in batches.");
+    }
+
+    @Test
+    public void testRetriesBatchesOnOtherPeersAfterTimeoutOrBadData() {
+        Node fresh = new Node("Fresh", new Blockchain(DIFFICULTY));
+        fresh.addPeerNode(new Node("Stalled", sourceChain) {
+            @Override
+            public List<Block> getBlocks(List<Hash256> blockHashes) {
+                try {
+                    Thread.sleep(10_000);  // Never answers in time
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getBlocks(blockHashes);
+            }
+        });
+        fresh.addPeerNode(new Node("Lying", sourceChain) {
+            @Override
+            public List<Block> getBlocks(List<Hash256> blockHashes) {
+                List<Block> forged = new ArrayList<>();
+                for (Block block : super.getBlocks(blockHashes)) {
+                    List<Transaction> transactions = new ArrayList<>();
+                    transactions.add(new Transaction("Mallory", "Mallory", 1000));
+                    BlockHeader header = block.getHeader();
+                    forged.add(new Block(transactions, header.getPreviousHash(), header.getMerkleRoot(),
+                            header.getTimeStamp(), header.getNonce(), null, 0, null));
+                }
+                return forged;
+            }
+        });
+        fresh.addPeerNode(new Node("Honest", sourceChain));
+
+        int imported = new ChainSynchronizer(fresh, 50, 200, 3).synchronize(fresh.getPeerNodes());
+
+        assertEquals(CHAIN_LENGTH, imported, "Every batch should eventually come from the honest peer.");
+        assertTrue(fresh.getBlockchain().isChainValid(), "Forged bodies should never be committed.");
+    }
+
+    @Test
+    public void testPartiallySyncedNodeOnlyFetchesMissingBlocks() {
+        Blockchain partialChain = new Blockchain(DIFFICULTY);
+        for (int height = 1; height <= 100; height++) {
+            assertTrue(partialChain.importBlock(sourceChain.getBlockchain().get(height)));
+        }
+        Node partial = new Node("Partial", partialChain);
+        partial.addPeerNode(new Node("Peer", sourceChain));
+
+        assertEquals(CHAIN_LENGTH - 100, partial.synchronizeWithPeers(), "Only the missing blocks should be imported.");
+        assertEquals(CHAIN_LENGTH, partialChain.getHeight(), "The node should reach the peer's height.");
+        assertEquals(0, partial.synchronizeWithPeers(), "A synchronized node should have nothing left to fetch.");
+    }
+
+    @Test
+    public void testSyncedBlocksMustSatisfyConsensus() {
+        Node strict = new Node("Strict", new Blockchain(DIFFICULTY));
+        strict.setConsensus(new PoWConsensus() {
+            @Override
+            public boolean validateBlock(Block block, int difficulty) {
+                return false;  // Headers pass, but no block body is acceptable
+            }
+        });
+        strict.addPeerNode(new Node("Peer", sourceChain));
+
+        assertEquals(0, strict.synchronizeWithPeers(), "A block failing consensus should not be imported by sync.");
+        assertEquals(0, strict.getBlockchain().getHeight(), "The chain should stay at the genesis block.");
+    }
+
+    @Test
+    public void testSyncReorganizesOntoALongerBranch() {
+        Blockchain forkedChain = new Blockchain(DIFFICULTY);
+        for (int height = 1; height <= 10; height++) {
+            assertTrue(forkedChain.importBlock(sourceChain.getBlockchain().get(height)));
+        }
+        Transaction orphaned = new Transaction("Dave", "Erin", 7);
+        for (int i = 0; i < 5; i++) {
+            List<Transaction> transactions = new ArrayList<>();
+            transactions.add(i == 0 ? orphaned : new Transaction("Erin", "Frank", i + 1));
+            forkedChain.addBlock(new Block(transactions, forkedChain.getLatestBlock().getHash()));
+        }
+        Hash256 replaced = forkedChain.getBlock(11).getHash();
+        Node forked = new Node("Forked", forkedChain);
+        forked.addPeerNode(new Node("Peer", sourceChain));
+
+        assertEquals(CHAIN_LENGTH - 10, forked.synchronizeWithPeers(),
+                "The branch after the fork point should be imported.");
+        assertEquals(sourceChain.getLatestBlock().getHash(), forkedChain.getLatestBlock().getHash(),
+                "The node should switch to the longer chain.");
+        assertTrue(forkedChain.isChainValid(), "The reorganized chain should be valid.");
+        assertEquals(-1, forkedChain.getHeightOf(replaced), "The replaced blocks should no longer be in the chain.");
+        assertTrue(forked.getPendingTransactions().containsKey(orphaned.getHash()),
+                "Transactions of the replaced blocks should go back to the pending pool.");
+    }
+
+    @Test
+    public void testSyncKeepsAChainThatIsNotShorter() {
+        Blockchain longerChain = new Blockchain(DIFFICULTY);
+        assertTrue(longerChain.importBlock(sourceChain.getBlockchain().get(1)));
+        for (int i = 0; i < 3; i++) {
+            List<Transaction> transactions = new ArrayList<>();
+            transactions.add(new Transaction("Erin", "Frank", i + 1));
+            longerChain.addBlock(new Block(transactions, longerChain.getLatestBlock().getHash()));
+        }
+        Blockchain shortChain = new Blockchain(DIFFICULTY);
+        for (int height = 1; height <= 3; height++) {
+            assertTrue(shortChain.importBlock(sourceChain.getBlockchain().get(height)));
+        }
+        Node node = new Node("Node", longerChain);
+        node.addPeerNode(new Node("Peer", shortChain));
+        Hash256 tip = longerChain.getLatestBlock().getHash();
+
+        assertEquals(0, node.synchronizeWithPeers(), "A branch that is not longer should be ignored.");
+        assertEquals(tip, longerChain.getLatestBlock().getHash(), "The node should keep its own chain.");
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.blockchain;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.network.BlockCodec;
+import com.example.blockchain.network.CompactBlock;
+import com.example.blockchain.network.Node;
+import com.example.blockchain.network.P2PNetwork;
+import com.example.blockchain.transactions.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Unit tests for compact block relay.
+ * These tests validate the wire size of compact blocks, reconstruction from pending transactions,
+ * the request of missing transactions from the sender, and the fallback when they never arrive.
+ */
+public class CompactBlockTest {
+
+    private static final int DIFFICULTY = 2;
+
+    private List<Transaction> transactions;
+    private Block block;
+
+    @BeforeEach
+    public void setUp() {
+        transactions = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            transactions.add(new Transaction("Alice", "Bob", i));
+        }
+        block = new Block(transactions, new Blockchain(DIFFICULTY).getLatestBlock().getHash());
+        block.mineBlock(DIFFICULTY);
+    }
+
+    @Test
+    public void testCompactBlockIsMuchSmallerThanFullBlock() {
+        int fullSize = BlockCodec.encode(block).length;
+        int compactSize = BlockCodec.encodeCompactBlock(CompactBlock.fromBlock(block)).length;
+        int emptySize = BlockCodec.encodeCompactBlock(CompactBlock.fromBlock(new Block(new ArrayList<>(), block.getPreviousHash()))).length;
+        assertEquals(emptySize + 6 * transactions.size(), compactSize, "Each transaction should cost 6 bytes.");
+        assertTrue(compactSize * 2 < fullSize,
+                "A compact block should be a fraction of the full block (" + compactSize + " vs " + fullSize + " bytes).");
+    }
+
+    @Test
+    public void testReconstructionFromKnownTransactions() {
+        CompactBlock decoded = BlockCodec.decodeCompactBlock(BlockCodec.encodeCompactBlock(CompactBlock.fromBlock(block)));
+        Transaction[] rebuilt = decoded.reconstruct(transactions);
+
+        Block rebuiltBlock = decoded.toBlock(Arrays.asList(rebuilt));
+        assertEquals(block.getHash(), rebuiltBlock.getHash(), "The rebuilt block should have the original hash.");
+        assertTrue(rebuiltBlock.hasValidMerkleRoot(), "The rebuilt block should match its Merkle root.");
+    }
+
+    @Test
+    public void testUnknownTransactionsAreLeftEmpty() {
+        Transaction[] rebuilt = CompactBlock.fromBlock(block).reconstruct(transactions.subList(0, 150));
+        long missing = Arrays.stream(rebuilt).filter(transaction -> transaction == null).count();
+        assertEquals(50, missing, "Transactions not known locally should be reported as missing.");
+    }
+
+    @Test
+    public void testPeersRebuildBlockFromPendingPool() {
+        P2PNetwork network = new P2PNetwork();
+        for (int i = 0; i < 5; i++) {
+            network.addNodeToNetwork(new Node("Node" + i, new Blockchain(DIFFICULTY)));
+        }
+        for (int i = 0; i < 5; i++) {
+            for (int j = i + 1; j < 5; j++) {
+                network.connectNodes("Node" + i, "Node" + j);
+            }
+        }
+        network.broadcastTransactionsToNetwork(transactions);
+        network.broadcastBlockToNetwork(block);
+
+        for (Node node : network.getNodesInNetwork().values()) {
+            assertEquals(block.getHash(), node.getBlockchain().getLatestBlock().getHash(), "Every node should import the block.");
+            assertEquals(0, node.getMissingTransactionRequests(), "No transaction should have to be requested.");
+            assertTrue(node.getPendingTransactions().isEmpty(), "Included transactions should leave the pending pool.");
+        }
+    }
+
+    @Test
+    public void testMissingTransactionsAreRequestedFromSender() {
+        P2PNetwork network = new P2PNetwork();
+        Node sender = new Node("Sender", new Blockchain(DIFFICULTY));
+        Node receiver = new Node("Receiver", new Blockchain(DIFFICULTY));
+        network.addNodeToNetwork(sender);
+        network.addNodeToNetwork(receiver);
+        // The receiver only saw part of the transactions before the block arrived
+        for (Transaction transaction : transactions.subList(0, 180)) {
+            receiver.receiveTransaction(transaction);
+        }
+        network.connectNodes("Sender", "Receiver");
+
+        sender.receiveBlock(block);
+        assertTrue(network.awaitQuiescence(30_000), "Relay should settle.");
+
+        assertEquals(block.getHash(), receiver.getBlockchain().getLatestBlock().getHash(), "The receiver should import the block.");
+        assertEquals(20, receiver.getMissingTransactionRequests(), "Only the unknown transactions should be requested.");
+    }
+
+    @Test
+    public void testBlockIsFetchedFromAnotherAnnouncerWhenTheTransactionReplyIsLost() throws Exception {
+        Node sender = new Node("Sender", new Blockchain(DIFFICULTY));
+        Node receiver = new Node("Receiver", new Blockchain(DIFFICULTY));
+        Node otherPeer = new Node("Other", new Blockchain(DIFFICULTY));
+        receiver.setCompactBlockTimeout(500);
+        sender.addPeerNode(receiver);
+        otherPeer.addPeerNode(receiver);
+
+        // Hold up the sender so the receiver's transaction request is still queued when the sender goes away
+        CountDownLatch senderReleased = new CountDownLatch(1);
+        sender.start();
+        sender.submit(() -> {
+            try {
+                return senderReleased.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        sender.broadcastBlock(block);
+        waitFor(() -> receiver.getMissingTransactionRequests() == transactions.size()
+                && sender.getMailboxPostedCount() >= 2);
+        sender.stop();  // The reply never comes
+        senderReleased.countDown();
+
+        otherPeer.broadcastBlock(block);  // A second announcement of a block the receiver is still rebuilding
+
+        waitFor(() -> receiver.getBlockchain().getLatestBlock().getHash().equals(block.getHash()));
+        otherPeer.stop();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the condition.");
+            Thread.sleep(5);
+        }
+    }
+}
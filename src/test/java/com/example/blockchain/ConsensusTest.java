@@ -3,11 +3,15 @@ package com.example.blockchain;
 import com.example.blockchain.blockchain.Block;
 import com.example.blockchain.consensus.PoSConsensus;
 import com.example.blockchain.consensus.PoWConsensus;
+import com.example.blockchain.consensus.StakeLedger;
+import com.example.blockchain.cryptography.CryptoUtil;
+import com.example.blockchain.cryptography.Hash256;
 import com.example.blockchain.transactions.Transaction;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.security.KeyPair;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -24,14 +28,26 @@ public class ConsensusTest {
     private Block block;
     private List<Transaction> transactions;
     private Map<String, Double> stakes;
-    private Map<String, Integer> slashedValidators;
+    private Map<String, KeyPair> validatorKeys;
+
+    // RSA key generation is slow, so the validators' keys are shared by all tests
+    private static final KeyPair KEY_PAIR_1 = generateKeyPair();
+    private static final KeyPair KEY_PAIR_2 = generateKeyPair();
+
+    private static KeyPair generateKeyPair() {
+        try {
+            return CryptoUtil.generateKeyPair();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
 
     @BeforeEach
     public void setUp() {
         // Initialize transactions and block
         transactions = new ArrayList<>();
         transactions.add(new Transaction("Alice", "Bob", 100));
-        block = new Block(transactions, "0");  // Previous hash "0" for genesis-like block
+        block = new Block(transactions, Hash256.ZERO);  // Zero previous hash for genesis-like block
 
         // Initialize Proof of Work consensus
         poWConsensus = new PoWConsensus();
@@ -41,8 +57,10 @@ public class ConsensusTest {
         stakes.put("Validator1", 100.0);
         stakes.put("Validator2", 50.0);
 
-        slashedValidators = new HashMap<>();
-        poSConsensus = new PoSConsensus(stakes, slashedValidators);
+        validatorKeys = new HashMap<>();
+        validatorKeys.put("Validator1", KEY_PAIR_1);
+        validatorKeys.put("Validator2", KEY_PAIR_2);
+        poSConsensus = new PoSConsensus(new StakeLedger(stakes), validatorKeys);
     }
 
     // Proof of Work (PoW) Tests
@@ -52,7 +70,7 @@ public class ConsensusTest {
         poWConsensus.mineBlock(block, difficulty);
 
         String expectedPrefix = "0".repeat(difficulty);
-        assertTrue(block.getHash().startsWith(expectedPrefix),
+        assertTrue(block.getHash().toHex().startsWith(expectedPrefix),
                 "PoW mined block's hash should start with " + difficulty + " leading zeros.");
     }
 
@@ -109,18 +127,137 @@ public class ConsensusTest {
                 "PoS should invalidate the block if it was not created by a legitimate validator.");
     }
 
+    @Test
+    public void testPoSRejectsTamperedBlock() {
+        poSConsensus.mineBlock(block, 0);
+        transactions.add(new Transaction("Mallory", "Mallory", 1000));  // Tamper with the signed contents
+
+        assertFalse(poSConsensus.validateBlock(block, 0),
+                "PoS should invalidate a block whose contents no longer match its signed hash.");
+    }
+
+    @Test
+    public void testPoSRejectsUnscheduledProposer() throws Exception {
+        long slot = slotProposedBy("Validator1");
+        String other = "Validator2";
+        block = blockForSlot(slot, transactions);
+        block.signBlock(other, slot, CryptoUtil.generateKeyPair().getPrivate());
+
+        assertFalse(poSConsensus.validateBlock(block, 0),
+                "PoS should invalidate a block signed by a validator not scheduled for its slot.");
+    }
+
+    @Test
+    public void testPoSVerdictIsDeterministicAcrossNodes() {
+        // Another node with the same stake snapshot but only the validators' public keys
+        Map<String, KeyPair> publicKeys = new HashMap<>();
+        for (Map.Entry<String, KeyPair> entry : validatorKeys.entrySet()) {
+            publicKeys.put(entry.getKey(), new KeyPair(entry.getValue().getPublic(), null));
+        }
+        PoSConsensus otherNode = new PoSConsensus(new StakeLedger(stakes), publicKeys);
+
+        for (long slot = 0; slot < PoSConsensus.SLOTS_PER_EPOCH * 2; slot++) {
+            assertEquals(poSConsensus.getProposerForSlot(slot), otherNode.getProposerForSlot(slot),
+                    "Both nodes should compute the same proposer schedule.");
+        }
+
+        poSConsensus.mineBlock(block, 0);
+        assertTrue(poSConsensus.validateBlock(block, 0), "The proposing node should accept its own block.");
+        assertTrue(otherNode.validateBlock(block, 0), "A validating-only node should reach the same verdict.");
+        assertFalse(otherNode.proposeBlock(new Block(transactions, Hash256.ZERO), block.getSlot()),
+                "A node without private keys should not be able to propose blocks.");
+    }
+
+    @Test
+    public void testPoSRejectsMisplacedAndFutureSlots() {
+        long slot = slotProposedBy("Validator1");
+        assertThrows(IllegalArgumentException.class, () -> poSConsensus.proposeBlock(block, slot),
+                "A block should only be proposed for the slot its timestamp falls in.");
+
+        Block misplaced = blockForSlot(slot, transactions);
+        misplaced.signBlock("Validator1", slot + PoSConsensus.SLOTS_PER_EPOCH, KEY_PAIR_1.getPrivate());
+        assertFalse(poSConsensus.validateBlock(misplaced, 0), "A slot other than the timestamp's should be rejected.");
+
+        long now = System.currentTimeMillis() / PoSConsensus.SLOT_DURATION_MS;
+        long futureSlot = now + 10 * PoSConsensus.SLOTS_PER_EPOCH;
+        while (!"Validator1".equals(poSConsensus.getProposerForSlot(futureSlot))) {
+            futureSlot++;
+        }
+        Block future = blockForSlot(futureSlot, transactions);
+        assertTrue(poSConsensus.proposeBlock(future, futureSlot), "The scheduled validator can sign a future slot.");
+        assertFalse(poSConsensus.validateBlock(future, 0), "A block for a future slot should be rejected.");
+        assertFalse(poSConsensus.validateHeader(future.getHeader(), 0), "Its header should be rejected too.");
+    }
+
+    @Test
+    public void testScheduleUsesStakesFrozenTwoEpochsBefore() {
+        // One node looks epoch 2 up before a slashing in epoch 0, the other only after it
+        PoSConsensus early = new PoSConsensus(new StakeLedger(stakes), validatorKeys);
+        PoSConsensus late = new PoSConsensus(new StakeLedger(stakes), validatorKeys);
+        String[] before = new String[PoSConsensus.SLOTS_PER_EPOCH * 3];
+        for (int slot = 0; slot < before.length; slot++) {
+            before[slot] = early.getProposerForSlot(slot);
+        }
+
+        long slot = slotProposedBy("Validator1");
+        assertTrue(slot < PoSConsensus.SLOTS_PER_EPOCH, "Validator1 should be scheduled in epoch 0.");
+        for (PoSConsensus node : List.of(early, late)) {
+            Block first = blockForSlot(slot, transactions);
+            Block second = blockForSlot(slot, List.of(new Transaction("Alice", "Carol", 100)));
+            node.proposeBlock(first, slot);
+            node.proposeBlock(second, slot);
+            assertTrue(node.validateBlock(first, 0), "The first block for the slot should be valid.");
+            assertFalse(node.validateBlock(second, 0), "The conflicting block should be rejected.");
+        }
+
+        for (int s = 0; s < before.length; s++) {
+            assertEquals(early.getProposerForSlot(s), late.getProposerForSlot(s),
+                    "Both nodes should compute the same schedule whenever they first looked it up.");
+            if (s < PoSConsensus.SLOTS_PER_EPOCH * 2) {
+                assertEquals(before[s], early.getProposerForSlot(s), "Epochs 0 and 1 should not see the slashing.");
+            }
+        }
+    }
+
+    @Test
+    public void testDoubleSigningIsOnlyTrackedUntilFinal() {
+        long slot = slotProposedBy("Validator1");
+        Block first = blockForSlot(slot, transactions);
+        poSConsensus.proposeBlock(first, slot);
+        assertTrue(poSConsensus.validateBlock(first, 0), "The first block for the slot should be valid.");
+
+        long laterSlot = slot + PoSConsensus.FINALITY_WINDOW_SLOTS + 1;
+        while (poSConsensus.getProposerForSlot(laterSlot) == null) {
+            laterSlot++;
+        }
+        Block later = blockForSlot(laterSlot, transactions);
+        poSConsensus.proposeBlock(later, laterSlot);
+        assertTrue(poSConsensus.validateBlock(later, 0), "A block past the finality window should be valid.");
+
+        Block conflicting = blockForSlot(slot, List.of(new Transaction("Alice", "Carol", 100)));
+        poSConsensus.proposeBlock(conflicting, slot);
+        assertTrue(poSConsensus.validateBlock(conflicting, 0), "A final slot should no longer be checked.");
+        assertEquals(0, poSConsensus.getStakeLedger().getSlashCount("Validator1"),
+                "Signatures for final slots should not lead to slashing.");
+    }
+
     // Slashing Tests
     @Test
     public void testSlashingForMaliciousValidator() {
-        // Simulate slashing for malicious behavior
         String maliciousValidator = "Validator1";
+        long slot = slotProposedBy(maliciousValidator);
+
+        // The validator signs two different blocks for the same slot (double-signing)
+        block = blockForSlot(slot, transactions);
+        Block conflictingBlock = blockForSlot(slot, List.of(new Transaction("Alice", "Carol", 100)));
+        poSConsensus.proposeBlock(block, slot);
+        poSConsensus.proposeBlock(conflictingBlock, slot);
 
-        // Force slashing by manually calling slashing method (for test purposes)
-        poSConsensus.mineBlock(block, 0);  // Assume block mined by malicious validator
-        poSConsensus.validateBlock(block, 0);  // Simulate validator acting maliciously
+        assertTrue(poSConsensus.validateBlock(block, 0), "The first block for the slot should be valid.");
+        assertFalse(poSConsensus.validateBlock(conflictingBlock, 0), "The conflicting block should be rejected.");
 
         // Check that the validator has been slashed
-        assertEquals(1, slashedValidators.get(maliciousValidator).intValue(),
+        assertEquals(1, poSConsensus.getStakeLedger().getSlashCount(maliciousValidator),
                 "Validator1 should have been slashed once for malicious behavior.");
     }
 
@@ -128,15 +265,57 @@ public class ConsensusTest {
     public void testSlashingReducesStake() {
         String maliciousValidator = "Validator1";
         double initialStake = stakes.get(maliciousValidator);
+        long slot = slotProposedBy(maliciousValidator);
 
         // Simulate malicious behavior and slashing
-        poSConsensus.mineBlock(block, 0);  // Assume block mined by malicious validator
-        poSConsensus.validateBlock(block, 0);  // Simulate validator acting maliciously
+        block = blockForSlot(slot, transactions);
+        Block conflictingBlock = blockForSlot(slot, List.of(new Transaction("Alice", "Carol", 100)));
+        poSConsensus.proposeBlock(block, slot);
+        poSConsensus.proposeBlock(conflictingBlock, slot);
+        poSConsensus.validateBlock(block, 0);
+        poSConsensus.validateBlock(conflictingBlock, 0);
 
         // Check that the validator's stake has been reduced by 20% (slashing percentage)
         double expectedStake = initialStake * 0.8;
-        assertEquals(expectedStake, stakes.get(maliciousValidator),
+        assertEquals(expectedStake, poSConsensus.getStakeLedger().getStake(maliciousValidator),
                 "Validator1's stake should have been reduced by 20% after slashing.");
     }
 
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDeprecatedConstructorStillCountsOffenses() {
+        Map<String, Integer> slashedValidators = new HashMap<>();
+        PoSConsensus legacy = new PoSConsensus(stakes, slashedValidators);
+        poSConsensus = legacy;
+        long slot = slotProposedBy("Validator1");
+        block = blockForSlot(slot, transactions);
+        Block conflictingBlock = blockForSlot(slot, List.of(new Transaction("Alice", "Carol", 100)));
+        assertTrue(legacy.proposeBlock(block, slot), "Validators should be run locally.");
+        legacy.proposeBlock(conflictingBlock, slot);
+
+        assertTrue(legacy.validateBlock(block, 0), "The first block for the slot should be valid.");
+        assertFalse(legacy.validateBlock(conflictingBlock, 0), "The conflicting block should be rejected.");
+        assertEquals(1, slashedValidators.get("Validator1"), "The offense should be counted in the caller's map.");
+        assertEquals(stakes.get("Validator1") * 0.8, legacy.getStakeLedger().getStake("Validator1"),
+                "The stake should have been slashed.");
+    }
+
+    /**
+     * Finds the first slot for which the given validator is the scheduled proposer.
+     */
+    private long slotProposedBy(String validator) {
+        long slot = 0;
+        while (!validator.equals(poSConsensus.getProposerForSlot(slot))) {
+            slot++;
+        }
+        return slot;
+    }
+
+    /**
+     * Creates a block whose timestamp falls in the given slot.
+     */
+    private static Block blockForSlot(long slot, List<Transaction> transactions) {
+        return new Block(transactions, Hash256.ZERO, slot * PoSConsensus.SLOT_DURATION_MS);
+    }
+
 }
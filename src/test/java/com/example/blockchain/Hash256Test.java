@@ -0,0 +1,84 @@
+package com.example.blockchain;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.cryptography.Hash256;
+import com.example.blockchain.cryptography.StringUtil;
+import com.example.blockchain.network.BlockCodec;
+import com.example.blockchain.transactions.Transaction;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Unit tests for the Hash256 class.
+ * These tests validate conversions, equality, ordering, the difficulty check and binary block hashing.
+ */
+public class Hash256Test {
+
+    private static final String HEX = "00000fffe0123456789abcdef0123456789abcdef0123456789abcdef0123456";
+
+    @Test
+    public void testHexRoundTrip() {
+        Hash256 hash = Hash256.fromHex(HEX);
+        assertEquals(HEX, hash.toHex(), "Hex conversion should round-trip.");
+        assertEquals(hash, Hash256.fromHex(HEX.toUpperCase()), "Parsing should accept upper case.");
+        assertThrows(IllegalArgumentException.class, () -> Hash256.fromHex("abc"), "Short strings should be rejected.");
+        assertThrows(IllegalArgumentException.class, () -> Hash256.fromHex(HEX.replace('a', 'x')),
+                "Non-hex characters should be rejected.");
+    }
+
+    @Test
+    public void testBytesRoundTrip() {
+        Hash256 hash = Hash256.fromHex(HEX);
+        byte[] buffer = new byte[Hash256.BYTES + 5];
+        hash.writeTo(buffer, 5);
+        assertEquals(hash, Hash256.fromBytes(buffer, 5), "Bytes written at an offset should read back.");
+        assertEquals(hash, Hash256.fromBytes(hash.toBytes()), "Bytes should round-trip.");
+        assertThrows(IllegalArgumentException.class, () -> Hash256.fromBytes(new byte[31]),
+                "Arrays of the wrong size should be rejected.");
+    }
+
+    @Test
+    public void testSha256MatchesHexHelper() {
+        String input = "The quick brown fox";
+        assertEquals(StringUtil.applySha256(input), Hash256.sha256(input.getBytes(StandardCharsets.UTF_8)).toHex(),
+                "Binary and hex SHA-256 should agree.");
+    }
+
+    @Test
+    public void testEqualityAndOrdering() {
+        Hash256 small = Hash256.fromWords(0, 0, 0, -1L);
+        Hash256 large = Hash256.fromWords(-1L, 0, 0, 0);
+        assertTrue(small.compareTo(large) < 0, "Words should compare as unsigned numbers.");
+        assertEquals(0, small.compareTo(Hash256.fromWords(0, 0, 0, -1L)), "Equal hashes should compare equal.");
+
+        Set<Hash256> set = new HashSet<>();
+        set.add(Hash256.fromHex(HEX));
+        assertTrue(set.contains(Hash256.fromHex(HEX)), "Equal hashes should be found in hash sets.");
+        assertFalse(set.contains(small), "Different hashes should not match.");
+    }
+
+    @Test
+    public void testDifficulty() {
+        Hash256 hash = Hash256.fromHex(HEX);
+        assertEquals(20, hash.getLeadingZeroBits(), "Five zero hex digits are twenty zero bits.");
+        assertTrue(hash.meetsDifficulty(5), "The hash starts with five zero hex digits.");
+        assertFalse(hash.meetsDifficulty(6), "The hash does not start with six zero hex digits.");
+        assertEquals(256, Hash256.ZERO.getLeadingZeroBits(), "The zero hash is all zero bits.");
+    }
+
+    @Test
+    public void testMinedBlockSurvivesEncoding() {
+        Block block = new Block(List.of(new Transaction("Alice", "Bob", 10)), Hash256.ZERO);
+        block.mineBlock(2);
+        assertTrue(block.getHash().meetsDifficulty(2), "Mining should meet the target.");
+        assertEquals(block.calculateHash(), block.getHash(), "The mined hash should be reproducible.");
+
+        Block decoded = BlockCodec.decode(BlockCodec.encode(block));
+        assertEquals(block.getHash(), decoded.calculateHash(), "Decoding should preserve the block hash.");
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.blockchain;
+
+import com.example.blockchain.loadtest.LoadGenerator;
+import com.example.blockchain.loadtest.LoadReport;
+import com.example.blockchain.network.P2PNetwork;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the LoadGenerator class.
+ * These tests validate that fired transactions are included and that throughput, latency and lag are reported,
+ * both in-process and over loopback TCP.
+ */
+public class LoadGeneratorTest {
+
+    private static final int DIFFICULTY = 1;
+
+    private static LoadReport runLoad(P2PNetwork network, boolean poissonArrivals) {
+        try {
+            LoadGenerator generator = new LoadGenerator(network, 100, 7L);
+            generator.setTargetRate(200);
+            generator.setPoissonArrivals(poissonArrivals);
+            generator.setBlockInterval(200);
+            return generator.run(1000);
+        } finally {
+            network.stopAll();
+        }
+    }
+
+    private static void assertAllIncluded(LoadReport report) {
+        assertTrue(report.getSubmittedTransactions() > 100, "Transactions should be fired at the target rate.");
+        assertEquals(report.getSubmittedTransactions(), report.getIncludedTransactions(),
+                "Every transaction should end up in a block.");
+        assertTrue(report.getBlocksProduced() >= 5, "Blocks should be produced at the block interval.");
+        assertTrue(report.getSustainedTps() > 0, "A sustained rate should be reported.");
+        assertTrue(report.getInclusionLatencyMillis(50) <= report.getInclusionLatencyMillis(99),
+                "Latency percentiles should be ordered.");
+        for (String nodeId : report.getNodeIds()) {
+            assertEquals(0, report.getFinalLag(nodeId), "Every node should catch up with the block producer.");
+        }
+    }
+
+    @Test
+    public void testInProcessLoad() {
+        LoadReport report = runLoad(LoadGenerator.createInProcessNetwork(8, 3, DIFFICULTY, 3L), false);
+        assertAllIncluded(report);
+        assertEquals(200, report.getOfferedTps(), 20, "The offered rate should match the target rate.");
+    }
+
+    @Test
+    public void testLoopbackLoadWithPoissonArrivals() throws Exception {
+        LoadReport report = runLoad(LoadGenerator.createLoopbackNetwork(4, 2, DIFFICULTY, 3L), true);
+        assertAllIncluded(report);
+    }
+}
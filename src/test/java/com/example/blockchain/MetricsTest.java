@@ -0,0 +1,97 @@
+package com.example.blockchain;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.metrics.Histogram;
+import com.example.blockchain.metrics.MetricsHttpExporter;
+import com.example.blockchain.metrics.MetricsRegistry;
+import com.example.blockchain.metrics.MetricsSnapshot;
+import com.example.blockchain.network.Node;
+import com.example.blockchain.transactions.Transaction;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unit tests for the metrics registry and the node metrics.
+ * These tests validate counters, histogram percentiles, snapshots, the HTTP exporter and what nodes record.
+ */
+public class MetricsTest {
+
+    private static final int DIFFICULTY = 2;
+
+    @Test
+    public void testHistogramPercentiles() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Histogram histogram = registry.histogram("latency");
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount(), "Every value should be counted.");
+        assertEquals(500500, snapshot.getSum(), "The sum should be exact.");
+        assertEquals(1000, snapshot.getMax(), "The maximum should be exact.");
+        assertTrue(Math.abs(snapshot.getPercentile(50) - 500) <= 500 / 8, "The median should be within 12.5%.");
+        assertTrue(Math.abs(snapshot.getPercentile(99) - 990) <= 990 / 8, "The 99th percentile should be within 12.5%.");
+        assertEquals(1000, snapshot.getPercentile(100), "The 100th percentile should be the maximum.");
+    }
+
+    @Test
+    public void testRegistrySnapshot() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("requests").add(3);
+        registry.counter("requests").increment();
+        registry.gauge("queue.depth", () -> 7);
+
+        MetricsSnapshot snapshot = registry.snapshot();
+        assertEquals(4, snapshot.getCounter("requests"), "Counters with the same name should be shared.");
+        assertEquals(7.0, snapshot.getGauge("queue.depth"), "Gauges should be read when the snapshot is taken.");
+        assertThrows(IllegalArgumentException.class, () -> registry.histogram("requests"),
+                "A name should not be registered as two kinds of metric.");
+        assertThrows(IllegalArgumentException.class, () -> snapshot.getCounter("missing"),
+                "Unknown metrics should be reported.");
+        assertTrue(snapshot.toText().contains("queue_depth 7.0"), "The text format should use exportable names.");
+    }
+
+    @Test
+    public void testNodeRecordsBlockMetrics() {
+        Node miner = new Node("Miner", new Blockchain(DIFFICULTY));
+        Node node = new Node("Node", new Blockchain(DIFFICULTY));
+        Block block = miner.mineBlock().join();
+        node.receiveTransaction(new Transaction("Alice", "Bob", 10));
+
+        node.receiveBlock(block);
+        node.receiveBlock(block);
+
+        MetricsSnapshot snapshot = node.getMetrics().snapshot();
+        assertEquals(1.0, snapshot.getGauge("chain.height"), "The chain height gauge should follow the chain.");
+        assertEquals(1.0, snapshot.getGauge("transactions.pending"), "The pending transaction should be counted.");
+        assertEquals(1, snapshot.getCounter("blocks.imported"), "The block should be imported once.");
+        assertEquals(1, snapshot.getCounter("gossip.duplicates"), "The second delivery should be a duplicate.");
+        assertEquals(1, snapshot.getHistogram("block.validation.latency").getCount(), "Validation should be timed.");
+        assertEquals(1, snapshot.getHistogram("block.import.latency").getCount(), "Import should be timed.");
+        assertTrue(MetricsRegistry.getDefault().snapshot().getGauge("mining.hashrate") > 0,
+                "Mining should report a hashrate.");
+    }
+
+    @Test
+    public void testHttpExporterServesMetrics() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("blocks.imported").add(5);
+        try (MetricsHttpExporter exporter = new MetricsHttpExporter(registry, new InetSocketAddress("127.0.0.1", 0))) {
+            URL url = new URL("http://127.0.0.1:" + exporter.getAddress().getPort() + MetricsHttpExporter.PATH);
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            assertEquals(200, connection.getResponseCode(), "The exporter should answer scrapes.");
+            try (InputStream in = connection.getInputStream()) {
+                String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                assertTrue(body.contains("blocks_imported 5"), "The response should contain the counter.");
+            }
+        }
+    }
+}
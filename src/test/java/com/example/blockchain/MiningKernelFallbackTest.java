@@ -0,0 +1,40 @@
+package com.example.blockchain;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.cryptography.Hash256;
+import com.example.blockchain.mining.MiningKernels;
+import com.example.blockchain.transactions.Transaction;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Unit tests for mining on a JVM started without the Vector API module.
+ * These tests validate that the scalar kernel is chosen and that the vector kernel class is never loaded.
+ * They run in their own surefire execution, without {@code --add-modules jdk.incubator.vector}.
+ */
+public class MiningKernelFallbackTest {
+
+    private static final String VECTOR_KERNEL_CLASS = "com.example.blockchain.mining.VectorMiningKernel";
+
+    private static boolean isLoaded(String className) throws Exception {
+        Method findLoadedClass = ClassLoader.class.getDeclaredMethod("findLoadedClass", String.class);
+        findLoadedClass.setAccessible(true);
+        return findLoadedClass.invoke(MiningKernelFallbackTest.class.getClassLoader(), className) != null;
+    }
+
+    @Test
+    public void testScalarKernelIsChosenWithoutTheVectorModule() throws Exception {
+        assertFalse(MiningKernels.isVectorApiAvailable(), "This test runs without the Vector API module.");
+
+        assertEquals("scalar", MiningKernels.select("auto").getName(), "Automatic selection should use scalar.");
+        assertEquals("scalar", MiningKernels.vector(8).getName(), "Vector kernels should fall back to scalar.");
+        Block block = new Block(List.of(new Transaction("Alice", "Bob", 10)), Hash256.ZERO, 1000L);
+        block.mineBlock(2);
+        assertTrue(block.getHash().meetsDifficulty(2), "Blocks should still be mined.");
+
+        assertFalse(isLoaded(VECTOR_KERNEL_CLASS), "The vector kernel class should never be loaded.");
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.blockchain;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.BlockHeader;
+import com.example.blockchain.cryptography.Hash256;
+import com.example.blockchain.mining.HeaderMidstate;
+import com.example.blockchain.mining.MiningKernel;
+import com.example.blockchain.mining.MiningKernels;
+import com.example.blockchain.transactions.Transaction;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for the mining kernels.
+ * These tests validate that the scalar and vector kernels produce exactly the SHA-256 of the serialized header
+ * and find the same nonces.
+ */
+public class MiningKernelTest {
+
+    private static final int[] LANE_COUNTS = {4, 8, 16};
+
+    private static byte[] randomHeader(Random random, String proposer) {
+        byte[] hash = new byte[Hash256.BYTES];
+        random.nextBytes(hash);
+        Hash256 previousHash = Hash256.fromBytes(hash);
+        random.nextBytes(hash);
+        return BlockHeader.serialize(previousHash, Hash256.fromBytes(hash), random.nextLong(), 0, proposer,
+                random.nextLong());
+    }
+
+    private static Hash256 referenceHash(byte[] header, int nonce) {
+        byte[] copy = header.clone();
+        for (int i = 0; i < 4; i++) {
+            copy[BlockHeader.NONCE_OFFSET + i] = (byte) (nonce >>> (24 - 8 * i));
+        }
+        return Hash256.sha256(copy);
+    }
+
+    private static Hash256 laneHash(int[] digests, int lanes, int lane) {
+        long[] words = new long[4];
+        for (int i = 0; i < 4; i++) {
+            words[i] = (long) digests[2 * i * lanes + lane] << 32
+                    | Integer.toUnsignedLong(digests[(2 * i + 1) * lanes + lane]);
+        }
+        return Hash256.fromWords(words[0], words[1], words[2], words[3]);
+    }
+
+    private static void assertMatchesReference(MiningKernel kernel, byte[] header, int firstNonce) {
+        int lanes = kernel.getLanes();
+        int[] digests = new int[8 * lanes];
+        kernel.hash(HeaderMidstate.of(header), firstNonce, digests);
+        for (int lane = 0; lane < lanes; lane++) {
+            assertEquals(referenceHash(header, firstNonce + lane), laneHash(digests, lanes, lane),
+                    kernel.getName() + " lane " + lane + " should match MessageDigest.");
+        }
+    }
+
+    @Test
+    public void testScalarKernelMatchesMessageDigest() {
+        Random random = new Random(42);
+        for (int i = 0; i < 50; i++) {
+            byte[] header = randomHeader(random, i % 2 == 0 ? null : "Validator" + i);
+            assertMatchesReference(MiningKernels.scalar(), header, random.nextInt());
+        }
+    }
+
+    @Test
+    public void testVectorKernelsMatchScalarKernel() {
+        assertTrue(MiningKernels.isVectorApiAvailable(), "Tests run with the Vector API module.");
+        Random random = new Random(7);
+        for (int lanes : LANE_COUNTS) {
+            MiningKernel kernel = MiningKernels.vector(lanes);
+            for (int i = 0; i < 20; i++) {
+                byte[] header = randomHeader(random, i % 2 == 0 ? null : "Validator" + i);
+                assertMatchesReference(kernel, header, random.nextInt());
+            }
+            // Nonces wrapping around the largest int
+            assertMatchesReference(kernel, randomHeader(random, null), Integer.MAX_VALUE - 2);
+        }
+    }
+
+    @Test
+    public void testKernelsFindTheSameNonce() {
+        Random random = new Random(3);
+        for (int round = 0; round < 5; round++) {
+            HeaderMidstate header = HeaderMidstate.of(randomHeader(random, null));
+            int firstNonce = random.nextInt();
+            long expected = MiningKernels.scalar().search(header, firstNonce, 1 << 16, 10);
+            assertNotEquals(MiningKernel.NOT_FOUND, expected, "A 10-bit target should be met within 65536 nonces.");
+            assertTrue(referenceHash(header.getHeader(), (int) expected).getLeadingZeroBits() >= 10,
+                    "The nonce found should meet the target.");
+            for (int lanes : LANE_COUNTS) {
+                assertEquals(expected, MiningKernels.vector(lanes).search(header, firstNonce, 1 << 16, 10),
+                        "The " + lanes + "-lane kernel should find the first nonce meeting the target.");
+            }
+        }
+    }
+
+    @Test
+    public void testSearchStopsAtTheEndOfTheRange() {
+        HeaderMidstate header = HeaderMidstate.of(randomHeader(new Random(5), null));
+        long found = MiningKernels.scalar().search(header, 0, 1 << 12, 8);
+        assertNotEquals(MiningKernel.NOT_FOUND, found, "An 8-bit target should be met within 4096 nonces.");
+        for (int lanes : LANE_COUNTS) {
+            MiningKernel kernel = MiningKernels.vector(lanes);
+            // A range ending just before the solution, not a multiple of the lane count
+            assertEquals(MiningKernel.NOT_FOUND, kernel.search(header, 0, found, 8),
+                    "Nonces past the range should not be reported.");
+            assertEquals(found, kernel.search(header, 0, found + 1, 8), "The last nonce of the range should count.");
+        }
+        assertThrows(IllegalArgumentException.class, () -> MiningKernels.scalar().search(header, 0, 1, 257),
+                "Targets beyond 256 bits should be rejected.");
+    }
+
+    @Test
+    public void testKernelSelection() {
+        assertEquals("scalar", MiningKernels.select("scalar").getName(), "The scalar kernel should be selectable.");
+        for (int lanes : LANE_COUNTS) {
+            MiningKernel kernel = MiningKernels.select("vector" + lanes);
+            if (lanes <= MiningKernels.getNativeLanes()) {
+                assertEquals(lanes, kernel.getLanes(), "Vector kernels the CPU supports should be selectable.");
+            } else {
+                assertEquals("scalar", kernel.getName(), "Kernels wider than the CPU should fall back to scalar.");
+            }
+        }
+        assertTrue(MiningKernels.select("auto").getLanes() >= 1, "Automatic selection should always succeed.");
+        assertThrows(IllegalArgumentException.class, () -> MiningKernels.select("gpu"), "Unknown kernels fail.");
+        assertThrows(IllegalArgumentException.class, () -> MiningKernels.vector(3), "Odd lane counts fail.");
+    }
+
+    @Test
+    public void testAutomaticSelectionUsesTheNativeLanes() {
+        int lanes = Math.min(MiningKernels.getNativeLanes(), 16);
+        assertEquals(lanes >= 4 ? "vector" + lanes : "scalar", MiningKernels.select("auto").getName(),
+                "Automatic selection should use the widest kernel the CPU holds.");
+    }
+
+    @Test
+    public void testMinedBlockMatchesHeaderHash() {
+        Block block = new Block(List.of(new Transaction("Alice", "Bob", 10)), Hash256.ZERO, 1000L);
+        block.mineBlock(3);
+        assertTrue(block.getHash().meetsDifficulty(3), "The mined hash should meet the target.");
+        assertEquals(block.getHeader().getHash(), block.getHash(), "The mined hash should be the header hash.");
+        assertEquals(referenceHash(BlockHeader.serialize(block.getPreviousHash(), block.getMerkleRoot(),
+                block.getTimeStamp(), 0, null, 0), block.getNonce()), block.getHash(),
+                "The mined hash should be the SHA-256 of the serialized header.");
+    }
+}
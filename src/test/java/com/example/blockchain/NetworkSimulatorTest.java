@@ -0,0 +1,121 @@
+package com.example.blockchain;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.network.Node;
+import com.example.blockchain.network.P2PNetwork;
+import com.example.blockchain.simulation.NetworkSimulator;
+import com.example.blockchain.simulation.SimulationReport;
+import com.example.blockchain.simulation.Topology;
+import com.example.blockchain.transactions.Transaction;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+/**
+ * Unit tests for the discrete-event NetworkSimulator and the Topology generators.
+ * These tests validate determinism, large-network runs, the effect of block interval on forks and of link
+ * bandwidth on propagation, and calibration from a real node.
+ */
+public class NetworkSimulatorTest {
+
+    @Test
+    public void testRandomRegularTopology() {
+        Topology topology = Topology.randomRegular(2000, 8, 7L);
+        assertEquals(2000, topology.size(), "The topology should contain every node.");
+        for (int i = 0; i < topology.size(); i++) {
+            assertTrue(topology.getNeighbors(i).length <= 8, "No node should exceed the target degree.");
+        }
+        assertTrue(topology.getEdgeCount() > 2000 * 8 / 2 * 0.99, "Nearly every node should reach the target degree.");
+        int eccentricity = topology.getEccentricity(0);
+        assertTrue(eccentricity > 0 && eccentricity <= 8, "A random regular graph should have a small diameter.");
+    }
+
+    @Test
+    public void testSmallWorldTopologyIsConnected() {
+        Topology topology = Topology.smallWorld(1000, 6, 0.1, 3L);
+        assertEquals(3000, topology.getEdgeCount(), "Rewiring should keep the number of links.");
+        assertTrue(topology.getEccentricity(0) > 0, "The graph should stay connected.");
+    }
+
+    @Test
+    public void testTopologyFromNetwork() {
+        P2PNetwork network = new P2PNetwork();
+        for (int i = 0; i < 4; i++) {
+            network.addNodeToNetwork(new Node("Node" + i, new Blockchain(2)));
+        }
+        network.connectNodes("Node0", "Node1");
+        network.connectNodes("Node1", "Node2");
+
+        Topology topology = Topology.fromNetwork(network);
+        assertEquals(4, topology.size(), "Every node should be captured.");
+        assertEquals(2, topology.getEdgeCount(), "Every peer link should be captured once.");
+        assertEquals(-1, topology.getEccentricity(0), "Node3 is not connected to anyone.");
+    }
+
+    @Test
+    public void testSimulationIsDeterministic() {
+        Topology topology = Topology.randomRegular(500, 8, 1L);
+        String first = new NetworkSimulator(topology, 42L).run(20).toString();
+        String second = new NetworkSimulator(topology, 42L).run(20).toString();
+        assertEquals(first, second, "The same seed should reproduce the same run.");
+    }
+
+    @Test
+    public void testTenThousandNodes() {
+        NetworkSimulator simulator = new NetworkSimulator(Topology.randomRegular(10_000, 8, 1L), 1L);
+        SimulationReport report = simulator.run(5);
+
+        assertEquals(5, report.getBlocksMined(), "Every block should be mined.");
+        double fullCoverage = report.getPropagationMillis(1.0, 100);
+        assertTrue(fullCoverage < 5000, "Every block should reach every node within seconds, took " + fullCoverage + " ms.");
+        assertTrue(report.getPropagationMillis(0.5, 50) <= report.getPropagationMillis(0.9, 50),
+                "Reaching more nodes cannot take less time.");
+    }
+
+    @Test
+    public void testShortBlockIntervalCausesForks() {
+        Topology topology = Topology.randomRegular(1000, 8, 5L);
+        NetworkSimulator slowBlocks = new NetworkSimulator(topology, 5L);
+        slowBlocks.setBlockInterval(60_000);
+        NetworkSimulator fastBlocks = new NetworkSimulator(topology, 5L);
+        fastBlocks.setBlockInterval(200);
+
+        double slowForkRate = slowBlocks.run(100).getForkRate();
+        double fastForkRate = fastBlocks.run(100).getForkRate();
+        assertTrue(fastForkRate > slowForkRate,
+                "Blocks found faster than they propagate should fork more (" + fastForkRate + " vs " + slowForkRate + ").");
+        assertTrue(slowForkRate < 0.05, "Slow blocks should rarely fork.");
+    }
+
+    @Test
+    public void testSlowLinksDelayPropagation() {
+        Topology topology = Topology.randomRegular(1000, 8, 2L);
+        NetworkSimulator fastLinks = new NetworkSimulator(topology, 2L);
+        NetworkSimulator slowLinks = new NetworkSimulator(topology, 2L);
+        slowLinks.setLinkBandwidth(100_000, 1_000_000);  // Far below the 12.5 MB/s uploads
+
+        double fast = fastLinks.run(10).getPropagationMillis(0.9, 50);
+        double slow = slowLinks.run(10).getPropagationMillis(0.9, 50);
+        assertTrue(slow > fast, "Slow links should delay propagation (" + slow + " vs " + fast + " ms).");
+        assertEquals(slowLinks.run(10).toString(), slowLinks.run(10).toString(),
+                "Link bandwidths should be drawn reproducibly.");
+    }
+
+    @Test
+    public void testCalibrationFromRealNode() {
+        Node node = new Node("Node", new Blockchain(2));
+        Block block = new Block(List.of(new Transaction("Alice", "Bob", 1)),
+                node.getBlockchain().getLatestBlock().getHash());
+        block.mineBlock(2);
+        Topology topology = Topology.randomRegular(1000, 8, 4L);
+        NetworkSimulator defaults = new NetworkSimulator(topology, 4L);
+        NetworkSimulator calibrated = new NetworkSimulator(topology, 4L);
+        calibrated.calibrate(node, block);
+
+        // A one-transaction compact block is far smaller and quicker to validate than the 20 KB, 5 ms defaults
+        assertTrue(calibrated.run(10).getPropagationMillis(0.9, 50) < defaults.run(10).getPropagationMillis(0.9, 50),
+                "Per-hop costs measured on a small block should propagate it faster than the defaults.");
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.blockchain;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.consensus.PoWConsensus;
+import com.example.blockchain.network.Node;
+import com.example.blockchain.network.P2PNetwork;
+import com.example.blockchain.transactions.Transaction;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for the actor-style Node runtime.
+ * These tests validate per-node serialization of messages before and after start, mining off the mailbox,
+ * and the start/stop lifecycle.
+ */
+public class NodeRuntimeTest {
+
+    private static final int DIFFICULTY = 2;
+
+    @Test
+    public void testMessagesOfOneNodeNeverOverlap() throws Exception {
+        Node node = new Node("Actor", new Blockchain(DIFFICULTY));
+        node.start();
+        assertMessagesNeverOverlap(node);
+        node.stop();
+    }
+
+    @Test
+    public void testMessagesOfAnUnstartedNodeNeverOverlap() throws Exception {
+        Node node = new Node("Actor", new Blockchain(DIFFICULTY));
+        assertMessagesNeverOverlap(node);
+        node.stop();
+    }
+
+    @Test
+    public void testNodeHandlesMessagesWhileMining() throws Exception {
+        Node node = new Node("Miner", new Blockchain(DIFFICULTY));
+        CountDownLatch miningStarted = new CountDownLatch(1);
+        CountDownLatch miningReleased = new CountDownLatch(1);
+        node.setConsensus(new PoWConsensus() {
+            @Override
+            public void mineBlock(Block block, int difficulty) {
+                miningStarted.countDown();
+                try {
+                    miningReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.mineBlock(block, difficulty);
+            }
+        });
+        node.start();
+
+        CompletableFuture<Block> mined = node.mineBlock();
+        assertTrue(miningStarted.await(10, TimeUnit.SECONDS), "Mining should start.");
+        assertEquals(1, node.submit(() -> 1).get(10, TimeUnit.SECONDS), "The node should handle messages while mining.");
+
+        miningReleased.countDown();
+        Block block = mined.get(10, TimeUnit.SECONDS);
+        assertEquals(block.getHash(), node.getBlockchain().getLatestBlock().getHash(), "The mined block should be appended.");
+        node.stop();
+    }
+
+    private static void assertMessagesNeverOverlap(Node node) throws InterruptedException {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        List<Thread> senders = new ArrayList<>();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int sender = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 1; i <= 250; i++) {
+                    node.receiveTransaction(new Transaction("Sender" + sender, "Bob", i));
+                    CompletableFuture<Integer> result = node.submit(() -> {
+                        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                        active.decrementAndGet();
+                        return 1;
+                    });
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                }
+            });
+            senders.add(thread);
+            thread.start();
+        }
+        for (Thread thread : senders) {
+            thread.join();
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+
+        assertEquals(1, maxActive.get(), "A node should handle one message at a time.");
+        assertEquals(2000, node.submit(() -> node.getPendingTransactions().size()).join(),
+                "Every transaction should be pooled.");
+    }
+
+    @Test
+    public void testThousandNodesPropagateMinedBlock() {
+        P2PNetwork network = new P2PNetwork();
+        for (int i = 0; i < 1000; i++) {
+            network.addNodeToNetwork(new Node(String.format("Node%04d", i), new Blockchain(DIFFICULTY)));
+        }
+        network.buildRandomTopology(4, 8, 1L);
+        network.startAll();
+
+        Node miner = network.getNodesInNetwork().get("Node0000");
+        miner.receiveTransaction(new Transaction("Alice", "Bob", 10));
+        Block block = miner.mineBlock().join();
+        assertTrue(network.awaitQuiescence(60_000), "Gossip should settle.");
+
+        for (Node node : network.getNodesInNetwork().values()) {
+            assertEquals(block.getHash(), node.getBlockchain().getLatestBlock().getHash(), "Every node should adopt the mined block.");
+        }
+        network.stopAll();
+    }
+
+    @Test
+    public void testStoppedNodeRefusesMessages() {
+        Node node = new Node("Actor", new Blockchain(DIFFICULTY));
+        node.start();
+        assertTrue(node.isRunning(), "The node should run after start.");
+        node.stop();
+
+        assertFalse(node.isRunning(), "The node should not run after stop.");
+        CompletableFuture<Integer> result = node.submit(() -> 1);
+        assertThrows(CompletionException.class, result::join, "A stopped node should refuse messages.");
+        assertThrows(IllegalStateException.class, node::start, "A stopped node cannot be restarted.");
+    }
+}
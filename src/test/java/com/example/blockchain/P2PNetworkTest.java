@@ -0,0 +1,335 @@
+package com.example.blockchain;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.consensus.PoWConsensus;
+import com.example.blockchain.network.Node;
+import com.example.blockchain.network.OverflowPolicy;
+import com.example.blockchain.network.P2PNetwork;
+import com.example.blockchain.transactions.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for block and transaction propagation through the P2PNetwork.
+ * These tests validate duplicate suppression, bounded-fanout gossip, and asynchronous per-peer delivery.
+ */
+public class P2PNetworkTest {
+
+    private static final int DIFFICULTY = 2;
+    private static final int NODE_COUNT = 12;
+
+    private P2PNetwork network;
+    private Block block;
+
+    @BeforeEach
+    public void setUp() {
+        network = new P2PNetwork();
+        for (int i = 0; i < NODE_COUNT; i++) {
+            network.addNodeToNetwork(new Node("Node" + i, new Blockchain(DIFFICULTY)));
+        }
+        // Fully connected mesh: the worst case for redundant deliveries
+        for (int i = 0; i < NODE_COUNT; i++) {
+            for (int j = i + 1; j < NODE_COUNT; j++) {
+                network.connectNodes("Node" + i, "Node" + j);
+            }
+        }
+
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(new Transaction("Alice", "Bob", 10));
+        block = new Block(transactions, new Blockchain(DIFFICULTY).getLatestBlock().getHash());
+        block.mineBlock(DIFFICULTY);
+    }
+
+    @Test
+    public void testBlockIsImportedExactlyOncePerNode() {
+        network.broadcastBlockToNetwork(block);
+
+        long duplicates = 0;
+        for (Node node : network.getNodesInNetwork().values()) {
+            assertEquals(2, node.getBlockchain().getBlockchain().size(), "Every node should import the block once.");
+            assertEquals(block.getHash(), node.getBlockchain().getLatestBlock().getHash(), "The block should be the new tip.");
+            duplicates += node.getDuplicateDeliveries();
+        }
+
+        // Flooding without echoing back to the sender: the origin sends to all peers, every other node to all but one
+        long deliveries = (NODE_COUNT - 1) + (long) (NODE_COUNT - 1) * (NODE_COUNT - 2);
+        assertEquals(deliveries - (NODE_COUNT - 1), duplicates,
+                "Every delivery beyond the first per node should be dropped as a duplicate.");
+    }
+
+    @Test
+    public void testBoundedFanoutLimitsRedundantDeliveries() {
+        int fanout = 3;
+        for (Node node : network.getNodesInNetwork().values()) {
+            node.setGossipFanout(fanout);
+        }
+        network.broadcastBlockToNetwork(block);
+
+        long duplicates = 0;
+        for (Node node : network.getNodesInNetwork().values()) {
+            assertEquals(block.getHash(), node.getBlockchain().getLatestBlock().getHash(), "Every node should get the block.");
+            duplicates += node.getDuplicateDeliveries();
+        }
+        assertTrue(duplicates <= (long) NODE_COUNT * fanout,
+                "Each node relays at most once to at most " + fanout + " peers.");
+    }
+
+    @Test
+    public void testTransactionIsPooledOncePerNode() {
+        Transaction transaction = new Transaction("Carol", "Dave", 5);
+        network.broadcastTransactionToNetwork(transaction);
+        network.broadcastTransactionToNetwork(transaction);  // A repeated broadcast is dropped everywhere
+
+        for (Node node : network.getNodesInNetwork().values()) {
+            assertEquals(1, node.getPendingTransactions().size(), "Every node should pool the transaction once.");
+            assertTrue(node.hasSeenTransaction(transaction.getHash()), "Every node should remember the transaction.");
+        }
+    }
+
+    @Test
+    public void testTransactionAnnouncementsAreBatched() {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            transactions.add(new Transaction("Carol", "Dave", i));
+        }
+        for (Node node : network.getNodesInNetwork().values()) {
+            node.setTransactionAnnounceWindow(200);  // Long enough for all 100 transactions to share one window
+        }
+        long batchedMessages = countMessages(network, transactions);
+
+        P2PNetwork unbatched = new P2PNetwork();
+        for (int i = 0; i < NODE_COUNT; i++) {
+            Node node = new Node("Node" + i, new Blockchain(DIFFICULTY));
+            node.setTransactionAnnounceWindow(0);
+            unbatched.addNodeToNetwork(node);
+        }
+        for (int i = 0; i < NODE_COUNT; i++) {
+            for (int j = i + 1; j < NODE_COUNT; j++) {
+                unbatched.connectNodes("Node" + i, "Node" + j);
+            }
+        }
+        long unbatchedMessages = countMessages(unbatched, transactions);
+
+        // Per announcement round: one flush per node, the origin's inventories, the peers' requests and the origin's
+        // replies, then the inventories each peer relays to every peer but the origin (all of them duplicates)
+        long messagesPerRound = NODE_COUNT + 3L * (NODE_COUNT - 1) + (long) (NODE_COUNT - 1) * (NODE_COUNT - 2);
+        assertEquals(messagesPerRound, batchedMessages, "All transactions should be announced in a single round.");
+        assertEquals(messagesPerRound * transactions.size(), unbatchedMessages,
+                "Without batching every transaction should take a round of its own.");
+    }
+
+    private static long countMessages(P2PNetwork network, List<Transaction> transactions) {
+        network.broadcastTransactionsToNetwork(transactions);
+        long messages = 0;
+        for (Node node : network.getNodesInNetwork().values()) {
+            assertEquals(transactions.size(), node.getPendingTransactions().size(), "Every node should pool every transaction.");
+            messages += node.getOutboundEnqueuedCount();
+        }
+        return messages;
+    }
+
+    @Test
+    public void testBlockArrivingBeforeItsParentIsImportedOnceTheParentIsFetched() throws Exception {
+        Node sender = new Node("Sender", new Blockchain(DIFFICULTY));
+        Node receiver = new Node("Receiver", new Blockchain(DIFFICULTY));
+        Block parent = new Block(List.of(new Transaction("Alice", "Bob", 1)),
+                sender.getBlockchain().getLatestBlock().getHash());
+        sender.getBlockchain().addBlock(parent);
+        Block child = new Block(List.of(new Transaction("Bob", "Carol", 1)), parent.getHash());
+        sender.getBlockchain().addBlock(child);
+        sender.addPeerNode(receiver);
+        receiver.addPeerNode(sender);
+
+        sender.broadcastBlock(child);  // The receiver has never seen the parent
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (receiver.getBlockchain().getBlockchain().size() < 3) {
+            assertTrue(System.currentTimeMillis() < deadline, "The receiver should fetch the parent and import both.");
+            Thread.sleep(5);
+        }
+        assertEquals(child.getHash(), receiver.getBlockchain().getLatestBlock().getHash(), "The child should be the tip.");
+        assertTrue(receiver.hasSeenBlock(child.getHash()), "The child should be marked seen once imported.");
+    }
+
+    @Test
+    public void testTtlLimitsPropagationDistance() {
+        // A line of nodes: Line0 - Line1 - Line2 - Line3
+        P2PNetwork line = new P2PNetwork();
+        for (int i = 0; i < 4; i++) {
+            Node node = new Node("Line" + i, new Blockchain(DIFFICULTY));
+            node.setGossipTtl(2);
+            line.addNodeToNetwork(node);
+        }
+        for (int i = 0; i < 3; i++) {
+            line.connectNodes("Line" + i, "Line" + (i + 1));
+        }
+
+        line.getNodesInNetwork().get("Line0").broadcastBlock(block);
+        assertTrue(line.awaitQuiescence(10_000), "Gossip should settle.");
+
+        assertTrue(line.getNodesInNetwork().get("Line1").hasSeenBlock(block.getHash()), "The first hop should see the block.");
+        assertTrue(line.getNodesInNetwork().get("Line2").hasSeenBlock(block.getHash()), "The second hop should see the block.");
+        assertFalse(line.getNodesInNetwork().get("Line3").hasSeenBlock(block.getHash()), "The TTL should stop the third hop.");
+    }
+
+    @Test
+    public void testSlowPeerDoesNotDelayBroadcast() throws Exception {
+        checkSlowPeerDoesNotDelayBroadcast(false);
+    }
+
+    @Test
+    public void testSlowStartedPeerDoesNotDelayBroadcast() throws Exception {
+        checkSlowPeerDoesNotDelayBroadcast(true);
+    }
+
+    private void checkSlowPeerDoesNotDelayBroadcast(boolean started) throws Exception {
+        CountDownLatch slowPeerReleased = new CountDownLatch(1);
+        Node sender = new Node("Sender", new Blockchain(DIFFICULTY));
+        Node fastPeer = new Node("Fast", new Blockchain(DIFFICULTY));
+        Node slowPeer = new Node("Slow", new Blockchain(DIFFICULTY));
+        slowPeer.setConsensus(stallingConsensus(slowPeerReleased));
+        sender.addPeerNode(slowPeer);
+        sender.addPeerNode(fastPeer);
+        ExecutorService runtime = startIf(started, sender, fastPeer, slowPeer);
+
+        sender.broadcastBlock(block);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (fastPeer.getBlockchain().getBlockchain().size() < 2) {
+            assertTrue(System.currentTimeMillis() < deadline, "The fast peer should not wait for the slow one.");
+            Thread.sleep(5);
+        }
+        assertEquals(1, slowPeer.getBlockchain().getBlockchain().size(), "The slow peer should still be busy.");
+
+        slowPeerReleased.countDown();
+        while (slowPeer.getBlockchain().getBlockchain().size() < 2) {
+            assertTrue(System.currentTimeMillis() < deadline, "The slow peer should catch up once released.");
+            Thread.sleep(5);
+        }
+        stop(runtime, sender, fastPeer, slowPeer);
+    }
+
+    @Test
+    public void testBlockMessagesAreNotDroppedWhenThePeerFallsBehind() throws Exception {
+        checkBlockMessagesAreNotDroppedWhenThePeerFallsBehind(false);
+    }
+
+    @Test
+    public void testBlockMessagesAreNotDroppedWhenAStartedPeerFallsBehind() throws Exception {
+        checkBlockMessagesAreNotDroppedWhenThePeerFallsBehind(true);
+    }
+
+    private void checkBlockMessagesAreNotDroppedWhenThePeerFallsBehind(boolean started) throws Exception {
+        CountDownLatch slowPeerReleased = new CountDownLatch(1);
+        Node sender = new Node("Sender", new Blockchain(DIFFICULTY));
+        Node slowPeer = new Node("Slow", new Blockchain(DIFFICULTY));
+        slowPeer.setConsensus(stallingConsensus(slowPeerReleased));
+        sender.setOutboundPolicy(2, OverflowPolicy.DROP_OLDEST);
+        sender.setTransactionAnnounceWindow(0);
+        sender.addPeerNode(slowPeer);
+        Block child = new Block(List.of(new Transaction("Bob", "Carol", 1)), block.getHash());
+        child.mineBlock(DIFFICULTY);
+        ExecutorService runtime = startIf(started, sender, slowPeer);
+
+        sender.broadcastBlock(block);  // Occupies the slow peer
+        sender.broadcastBlock(child);
+        for (int i = 0; i < 10; i++) {
+            sender.broadcastTransaction(new Transaction("Alice", "Bob", i + 1));  // Overflows the queue
+        }
+        slowPeerReleased.countDown();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (slowPeer.getBlockchain().getBlockchain().size() < 3) {
+            assertTrue(System.currentTimeMillis() < deadline, "The queued block should survive the overflow.");
+            Thread.sleep(5);
+        }
+        assertTrue(sender.getPeerNodes().contains(slowPeer), "Dropping announcements should not cost the peer.");
+        stop(runtime, sender, slowPeer);
+    }
+
+    @Test
+    public void testPeerFallingBehindIsDisconnected() throws Exception {
+        checkPeerFallingBehindIsDisconnected(false);
+    }
+
+    @Test
+    public void testStartedPeerFallingBehindIsDisconnected() throws Exception {
+        checkPeerFallingBehindIsDisconnected(true);
+    }
+
+    private void checkPeerFallingBehindIsDisconnected(boolean started) throws Exception {
+        CountDownLatch slowPeerReleased = new CountDownLatch(1);
+        Node sender = new Node("Sender", new Blockchain(DIFFICULTY));
+        Node slowPeer = new Node("Slow", new Blockchain(DIFFICULTY));
+        slowPeer.setConsensus(stallingConsensus(slowPeerReleased));
+        sender.setOutboundPolicy(2, OverflowPolicy.DISCONNECT);
+        sender.setTransactionAnnounceWindow(0);  // Announce every transaction in its own message
+        sender.addPeerNode(slowPeer);
+        slowPeer.addPeerNode(sender);
+        ExecutorService runtime = startIf(started, sender, slowPeer);
+
+        sender.broadcastBlock(block);  // Occupies the slow peer
+        for (int i = 0; i < 10; i++) {
+            sender.broadcastTransaction(new Transaction("Alice", "Bob", i + 1));
+            Thread.sleep(20);  // Not a burst: the queue only fills because the peer handles nothing
+        }
+
+        assertFalse(sender.getPeerNodes().contains(slowPeer), "A peer whose queue overflowed should be disconnected.");
+        assertFalse(slowPeer.getPeerNodes().contains(sender), "The disconnection should apply in both directions.");
+        slowPeerReleased.countDown();
+        stop(runtime, sender, slowPeer);
+    }
+
+    /**
+     * Starts the nodes' runtimes on a thread per node, so a stalled peer cannot hold up the others
+     * whatever the number of cores.
+     *
+     * @return The executor the nodes run on, or null if they are not started.
+     */
+    private static ExecutorService startIf(boolean started, Node... nodes) {
+        if (!started) {
+            return null;
+        }
+        ExecutorService runtime = Executors.newCachedThreadPool();
+        for (Node node : nodes) {
+            node.setRuntimeExecutor(runtime);
+            node.start();
+        }
+        return runtime;
+    }
+
+    private static void stop(ExecutorService runtime, Node... nodes) {
+        for (Node node : nodes) {
+            node.stop();
+        }
+        if (runtime != null) {
+            runtime.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates a consensus whose block validation stalls until the latch is released (or for at most 10 seconds).
+     */
+    private static PoWConsensus stallingConsensus(CountDownLatch released) {
+        return new PoWConsensus() {
+            @Override
+            public boolean validateBlock(Block block, int difficulty) {
+                try {
+                    released.await(10, TimeUnit.SECONDS);  // Stall until the test lets the peer continue
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.validateBlock(block, difficulty);
+            }
+        };
+    }
+}
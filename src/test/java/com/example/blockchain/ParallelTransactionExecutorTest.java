@@ -0,0 +1,132 @@
+package com.example.blockchain;
+
+import com.example.blockchain.transactions.AccountState;
+import com.example.blockchain.transactions.ParallelTransactionExecutor;
+import com.example.blockchain.transactions.Transaction;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit tests for the AccountState and ParallelTransactionExecutor classes.
+ * These tests validate that transfers are only applied when funded and that parallel execution gives exactly
+ * the balances and outcomes of sequential execution, whatever the conflicts between transactions.
+ */
+public class ParallelTransactionExecutorTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    public static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    public static void shutDownPool() {
+        pool.shutdown();
+    }
+
+    private static AccountState fundedState(int accounts, double balance) {
+        AccountState state = new AccountState();
+        for (int i = 0; i < accounts; i++) {
+            state.credit("Account" + i, balance);
+        }
+        return state;
+    }
+
+    /**
+     * Draws transfers between accounts; a hot account, if any, is in a share of them.
+     */
+    private static List<Transaction> randomBlock(Random random, int size, int accounts, double hotShare) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String sender = random.nextDouble() < hotShare ? "Account0" : "Account" + random.nextInt(accounts);
+            String recipient = "Account" + random.nextInt(accounts + 10);  // Some recipients are new accounts
+            transactions.add(new Transaction(sender, recipient, 0.01 + random.nextDouble() * 30));
+        }
+        return transactions;
+    }
+
+    private static void assertMatchesSequential(List<Transaction> transactions, int accounts, double balance) {
+        AccountState sequential = fundedState(accounts, balance);
+        AccountState parallel = fundedState(accounts, balance);
+        ParallelTransactionExecutor executor = new ParallelTransactionExecutor(pool);
+        executor.setSequentialThreshold(0);
+
+        boolean[] expected = sequential.applyAll(transactions);
+        boolean[] applied = executor.execute(parallel, transactions);
+        assertArrayEquals(expected, applied, "Each transaction should succeed or fail as in block order.");
+        assertEquals(sequential.getBalances(), parallel.getBalances(), "Balances should match to the last bit.");
+    }
+
+    @Test
+    public void testTransferNeedsFunds() {
+        AccountState state = new AccountState();
+        state.credit("Alice", 10);
+        assertFalse(state.apply(new Transaction("Alice", "Bob", 11)), "An overdraft should be rejected.");
+        assertTrue(state.apply(new Transaction("Alice", "Bob", 4)), "A funded transfer should be applied.");
+        assertEquals(6.0, state.getBalance("Alice"), "The sender should be debited.");
+        assertEquals(4.0, state.getBalance("Bob"), "The recipient should be credited.");
+        assertEquals(0.0, state.getBalance("Carol"), "Unknown accounts have no funds.");
+        assertThrows(IllegalArgumentException.class, () -> state.credit("Alice", 0), "Credits must be positive.");
+    }
+
+    @Test
+    public void testMatchesSequentialExecution() {
+        Random random = new Random(11);
+        // Mostly disjoint transfers, many conflicts, a hot account, and balances too low for many transfers
+        assertMatchesSequential(randomBlock(random, 20_000, 50_000, 0), 50_000, 100);
+        assertMatchesSequential(randomBlock(random, 20_000, 100, 0), 100, 100);
+        assertMatchesSequential(randomBlock(random, 20_000, 5_000, 0.3), 5_000, 100);
+        assertMatchesSequential(randomBlock(random, 20_000, 1_000, 0), 1_000, 20);
+    }
+
+    @Test
+    public void testRepeatedBlocksOnTheSameState() {
+        Random random = new Random(5);
+        AccountState sequential = fundedState(2_000, 50);
+        AccountState parallel = fundedState(2_000, 50);
+        ParallelTransactionExecutor executor = new ParallelTransactionExecutor(pool);
+        executor.setSequentialThreshold(0);
+        for (int block = 0; block < 10; block++) {
+            List<Transaction> transactions = randomBlock(random, 5_000, 2_000, 0.05);
+            assertArrayEquals(sequential.applyAll(transactions), executor.execute(parallel, transactions),
+                    "Block " + block + " should have the same outcomes as in block order.");
+        }
+        assertEquals(sequential.getBalances(), parallel.getBalances(), "Balances should match after every block.");
+    }
+
+    @Test
+    public void testOneExecutorForStatesOfDifferentSizes() {
+        Random random = new Random(9);
+        ParallelTransactionExecutor executor = new ParallelTransactionExecutor(pool);
+        executor.setSequentialThreshold(0);
+        for (int accounts : new int[] {20_000, 300, 5_000}) {
+            AccountState sequential = fundedState(accounts, 40);
+            AccountState parallel = fundedState(accounts, 40);
+            List<Transaction> transactions = randomBlock(random, 10_000, accounts, 0.01);
+            assertArrayEquals(sequential.applyAll(transactions), executor.execute(parallel, transactions),
+                    "A state with " + accounts + " accounts should have the same outcomes as in block order.");
+            assertEquals(sequential.getBalances(), parallel.getBalances(), "Balances should match for every state.");
+        }
+    }
+
+    @Test
+    public void testSmallBlocksAndSelfTransfers() {
+        assertMatchesSequential(new ArrayList<>(), 1, 10);
+        List<Transaction> transactions = new ArrayList<>();
+        transactions.add(new Transaction("Account0", "Account0", 5));
+        transactions.add(new Transaction("Account0", "Account1", 8));
+        transactions.add(new Transaction("Account1", "Account0", 20));
+        assertMatchesSequential(transactions, 2, 10);
+        ParallelTransactionExecutor executor = new ParallelTransactionExecutor(pool);
+        assertThrows(IllegalArgumentException.class, () -> executor.setSequentialThreshold(-1),
+                "Negative thresholds should be rejected.");
+    }
+}
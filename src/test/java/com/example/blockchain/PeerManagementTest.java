@@ -0,0 +1,173 @@
+package com.example.blockchain;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.consensus.PoSConsensus;
+import com.example.blockchain.consensus.StakeLedger;
+import com.example.blockchain.cryptography.CryptoUtil;
+import com.example.blockchain.cryptography.Hash256;
+import com.example.blockchain.network.Node;
+import com.example.blockchain.network.P2PNetwork;
+import com.example.blockchain.network.PeerScore;
+import com.example.blockchain.simulation.Topology;
+import com.example.blockchain.transactions.Transaction;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.security.KeyPair;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for bounded-degree peer management.
+ * These tests validate peer limits, topology construction, peer scoring and the replacement of bad peers.
+ */
+public class PeerManagementTest {
+
+    private static final int DIFFICULTY = 2;
+
+    private static P2PNetwork createNetwork(int nodeCount) {
+        P2PNetwork network = new P2PNetwork();
+        for (int i = 0; i < nodeCount; i++) {
+            network.addNodeToNetwork(new Node(String.format("Node%03d", i), new Blockchain(DIFFICULTY)));
+        }
+        return network;
+    }
+
+    @Test
+    public void testPeerLimitsAreEnforced() {
+        Node hub = new Node("Hub", new Blockchain(DIFFICULTY));
+        hub.setPeerLimits(1, 2);
+        Node a = new Node("A", new Blockchain(DIFFICULTY));
+        Node b = new Node("B", new Blockchain(DIFFICULTY));
+        Node c = new Node("C", new Blockchain(DIFFICULTY));
+
+        assertTrue(a.connectToPeer(hub), "The hub should accept a first inbound peer.");
+        assertTrue(b.connectToPeer(hub), "The hub should accept a second inbound peer.");
+        assertFalse(c.connectToPeer(hub), "The hub should refuse inbound peers beyond its limit.");
+        assertFalse(a.connectToPeer(hub), "Nodes should not connect twice.");
+        assertTrue(hub.connectToPeer(c), "The hub should still open an outbound connection.");
+        assertEquals(1, hub.getOutboundPeerCount(), "The hub should have one outbound peer.");
+        assertEquals(2, hub.getInboundPeerCount(), "The hub should have two inbound peers.");
+    }
+
+    @Test
+    public void testManualPeersDoNotCountAgainstLimits() {
+        Node node = new Node("Node", new Blockchain(DIFFICULTY));
+        node.setPeerLimits(1, 1);
+        node.addPeerNode(new Node("Manual1", new Blockchain(DIFFICULTY)));
+        node.addPeerNode(new Node("Manual2", new Blockchain(DIFFICULTY)));
+
+        assertEquals(0, node.getOutboundPeerCount(), "Manual peers should not count as outbound connections.");
+        assertEquals(0, node.getInboundPeerCount(), "Manual peers should not count as inbound connections.");
+        assertTrue(node.connectToPeer(new Node("Outbound", new Blockchain(DIFFICULTY))),
+                "The outbound slot should still be free.");
+        assertTrue(new Node("Inbound", new Blockchain(DIFFICULTY)).connectToPeer(node),
+                "The inbound slot should still be free.");
+        assertEquals(4, node.getPeerNodes().size(), "Manual peers should stay connected alongside the others.");
+    }
+
+    @Test
+    public void testOnlyTheProposerIsPenalizedForADoubleSignedBlock() throws Exception {
+        Map<String, Double> stakes = Map.of("Validator1", 100.0);
+        Map<String, KeyPair> keys = Map.of("Validator1", CryptoUtil.generateKeyPair());
+        PoSConsensus proposerConsensus = new PoSConsensus(new StakeLedger(stakes), keys);
+        Node receiver = new Node("Receiver", new Blockchain(0));
+        receiver.setConsensus(new PoSConsensus(new StakeLedger(stakes), keys));
+        Node relayer = new Node("Relayer", new Blockchain(0));
+        Node proposer = new Node("Validator1", new Blockchain(0));
+        for (Node sender : List.of(relayer, proposer)) {
+            sender.setCompactBlockRelay(false);
+            sender.addPeerNode(receiver);
+            receiver.addPeerNode(sender);
+        }
+
+        long slot = System.currentTimeMillis() / PoSConsensus.SLOT_DURATION_MS;
+        Hash256 genesis = receiver.getBlockchain().getLatestBlock().getHash();
+        Block[] conflicting = new Block[3];
+        for (int i = 0; i < conflicting.length; i++) {
+            conflicting[i] = new Block(List.of(new Transaction("Alice", "Bob", i + 1)), genesis,
+                    slot * PoSConsensus.SLOT_DURATION_MS);
+            proposerConsensus.proposeBlock(conflicting[i], slot);
+        }
+        receiver.receiveBlock(conflicting[0]);
+        relayer.broadcastBlock(conflicting[1]);  // Honest: the relayer happened to see this block first
+        proposer.broadcastBlock(conflicting[2]);  // The validator that double-signed sends a block itself
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!receiver.hasSeenBlock(conflicting[1].getHash()) || !receiver.hasSeenBlock(conflicting[2].getHash())) {
+            assertTrue(System.currentTimeMillis() < deadline, "Both conflicting blocks should be rejected.");
+            Thread.sleep(5);
+        }
+        assertEquals(0, receiver.getPeerScore(relayer).getInvalidMessages(), "The relayer should not be penalized.");
+        assertEquals(1, receiver.getPeerScore(proposer).getInvalidMessages(), "The proposer should be penalized.");
+    }
+
+    @Test
+    public void testRandomTopologyHasBoundedDegreeAndSmallDiameter() {
+        P2PNetwork network = createNetwork(300);
+        network.buildRandomTopology(4, 8, 11L);
+
+        for (Node node : network.getNodesInNetwork().values()) {
+            assertEquals(4, node.getOutboundPeerCount(), "Every node should fill its outbound slots.");
+            assertTrue(node.getInboundPeerCount() <= 8, "No node should exceed its inbound limit.");
+        }
+        int eccentricity = Topology.fromNetwork(network).getEccentricity(0);
+        assertTrue(eccentricity > 0 && eccentricity <= 8, "The network should be connected with a small diameter.");
+    }
+
+    @Test
+    public void testSmallWorldTopology() {
+        P2PNetwork network = createNetwork(200);
+        network.applyTopology(Topology.smallWorld(200, 6, 0.2, 3L));
+
+        for (Node node : network.getNodesInNetwork().values()) {
+            assertTrue(node.getPeerNodes().size() >= 1, "Every node should have peers.");
+        }
+        assertTrue(Topology.fromNetwork(network).getEccentricity(0) > 0, "The network should be connected.");
+    }
+
+    @Test
+    public void testUsefulDeliveriesAreScored() {
+        P2PNetwork network = createNetwork(2);
+        Node sender = network.getNodesInNetwork().get("Node000");
+        Node receiver = network.getNodesInNetwork().get("Node001");
+        sender.connectToPeer(receiver);
+
+        sender.broadcastTransaction(new Transaction("Alice", "Bob", 10));
+        assertTrue(network.awaitQuiescence(10_000), "Gossip should settle.");
+
+        PeerScore score = receiver.getPeerScore(sender);
+        assertEquals(1, score.getUsefulDeliveries(), "The sender delivered a new transaction first.");
+        assertEquals(0, score.getInvalidMessages(), "The sender sent nothing invalid.");
+    }
+
+    @Test
+    public void testPeersSendingInvalidBlocksAreReplaced() {
+        P2PNetwork network = createNetwork(30);
+        network.buildRandomTopology(4, 8, 5L);
+        Node attacker = network.getNodesInNetwork().get("Node000");
+        List<Node> victims = new ArrayList<>(attacker.getPeerNodes());
+
+        for (int i = 0; i < 2; i++) {
+            Block block;
+            do {
+                List<Transaction> transactions = new ArrayList<>();
+                transactions.add(new Transaction("Mallory", "Mallory", i + 1));
+                block = new Block(transactions, attacker.getBlockchain().getLatestBlock().getHash());
+            } while (block.getHash().meetsDifficulty(DIFFICULTY));  // Not mined, and not valid by chance either
+            attacker.broadcastBlock(block);
+        }
+        assertTrue(network.awaitQuiescence(10_000), "Gossip should settle.");
+        for (Node victim : victims) {
+            assertTrue(victim.getPeerScore(attacker).shouldEvict(), "Invalid blocks should ruin the attacker's score.");
+        }
+
+        assertEquals(victims.size(), network.maintainPeers(), "Every victim should drop the attacker.");
+        for (Node victim : victims) {
+            assertFalse(victim.isConnectedTo(attacker), "The attacker should be disconnected.");
+            assertEquals(4, victim.getOutboundPeerCount(), "Victims should refill their outbound slots.");
+        }
+    }
+}
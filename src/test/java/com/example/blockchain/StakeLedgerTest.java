@@ -0,0 +1,88 @@
+package com.example.blockchain;
+
+import com.example.blockchain.consensus.StakeLedger;
+import com.example.blockchain.consensus.StakeSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Unit tests for the StakeLedger class.
+ * These tests validate deposits, slashing, snapshots, and concurrent updates.
+ */
+public class StakeLedgerTest {
+
+    private StakeLedger stakeLedger;
+
+    @BeforeEach
+    public void setUp() {
+        Map<String, Double> stakes = new HashMap<>();
+        stakes.put("Validator1", 100.0);
+        stakes.put("Validator2", 50.0);
+        stakeLedger = new StakeLedger(stakes);
+    }
+
+    @Test
+    public void testSlashingReducesStakeAndCountsOffense() {
+        double slashed = stakeLedger.slash("Validator1", 0.2);
+
+        assertEquals(20.0, slashed, "20% of the stake should have been slashed.");
+        assertEquals(80.0, stakeLedger.getStake("Validator1"), "Validator1 should keep 80% of its stake.");
+        assertEquals(1, stakeLedger.getSlashCount("Validator1"), "The offense should have been recorded.");
+        assertEquals(0.0, stakeLedger.slash("Unknown", 0.2), "Slashing an unknown validator should have no effect.");
+    }
+
+    @Test
+    public void testSnapshotIsImmutableAndReusedUntilChange() {
+        StakeSnapshot snapshot = stakeLedger.snapshot();
+        assertSame(snapshot, stakeLedger.snapshot(), "An unchanged ledger should return the cached snapshot.");
+
+        stakeLedger.deposit("Validator3", 25.0);
+        StakeSnapshot updated = stakeLedger.snapshot();
+
+        assertEquals(2, snapshot.size(), "The old snapshot should not see later deposits.");
+        assertEquals(3, updated.size(), "A new snapshot should include the new validator.");
+        assertEquals(175.0, updated.getTotalStake(), "The total stake should include the deposit.");
+        assertEquals("Validator1", updated.getValidator(0), "Validators should be ordered by address.");
+        assertEquals(25.0, updated.getStake("Validator3"), "The deposit should be visible by address.");
+    }
+
+    @Test
+    public void testConcurrentDepositsAndSlashings() throws Exception {
+        int threads = 8;
+        int depositsPerThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < depositsPerThread; i++) {
+                        stakeLedger.deposit("Validator2", 1.0);
+                        stakeLedger.slash("Validator1", 0.0);
+                        stakeLedger.snapshot();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(50.0 + threads * depositsPerThread, stakeLedger.getStake("Validator2"),
+                "No concurrent deposit should be lost.");
+        assertEquals(threads * depositsPerThread, stakeLedger.getSlashCount("Validator1"),
+                "No concurrent slashing should be lost.");
+        assertEquals(50.0 + threads * depositsPerThread, stakeLedger.snapshot().getStake("Validator2"),
+                "A snapshot taken after the updates should reflect all of them.");
+    }
+}
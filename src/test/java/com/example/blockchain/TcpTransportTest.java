@@ -0,0 +1,280 @@
+package com.example.blockchain;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.consensus.PoWConsensus;
+import com.example.blockchain.network.BlockCodec;
+import com.example.blockchain.network.BlockImportPipeline;
+import com.example.blockchain.network.MessageType;
+import com.example.blockchain.network.Node;
+import com.example.blockchain.network.TcpTransport;
+import com.example.blockchain.transactions.Transaction;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Unit tests for the TcpTransport class.
+ * All tests run over the loopback interface.
+ */
+public class TcpTransportTest {
+
+    private static final InetSocketAddress LOOPBACK = new InetSocketAddress("127.0.0.1", 0);
+
+    @Test
+    public void testNodesExchangeBlocksOverTcp() throws Exception {
+        Node nodeA = new Node("A", new Blockchain(2));
+        Node nodeB = new Node("B", new Blockchain(2));
+        try (TcpTransport transportA = nodeA.startTransport(LOOPBACK);
+             TcpTransport transportB = nodeB.startTransport(LOOPBACK)) {
+            int portA = transportA.getLocalPort();
+            nodeB.connectToRemotePeer(new InetSocketAddress("127.0.0.1", portA));
+            waitFor(() -> transportA.getConnectedPeers().size() == 1 && transportB.getConnectedPeers().size() == 1);
+
+            assertEquals("B", transportA.getConnectedPeers().get(0).getRemoteNodeId(), "A should learn B's ID from the handshake.");
+            assertEquals("A", transportB.getConnectedPeers().get(0).getRemoteNodeId(), "B should learn A's ID from the handshake.");
+
+            List<Transaction> transactions = new ArrayList<>();
+            transactions.add(new Transaction("Alice", "Bob", 10));
+            Block block = new Block(transactions, nodeA.getBlockchain().getLatestBlock().getHash());
+            nodeA.getBlockchain().addBlock(block);
+            nodeA.broadcastBlock(block);
+
+            waitFor(() -> nodeB.getBlockchain().getBlockchain().size() == 2);
+            assertEquals(block.getTransactions().toString(),
+                    nodeB.getBlockchain().getLatestBlock().getTransactions().toString(),
+                    "B should have received A's block over TCP.");
+        }
+    }
+
+    @Test
+    public void testBlockValidationDoesNotHoldUpTheTransport() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Node nodeA = new Node("A", new Blockchain(2));
+        nodeA.setConsensus(new PoWConsensus() {
+            @Override
+            public boolean validateBlock(Block block, int difficulty) {
+                try {
+                    release.await();  // A block that takes a long time to validate
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.validateBlock(block, difficulty);
+            }
+        });
+        nodeA.setCompactBlockRelay(false);
+        Node nodeB = new Node("B", new Blockchain(2));
+        nodeB.setCompactBlockRelay(false);
+        try (TcpTransport transportA = nodeA.startTransport(LOOPBACK);
+             TcpTransport transportB = nodeB.startTransport(LOOPBACK);
+             TcpTransport late = new TcpTransport("C", (peer, type, payload) -> { })) {
+            InetSocketAddress addressA = new InetSocketAddress("127.0.0.1", transportA.getLocalPort());
+            nodeB.connectToRemotePeer(addressA);
+            waitFor(() -> transportA.getConnectedPeers().size() == 1 && transportB.getConnectedPeers().size() == 1);
+
+            Block block = new Block(new ArrayList<>(), nodeB.getBlockchain().getLatestBlock().getHash());
+            nodeB.getBlockchain().addBlock(block);
+            nodeB.broadcastBlock(block);
+            Thread.sleep(200);  // Let A start validating the block
+
+            // The handshake needs A's selector thread, which must not be stuck validating
+            late.connect(addressA);
+            waitFor(() -> transportA.getConnectedPeers().size() == 2);
+
+            release.countDown();
+            waitFor(() -> nodeA.getBlockchain().getHeight() == 1);
+        } finally {
+            release.countDown();
+            nodeA.stop();
+            nodeB.stop();
+        }
+    }
+
+    @Test
+    public void testKeepAliveMeasuresRoundTrip() throws Exception {
+        TcpTransport.Listener ignore = (peer, type, payload) -> { };
+        try (TcpTransport server = new TcpTransport("server", ignore, 1 << 20, 100);
+             TcpTransport client = new TcpTransport("client", ignore, 1 << 20, 100)) {
+            int port = server.listen(LOOPBACK);
+            TcpTransport.Peer peer = client.connect(new InetSocketAddress("127.0.0.1", port));
+
+            waitFor(() -> peer.getRoundTripNanos() > 0);
+            Thread.sleep(500);  // Several keepalive intervals without application traffic
+            assertTrue(peer.isConnected(), "Keepalives should keep an idle connection open.");
+        }
+    }
+
+    @Test
+    public void testPausedPeerIsNeitherReadNorDisconnected() throws Exception {
+        int messages = 2000;
+        AtomicInteger received = new AtomicInteger();
+        AtomicReference<TcpTransport.Peer> sender = new AtomicReference<>();
+        TcpTransport.Listener pauseOnFirstMessage = (peer, type, payload) -> {
+            if (received.incrementAndGet() == 1) {
+                sender.set(peer);
+                peer.pauseReading();
+            }
+        };
+        try (TcpTransport server = new TcpTransport("server", pauseOnFirstMessage, 4 << 20, 100);
+             TcpTransport client = new TcpTransport("client", (peer, type, payload) -> { }, 4 << 20, 100)) {
+            int port = server.listen(LOOPBACK);
+            TcpTransport.Peer peer = client.connect(new InetSocketAddress("127.0.0.1", port));
+            waitFor(peer::isConnected);
+            for (int i = 0; i < messages; i++) {
+                assertTrue(peer.send(MessageType.TRANSACTION, new byte[1024]), "The message should be queued.");
+            }
+
+            Thread.sleep(1000);  // Several keepalive intervals without reading from the client
+            assertTrue(received.get() < messages, "A paused peer should not be read from.");
+            assertTrue(sender.get().isConnected(), "A paused peer should not be disconnected for being silent.");
+
+            sender.get().resumeReading();
+            waitFor(() -> received.get() == messages);
+        }
+    }
+
+    @Test
+    public void testRemoteBlocksWaitForAFullImportPipeline() throws Exception {
+        Blockchain sourceChain = new Blockchain(2);
+        for (int i = 0; i < 20; i++) {
+            List<Transaction> transactions = new ArrayList<>();
+            transactions.add(new Transaction("Alice", "Bob", i + 1));
+            sourceChain.addBlock(new Block(transactions, sourceChain.getLatestBlock().getHash()));
+        }
+        CountDownLatch storeReleased = new CountDownLatch(1);
+        Node node = new Node("A", new Blockchain(2));
+        try (BlockImportPipeline pipeline = new BlockImportPipeline(node.getBlockchain(), new PoWConsensus(), 1, 2,
+                block -> {
+                    try {
+                        storeReleased.await();  // Simulate a stalled disk
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+             TcpTransport transport = node.startTransport(LOOPBACK);
+             TcpTransport remote = new TcpTransport("B", (peer, type, payload) -> { })) {
+            node.setImportPipeline(pipeline);
+            TcpTransport.Peer peer = remote.connect(new InetSocketAddress("127.0.0.1", transport.getLocalPort()));
+            waitFor(peer::isConnected);
+            for (Block block : sourceChain.getBlockchain().subList(1, sourceChain.getBlockchain().size())) {
+                assertTrue(peer.send(MessageType.BLOCK, BlockCodec.encode(block)), "The block should be queued.");
+            }
+            waitFor(() -> node.getMetrics().snapshot().getCounter("blocks.pipeline.full") > 0);
+
+            storeReleased.countDown();
+            waitFor(() -> node.getBlockchain().getHeight() == 20);
+            assertTrue(pipeline.awaitIdle(10, TimeUnit.SECONDS), "The pipeline should drain.");
+            assertEquals(0, node.getMetrics().snapshot().getCounter("blocks.remote.dropped"),
+                    "No block should be dropped while the pipeline is full.");
+        } finally {
+            storeReleased.countDown();
+            node.stop();
+        }
+    }
+
+    @Test
+    public void testPeerTooSlowForBlocksIsDisconnected() throws Exception {
+        Node node = new Node("A", new Blockchain(2));
+        node.setCompactBlockRelay(false);
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            transactions.add(new Transaction("Alice", "Bob", i + 1));
+        }
+        Block block = new Block(transactions, node.getBlockchain().getLatestBlock().getHash());
+        try (TcpTransport transport = node.startTransport(LOOPBACK);
+             TcpTransport remote = new TcpTransport("B", (peer, type, payload) -> { })) {
+            TcpTransport.Peer peer = remote.connect(new InetSocketAddress("127.0.0.1", transport.getLocalPort()));
+            waitFor(() -> peer.isConnected() && transport.getConnectedPeers().size() == 1);
+            peer.pauseReading();  // B stops reading, so A's send queue fills up
+
+            for (int i = 0; i < 50 && !transport.getConnectedPeers().isEmpty(); i++) {
+                node.broadcastBlock(block);
+            }
+            waitFor(() -> transport.getConnectedPeers().isEmpty());
+            assertTrue(node.getMetrics().snapshot().getCounter("blocks.relay.failed") > 0,
+                    "The block the peer could not take should be counted.");
+        } finally {
+            node.stop();
+        }
+    }
+
+    @Test
+    public void testRejectsPeerWithoutHandshake() throws Exception {
+        try (TcpTransport server = new TcpTransport("server", (peer, type, payload) -> { });
+             Socket socket = new Socket()) {
+            int port = server.listen(LOOPBACK);
+            socket.connect(new InetSocketAddress("127.0.0.1", port));
+            socket.setSoTimeout(5000);
+
+            OutputStream out = socket.getOutputStream();
+            out.write(new byte[] {0, 0, 0, 2, MessageType.BLOCK, 42});  // A block frame before any HELLO
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            int read;
+            do {
+                read = in.read();  // Skip the server's HELLO until the connection is closed
+            } while (read >= 0);
+            assertEquals(-1, read, "The server should close a connection that skips the handshake.");
+        }
+    }
+
+    @Test
+    public void testRejectsLargeFrameBeforeHandshake() throws Exception {
+        try (TcpTransport server = new TcpTransport("server", (peer, type, payload) -> { });
+             Socket socket = new Socket()) {
+            int port = server.listen(LOOPBACK);
+            socket.connect(new InetSocketAddress("127.0.0.1", port));
+            socket.setSoTimeout(5000);
+
+            OutputStream out = socket.getOutputStream();
+            out.write(new byte[] {0, (byte) 0x10, 0, 0});  // Announces a 1 MiB frame instead of a HELLO
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            int read;
+            do {
+                read = in.read();  // Skip the server's HELLO until the connection is closed
+            } while (read >= 0);
+            assertEquals(-1, read, "The server should close a connection announcing a large frame too early.");
+        }
+    }
+
+    @Test
+    public void testThousandsOfConcurrentConnections() throws Exception {
+        int connections = 1000;
+        AtomicInteger received = new AtomicInteger();
+        try (TcpTransport server = new TcpTransport("server", (peer, type, payload) -> { });
+             TcpTransport client = new TcpTransport("client", (peer, type, payload) -> received.incrementAndGet())) {
+            int port = server.listen(LOOPBACK);
+            for (int i = 0; i < connections; i++) {
+                client.connect(new InetSocketAddress("127.0.0.1", port));
+            }
+            waitFor(() -> server.getConnectedPeers().size() == connections
+                    && client.getConnectedPeers().size() == connections);
+
+            assertEquals(connections, server.broadcast(MessageType.TRANSACTION, new byte[128]),
+                    "The broadcast should be queued for every peer.");
+            waitFor(() -> received.get() == connections);
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the network.");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -56,4 +56,29 @@ public class TransactionTest {
         assertEquals(initialRecipient, transaction.getRecipient(), "Recipient should not change.");
         assertEquals(initialAmount, transaction.getAmount(), "Transaction amount should not change.");
     }
+
+    @Test
+    public void testHashIsComputedOnce() {
+        // Merkle roots use the hash itself; it must match the hexadecimal form and not be recomputed
+        assertEquals(transaction.getHash(), transaction.getHash256().toHex(), "Both forms should be the same hash.");
+        assertSame(transaction.getHash256(), transaction.getHash256(), "The hash should be cached.");
+    }
+
+    @Test
+    public void testIdenticalTransfersHaveDistinctHashes() {
+        // Repeating a transfer must create a new transaction, not a duplicate of the first one
+        Transaction repeated = new Transaction("Alice", "Bob", 50.0);
+        assertNotEquals(transaction.getHash(), repeated.getHash(), "Identical transfers should have distinct hashes.");
+
+        Transaction copy = new Transaction("Alice", "Bob", 50.0, transaction.getNonce());
+        assertEquals(transaction.getHash(), copy.getHash(), "The same transfer and nonce should have the same hash.");
+    }
+
+    @Test
+    public void testAddressesCannotBeShiftedBetweenFields() {
+        // Both transfers read "Transaction{sender='A', recipient='B', recipient='C', amount=1.0}" when printed
+        Transaction first = new Transaction("A', recipient='B", "C", 1.0, 7L);
+        Transaction second = new Transaction("A", "B', recipient='C", 1.0, 7L);
+        assertNotEquals(first.getHash(), second.getHash(), "Different transfers should have different hashes.");
+    }
 }
@@ -0,0 +1,180 @@
+package com.example.blockchain;
+
+import com.example.blockchain.blockchain.Block;
+import com.example.blockchain.blockchain.BlockHeader;
+import com.example.blockchain.blockchain.Blockchain;
+import com.example.blockchain.cryptography.Hash256;
+import com.example.blockchain.mining.MiningKernels;
+import com.example.blockchain.mining.MiningWorker;
+import com.example.blockchain.mining.WorkCoordinator;
+import com.example.blockchain.mining.WorkProtocol;
+import com.example.blockchain.network.Node;
+import com.example.blockchain.transactions.Transaction;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Unit tests for the WorkCoordinator and MiningWorker classes.
+ * These tests validate that workers mine blocks for a node over loopback, that a new tip makes the coordinator
+ * abandon outstanding work, that shares are verified and counted, and that workers that do not read are dropped.
+ */
+public class WorkCoordinatorTest {
+
+    private static final InetSocketAddress LOOPBACK = new InetSocketAddress("127.0.0.1", 0);
+
+    @Test
+    public void testWorkersMineBlocksForTheNode() throws Exception {
+        Node node = new Node("Coordinator", new Blockchain(3));
+        node.receiveTransaction(new Transaction("Alice", "Bob", 10));
+        try (WorkCoordinator coordinator = new WorkCoordinator(node)) {
+            coordinator.setRangeSize(1 << 14);
+            InetSocketAddress address = coordinator.start(LOOPBACK);
+            try (MiningWorker first = new MiningWorker("first", MiningKernels.scalar());
+                 MiningWorker second = new MiningWorker("second", MiningKernels.scalar())) {
+                first.connect(address);
+                second.connect(address);
+                waitFor(() -> node.getBlockchain().getHeight() >= 3);
+
+                assertTrue(node.getBlockchain().isChainValid(), "The mined chain should be valid.");
+                for (int height = 1; height <= 3; height++) {
+                    assertTrue(node.getBlockchain().getBlock(height).getHash().meetsDifficulty(3),
+                            "Every mined block should meet the node's difficulty.");
+                }
+                assertEquals("Alice", node.getBlockchain().getBlock(1).getTransactions().get(0).getSender(),
+                        "The first block should include the pending transaction.");
+                assertTrue(node.getPendingTransactions().isEmpty(), "Mined transactions should leave the pool.");
+
+                waitFor(() -> coordinator.getWorkers().size() == 2);
+                // Workers get their frames from their own writer threads, so the second one may start a little late
+                waitFor(() -> coordinator.getWorkers().stream().allMatch(stats -> stats.getAcceptedShares() > 0));
+                long blocks = 0;
+                for (WorkCoordinator.WorkerStats stats : coordinator.getWorkers()) {
+                    assertTrue(stats.getAcceptedShares() > 0, "Every worker should have shares accepted.");
+                    assertTrue(stats.getHashrate() > 0, "Every worker should report its hashes.");
+                    assertEquals(0, stats.getRejectedShares(), "Honest workers should have no shares rejected.");
+                    blocks += stats.getBlocksFound();
+                }
+                assertTrue(blocks >= 3, "The blocks should be credited to the workers that found them.");
+                waitFor(() -> first.getBlocksFound() + second.getBlocksFound() >= 3);
+                assertTrue(node.getMetrics().snapshot().getCounter("mining.shares.accepted") > 0,
+                        "Accepted shares should be reported in the node's metrics.");
+            }
+        }
+    }
+
+    @Test
+    public void testNewTipAbandonsWork() throws Exception {
+        Node node = new Node("Coordinator", new Blockchain(2));
+        try (WorkCoordinator coordinator = new WorkCoordinator(node);
+             Socket socket = new Socket()) {
+            coordinator.setShareZeroBits(8);
+            socket.connect(coordinator.start(LOOPBACK));
+            socket.setSoTimeout(5000);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            byte[] id = "raw".getBytes(StandardCharsets.UTF_8);
+            writeFrame(out, WorkProtocol.HELLO, ByteBuffer.allocate(6 + id.length)
+                    .putInt(WorkProtocol.PROTOCOL_MAGIC).putShort(WorkProtocol.PROTOCOL_VERSION).put(id).array());
+
+            ByteBuffer work = readFrame(in, WorkProtocol.WORK);
+            long jobId = work.getLong();
+            int firstNonce = work.getInt();
+            assertEquals(WorkCoordinator.DEFAULT_RANGE_SIZE, work.getLong(), "Ranges should have the default size.");
+            assertEquals(8, work.getInt(), "Work should carry the share target.");
+            byte[] header = new byte[BlockHeader.SERIALIZED_SIZE];
+            work.get(header);
+
+            // A nonce outside the assigned range is rejected
+            submit(out, jobId, firstNonce - 1);
+            assertEquals(WorkProtocol.RESULT_REJECTED, readFrame(in, WorkProtocol.RESULT).get(12),
+                    "Nonces outside the range should be rejected.");
+
+            // The node mines a block itself: the worker is told to abandon its job and gets one on the new tip
+            Block mined = node.mineBlock().get();
+            assertEquals(jobId, readFrame(in, WorkProtocol.ABANDON).getLong(), "The old job should be abandoned.");
+            ByteBuffer newWork = readFrame(in, WorkProtocol.WORK);
+            assertTrue(newWork.getLong() > jobId, "The new job should have a new ID.");
+            newWork.position(newWork.position() + 16);
+            byte[] previousHash = new byte[Hash256.BYTES];
+            newWork.get(previousHash);
+            assertEquals(mined.getHash(), Hash256.fromBytes(previousHash), "The new job should build on the new tip.");
+
+            submit(out, jobId, firstNonce);
+            assertEquals(WorkProtocol.RESULT_STALE, readFrame(in, WorkProtocol.RESULT).get(12),
+                    "Shares for the old tip should be stale.");
+            waitFor(() -> coordinator.getWorkers().get(0).getStaleShares() == 1);
+            assertEquals(1, coordinator.getWorkers().get(0).getRejectedShares(), "The rejection should be counted.");
+        }
+    }
+
+    @Test
+    public void testWorkerThatDoesNotReadIsDropped() throws Exception {
+        Node node = new Node("Coordinator", new Blockchain(1));
+        try (WorkCoordinator coordinator = new WorkCoordinator(node);
+             Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(1024);
+            socket.connect(coordinator.start(LOOPBACK));
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            byte[] id = "deaf".getBytes(StandardCharsets.UTF_8);
+            writeFrame(out, WorkProtocol.HELLO, ByteBuffer.allocate(6 + id.length)
+                    .putInt(WorkProtocol.PROTOCOL_MAGIC).putShort(WorkProtocol.PROTOCOL_VERSION).put(id).array());
+            waitFor(() -> coordinator.getWorkers().size() == 1);
+
+            // Every new tip queues frames for the worker, until its socket buffers and its queue are full
+            long deadline = System.currentTimeMillis() + 20_000;
+            while (!coordinator.getWorkers().isEmpty()) {
+                assertTrue(System.currentTimeMillis() < deadline, "A worker that does not read should be dropped.");
+                node.mineBlock().join();
+            }
+        }
+    }
+
+    @Test
+    public void testRejectsSettingsOutsideTheTargets() {
+        Node node = new Node("Coordinator", new Blockchain(2));
+        try (WorkCoordinator coordinator = new WorkCoordinator(node)) {
+            assertThrows(IllegalArgumentException.class, () -> coordinator.setShareZeroBits(9),
+                    "Shares cannot be harder than blocks.");
+            assertThrows(IllegalArgumentException.class, () -> coordinator.setRangeSize(0),
+                    "Ranges cannot be empty.");
+        }
+    }
+
+    private static void submit(DataOutputStream out, long jobId, int nonce) throws IOException {
+        writeFrame(out, WorkProtocol.SUBMIT, ByteBuffer.allocate(20).putLong(jobId).putInt(nonce).putLong(0).array());
+    }
+
+    private static void writeFrame(DataOutputStream out, byte type, byte[] payload) throws IOException {
+        out.writeInt(1 + payload.length);
+        out.writeByte(type);
+        out.write(payload);
+        out.flush();
+    }
+
+    /**
+     * Reads a frame of the expected type and returns its payload.
+     */
+    private static ByteBuffer readFrame(DataInputStream in, byte expectedType) throws IOException {
+        byte[] frame = new byte[in.readInt()];
+        in.readFully(frame);
+        assertEquals(expectedType, frame[0], "Unexpected frame type.");
+        return ByteBuffer.wrap(frame, 1, frame.length - 1).slice();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the workers.");
+            Thread.sleep(10);
+        }
+    }
+}